@@ -18,6 +18,7 @@ plugins {
   application
   id("com.github.johnrengelman.shadow") version "7.1.2"
   id("org.sonarqube") version "3.4.0.2513"
+  id("me.champeau.jmh") version "0.6.8"
 }
 
 repositories {
@@ -53,6 +54,8 @@ dependencies {
   testImplementation("org.junit.jupiter:junit-jupiter:5.9.0")
   testImplementation("org.mockito:mockito-inline:4.7.0")
   testImplementation("org.mockito:mockito-junit-jupiter:4.7.0")
+
+  // JMH itself is added by the jmh plugin, see the `jmh` block below.
 }
 
 /**
@@ -624,6 +627,74 @@ tasks.register("genFiles") {
   dependsOn("genBuildInfo", "genVhdlSyntax")
 }
 
+/**
+ * Benchmarks, in src/jmh/java. Run them with `./gradlew jmh`; a subset can be selected with
+ * `-PjmhIncludes=<regexp>`. Results are written as JSON so that `jmhCompare` can compare them
+ * with an earlier run. The SoC benchmark needs a display, as the SoC bus keeps its memory map in a
+ * dialog; on a server, run the task under `xvfb-run`.
+ */
+jmh {
+  jmhVersion.set("1.35")
+  resultFormat.set("JSON")
+  resultsFile.set(file("${buildDir}/results/jmh/results.json"))
+  val includesProp = findProperty("jmhIncludes") as String?
+  if (includesProp != null) includes.add(includesProp)
+}
+
+/**
+ * Task: jmhCompare
+ *
+ * Compares the results of the last `jmh` run with a baseline given as `-PjmhBaseline=<file>`,
+ * usually a copy of build/results/jmh/results.json from an earlier run, and prints the change of
+ * each score. Fails if a benchmark got slower than `-PjmhTolerance=<percent>` (default 10) allows.
+ */
+tasks.register("jmhCompare") {
+  group = "verification"
+  description = "Compares the last JMH results with a baseline."
+
+  doLast {
+    val baselineProp = findProperty("jmhBaseline") as String?
+        ?: throw GradleException("Give the baseline results file with -PjmhBaseline=<file>.")
+    val tolerance = (findProperty("jmhTolerance") as String? ?: "10").toDouble()
+    val slurper = groovy.json.JsonSlurper()
+
+    // Key is the benchmark name with its parameters; value is the score and its unit.
+    fun readScores(f: File): Map<String, Pair<Double, String>> {
+      @Suppress("UNCHECKED_CAST")
+      val runs = slurper.parse(f) as List<Map<String, Any?>>
+      return runs.associate { run ->
+        @Suppress("UNCHECKED_CAST")
+        val params = (run["params"] as Map<String, Any?>?)?.entries?.joinToString(",") { "${it.key}=${it.value}" }
+        @Suppress("UNCHECKED_CAST")
+        val metric = run["primaryMetric"] as Map<String, Any?>
+        val key = if (params.isNullOrEmpty()) run["benchmark"] as String else "${run["benchmark"]}(${params})"
+        key to Pair((metric["score"] as Number).toDouble(), metric["scoreUnit"] as String)
+      }
+    }
+
+    val baseline = readScores(file(baselineProp))
+    val current = readScores(file("${buildDir}/results/jmh/results.json"))
+    var regressions = 0
+    for ((name, score) in current.toSortedMap()) {
+      val base = baseline[name]
+      if (base == null || base.second != score.second) {
+        println(String.format("%-80s %12.3f %s (no baseline)", name, score.first, score.second))
+        continue
+      }
+      // Throughput units ("ops/...") are better when higher, time units ("..../op") when lower.
+      val higherIsBetter = score.second.startsWith("ops/")
+      val change = (score.first - base.first) / base.first * 100
+      val worse = if (higherIsBetter) -change else change
+      if (worse > tolerance) regressions++
+      println(String.format("%-80s %12.3f -> %12.3f %s (%+.1f%%)%s",
+          name, base.first, score.first, score.second, change, if (worse > tolerance) " SLOWER" else ""))
+    }
+    if (regressions > 0) {
+      throw GradleException("${regressions} benchmark(s) slower than the baseline by more than ${tolerance}%.")
+    }
+  }
+}
+
 /**
  * Task: createAll
  *
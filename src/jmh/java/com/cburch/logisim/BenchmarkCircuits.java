@@ -0,0 +1,263 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim;
+
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Pin;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Generates the circuits the benchmarks run on, as the text of a .circ file, so they can be scaled
+ * by a benchmark parameter. Components are placed so that connected ports coincide; only the bus
+ * fabric uses wires.
+ */
+public final class BenchmarkCircuits {
+  private BenchmarkCircuits() {}
+
+  private static final String HEADER =
+      """
+      <?xml version="1.0" encoding="UTF-8" standalone="no"?>
+      <project source="3.8.0" version="1.0">
+        <lib desc="#Wiring" name="0"/>
+        <lib desc="#Gates" name="1"/>
+        <lib desc="#Arithmetic" name="3"/>
+        <lib desc="#Memory" name="4"/>
+        <lib desc="#Soc" name="5"/>
+        <main name="main"/>
+        <circuit name="main">
+      """;
+
+  private static final String FOOTER =
+      """
+        </circuit>
+      </project>
+      """;
+
+  private static void pin(StringBuilder buf, int x, int y, String label, int width, boolean out) {
+    buf.append(String.format("<comp lib=\"0\" loc=\"(%d,%d)\" name=\"Pin\">", x, y));
+    buf.append(String.format("<a name=\"width\" val=\"%d\"/>", width));
+    buf.append(String.format("<a name=\"label\" val=\"%s\"/>", label));
+    if (out) buf.append("<a name=\"output\" val=\"true\"/><a name=\"facing\" val=\"west\"/>");
+    buf.append("</comp>\n");
+  }
+
+  private static void wire(StringBuilder buf, int x0, int y0, int x1, int y1) {
+    buf.append(String.format("<wire from=\"(%d,%d)\" to=\"(%d,%d)\"/>\n", x0, y0, x1, y1));
+  }
+
+  /**
+   * A ripple-carry adder made of 1-bit adders, each one's carry out on the next one's carry in.
+   * Inputs are A0.., B0.. and CIN; outputs are S0.. and COUT.
+   */
+  public static String rippleAdder(int bits) {
+    final var buf = new StringBuilder(HEADER);
+    rippleAdder(buf, bits);
+    return buf.append(FOOTER).toString();
+  }
+
+  private static void rippleAdder(StringBuilder buf, int bits) {
+    pin(buf, 80, 80, "CIN", 1, false);
+    for (var i = 0; i < bits; i++) {
+      final var y = 100 + 40 * i;
+      buf.append(String.format("<comp lib=\"3\" loc=\"(100,%d)\" name=\"Adder\">", y));
+      buf.append("<a name=\"width\" val=\"1\"/></comp>\n");
+      pin(buf, 60, y - 10, "A" + i, 1, false);
+      pin(buf, 60, y + 10, "B" + i, 1, false);
+      pin(buf, 100, y, "S" + i, 1, true);
+    }
+    pin(buf, 80, 80 + 40 * bits, "COUT", 1, true);
+  }
+
+  private static void gate(StringBuilder buf, String name, int x, int y) {
+    buf.append(String.format("<comp lib=\"1\" loc=\"(%d,%d)\" name=\"%s Gate\">", x, y, name));
+    buf.append("<a name=\"size\" val=\"30\"/></comp>\n");
+  }
+
+  /**
+   * A chain of stages made of gates, each computing (C AND A) XOR (C OR A) from the carry C of the
+   * stage before it and an input A<i>, so that every carry is used twice by the next stage. The
+   * chain starts at the input CIN and ends at the output COUT.
+   */
+  public static String carryChain(int stages) {
+    final var buf = new StringBuilder(HEADER);
+    pin(buf, 100, 200, "CIN", 1, false);
+    for (var i = 0; i < stages; i++) {
+      final var x = 100 + 150 * i;
+      // the carry goes to the inner inputs of the AND and the OR gate, A to the outer ones
+      wire(buf, x, 200, x + 30, 200);
+      wire(buf, x + 30, 180, x + 30, 200);
+      wire(buf, x + 30, 200, x + 30, 220);
+      pin(buf, x + 20, 160, "A" + i, 1, false);
+      wire(buf, x + 20, 160, x + 30, 160);
+      wire(buf, x + 20, 160, x + 20, 240);
+      wire(buf, x + 20, 240, x + 30, 240);
+      gate(buf, "AND", x + 60, 170);
+      gate(buf, "OR", x + 60, 230);
+      wire(buf, x + 60, 170, x + 90, 170);
+      wire(buf, x + 90, 170, x + 90, 190);
+      wire(buf, x + 60, 230, x + 90, 230);
+      wire(buf, x + 90, 230, x + 90, 210);
+      gate(buf, "XOR", x + 130, 200);
+      wire(buf, x + 130, 200, x + 150, 200);
+    }
+    pin(buf, 100 + 150 * stages, 200, "COUT", 1, true);
+    return buf.append(FOOTER).toString();
+  }
+
+  /**
+   * A main circuit with an input pin DATA_IN and one instance each of a number of subcircuits, sub0..,
+   * which are ripple adders like {@link #rippleAdder}, labelled U0... The instances are not
+   * connected.
+   */
+  public static String adderBank(int circuits, int bits) {
+    final var buf = new StringBuilder(HEADER);
+    pin(buf, 100, 50, "DATA_IN", 1, false);
+    for (var i = 0; i < circuits; i++) {
+      // far enough apart that no ports of two instances meet
+      buf.append(String.format("<comp loc=\"(200,%d)\" name=\"sub%d\">", 100 + 50 * bits * i, i));
+      buf.append(String.format("<a name=\"label\" val=\"U%d\"/></comp>\n", i));
+    }
+    buf.append("  </circuit>\n");
+    for (var i = 0; i < circuits; i++) {
+      buf.append(String.format("  <circuit name=\"sub%d\">\n", i));
+      rippleAdder(buf, bits);
+      buf.append("  </circuit>\n");
+    }
+    return buf.append("</project>\n").toString();
+  }
+
+  /**
+   * A pipeline of registers, each one's output on the next one's input, clocked together. The
+   * input is D and the output Q.
+   */
+  public static String registerChain(int stages, int width) {
+    final var buf = new StringBuilder(HEADER);
+    final var y = 100;
+    pin(buf, 100, y, "D", width, false);
+    for (var i = 0; i < stages; i++) {
+      final var x = 130 + 30 * i;
+      buf.append(String.format("<comp lib=\"4\" loc=\"(%d,%d)\" name=\"Register\">", x, y));
+      buf.append(String.format("<a name=\"width\" val=\"%d\"/>", width));
+      buf.append("<a name=\"appearance\" val=\"classic\"/></comp>\n");
+      // the clock line runs below the registers, clear of their clear inputs
+      wire(buf, x - 20, y + 20, x - 20, y + 40);
+      if (i > 0) wire(buf, x - 50, y + 40, x - 20, y + 40);
+    }
+    buf.append(String.format("<comp lib=\"0\" loc=\"(%d,%d)\" name=\"Clock\"/>\n", 110, y + 40));
+    pin(buf, 100 + 30 * stages, y, "Q", width, true);
+    return buf.append(FOOTER).toString();
+  }
+
+  /**
+   * Rows of buses, each made of a number of wire segments from an input pin In<i> to an output pin
+   * Out<i>. Every third row has no input of its own, but is joined to the row above it instead.
+   */
+  public static String busFabric(int rows, int segments, int width) {
+    final var buf = new StringBuilder(HEADER);
+    for (var r = 0; r < rows; r++) {
+      final var y = 100 + 20 * r;
+      if (r % 3 != 1) pin(buf, 100, y, "In" + r, width, false);
+      for (var s = 0; s < segments; s++) wire(buf, 100 + 10 * s, y, 110 + 10 * s, y);
+      pin(buf, 100 + 10 * segments, y, "Out" + r, width, true);
+      if (r % 3 == 1) wire(buf, 110, y - 20, 110, y);
+    }
+    return buf.append(FOOTER).toString();
+  }
+
+  /**
+   * Rows of wires zigzagging from an input pin In<i> to an output pin Out<i>, each row made of the
+   * given number of segments. Unlike the straight buses of {@link #busFabric}, the segments cannot
+   * be merged into longer wires, so the circuit has rows * segments wires.
+   */
+  public static String zigzags(int rows, int segments, int width) {
+    final var buf = new StringBuilder(HEADER);
+    for (var r = 0; r < rows; r++) {
+      final var y = 100 + 20 * r;
+      var x = 100;
+      pin(buf, x, y, "In" + r, width, false);
+      for (var s = 0; s < segments; s++) {
+        // right along the top, down, right along the bottom, up, and so on
+        switch (s % 4) {
+          case 0 -> wire(buf, x, y, x + 10, y);
+          case 1 -> wire(buf, x, y, x, y + 10);
+          case 2 -> wire(buf, x, y + 10, x + 10, y + 10);
+          default -> wire(buf, x, y + 10, x, y);
+        }
+        if (s % 2 == 0) x += 10;
+      }
+      pin(buf, x, segments % 4 == 1 || segments % 4 == 2 ? y + 10 : y, "Out" + r, width, true);
+    }
+    return buf.append(FOOTER).toString();
+  }
+
+  /** The identifier of the bus of {@link #rv32imSoc}. */
+  public static final String SOC_BUS = "0x0000000000000001benchmark";
+
+  /**
+   * A RISC-V processor and a 1 KiB memory at address 0, both on the SoC bus {@link #SOC_BUS}.
+   * The processor's reset is the input RESET and its clock a clock component; it starts at
+   * address 0.
+   */
+  public static String rv32imSoc() {
+    final var buf = new StringBuilder(HEADER);
+    buf.append("<comp lib=\"5\" loc=\"(100,100)\" name=\"SocBus\">");
+    buf.append(String.format("<a name=\"SocBusIdentifier\" val=\"%s\"/></comp>%n", SOC_BUS));
+    buf.append("<comp lib=\"5\" loc=\"(100,300)\" name=\"Socmem\">");
+    buf.append("<a name=\"StartAddress\" val=\"0x0\"/><a name=\"MemSize\" val=\"10\"/>");
+    buf.append(String.format("<a name=\"SocBusSelection\" val=\"%s\"/></comp>%n", SOC_BUS));
+    buf.append("<comp lib=\"5\" loc=\"(500,100)\" name=\"Rv32im\">");
+    buf.append("<a name=\"resetVector\" val=\"0x0\"/>");
+    buf.append(String.format("<a name=\"SocBusSelection\" val=\"%s\"/></comp>%n", SOC_BUS));
+    // the reset and clock ports are at the left edge, 610 and 630 below the top
+    pin(buf, 500, 710, "RESET", 1, false);
+    buf.append("<comp lib=\"0\" loc=\"(500,730)\" name=\"Clock\"/>\n");
+    return buf.append(FOOTER).toString();
+  }
+
+  /** Reads a circuit file from its text. */
+  public static LogisimFile load(String text) throws IOException {
+    return load(text, new Loader(null));
+  }
+
+  /** Reads a circuit file from its text, with a loader that is also used to write it back. */
+  public static LogisimFile load(String text, Loader loader) throws IOException {
+    Main.headless = true;
+    final var in = new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    final var ret = LogisimFile.load(in, loader);
+    if (ret == null) throw new IOException("generated circuit could not be read");
+    return ret;
+  }
+
+  /** Loads a circuit file and creates a propagated state for its main circuit. */
+  public static CircuitState simulate(String text) throws IOException {
+    final var file = load(text);
+    final var state = new CircuitState(new Project(file), file.getMainCircuit());
+    state.getPropagator().propagate();
+    return state;
+  }
+
+  /** Returns the pin with the given label in the main circuit of a state. */
+  public static Instance findPin(CircuitState state, String label) {
+    for (final var comp : state.getCircuit().getNonWires()) {
+      if (comp.getFactory() instanceof Pin
+          && label.equals(comp.getAttributeSet().getValue(StdAttr.LABEL))) {
+        return Instance.getInstanceFor(comp);
+      }
+    }
+    throw new IllegalArgumentException("no pin " + label);
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTextArea;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Minimizing an output with random ones, zeros and don't cares, the same ones on every run: with
+ * all primes up to 12 inputs, and by expanding the terms above.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ImplicantBenchmark {
+  @Param({"8", "12", "16"})
+  int inputs;
+
+  private AnalyzerModel model;
+  // the minimization only runs above 6 inputs when it has somewhere to report to
+  private final JTextArea report = new JTextArea() {
+    @Override
+    public void append(String text) {
+      // the text is of no interest here
+    }
+  };
+
+  @Setup
+  public void setup() {
+    model = new AnalyzerModel();
+    final var vars = new ArrayList<Var>();
+    for (var i = 0; i < inputs; i++) vars.add(new Var("i" + i, 1));
+    model.setVariables(vars, List.of(new Var("o", 1)));
+    final var random = new Random(inputs);
+    final var column = new Entry[1 << inputs];
+    for (var row = 0; row < column.length; row++) {
+      final var choice = random.nextInt(10);
+      column[row] = choice == 0 ? Entry.DONT_CARE : choice < 5 ? Entry.ONE : Entry.ZERO;
+    }
+    model.getTruthTable().setOutputColumn(0, column);
+  }
+
+  @Benchmark
+  public List<Implicant> computeMinimal() {
+    return Implicant.computeMinimal(AnalyzerModel.FORMAT_SUM_OF_PRODUCTS, model, "o", report);
+  }
+}
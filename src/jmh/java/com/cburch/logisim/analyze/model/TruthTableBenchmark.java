@@ -0,0 +1,78 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Filling the truth table of a model with eight outputs, reading the columns back, and compacting
+ * the rows; each output only depends on one of the inputs, so that the rows compact well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TruthTableBenchmark {
+  private static final int OUTPUTS = 8;
+
+  @Param({"12", "16", "20"})
+  int inputs;
+
+  private TruthTable table;
+  private Entry[][] columns;
+
+  @Setup
+  public void setup() {
+    final var model = new AnalyzerModel();
+    final var vars = new ArrayList<Var>();
+    for (var i = 0; i < inputs; i++) vars.add(new Var("i" + i, 1));
+    final var outputs = new ArrayList<Var>();
+    for (var i = 0; i < OUTPUTS; i++) outputs.add(new Var("o" + i, 1));
+    model.setVariables(vars, outputs);
+    table = model.getTruthTable();
+    columns = new Entry[OUTPUTS][1 << inputs];
+    for (var col = 0; col < OUTPUTS; col++) {
+      for (var row = 0; row < columns[col].length; row++) {
+        columns[col][row] = ((row >> (inputs - 1 - col)) & 1) != 0 ? Entry.ONE : Entry.ZERO;
+      }
+    }
+  }
+
+  @Benchmark
+  public List<Entry[]> setAndGetColumns() {
+    table.expandVisibleRows();
+    final var result = new ArrayList<Entry[]>();
+    for (var col = 0; col < OUTPUTS; col++) table.setOutputColumn(col, columns[col]);
+    for (var col = 0; col < OUTPUTS; col++) result.add(table.getOutputColumn(col));
+    return result;
+  }
+
+  @Benchmark
+  public int compactVisibleRows() {
+    setAndGetColumns();
+    table.compactVisibleRows();
+    return table.getVisibleRowCount();
+  }
+}
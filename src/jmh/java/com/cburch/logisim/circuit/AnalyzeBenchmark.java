@@ -0,0 +1,69 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.BenchmarkCircuits;
+import com.cburch.logisim.analyze.model.AnalyzerModel;
+import com.cburch.logisim.instance.Instance;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Computing the expression of a chain of stages that each use the carry of the one before twice,
+ * whose expression as a tree doubles in size with every stage, and its truth table from it; and
+ * checking that the chain is equivalent to a copy of itself, which is not limited to the inputs a
+ * truth table can have.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AnalyzeBenchmark {
+  @Param({"8", "16"})
+  int stages;
+
+  private Circuit circuit;
+  private Circuit copy;
+  private Map<Instance, String> pinNames;
+
+  @Setup
+  public void setup() throws IOException {
+    circuit = BenchmarkCircuits.load(BenchmarkCircuits.carryChain(stages)).getMainCircuit();
+    copy = BenchmarkCircuits.load(BenchmarkCircuits.carryChain(stages)).getMainCircuit();
+    pinNames = Analyze.getPinLabels(circuit);
+  }
+
+  @Benchmark
+  public AnalyzerModel computeExpression() throws AnalyzeException {
+    final var model = new AnalyzerModel();
+    Analyze.computeExpression(model, circuit, pinNames);
+    return model;
+  }
+
+  @Benchmark
+  public List<String> checkEquivalence() throws AnalyzeException {
+    return Analyze.checkEquivalence(circuit, copy);
+  }
+}
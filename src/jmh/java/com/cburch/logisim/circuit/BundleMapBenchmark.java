@@ -0,0 +1,58 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.BenchmarkCircuits;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Wire resolution: how long it takes to work out the wire bundles of a circuit from scratch, as is
+ * done after every edit of its wires.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BundleMapBenchmark {
+  @Param({"16", "128"})
+  int rows;
+
+  @Param({"8", "64"})
+  int segments;
+
+  private Circuit circuit;
+
+  @Setup
+  public void setup() throws IOException {
+    final var file = BenchmarkCircuits.load(BenchmarkCircuits.busFabric(rows, segments, 8));
+    circuit = file.getMainCircuit();
+  }
+
+  @Benchmark
+  public Object computeBundleMap() {
+    final var map = new CircuitWires.BundleMap();
+    circuit.wires.computeBundleMap(map);
+    return map;
+  }
+}
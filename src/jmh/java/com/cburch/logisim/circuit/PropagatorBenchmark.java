@@ -0,0 +1,92 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.BenchmarkCircuits;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.std.wiring.Pin;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Propagation after a change of input: through a ripple-carry adder, where the change of A0 ripples
+ * through every carry, and through a pipeline of registers, where every stage is clocked.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PropagatorBenchmark {
+  @Param({"8", "64", "256"})
+  int size;
+
+  private CircuitState adder;
+  private Instance adderInput;
+  private Value adderValue = Value.FALSE;
+
+  private CircuitState registers;
+  private Instance registerInput;
+  private long registerValue;
+
+  @Setup
+  public void setup() throws IOException {
+    adder = BenchmarkCircuits.simulate(BenchmarkCircuits.rippleAdder(size));
+    // with all B set and no carry in, A0 = 1 carries through every stage
+    for (var i = 0; i < size; i++) {
+      set(adder, BenchmarkCircuits.findPin(adder, "B" + i), Value.TRUE);
+      set(adder, BenchmarkCircuits.findPin(adder, "A" + i), Value.FALSE);
+    }
+    set(adder, BenchmarkCircuits.findPin(adder, "CIN"), Value.FALSE);
+    adder.getPropagator().propagate();
+    adderInput = BenchmarkCircuits.findPin(adder, "A0");
+
+    registers = BenchmarkCircuits.simulate(BenchmarkCircuits.registerChain(size, 32));
+    registerInput = BenchmarkCircuits.findPin(registers, "D");
+  }
+
+  private static void set(CircuitState state, Instance pin, Value value) {
+    Pin.FACTORY.setValue(state.getInstanceState(pin), value);
+    state.markComponentAsDirty(pin.getComponent());
+  }
+
+  @Benchmark
+  public CircuitState rippleAdder() {
+    adderValue = adderValue == Value.TRUE ? Value.FALSE : Value.TRUE;
+    set(adder, adderInput, adderValue);
+    adder.getPropagator().propagate();
+    return adder;
+  }
+
+  @Benchmark
+  public CircuitState registerChain() {
+    set(registers, registerInput, Value.createKnown(32, ++registerValue));
+    final var prop = registers.getPropagator();
+    // one full clock cycle
+    prop.toggleClocks();
+    prop.propagate();
+    prop.toggleClocks();
+    prop.propagate();
+    return registers;
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.data;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The operations on {@link Value} that gates and wires do for every event, on 32-bit values of
+ * which some have unknown or error bits.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ValueBenchmark {
+  private static final int COUNT = 1024;
+
+  private final Value[] values = new Value[COUNT];
+
+  @Setup
+  public void setup() {
+    final var rand = new Random(42);
+    for (var i = 0; i < COUNT; i++) {
+      final long value = rand.nextInt();
+      // one value in eight has unknown bits, one in sixteen error bits
+      final long unknown = i % 8 == 3 ? rand.nextInt() & ~0xffL : 0;
+      final long error = i % 16 == 5 ? rand.nextInt() & 0xffL : 0;
+      values[i] = Value.create(32, error, unknown & ~error, value & ~unknown & ~error);
+    }
+  }
+
+  private Value next(int i) {
+    return values[(i + 1) % COUNT];
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COUNT)
+  public void and(Blackhole bh) {
+    for (var i = 0; i < COUNT; i++) bh.consume(values[i].and(next(i)));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COUNT)
+  public void or(Blackhole bh) {
+    for (var i = 0; i < COUNT; i++) bh.consume(values[i].or(next(i)));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COUNT)
+  public void xor(Blackhole bh) {
+    for (var i = 0; i < COUNT; i++) bh.consume(values[i].xor(next(i)));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COUNT)
+  public void not(Blackhole bh) {
+    for (var i = 0; i < COUNT; i++) bh.consume(values[i].not());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COUNT)
+  public void combine(Blackhole bh) {
+    for (var i = 0; i < COUNT; i++) bh.consume(values[i].combine(next(i)));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COUNT)
+  public void extendWidth(Blackhole bh) {
+    for (var i = 0; i < COUNT; i++) bh.consume(values[i].extendWidth(64, Value.FALSE));
+  }
+}
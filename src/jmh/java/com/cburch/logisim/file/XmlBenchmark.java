@@ -0,0 +1,63 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.file;
+
+import com.cburch.logisim.BenchmarkCircuits;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Reading and writing circuit files, without going through the file system. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class XmlBenchmark {
+  @Param({"64", "512"})
+  int size;
+
+  private Loader loader;
+  private byte[] bytes;
+  private LogisimFile file;
+
+  @Setup
+  public void setup() throws Exception {
+    final var text = BenchmarkCircuits.rippleAdder(size);
+    bytes = text.getBytes(StandardCharsets.UTF_8);
+    loader = new Loader(null);
+    file = BenchmarkCircuits.load(text, loader);
+  }
+
+  @Benchmark
+  public LogisimFile read() throws Exception {
+    return LogisimFile.loadSub(new ByteArrayInputStream(bytes), loader);
+  }
+
+  @Benchmark
+  public int write() {
+    final var out = new ByteArrayOutputStream(bytes.length);
+    file.write(out, loader);
+    return out.size();
+  }
+}
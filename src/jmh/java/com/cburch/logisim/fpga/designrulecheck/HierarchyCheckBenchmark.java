@@ -0,0 +1,66 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.designrulecheck;
+
+import com.cburch.logisim.BenchmarkCircuits;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.proj.Project;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The design rule check of a circuit made of many subcircuits, which are checked at the same time
+ * when their netlists have to be built, and keep them when they do not.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HierarchyCheckBenchmark {
+  @Param({"8", "64"})
+  int circuits;
+
+  private LogisimFile file;
+
+  @Setup
+  public void setup() throws IOException {
+    file = BenchmarkCircuits.load(BenchmarkCircuits.adderBank(circuits, 32));
+    final var proj = new Project(file);
+    for (final var circuit : file.getCircuits()) circuit.annotate(proj, false, false);
+    if (designRuleCheck() != Netlist.DRC_PASSED) {
+      throw new IllegalStateException("design rule check failed");
+    }
+  }
+
+  @Benchmark
+  public int designRuleCheck() {
+    for (final var circuit : file.getCircuits()) circuit.getNetList().clear();
+    return designRuleCheckUnchanged();
+  }
+
+  @Benchmark
+  public int designRuleCheckUnchanged() {
+    return file.getMainCircuit().getNetList().designRuleCheckResult(true, new ArrayList<>());
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.designrulecheck;
+
+import com.cburch.logisim.BenchmarkCircuits;
+import com.cburch.logisim.circuit.Circuit;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The design rule check of a circuit made mostly of wires, in rows of 100 segments, where building
+ * the nets out of the wires is most of the work.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class NetExtractionBenchmark {
+  @Param({"5000", "50000"})
+  int wires;
+
+  private Circuit circuit;
+
+  @Setup
+  public void setup() throws IOException {
+    final var text = BenchmarkCircuits.zigzags(wires / 100, 100, 8);
+    circuit = BenchmarkCircuits.load(text).getMainCircuit();
+    circuit.annotate(false, false);
+    if (designRuleCheck() != Netlist.DRC_PASSED) {
+      throw new IllegalStateException("design rule check failed");
+    }
+  }
+
+  @Benchmark
+  public int designRuleCheck() {
+    circuit.getNetList().clear();
+    return circuit.getNetList().designRuleCheckResult(true, new ArrayList<>());
+  }
+}
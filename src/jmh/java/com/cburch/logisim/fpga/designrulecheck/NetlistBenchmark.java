@@ -0,0 +1,82 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.designrulecheck;
+
+import com.cburch.logisim.BenchmarkCircuits;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitHdlGeneratorFactory;
+import com.cburch.logisim.fpga.file.HdlManifest;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The first steps of the FPGA flow: the design rule check, which builds the netlist, and the
+ * generation of the HDL files from that netlist.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class NetlistBenchmark {
+  @Param({"16", "128"})
+  int size;
+
+  private Circuit circuit;
+  private Path workDir;
+
+  @Setup
+  public void setup() throws IOException {
+    circuit = BenchmarkCircuits.load(BenchmarkCircuits.rippleAdder(size)).getMainCircuit();
+    circuit.annotate(false, false);
+    workDir = Files.createTempDirectory("logisim-hdl");
+    if (designRuleCheck() != Netlist.DRC_PASSED) {
+      throw new IllegalStateException("design rule check failed");
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (final var files = Files.walk(workDir)) {
+      files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public int designRuleCheck() {
+    circuit.getNetList().clear();
+    return circuit.getNetList().designRuleCheckResult(true, new ArrayList<>());
+  }
+
+  @Benchmark
+  public boolean generateHdl() {
+    return new CircuitHdlGeneratorFactory(circuit)
+        .generateAllHDLDescriptions(
+            new HashSet<>(), new HdlManifest(workDir.toString()), workDir.toString(), null);
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.hdlgenerator;
+
+import com.cburch.logisim.BenchmarkCircuits;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.fpga.designrulecheck.Netlist;
+import com.cburch.logisim.fpga.file.HdlManifest;
+import com.cburch.logisim.proj.Project;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The HDL export of a circuit made of many subcircuits, into a directory that already holds it:
+ * with its manifest, which keeps the files of the circuits, and without, which generates them all
+ * but still leaves the files alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HdlExportBenchmark {
+  @Param({"8", "32"})
+  int circuits;
+
+  private Circuit main;
+  private Path directory;
+
+  @Setup
+  public void setup() throws IOException {
+    final var file = BenchmarkCircuits.load(BenchmarkCircuits.adderBank(circuits, 16));
+    final var proj = new Project(file);
+    for (final var circuit : file.getCircuits()) circuit.annotate(proj, false, false);
+    main = file.getMainCircuit();
+    if (main.getNetList().designRuleCheckResult(true, new ArrayList<>()) != Netlist.DRC_PASSED) {
+      throw new IllegalStateException("design rule check failed");
+    }
+    directory = Files.createTempDirectory("logisim-hdl");
+    if (!exportUnchanged()) throw new IllegalStateException("export failed");
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (final var files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public boolean exportUnchanged() {
+    final var manifest = new HdlManifest(directory.toString());
+    return main.getSubcircuitFactory()
+            .getHDLGenerator(main.getStaticAttributes())
+            .generateAllHDLDescriptions(new HashSet<>(), manifest, directory.toString(), null)
+        && manifest.finish(List.of(directory.resolve("vhdl").toString()));
+  }
+
+  @Benchmark
+  public boolean exportWithoutManifest() throws IOException {
+    Files.deleteIfExists(directory.resolve(HdlManifest.FILE_NAME));
+    return exportUnchanged();
+  }
+}
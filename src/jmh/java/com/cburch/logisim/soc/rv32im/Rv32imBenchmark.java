@@ -0,0 +1,105 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.rv32im;
+
+import com.cburch.logisim.BenchmarkCircuits;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.soc.data.SocBusTransaction;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A RISC-V SoC running a small program out of its memory, one instruction per clock cycle. Each
+ * cycle fetches over the SoC bus, and the loop also stores and loads a word, so the benchmark
+ * covers the processor, the bus and the memory together with the propagation of the clock. The
+ * SoC bus keeps its memory map in a dialog, so this benchmark needs a display.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class Rv32imBenchmark {
+  /**
+   * The program, one instruction per word from address 0, assembled by hand from the source in the
+   * comments; the processor's disassembly of each word gives back its line. It counts to 100 over
+   * and over, squaring each count after a round trip through the memory.
+   */
+  static final int[] PROGRAM = {
+    0x06400113, //         li   sp,100
+    0x00000093, // start:  li   ra,0
+    0x00108093, // loop:   addi ra,ra,1
+    0x10102023, //         sw   ra,256(zero)
+    0x10002183, //         lw   gp,256(zero)
+    0x02318233, //         mul  tp,gp,gp
+    0xFE2098E3, //         bne  ra,sp,loop
+    0xFE9FF06F, //         j    start
+  };
+
+  private CircuitState soc;
+
+  @Setup
+  public void setup() throws IOException {
+    soc = BenchmarkCircuits.simulate(BenchmarkCircuits.rv32imSoc());
+    load(soc, getProcessor(soc));
+  }
+
+  /** Returns the processor of the SoC. */
+  static Instance getProcessor(CircuitState state) {
+    for (final var comp : state.getCircuit().getNonWires()) {
+      if (comp.getFactory() instanceof Rv32imRiscV) return Instance.getInstanceFor(comp);
+    }
+    throw new IllegalArgumentException("no processor");
+  }
+
+  /**
+   * Writes {@link #PROGRAM} into the memory over the bus, as the assembler's download does, then
+   * resets the processor to its first word and starts it.
+   */
+  static void load(CircuitState state, Instance processor) {
+    final var cpu = processor.getAttributeValue(RV32imAttributes.RV32IM_STATE);
+    for (var i = 0; i < PROGRAM.length; i++) {
+      final var trans =
+          new SocBusTransaction(
+              SocBusTransaction.WRITE_TRANSACTION,
+              4 * i,
+              PROGRAM[i],
+              SocBusTransaction.WORD_ACCESS,
+              "Rv32imBenchmark");
+      cpu.insertTransaction(trans, true, state);
+      if (trans.hasError()) throw new IllegalStateException(trans.getErrorMessage());
+    }
+    cpu.setEntryPointandReset(state, 0, null, null);
+    ((RV32imState.ProcessorState) processor.getData(state)).simButtonPressed();
+  }
+
+  @Benchmark
+  public CircuitState instruction() {
+    final var prop = soc.getPropagator();
+    // one full clock cycle, the processor executing on the rising edge
+    prop.toggleClocks();
+    prop.propagate();
+    prop.toggleClocks();
+    prop.propagate();
+    return soc;
+  }
+}
@@ -20,6 +20,7 @@ import javax.swing.JDialog;
 import javax.swing.JFrame;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
+import javax.swing.SwingWorker;
 import javax.swing.text.DefaultCaret;
 
 import com.cburch.logisim.analyze.model.AnalyzerModel;
@@ -55,7 +56,7 @@ public class MinimizeButton  extends JButton {
     final var pane = new JScrollPane(info);
     pane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
     pane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
-    final var doneButton = new JButton(S.get("minimizeDone"));
+    final var doneButton = new JButton(S.get("minimizeCancel"));
     final var infoPanel = new JDialog(
           parent, 
           S.get("minimizeFunctionTitle"), 
@@ -63,30 +64,30 @@ public class MinimizeButton  extends JButton {
     infoPanel.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
     infoPanel.add(pane, BorderLayout.CENTER);
     infoPanel.add(doneButton, BorderLayout.SOUTH);
-    doneButton.setVisible(false);
     infoPanel.setLocationRelativeTo(parent);
     infoPanel.pack();
-    final var dialogThread = new Thread(
-          new Runnable() {
-              void done() {
-                infoPanel.dispose();
-              }
+    // the optimization can be cancelled, which interrupts it, until it is done
+    final var worker = new SwingWorker<Void, Void>() {
+      @Override
+      protected Void doInBackground() {
+        model.getOutputExpressions().forcedOptimize(info, format);
+        return null;
+      }
 
-              public void run() {
-                doneButton.addActionListener(Event -> done());
-                infoPanel.setVisible(true);
-              }
-          }
-    );
-    dialogThread.start();
-    final var optimizeThread = new Thread(
-        new Runnable() {
-            public void run() {
-                model.getOutputExpressions().forcedOptimize(info, format);
-                doneButton.setVisible(true);
-            }
-        }
-    );
-    optimizeThread.start();
+      @Override
+      protected void done() {
+        if (isCancelled()) info.append(String.format("\n\n%s", S.get("minimizeCancelled")));
+        doneButton.setText(S.get("minimizeDone"));
+      }
+    };
+    doneButton.addActionListener(event -> {
+      if (worker.isDone()) {
+        infoPanel.dispose();
+      } else {
+        worker.cancel(true);
+      }
+    });
+    worker.execute();
+    infoPanel.setVisible(true);
   }
 }
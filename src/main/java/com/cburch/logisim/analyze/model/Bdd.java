@@ -0,0 +1,414 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.function.ToIntFunction;
+
+/**
+ * Reduced ordered binary decision diagrams. All diagrams of a manager share one table of nodes,
+ * given as ints: {@link #FALSE} and {@link #TRUE} are the constants, and every other node has a
+ * variable and the nodes for the variable being 0 and 1. The variables are ordered by index, the
+ * lowest at the top. A unique table keeps every node only once, so two functions are the same
+ * exactly when their nodes are, and a computed cache remembers the results of recent operations.
+ *
+ * <p>Nodes that are not referenced, see {@link #ref}, and are not an operand may be collected at the
+ * start of any operation once the table fills up; the table only grows when a collection does not
+ * free enough of it, and never beyond the limit given to the manager.
+ */
+public class Bdd {
+
+  public static final int FALSE = 0;
+  public static final int TRUE = 1;
+
+  /** Thrown when an operation needs more nodes than the manager may have. */
+  public static class NodeLimitException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    NodeLimitException(int limit) {
+      super("more than " + limit + " nodes");
+    }
+  }
+
+  public static final int DEFAULT_NODE_LIMIT = 1 << 20;
+
+  private static final int INITIAL_SIZE = 1 << 12;
+  // the variable of the constants, below all others
+  private static final int CONSTANT = Integer.MAX_VALUE;
+  // the variable of the nodes in the free list
+  private static final int FREE = -1;
+
+  private static final int AND = 0;
+  private static final int OR = 1;
+  private static final int XOR = 2;
+  private static final int NOT = 3;
+
+  private final int nodeLimit;
+  private int[] variables;
+  private int[] lows;
+  private int[] highs;
+  // the next node in the same bucket of the unique table, or in the free list
+  private int[] nexts;
+  private int[] refs;
+  private int[] buckets;
+  private int freeList;
+  private int nodeCount;
+
+  private int[] cacheOps;
+  private int[] cacheFirsts;
+  private int[] cacheSeconds;
+  private int[] cacheResults;
+
+  public Bdd() {
+    this(DEFAULT_NODE_LIMIT);
+  }
+
+  public Bdd(int nodeLimit) {
+    this.nodeLimit = Math.max(nodeLimit, INITIAL_SIZE);
+    variables = new int[INITIAL_SIZE];
+    lows = new int[INITIAL_SIZE];
+    highs = new int[INITIAL_SIZE];
+    nexts = new int[INITIAL_SIZE];
+    refs = new int[INITIAL_SIZE];
+    variables[FALSE] = CONSTANT;
+    variables[TRUE] = CONSTANT;
+    nodeCount = 2;
+    freeNodes(2, INITIAL_SIZE);
+    rehash();
+  }
+
+  /** Returns the number of nodes in use, the constants included. */
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  /** Keeps a node, and all below it, from being collected, until as many {@link #deref}s. */
+  public int ref(int node) {
+    refs[node]++;
+    return node;
+  }
+
+  public void deref(int node) {
+    if (refs[node] <= 0) throw new IllegalStateException("node is not referenced");
+    refs[node]--;
+  }
+
+  public int variable(int index) {
+    if (index < 0) throw new IllegalArgumentException("bad variable index");
+    prepare(FALSE, FALSE);
+    return makeNode(index, FALSE, TRUE);
+  }
+
+  public int not(int node) {
+    prepare(node, FALSE);
+    return negate(node);
+  }
+
+  public int and(int first, int second) {
+    prepare(first, second);
+    return apply(AND, first, second);
+  }
+
+  public int or(int first, int second) {
+    prepare(first, second);
+    return apply(OR, first, second);
+  }
+
+  public int xor(int first, int second) {
+    prepare(first, second);
+    return apply(XOR, first, second);
+  }
+
+  public int xnor(int first, int second) {
+    prepare(first, second);
+    return negate(apply(XOR, first, second));
+  }
+
+  /**
+   * Builds the diagram of an expression, each of its subexpressions only once, and returns it
+   * referenced. The function gives the index of the variable of a name, or -1 for a name that is
+   * always 0. Interrupting the thread cancels the build with a {@link CancellationException}.
+   */
+  public int build(Expression expr, ToIntFunction<String> variableIndexes) {
+    final var built = new IdentityHashMap<Expression, Integer>();
+    final var result =
+        new Expression.Visitor<Integer>() {
+          int get(Expression expr) {
+            var ret = built.get(expr);
+            if (ret == null) {
+              if (Thread.currentThread().isInterrupted()) throw new CancellationException();
+              ret = ref(expr.visit(this));
+              built.put(expr, ret);
+            }
+            return ret;
+          }
+
+          @Override
+          public Integer visitVariable(String name) {
+            final var index = variableIndexes.applyAsInt(name);
+            return index < 0 ? FALSE : variable(index);
+          }
+
+          @Override
+          public Integer visitConstant(int value) {
+            return (value & 1) != 0 ? TRUE : FALSE;
+          }
+
+          @Override
+          public Integer visitNot(Expression a) {
+            return not(get(a));
+          }
+
+          @Override
+          public Integer visitAnd(Expression a, Expression b) {
+            return and(get(a), get(b));
+          }
+
+          @Override
+          public Integer visitOr(Expression a, Expression b) {
+            return or(get(a), get(b));
+          }
+
+          @Override
+          public Integer visitXor(Expression a, Expression b) {
+            return xor(get(a), get(b));
+          }
+
+          @Override
+          public Integer visitXnor(Expression a, Expression b) {
+            return xnor(get(a), get(b));
+          }
+
+          @Override
+          public Integer visitEq(Expression a, Expression b) {
+            return xnor(get(a), get(b));
+          }
+        }.get(expr);
+    ref(result);
+    for (final var node : built.values()) deref(node);
+    return result;
+  }
+
+  /**
+   * Returns the rows of a truth table for which a node is 1, where the first of the given number of
+   * variables is the highest bit of the row index.
+   */
+  public BitSet getOnes(int node, int variableCount) {
+    final var ones = new BitSet(1 << variableCount);
+    addOnes(node, 0, variableCount, 0, ones);
+    return ones;
+  }
+
+  private void addOnes(int node, int variable, int variableCount, int row, BitSet ones) {
+    if (node == FALSE) return;
+    final var rows = 1 << (variableCount - variable);
+    if (node == TRUE) {
+      ones.set(row, row + rows);
+      return;
+    }
+    if (variables[node] >= variableCount) throw new IllegalArgumentException("bad variable count");
+    final var half = rows / 2;
+    if (variables[node] > variable) {
+      addOnes(node, variable + 1, variableCount, row, ones);
+      addOnes(node, variable + 1, variableCount, row + half, ones);
+    } else {
+      addOnes(lows[node], variable + 1, variableCount, row, ones);
+      addOnes(highs[node], variable + 1, variableCount, row + half, ones);
+    }
+  }
+
+  /**
+   * Returns values of the given number of variables for which a node is 1, the variables it does
+   * not depend on being 0, or null if it is never 1.
+   */
+  public boolean[] getAssignment(int node, int variableCount) {
+    if (node == FALSE) return null;
+    final var values = new boolean[variableCount];
+    while (node != TRUE) {
+      if (variables[node] >= variableCount) throw new IllegalArgumentException("bad variable count");
+      if (lows[node] == FALSE) {
+        values[variables[node]] = true;
+        node = highs[node];
+      } else {
+        node = lows[node];
+      }
+    }
+    return values;
+  }
+
+  private void freeNodes(int from, int to) {
+    for (var node = to - 1; node >= from; node--) {
+      variables[node] = FREE;
+      nexts[node] = freeList;
+      freeList = node;
+    }
+  }
+
+  private static int hash(int a, int b, int c) {
+    var h = a * 0x9e3779b9 + b;
+    h = h * 0x9e3779b9 + c;
+    return h ^ (h >>> 16);
+  }
+
+  private void rehash() {
+    final var size = variables.length;
+    buckets = new int[size];
+    for (var node = 2; node < size; node++) {
+      if (variables[node] == FREE) continue;
+      final var bucket = hash(variables[node], lows[node], highs[node]) & (size - 1);
+      nexts[node] = buckets[bucket];
+      buckets[bucket] = node;
+    }
+    cacheOps = new int[size];
+    Arrays.fill(cacheOps, -1);
+    cacheFirsts = new int[size];
+    cacheSeconds = new int[size];
+    cacheResults = new int[size];
+  }
+
+  private void grow() {
+    final var size = variables.length;
+    if (size >= nodeLimit) throw new NodeLimitException(nodeLimit);
+    final var newSize = Math.min(2 * size, nodeLimit);
+    variables = Arrays.copyOf(variables, newSize);
+    lows = Arrays.copyOf(lows, newSize);
+    highs = Arrays.copyOf(highs, newSize);
+    nexts = Arrays.copyOf(nexts, newSize);
+    refs = Arrays.copyOf(refs, newSize);
+    freeNodes(size, newSize);
+    rehash();
+  }
+
+  /**
+   * Collects the nodes that are neither referenced nor below one, nor below the operands, if the
+   * table is nearly full, and grows it if that leaves it more than half full. This is only done
+   * before an operation, as the nodes an operation makes are not referenced until it returns.
+   */
+  private void prepare(int first, int second) {
+    final var size = variables.length;
+    if (4 * nodeCount < 3 * size) return;
+    final var marks = new BitSet(size);
+    mark(first, marks);
+    mark(second, marks);
+    for (var node = 2; node < size; node++) {
+      if (refs[node] > 0) mark(node, marks);
+    }
+    freeList = 0;
+    nodeCount = 2;
+    for (var node = size - 1; node >= 2; node--) {
+      if (marks.get(node)) {
+        nodeCount++;
+      } else {
+        variables[node] = FREE;
+        nexts[node] = freeList;
+        freeList = node;
+      }
+    }
+    if (2 * nodeCount > size && size < nodeLimit) {
+      grow();
+    } else {
+      rehash();
+    }
+  }
+
+  private void mark(int node, BitSet marks) {
+    while (node > TRUE && !marks.get(node)) {
+      marks.set(node);
+      mark(lows[node], marks);
+      node = highs[node];
+    }
+  }
+
+  private int makeNode(int variable, int low, int high) {
+    if (low == high) return low;
+    var bucket = hash(variable, low, high) & (buckets.length - 1);
+    for (var node = buckets[bucket]; node != 0; node = nexts[node]) {
+      if (variables[node] == variable && lows[node] == low && highs[node] == high) return node;
+    }
+    if (freeList == 0) {
+      grow();
+      bucket = hash(variable, low, high) & (buckets.length - 1);
+    }
+    final var node = freeList;
+    freeList = nexts[node];
+    variables[node] = variable;
+    lows[node] = low;
+    highs[node] = high;
+    refs[node] = 0;
+    nexts[node] = buckets[bucket];
+    buckets[bucket] = node;
+    nodeCount++;
+    return node;
+  }
+
+  private int negate(int node) {
+    if (node <= TRUE) return TRUE - node;
+    var slot = hash(NOT, node, 0) & (cacheOps.length - 1);
+    if (cacheOps[slot] == NOT && cacheFirsts[slot] == node) return cacheResults[slot];
+    final var result =
+        makeNode(variables[node], negate(lows[node]), negate(highs[node]));
+    // the cache is new if the table grew
+    slot = hash(NOT, node, 0) & (cacheOps.length - 1);
+    cacheOps[slot] = NOT;
+    cacheFirsts[slot] = node;
+    cacheSeconds[slot] = 0;
+    cacheResults[slot] = result;
+    return result;
+  }
+
+  private int apply(int op, int first, int second) {
+    switch (op) {
+      case AND:
+        if (first == FALSE || second == FALSE) return FALSE;
+        if (first == TRUE || first == second) return second;
+        if (second == TRUE) return first;
+        break;
+      case OR:
+        if (first == TRUE || second == TRUE) return TRUE;
+        if (first == FALSE || first == second) return second;
+        if (second == FALSE) return first;
+        break;
+      default:
+        if (first == second) return FALSE;
+        if (first == FALSE) return second;
+        if (second == FALSE) return first;
+        if (first == TRUE) return negate(second);
+        if (second == TRUE) return negate(first);
+        break;
+    }
+    // all operations are symmetric
+    if (first > second) {
+      final var swap = first;
+      first = second;
+      second = swap;
+    }
+    var slot = hash(op, first, second) & (cacheOps.length - 1);
+    if (cacheOps[slot] == op && cacheFirsts[slot] == first && cacheSeconds[slot] == second) {
+      return cacheResults[slot];
+    }
+    final var variable = Math.min(variables[first], variables[second]);
+    final var firstTop = variables[first] == variable;
+    final var secondTop = variables[second] == variable;
+    final var low =
+        apply(op, firstTop ? lows[first] : first, secondTop ? lows[second] : second);
+    final var high =
+        apply(op, firstTop ? highs[first] : first, secondTop ? highs[second] : second);
+    final var result = makeNode(variable, low, high);
+    slot = hash(op, first, second) & (cacheOps.length - 1);
+    cacheOps[slot] = op;
+    cacheFirsts[slot] = first;
+    cacheSeconds[slot] = second;
+    cacheResults[slot] = result;
+    return result;
+  }
+}
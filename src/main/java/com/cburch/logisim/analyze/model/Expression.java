@@ -14,8 +14,9 @@ import static com.cburch.logisim.analyze.Strings.S;
 import com.cburch.logisim.analyze.data.Range;
 import com.cburch.logisim.analyze.model.Var.Bit;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 public abstract class Expression {
   public interface Visitor<T> {
@@ -58,24 +59,6 @@ public abstract class Expression {
     }
   }
 
-  protected interface IntVisitor {
-    int visitVariable(String name);
-
-    int visitConstant(int value);
-
-    int visitNot(Expression a);
-
-    int visitAnd(Expression a, Expression b);
-
-    int visitOr(Expression a, Expression b);
-
-    int visitXor(Expression a, Expression b);
-
-    int visitXnor(Expression a, Expression b);
-
-    int visitEq(Expression a, Expression b);
-  }
-
   public boolean contains(Op o) {
     return o
         == visit(
@@ -92,51 +75,63 @@ public abstract class Expression {
             });
   }
 
-  public boolean evaluate(final Assignments assignments) {
-    int ret =
-        visit(
-            new IntVisitor() {
-              @Override
-              public int visitAnd(Expression a, Expression b) {
-                return a.visit(this) & b.visit(this);
-              }
+  /**
+   * Evaluates the expression for 64 assignments at once: bit i of the result is its value for the
+   * assignment made of bit i of the values of the variables. A subexpression that occurs more than
+   * once is evaluated only once.
+   */
+  public long evaluate(final Map<String, Long> values) {
+    final var known = new IdentityHashMap<Expression, Long>();
+    return new Visitor<Long>() {
+      long get(Expression expr) {
+        var ret = known.get(expr);
+        if (ret == null) {
+          ret = expr.visit(this);
+          known.put(expr, ret);
+        }
+        return ret;
+      }
 
-              @Override
-              public int visitConstant(int value) {
-                return value;
-              }
+      @Override
+      public Long visitVariable(String name) {
+        return values.getOrDefault(name, 0L);
+      }
 
-              @Override
-              public int visitNot(Expression a) {
-                return ~a.visit(this);
-              }
+      @Override
+      public Long visitConstant(int value) {
+        return (value & 1) != 0 ? -1L : 0L;
+      }
 
-              @Override
-              public int visitOr(Expression a, Expression b) {
-                return a.visit(this) | b.visit(this);
-              }
+      @Override
+      public Long visitNot(Expression a) {
+        return ~get(a);
+      }
 
-              @Override
-              public int visitVariable(String name) {
-                return assignments.get(name) ? 1 : 0;
-              }
+      @Override
+      public Long visitAnd(Expression a, Expression b) {
+        return get(a) & get(b);
+      }
 
-              @Override
-              public int visitXor(Expression a, Expression b) {
-                return a.visit(this) ^ b.visit(this);
-              }
+      @Override
+      public Long visitOr(Expression a, Expression b) {
+        return get(a) | get(b);
+      }
 
-              @Override
-              public int visitXnor(Expression a, Expression b) {
-                return ~(a.visit(this) ^ b.visit(this));
-              }
+      @Override
+      public Long visitXor(Expression a, Expression b) {
+        return get(a) ^ get(b);
+      }
 
-              @Override
-              public int visitEq(Expression a, Expression b) {
-                return ~(a.visit(this) ^ b.visit(this) & 1);
-              }
-            });
-    return (ret & 1) != 0;
+      @Override
+      public Long visitXnor(Expression a, Expression b) {
+        return ~(get(a) ^ get(b));
+      }
+
+      @Override
+      public Long visitEq(Expression a, Expression b) {
+        return ~(get(a) ^ get(b));
+      }
+    }.get(this);
   }
 
   public enum Notation {
@@ -257,32 +252,6 @@ public abstract class Expression {
 
   public abstract Op getOp();
 
-  public boolean isCircular() {
-    final HashSet<Expression> visited = new HashSet<>();
-    visited.add(this);
-    Object loop = new Object();
-    return loop == visit(new Visitor<>() {
-      @Override
-      public Object visitBinary(Expression a, Expression b, Op op) {
-        if (!visited.add(a)) return loop;
-        if (a.visit(this) == loop) return loop;
-        visited.remove(a);
-        if (!visited.add(b)) return loop;
-        if (b.visit(this) == loop) return loop;
-        visited.remove(b);
-        return null;
-      }
-
-      @Override
-      public Object visitNot(Expression a) {
-        if (!visited.add(a)) return loop;
-        if (a.visit(this) == loop) return loop;
-        visited.remove(a);
-        return null;
-      }
-    });
-  }
-
   public boolean isCnf() {
     final var cnf = new Object();
     return cnf == visit(new Visitor<>() {
@@ -668,6 +637,4 @@ public abstract class Expression {
 
   public abstract <T> T visit(Visitor<T> visitor);
 
-  abstract int visit(IntVisitor visitor);
-
 }
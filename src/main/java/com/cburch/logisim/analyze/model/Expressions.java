@@ -9,6 +9,10 @@
 
 package com.cburch.logisim.analyze.model;
 
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 public class Expressions {
   private Expressions() {
     // dummy, private
@@ -29,11 +33,6 @@ public class Expressions {
       return Expression.Op.AND;
     }
 
-    @Override
-    int visit(IntVisitor visitor) {
-      return visitor.visitAnd(exprA, exprB);
-    }
-
     @Override
     public <T> T visit(Visitor<T> visitor) {
       return visitor.visitAnd(exprA, exprB);
@@ -43,23 +42,27 @@ public class Expressions {
   private abstract static class Binary extends Expression {
     protected final Expression exprA;
     protected final Expression exprB;
+    // expressions are immutable, and often share their parts, so the hash is computed only once
+    private final int hash;
 
     Binary(Expression a, Expression b) {
       this.exprA = a;
       this.exprB = b;
+      this.hash = 31 * (31 * getClass().hashCode() + a.hashCode()) + b.hashCode();
     }
 
     @Override
     public boolean equals(Object other) {
+      if (this == other) return true;
       if (other == null) return false;
-      if (this.getClass() != other.getClass()) return false;
+      if (this.getClass() != other.getClass() || hash != other.hashCode()) return false;
       final var o = (Binary) other;
       return this.exprA.equals(o.exprA) && this.exprB.equals(o.exprB);
     }
 
     @Override
     public int hashCode() {
-      return 31 * (31 * getClass().hashCode() + exprA.hashCode()) + exprB.hashCode();
+      return hash;
     }
   }
 
@@ -96,24 +99,22 @@ public class Expressions {
     public <T> T visit(Visitor<T> visitor) {
       return visitor.visitConstant(value);
     }
-
-    @Override
-    int visit(IntVisitor visitor) {
-      return visitor.visitConstant(value);
-    }
   }
 
   private static class Not extends Expression {
     private final Expression expr;
+    private final int hash;
 
     Not(Expression a) {
       this.expr = a;
+      this.hash = 31 * a.hashCode();
     }
 
     @Override
     public boolean equals(Object other) {
+      if (this == other) return true;
       return (other instanceof Not o)
-             ? this.expr.equals(o.expr)
+             ? hash == o.hash && this.expr.equals(o.expr)
              : false;
     }
 
@@ -129,18 +130,13 @@ public class Expressions {
 
     @Override
     public int hashCode() {
-      return 31 * expr.hashCode();
+      return hash;
     }
 
     @Override
     public <T> T visit(Visitor<T> visitor) {
       return visitor.visitNot(expr);
     }
-
-    @Override
-    int visit(IntVisitor visitor) {
-      return visitor.visitNot(expr);
-    }
   }
 
   private static class Or extends Binary {
@@ -162,11 +158,6 @@ public class Expressions {
     public <T> T visit(Visitor<T> visitor) {
       return visitor.visitOr(exprA, exprB);
     }
-
-    @Override
-    int visit(IntVisitor visitor) {
-      return visitor.visitOr(exprA, exprB);
-    }
   }
 
   protected static class Variable extends Expression {
@@ -202,11 +193,6 @@ public class Expressions {
     public <T> T visit(Visitor<T> visitor) {
       return visitor.visitVariable(name);
     }
-
-    @Override
-    int visit(IntVisitor visitor) {
-      return visitor.visitVariable(name);
-    }
   }
 
   private static class Xor extends Binary {
@@ -228,11 +214,6 @@ public class Expressions {
     public <T> T visit(Visitor<T> visitor) {
       return visitor.visitXor(exprA, exprB);
     }
-
-    @Override
-    int visit(IntVisitor visitor) {
-      return visitor.visitXor(exprA, exprB);
-    }
   }
 
   private static class Xnor extends Binary {
@@ -254,11 +235,6 @@ public class Expressions {
     public <T> T visit(Visitor<T> visitor) {
       return visitor.visitXnor(exprA, exprB);
     }
-
-    @Override
-    int visit(IntVisitor visitor) {
-      return visitor.visitXnor(exprA, exprB);
-    }
   }
 
   protected static class Eq extends Binary {
@@ -280,11 +256,6 @@ public class Expressions {
     public <T> T visit(Visitor<T> visitor) {
       return visitor.visitEq(exprA, exprB);
     }
-
-    @Override
-    int visit(IntVisitor visitor) {
-      return visitor.visitEq(exprA, exprB);
-    }
   }
 
   public static Expression and(Expression a, Expression b) {
@@ -330,4 +301,47 @@ public class Expressions {
     return new Variable(name);
   }
 
+  /**
+   * A unique table of expressions: {@link #intern} gives the same object for all expressions of
+   * the same structure. An expression built up from interned parts is then a graph in which every
+   * distinct subexpression occurs once, however often it is used, and two such expressions are
+   * equal when they are the same object.
+   */
+  public static class Table {
+    private final Map<Expression, Expression> unique = new HashMap<>();
+    // every expression seen so far, interned or not, with its interned version
+    private final Map<Expression, Expression> interned = new IdentityHashMap<>();
+
+    public Expression intern(Expression expr) {
+      if (expr == null) return null;
+      var ret = interned.get(expr);
+      if (ret != null) return ret;
+      ret = expr;
+      if (expr instanceof Binary binary) {
+        final var a = intern(binary.exprA);
+        final var b = intern(binary.exprB);
+        if (a != binary.exprA || b != binary.exprB) ret = create(binary.getOp(), a, b);
+      } else if (expr instanceof Not not) {
+        final var a = intern(not.expr);
+        if (a != not.expr) ret = not(a);
+      }
+      final var old = unique.putIfAbsent(ret, ret);
+      if (old != null) ret = old;
+      interned.put(expr, ret);
+      interned.put(ret, ret);
+      return ret;
+    }
+
+    private static Expression create(Expression.Op op, Expression a, Expression b) {
+      return switch (op) {
+        case AND -> and(a, b);
+        case OR -> or(a, b);
+        case XOR -> xor(a, b);
+        case XNOR -> xnor(a, b);
+        case EQ -> eq(a, b);
+        case NOT -> throw new IllegalArgumentException("not a binary operator");
+      };
+    }
+  }
+
 }
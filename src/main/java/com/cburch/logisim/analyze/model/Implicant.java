@@ -12,14 +12,15 @@ package com.cburch.logisim.analyze.model;
 import static com.cburch.logisim.analyze.Strings.S;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 import javax.swing.JTextArea;
 
@@ -61,18 +62,12 @@ public class Implicant implements Comparable<Implicant> {
     }
   }
 
-  private static int getNrOfOnes(int value, int nrOfBits) {
-    var nrOfOnes = 0;
-    var mask = 1;
-    for (var bitIndex = 0; bitIndex < nrOfBits; bitIndex++) {
-      if ((value & mask) != 0) nrOfOnes++;
-      mask <<= 1;
-    }
-    return nrOfOnes;
-  }
-
   private static void report(JTextArea out, String info) {
-    if (out != null) out.append(info);
+    if (out == null) return;
+    // appending clears the interrupt of the thread, by which the computation is cancelled
+    final var interrupted = Thread.currentThread().isInterrupted();
+    out.append(info);
+    if (interrupted) Thread.currentThread().interrupt();
   }
 
   private static String getGroupRepresentation(int value, int dontCares, int nrOfBits) {
@@ -89,6 +84,42 @@ public class Implicant implements Comparable<Implicant> {
     return result.toString();
   }
 
+  private static void report(JTextArea out, long index, int unknowns, int values, int nrOfBits) {
+    if (out == null) return;
+    final var line = (index % 16L) == 0L ? "\n" : "";
+    report(out, String.format("%s%s ", line, getGroupRepresentation(values, unknowns, nrOfBits)));
+  }
+
+  private static void checkCancelled(Thread thread) {
+    if (thread.isInterrupted()) throw new CancellationException();
+  }
+
+  private static int getNrOfLiterals(int unknowns, int nrOfInputs) {
+    return nrOfInputs - Integer.bitCount(unknowns);
+  }
+
+  private static boolean coversAny(int unknowns, int values, BitSet terms) {
+    for (var subset = unknowns; ; subset = (subset - 1) & unknowns) {
+      if (terms.get(values | subset)) return true;
+      if (subset == 0) return false;
+    }
+  }
+
+  private static void forEachTerm(int unknowns, int values, IntConsumer action) {
+    for (var subset = unknowns; ; subset = (subset - 1) & unknowns) {
+      action.accept(values | subset);
+      if (subset == 0) return;
+    }
+  }
+
+  /**
+   * Computes a minimal sum of products (or product of sums) of an output. Up to {@link
+   * #MAXIMAL_NR_OF_INPUTS_FOR_PRIMES} inputs, all its primes are found by Quine-McCluskey, and the
+   * terms are covered by the essential primes and, where that does not settle it, by Petrick's
+   * method. Above that, the terms are expanded into primes one at a time instead, which is not
+   * always minimal. The computation can be cancelled by interrupting the thread that runs it, in
+   * which case it throws a {@link CancellationException}.
+   */
   static List<Implicant> computeMinimal(int format, AnalyzerModel model, String variable, JTextArea outputArea) {
     final var table = model.getTruthTable();
     final var outputVariableIndex = model.getOutputs().bits.indexOf(variable);
@@ -97,44 +128,21 @@ public class Implicant implements Comparable<Implicant> {
     final var desiredTerm = format == AnalyzerModel.FORMAT_SUM_OF_PRODUCTS ? Entry.ONE : Entry.ZERO;
     final var skippedTerm = desiredTerm == Entry.ONE ? Entry.ZERO : Entry.ONE;
     final var nrOfInputs = table.getInputColumnCount();
-    final var oneHotTable = new HashSet<Integer>();
-    var mask = 1;
-    for (var bitIndex = 0; bitIndex < nrOfInputs; bitIndex++) {
-      oneHotTable.add(mask);
-      mask <<= 1;
-    }
-
-    // Here we define the first table with all desired terms (minterms or maxterms) and we add also the don´t cares
-    // for the primes we have the group (key) and the min/maxterms in this group (HashSet)
-    final var primes = new HashMap<Implicant, HashSet<Implicant>>();
-    final var essentialPrimes = new ArrayList<Implicant>();
-    // for the currentTable and the nextTable the key is the number of ones in the min/maxterms (groupid)
-    // the HashMap keeps track of the group (key) implicant and the number of min/max terms in this group (HashSet)
-    final var currentTable = new HashMap<Integer, HashMap<Implicant, HashSet<Implicant>>>();
-    final var newTable = new HashMap<Integer, HashMap<Implicant, HashSet<Implicant>>>();
-    // for terms to cover is the "key" the min/maxterms that need to be covered, and the ArrayList 
-    // the set of prime covers that cover the key
-    final var termsToCover = new HashMap<Implicant, ArrayList<Implicant>>();
+    final var rowCount = table.getRowCount();
+    // the min/maxterms to cover, and the don't cares that may be covered as well, by row
+    final var terms = new BitSet(rowCount);
+    final var dontCares = new BitSet(rowCount);
     var allDontCare = true;
-    for (var inputCombination = 0; inputCombination < table.getRowCount(); inputCombination++) {
+    for (var inputCombination = 0; inputCombination < rowCount; inputCombination++) {
       final var term = table.getOutputEntry(inputCombination, outputVariableIndex);
       if (term == skippedTerm) {
         allDontCare = false;
-        continue;
-      }
-      final var nrOfOnes = getNrOfOnes(inputCombination, nrOfInputs);
-      final var isDontCare = term != desiredTerm;
-      final var implicant = new Implicant(inputCombination, isDontCare);
-      final var implicantsSet = new HashSet<Implicant>();
-      if (!isDontCare) {
-        termsToCover.put(implicant, new ArrayList<>());
-        implicantsSet.add(implicant);
+      } else if (term == desiredTerm) {
+        terms.set(inputCombination);
         allDontCare = false;
+      } else {
+        dontCares.set(inputCombination);
       }
-      if (!newTable.containsKey(nrOfOnes)) {
-        newTable.put(nrOfOnes, new HashMap<>());
-      }
-      newTable.get(nrOfOnes).put(implicant, implicantsSet);
     }
 
     if (allDontCare) return Collections.emptyList();
@@ -146,174 +154,356 @@ public class Implicant implements Comparable<Implicant> {
       return Collections.emptyList();
     }
     report(outputArea, String.format("\n%s\n", S.fmt("implicantOutputName", variable)));
-    // Here the real work starts, we determine all primes
-    var couldMerge = false;
-    var groupSize = 2;
-    do {
+    final var thread = Thread.currentThread();
+    final var implicants = (nrOfInputs > MAXIMAL_NR_OF_INPUTS_FOR_PRIMES)
+        ? expandTerms(terms, dontCares, nrOfInputs, rowCount, outputArea, thread)
+        : coverTerms(terms, computePrimes(terms, dontCares, nrOfInputs, outputArea, thread),
+            nrOfInputs, outputArea, thread);
+    Collections.sort(implicants);
+    return implicants;
+  }
+
+  /**
+   * Finds the primes that cover at least one of the terms by Quine-McCluskey. The implicants are
+   * packed into longs, their unknowns above their values, so that sorting them puts those with the
+   * same unknowns, which are the only ones that can merge, together in a group. The groups are
+   * merged in parallel.
+   */
+  private static long[] computePrimes(BitSet terms, BitSet dontCares, int nrOfInputs, JTextArea outputArea, Thread thread) {
+    final var all = (BitSet) terms.clone();
+    all.or(dontCares);
+    var current = all.stream().asLongStream().toArray();
+    final var primes = new ArrayList<Long>();
+    var groupSize = 1;
+    while (current.length > 0) {
+      checkCancelled(thread);
       report(outputArea, String.format("\n%s", S.fmt("implicantGroupSize", groupSize)));
-      var nrOfPrimes = 0L;
-      couldMerge = false;
-      currentTable.clear();
-      currentTable.putAll(newTable);
-      newTable.clear();
-      var minimalKey = Integer.MAX_VALUE;
-      var maximalKey = 0;
-      for (var key : currentTable.keySet()) {
-        if (key < minimalKey) minimalKey = key;
-        if (key > maximalKey) maximalKey = key;
-      }
-      for (var key = minimalKey; key < maximalKey; key++) {
-        if (currentTable.containsKey(key) && currentTable.containsKey(key + 1)) {
-          // we see if we can merge terms
-          for (var termGroup1 : currentTable.get(key).keySet()) {
-            for (var termGroup2 : currentTable.get(key + 1).keySet()) {
-              if (termGroup1.unknowns != termGroup2.unknowns) continue;
-              final var differenceMask = termGroup1.values ^ termGroup2.values;
-              if (oneHotTable.contains(differenceMask)) {
-                final var dontCareMask = termGroup1.unknowns | differenceMask;
-                final var newValue = (termGroup1.values & differenceMask) == 0 ? termGroup1.values : termGroup2.values;
-                final var isDontCareGroup = termGroup1.isDontCare && termGroup2.isDontCare;
-                final var newImplicant = new Implicant(dontCareMask, newValue, isDontCareGroup);
-                final var newImplicantTerms = new HashSet<Implicant>();
-                couldMerge = true;
-                termGroup1.isPrime = termGroup2.isPrime = false;
-                newImplicantTerms.addAll(currentTable.get(key).get(termGroup1));
-                newImplicantTerms.addAll(currentTable.get(key + 1).get(termGroup2));
-                var found = false;
-                if (newTable.containsKey(key)) {
-                  // see if the new implicant already is in the set
-                  for (final var implicant : newTable.get(key).keySet()) {
-                    found |= (implicant.values == newValue) && (implicant.unknowns == dontCareMask);
-                  }
-                  if (!found) newTable.get(key).put(newImplicant, newImplicantTerms);
-                } else {
-                  newTable.put(key, new HashMap<>());
-                  newTable.get(key).put(newImplicant, newImplicantTerms);
-                }
-              }
-            }
-          } 
+      final var groupStarts = new int[current.length + 1];
+      var nrOfGroups = 0;
+      for (var index = 0; index < current.length; index++) {
+        if (index == 0 || (current[index] >>> 32) != (current[index - 1] >>> 32)) {
+          groupStarts[nrOfGroups++] = index;
         }
       }
-      // now we add the primes to the set
-      for (final var key : currentTable.keySet()) {
-        for (final var implicant : currentTable.get(key).keySet()) {
-          if (implicant.isPrime && !implicant.isDontCare) {
-            primes.put(implicant, currentTable.get(key).get(implicant));
-            if ((nrOfPrimes % 16L) == 0L) report(outputArea, "\n");
-            report(outputArea, String.format("%s ", 
-                  getGroupRepresentation(implicant.values, implicant.unknowns, nrOfInputs)));
-            nrOfPrimes++;
-          }
-        }
+      groupStarts[nrOfGroups] = current.length;
+      final var level = current;
+      final var merged = new boolean[level.length];
+      final var mergedGroups = new long[nrOfGroups][];
+      var groups = IntStream.range(0, nrOfGroups);
+      if (level.length >= MINIMAL_NR_OF_IMPLICANTS_FOR_PARALLEL_MERGE) groups = groups.parallel();
+      groups.forEach(group -> mergedGroups[group] = mergeGroup(level, groupStarts[group],
+          groupStarts[group + 1], nrOfInputs, merged, thread));
+
+      var nrOfPrimes = 0L;
+      for (var index = 0; index < level.length; index++) {
+        final var unknowns = (int) (level[index] >>> 32);
+        final var values = (int) level[index];
+        // primes made of don't cares only are of no use
+        if (merged[index] || !coversAny(unknowns, values, terms)) continue;
+        primes.add(level[index]);
+        report(outputArea, nrOfPrimes++, unknowns, values, nrOfInputs);
       }
       if (nrOfPrimes == 0) report(outputArea, String.format("\n%s", S.get("implicantNoneFound")));
+
+      var nrOfMerged = 0;
+      for (final var group : mergedGroups) nrOfMerged += group.length;
+      current = new long[nrOfMerged];
+      nrOfMerged = 0;
+      for (final var group : mergedGroups) {
+        System.arraycopy(group, 0, current, nrOfMerged, group.length);
+        nrOfMerged += group.length;
+      }
+      // the same implicant comes out of every pair of its halves
+      Arrays.sort(current);
+      var nrOfUnique = 0;
+      for (final var implicant : current) {
+        if (nrOfUnique == 0 || current[nrOfUnique - 1] != implicant) current[nrOfUnique++] = implicant;
+      }
+      current = Arrays.copyOf(current, nrOfUnique);
       groupSize <<= 1;
-    } while (couldMerge);
+    }
+    return primes.stream().mapToLong(Long::longValue).toArray();
+  }
 
-    // we build now the table, with for each term which prime it covers
-    for (final var prime : primes.keySet()) {
-      for (final var term : termsToCover.keySet()) {
-        if (primes.get(prime).contains(term)) termsToCover.get(term).add(prime);
+  /**
+   * Merges the implicants of a group, which all have the same unknowns, with those that differ from
+   * them in one other input, marks both as merged, and returns the merged implicants.
+   */
+  private static long[] mergeGroup(long[] level, int from, int to, int nrOfInputs, boolean[] merged, Thread thread) {
+    final var unknowns = (int) (level[from] >>> 32);
+    var result = new long[16];
+    var nrOfResults = 0;
+    for (var index = from; index < to; index++) {
+      if (((index - from) & 0xfff) == 0) checkCancelled(thread);
+      final var values = (int) level[index];
+      for (var bit = 1; bit < (1 << nrOfInputs); bit <<= 1) {
+        if (((unknowns | values) & bit) != 0) continue;
+        final var other = Arrays.binarySearch(level, index + 1, to, level[index] | bit);
+        if (other < 0) continue;
+        merged[index] = merged[other] = true;
+        if (nrOfResults == result.length) result = Arrays.copyOf(result, 2 * nrOfResults);
+        result[nrOfResults++] = ((long) (unknowns | bit) << 32) | values;
       }
     }
-    // finally we have to find the essential primes
-    var couldDoRowReduction = false;
-    var couldDoColumnReduction = false;
+    return Arrays.copyOf(result, nrOfResults);
+  }
+
+  /**
+   * Picks primes to cover the terms: first those that are the only one left to cover a term, while
+   * dropping those that cover no more of the remaining terms than another prime, and then, for the
+   * terms that are left, the smallest set of primes by Petrick's method, or greedily when there
+   * are too many possible sets.
+   */
+  private static List<Implicant> coverTerms(BitSet terms, long[] primes, int nrOfInputs, JTextArea outputArea, Thread thread) {
+    final var covers = new BitSet[primes.length];
+    for (var prime = 0; prime < primes.length; prime++) {
+      final var cover = covers[prime] = new BitSet();
+      forEachTerm((int) (primes[prime] >>> 32), (int) primes[prime], term -> {
+        if (terms.get(term)) cover.set(term);
+      });
+    }
+    // the primes that cover each term
+    final var coveringPrimes = new int[terms.length()][];
+    final var nrOfCoveringPrimes = new int[terms.length()];
+    for (final var cover : covers) cover.stream().forEach(term -> nrOfCoveringPrimes[term]++);
+    for (var term = terms.nextSetBit(0); term >= 0; term = terms.nextSetBit(term + 1)) {
+      coveringPrimes[term] = new int[nrOfCoveringPrimes[term]];
+      nrOfCoveringPrimes[term] = 0;
+    }
+    for (var prime = 0; prime < primes.length; prime++) {
+      for (var term = covers[prime].nextSetBit(0); term >= 0; term = covers[prime].nextSetBit(term + 1)) {
+        coveringPrimes[term][nrOfCoveringPrimes[term]++] = prime;
+      }
+    }
+    final var uncovered = (BitSet) terms.clone();
+    final var candidates = new BitSet(primes.length);
+    candidates.set(0, primes.length);
+    final var chosen = new ArrayList<Implicant>();
 
     report(outputArea, String.format("\n%s", S.get("implicantColumRowReduction")));
-    var nrEssentialPrimes = 0L;
+    var nrOfEssentialPrimes = 0L;
+    var couldReduce = false;
     do {
-      couldDoRowReduction = false;
-      couldDoColumnReduction = false;
-      final var termsToRemove = new ArrayList<Implicant>();
-      // we first try a column reduction
-      for (final var term : termsToCover.keySet()) {
-        final var termInfo = termsToCover.get(term);
-        if (termInfo.size() == 1) {
-          // we found a prime cover, as this cover only covers this term
-          final var prime = termInfo.get(0);
-          if (!primes.containsKey(prime)) continue;
-          for (final var terms : primes.get(prime)) {
-            for (final var currentPrime : primes.keySet()) {
-              if (currentPrime.equals(prime)) continue;
-              couldDoColumnReduction |= primes.get(currentPrime).contains(terms);
-              primes.get(currentPrime).remove(terms);
-            }
-            termsToRemove.add(terms);
+      checkCancelled(thread);
+      couldReduce = false;
+      // column reduction: a term covered by a single prime makes it essential
+      for (var term = uncovered.nextSetBit(0); term >= 0; term = uncovered.nextSetBit(term + 1)) {
+        var coveringPrime = -1;
+        var nrOfCandidates = 0;
+        for (final var prime : coveringPrimes[term]) {
+          if (candidates.get(prime)) {
+            coveringPrime = prime;
+            nrOfCandidates++;
           }
-          essentialPrimes.add(prime);
-          primes.remove(prime);
-          if ((nrEssentialPrimes++ % 16L) == 0) report(outputArea, "\n");
-          report(outputArea, String.format(" %s", getGroupRepresentation(prime.values, prime.unknowns, nrOfInputs)));
         }
+        if (nrOfCandidates != 1) continue;
+        final var unknowns = (int) (primes[coveringPrime] >>> 32);
+        final var values = (int) primes[coveringPrime];
+        chosen.add(new Implicant(unknowns, values));
+        report(outputArea, nrOfEssentialPrimes++, unknowns, values, nrOfInputs);
+        uncovered.andNot(covers[coveringPrime]);
+        candidates.clear(coveringPrime);
+        couldReduce = true;
       }
-      // we do the cleanup
-      for (final var term : termsToRemove) termsToCover.remove(term);
-      // now we perform the row reduction
-      // first we look for empty primes
-      final var primesToRemove = new HashSet<Implicant>();
-      final var primeHierarchy = new HashMap<Integer, HashSet<Implicant>>();
-      final var nrOfElementGroups = new ArrayList<Integer>();
-      for (final var prime : primes.keySet()) {
-        final var primeElements = primes.get(prime);
-        if (primeElements.isEmpty()) {
-          primesToRemove.add(prime);
-          couldDoRowReduction = true;
-        } else {
-          final var nrOfElements = primeElements.size();
-          if (!primeHierarchy.containsKey(nrOfElements)) {
-            primeHierarchy.put(nrOfElements, new HashSet<>());
-          }
-          primeHierarchy.get(nrOfElements).add(prime);
-          if (!nrOfElementGroups.contains(nrOfElements)) {
-            nrOfElementGroups.add(nrOfElements);
-          }
+      // row reduction: a prime is dropped if another covers the same remaining terms and more, or
+      // the same ones with fewer literals
+      final var remaining = new BitSet[primes.length];
+      for (var prime = candidates.nextSetBit(0); prime >= 0; prime = candidates.nextSetBit(prime + 1)) {
+        remaining[prime] = (BitSet) covers[prime].clone();
+        remaining[prime].and(uncovered);
+      }
+      for (var prime = candidates.nextSetBit(0); prime >= 0; prime = candidates.nextSetBit(prime + 1)) {
+        checkCancelled(thread);
+        if (isDominated(prime, primes, remaining, candidates, coveringPrimes, nrOfInputs)) {
+          candidates.clear(prime);
+          couldReduce = true;
         }
       }
-      Collections.sort(nrOfElementGroups);
-      if (!nrOfElementGroups.isEmpty()) {
-        for (var mergeGroupId = nrOfElementGroups.size() - 1; mergeGroupId > 0; mergeGroupId--) {
-          for (final var bigPrime : primeHierarchy.get(nrOfElementGroups.get(mergeGroupId))) {
-            if (primesToRemove.contains(bigPrime)) continue;
-            for (var checkGroupId = mergeGroupId - 1; checkGroupId >= 0; checkGroupId--) {
-              for (final var smallPrime : primeHierarchy.get(nrOfElementGroups.get(checkGroupId))) {
-                if (primesToRemove.contains(smallPrime)) continue;
-                if (primes.get(bigPrime).containsAll(primes.get(smallPrime))) {
-                  couldDoRowReduction = true;
-                  primesToRemove.add(smallPrime);
-                }
-              }
-            }
-          }
+    } while (couldReduce && !uncovered.isEmpty());
+
+    if (!uncovered.isEmpty()) {
+      var rest = uncovered.cardinality() > MAXIMAL_NR_OF_PETRICK_TERMS
+          ? null
+          : petrick(uncovered, candidates, covers, primes, nrOfInputs, thread);
+      if (rest != null) {
+        report(outputArea, String.format("\n\n%s", S.get("implicantPetrick")));
+      } else {
+        report(outputArea, String.format("\n\n%s", S.get("implicantGreedy")));
+        rest = greedy(uncovered, candidates, covers, coveringPrimes, primes, thread);
+      }
+      var nrOfPrimes = 0L;
+      for (var prime = rest.nextSetBit(0); prime >= 0; prime = rest.nextSetBit(prime + 1)) {
+        final var unknowns = (int) (primes[prime] >>> 32);
+        final var values = (int) primes[prime];
+        chosen.add(new Implicant(unknowns, values));
+        report(outputArea, nrOfPrimes++, unknowns, values, nrOfInputs);
+      }
+    }
+    return chosen;
+  }
+
+  private static boolean isDominated(int prime, long[] primes, BitSet[] remaining, BitSet candidates, int[][] coveringPrimes, int nrOfInputs) {
+    final var cover = remaining[prime];
+    if (cover.isEmpty()) return true;
+    final var literals = getNrOfLiterals((int) (primes[prime] >>> 32), nrOfInputs);
+    // only the primes that also cover one of its terms can cover all of them
+    for (final var other : coveringPrimes[cover.nextSetBit(0)]) {
+      if (other == prime || !candidates.get(other)) continue;
+      final var otherCover = remaining[other];
+      if (!isSubset(cover, otherCover)) continue;
+      if (otherCover.cardinality() > cover.cardinality()) return true;
+      // of two primes covering the same terms, the one with more literals goes, or the later one
+      final var otherLiterals = getNrOfLiterals((int) (primes[other] >>> 32), nrOfInputs);
+      if (otherLiterals < literals || (otherLiterals == literals && other < prime)) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Petrick's method: multiplies out the product, over the uncovered terms, of the sums of the
+   * primes that cover them, and returns the product with the fewest primes, and of those the one
+   * with the fewest literals. Returns null if the product has too many terms to multiply out.
+   */
+  private static BitSet petrick(BitSet uncovered, BitSet candidates, BitSet[] covers, long[] primes, int nrOfInputs, Thread thread) {
+    var products = new ArrayList<BitSet>();
+    products.add(new BitSet());
+    for (var term = uncovered.nextSetBit(0); term >= 0; term = uncovered.nextSetBit(term + 1)) {
+      checkCancelled(thread);
+      final var sum = new BitSet();
+      for (var prime = candidates.nextSetBit(0); prime >= 0; prime = candidates.nextSetBit(prime + 1)) {
+        if (covers[prime].get(term)) sum.set(prime);
+      }
+      final var next = new ArrayList<BitSet>();
+      for (final var product : products) {
+        if (product.intersects(sum)) {
+          next.add(product);
+          continue;
+        }
+        for (var prime = sum.nextSetBit(0); prime >= 0; prime = sum.nextSetBit(prime + 1)) {
+          final var extended = (BitSet) product.clone();
+          extended.set(prime);
+          next.add(extended);
         }
       }
-      for (final var prime : primesToRemove) {
-        primes.remove(prime);
-        for (final var element : termsToCover.keySet()) termsToCover.get(element).remove(prime);
+      if (next.size() > MAXIMAL_NR_OF_PETRICK_PRODUCTS * sum.cardinality()) return null;
+      // absorption: a product that contains another one is never the smaller of the two
+      next.sort(Comparator.comparingInt(BitSet::cardinality));
+      products = new ArrayList<>();
+      for (final var product : next) {
+        var absorbed = false;
+        for (var index = 0; index < products.size() && !absorbed; index++) {
+          absorbed = isSubset(products.get(index), product);
+        }
+        if (!absorbed) products.add(product);
       }
-    } while (couldDoRowReduction || couldDoColumnReduction);
-    // It can happen that we still have max/min terms left that are covered by multiple groups.
-    // To find the minimal cover here we should implement the Petrick's method (https://en.wikipedia.org/wiki/Petrick%27s_method)
-    // For the moment we are just going to greedyly pick
-    // TODO: Implement Petrick's method
-    if (!termsToCover.isEmpty()) report(outputArea, String.format("\n\n\s", S.get("implicantGreedy")));
-    nrEssentialPrimes = 0L;
-    while (!termsToCover.isEmpty()) {
-      final var termsToRemove = new ArrayList<Implicant>();
-      for (final var term : termsToCover.keySet()) {
-        if (termsToRemove.contains(term)) continue;
-        final var group = termsToCover.get(term).get(0);
-        essentialPrimes.add(group);
-        if ((nrEssentialPrimes++ % 16L) == 0) report(outputArea, "\n");
-        report(outputArea, String.format(" %s", getGroupRepresentation(group.values, group.unknowns, nrOfInputs)));
-        termsToRemove.addAll(primes.get(group));
+      if (products.size() > MAXIMAL_NR_OF_PETRICK_PRODUCTS) return null;
+    }
+    BitSet best = null;
+    var bestLiterals = 0;
+    for (final var product : products) {
+      var literals = 0;
+      for (var prime = product.nextSetBit(0); prime >= 0; prime = product.nextSetBit(prime + 1)) {
+        literals += getNrOfLiterals((int) (primes[prime] >>> 32), nrOfInputs);
+      }
+      if (best == null
+          || product.cardinality() < best.cardinality()
+          || (product.cardinality() == best.cardinality() && literals < bestLiterals)) {
+        best = product;
+        bestLiterals = literals;
       }
-      for (final var term : termsToRemove) termsToCover.remove(term);
     }
+    return best;
+  }
 
-    // TODO: Return multiple minimal covers if present (Petrick's method)
-    return essentialPrimes;
+  private static boolean isSubset(BitSet subset, BitSet set) {
+    for (var bit = subset.nextSetBit(0); bit >= 0; bit = subset.nextSetBit(bit + 1)) {
+      if (!set.get(bit)) return false;
+    }
+    return true;
+  }
+
+  /** Picks the prime that covers the most uncovered terms until all are covered. */
+  private static BitSet greedy(BitSet terms, BitSet candidates, BitSet[] covers, int[][] coveringPrimes, long[] primes, Thread thread) {
+    final var uncovered = (BitSet) terms.clone();
+    final var nrOfUncovered = new int[primes.length];
+    for (var prime = candidates.nextSetBit(0); prime >= 0; prime = candidates.nextSetBit(prime + 1)) {
+      final var cover = (BitSet) covers[prime].clone();
+      cover.and(uncovered);
+      nrOfUncovered[prime] = cover.cardinality();
+    }
+    final var chosen = new BitSet();
+    while (!uncovered.isEmpty()) {
+      checkCancelled(thread);
+      var best = -1;
+      for (var prime = candidates.nextSetBit(0); prime >= 0; prime = candidates.nextSetBit(prime + 1)) {
+        if (best < 0
+            || nrOfUncovered[prime] > nrOfUncovered[best]
+            || (nrOfUncovered[prime] == nrOfUncovered[best]
+                && Integer.bitCount((int) (primes[prime] >>> 32))
+                    > Integer.bitCount((int) (primes[best] >>> 32)))) {
+          best = prime;
+        }
+      }
+      chosen.set(best);
+      candidates.clear(best);
+      final var cover = covers[best];
+      for (var term = cover.nextSetBit(0); term >= 0; term = cover.nextSetBit(term + 1)) {
+        if (!uncovered.get(term)) continue;
+        uncovered.clear(term);
+        for (final var prime : coveringPrimes[term]) nrOfUncovered[prime]--;
+      }
+    }
+    return chosen;
+  }
+
+  /**
+   * Minimizes like Espresso's expand and irredundant steps, for when there are too many inputs to
+   * find all primes: every term not covered yet is expanded, one input at a time, into a prime that
+   * holds no term of the other kind, and then the primes of which all terms lie in other ones as
+   * well are dropped, the smallest first.
+   */
+  private static List<Implicant> expandTerms(BitSet terms, BitSet dontCares, int nrOfInputs, int rowCount, JTextArea outputArea, Thread thread) {
+    report(outputArea, String.format("\n%s", S.get("implicantExpand")));
+    final var forbidden = new BitSet(rowCount);
+    forbidden.set(0, rowCount);
+    forbidden.andNot(terms);
+    forbidden.andNot(dontCares);
+    final var covered = new BitSet(rowCount);
+    final var expanded = new ArrayList<Implicant>();
+    for (var term = terms.nextSetBit(0); term >= 0; term = terms.nextSetBit(term + 1)) {
+      if (covered.get(term)) continue;
+      checkCancelled(thread);
+      var unknowns = 0;
+      for (var bit = 1 << (nrOfInputs - 1); bit != 0; bit >>>= 1) {
+        // dropping an input adds the mirror image of the implicant along it
+        if (!coversAny(unknowns, (term & ~unknowns) ^ bit, forbidden)) unknowns |= bit;
+      }
+      final var implicant = new Implicant(unknowns, term & ~unknowns);
+      forEachTerm(implicant.unknowns, implicant.values, covered::set);
+      expanded.add(implicant);
+    }
+
+    final var coverCount = new int[rowCount];
+    for (final var implicant : expanded) {
+      forEachTerm(implicant.unknowns, implicant.values, term -> coverCount[term]++);
+    }
+    expanded.sort(Comparator.comparingInt(Implicant::getUnknownCount));
+    final var chosen = new ArrayList<Implicant>();
+    var nrOfPrimes = 0L;
+    for (final var implicant : expanded) {
+      checkCancelled(thread);
+      final var redundant = new boolean[] {true};
+      forEachTerm(implicant.unknowns, implicant.values, term -> {
+        if (terms.get(term) && coverCount[term] == 1) redundant[0] = false;
+      });
+      if (redundant[0]) {
+        forEachTerm(implicant.unknowns, implicant.values, term -> coverCount[term]--);
+      } else {
+        chosen.add(implicant);
+        report(outputArea, nrOfPrimes++, implicant.unknowns, implicant.values, nrOfInputs);
+      }
+    }
+    return chosen;
   }
 
   public static Expression toExpression(int format, AnalyzerModel model, List<Implicant> implicants) {
@@ -337,28 +527,19 @@ public class Implicant implements Comparable<Implicant> {
   static final Implicant MINIMAL_IMPLICANT = new Implicant(0, -1);
   static final List<Implicant> MINIMAL_LIST = Collections.singletonList(MINIMAL_IMPLICANT);
   public static final int MAXIMAL_NR_OF_INPUTS_FOR_AUTO_MINIMAL_FORM = 6;
+  // above this, finding all primes takes too long, and the terms are expanded instead
+  public static final int MAXIMAL_NR_OF_INPUTS_FOR_PRIMES = 12;
+  // above these, Petrick's method gives way to a greedy choice
+  private static final int MAXIMAL_NR_OF_PETRICK_PRODUCTS = 1024;
+  private static final int MAXIMAL_NR_OF_PETRICK_TERMS = 64;
+  private static final int MINIMAL_NR_OF_IMPLICANTS_FOR_PARALLEL_MERGE = 4096;
 
   final int unknowns;
   final int values;
-  final boolean isDontCare;
-  boolean isPrime = true;
 
   private Implicant(int unknowns, int values) {
     this.unknowns = unknowns;
     this.values = values;
-    isDontCare = false;
-  }
-
-  private Implicant(int unknowns, int values, boolean dontCareTerm) {
-    this.unknowns = unknowns;
-    this.values = values;
-    isDontCare = dontCareTerm;
-  }
-
-  private Implicant(int values, boolean dontCareTerm) {
-    this.unknowns = 0;
-    this.values = values;
-    isDontCare = dontCareTerm;
   }
 
   @Override
@@ -423,86 +604,4 @@ public class Implicant implements Comparable<Implicant> {
     }
     return term == null ? Expressions.constant(1) : term;
   }
-
-  static SortedMap<Implicant, String> computePartition(AnalyzerModel model) {
-    // The goal is to find a minimal partitioning of each of the regions (of
-    // the {0,1}^n hypercube) defined by the truth table output entries
-    // (string of zero, one, dont_care, error, etc.). Similar to K-maps, we
-    // can fairly easily find all the prime implicants, but unlike K-maps,
-    // we can't have overlap, so a different algorithm is called for. Maybe
-    // something from set-covering or binary-partition-trees? It's not even
-    // obvious what the complexity of this problem is. We'll just go with a
-    // simple greedy algorithm and hope for the best: sort the prime
-    // implicants, keep accepting non-overlapping ones until we have covered
-    // the region.
-    final var table = model.getTruthTable();
-    final var maxval = (1 << table.getInputColumnCount()) - 1;
-    // Determine the set of regions and the first-cut implicants for each
-    // region.
-    final var regions = new HashMap<String, HashSet<Implicant>>();
-    for (var i = 0; i < table.getVisibleRowCount(); i++) {
-      final var val = table.getVisibleOutputs(i);
-      final var idx = table.getVisibleRowIndex(i);
-      final var dc = table.getVisibleRowDcMask(i);
-      final var imp = new Implicant(dc, idx);
-      final var region = regions.computeIfAbsent(val, k -> new HashSet<>());
-      region.add(imp);
-    }
-    // For each region...
-    final var ret = new TreeMap<Implicant, String>();
-    for (var it : regions.entrySet()) {
-      final var val = it.getKey();
-      final var base = it.getValue();
-
-      // Work up to more general implicants.
-      final var all = new HashSet<Implicant>();
-      var current = base;
-      while (!current.isEmpty()) {
-        final var next = new HashSet<Implicant>();
-        for (final var implicant : current) {
-          all.add(implicant);
-          for (int j = 1; j <= maxval; j *= 2) {
-            if ((implicant.unknowns & j) != 0) continue;
-            final var opp = new Implicant(implicant.unknowns, implicant.values ^ j);
-            if (!all.contains(opp)) continue;
-            final var i = new Implicant(opp.unknowns | j, opp.values);
-            next.add(i);
-          }
-        }
-        current = next;
-      }
-
-      final var sorted = new ArrayList<>(all);
-      sorted.sort(sortByGenerality);
-      final var chosen = new ArrayList<Implicant>();
-      for (final var implicant : sorted) {
-        if (disjoint(implicant, chosen)) {
-          chosen.add(implicant);
-          ret.put(implicant, val);
-        }
-      }
-    }
-
-    // TODO in caller: convert implicant to Row and val back to Entry[]
-    return ret;
-  }
-
-  private static boolean disjoint(Implicant imp, ArrayList<Implicant> chosen) {
-    for (final var other : chosen) {
-      final var dc = imp.unknowns | other.unknowns;
-      if ((imp.values & ~dc) == (other.values & ~dc)) return false;
-    }
-    return true;
-  }
-
-  private static final CompareGenerality sortByGenerality = new CompareGenerality();
-
-  private static class CompareGenerality implements Comparator<Implicant> {
-    @Override
-    public int compare(Implicant i1, Implicant i2) {
-      final var diff = (i2.getUnknownCount() - i1.getUnknownCount());
-      if (diff != 0) return diff;
-      return (i1.values & ~i1.unknowns) - (i2.values & ~i2.unknowns);
-    }
-  }
 }
@@ -277,13 +277,34 @@ public class OutputExpressions {
     final var values = new Entry[rows];
     if (expr == null) {
       Arrays.fill(values, Entry.DONT_CARE);
-    } else {
-      final var assn = new Assignments();
-      for (var i = 0; i < rows; i++) {
-        for (var j = 0; j < cols; j++) {
-          assn.put(table.getInputHeader(j), TruthTable.isInputSet(i, j, cols));
+      return values;
+    }
+    // the rows of the decision diagram are filled in whole blocks where the inputs below do not
+    // matter; only when it would take too many nodes are the rows evaluated, 64 at a time
+    try {
+      final var bdd = new Bdd();
+      final var ones = bdd.getOnes(bdd.build(expr, table::getInputIndex), cols);
+      Arrays.fill(values, Entry.ZERO);
+      for (var row = ones.nextSetBit(0); row >= 0; row = ones.nextSetBit(row + 1)) {
+        values[row] = Entry.ONE;
+      }
+      return values;
+    } catch (Bdd.NodeLimitException e) {
+      // evaluated below
+    }
+    final var inputs = new HashMap<String, Long>();
+    for (var row = 0; row < rows; row += Long.SIZE) {
+      final var count = Math.min(Long.SIZE, rows - row);
+      for (var j = 0; j < cols; j++) {
+        var bits = 0L;
+        for (var i = 0; i < count; i++) {
+          if (TruthTable.isInputSet(row + i, j, cols)) bits |= 1L << i;
         }
-        values[i] = expr.evaluate(assn) ? Entry.ONE : Entry.ZERO;
+        inputs.put(table.getInputHeader(j), bits);
+      }
+      final var result = expr.evaluate(inputs);
+      for (var i = 0; i < count; i++) {
+        values[row + i] = ((result >>> i) & 1) != 0 ? Entry.ONE : Entry.ZERO;
       }
     }
     return values;
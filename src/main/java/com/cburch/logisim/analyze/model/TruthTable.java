@@ -11,11 +11,21 @@ package com.cburch.logisim.analyze.model;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
-
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+/**
+ * The truth table of an analyzer model. The output columns are kept as bit sets indexed by input
+ * row, see {@link Column}, so that a table with twenty inputs takes a few hundred kilobytes per
+ * output instead of megabytes. The visible rows are kept as a sorted array of packed rows, each the
+ * base index of the row in the upper half of a long and the mask of its don't care inputs in the
+ * lower half; as long as every row is visible on its own there is no array at all.
+ */
 public class TruthTable {
 
   private static final Entry DEFAULT_ENTRY = Entry.DONT_CARE;
@@ -24,131 +34,200 @@ public class TruthTable {
   private final List<TruthTableListener> listeners = new ArrayList<>();
 
   private final AnalyzerModel model;
-  private ArrayList<Row> rows = new ArrayList<>(); // visible input rows
-  private final ArrayList<Entry[]> columns = new ArrayList<>(); // output columns
-  private static final CompareInputs sortByInputs = new CompareInputs();
-
-  private static class Row implements Iterable<Integer> {
-    // TODO: probably more efficient to store this in baseIdx/dcMask format.
-    final Entry[] inputs;
-
-    Row(int idx, int numInputs, int mask) {
-      inputs = new Entry[numInputs];
-      for (var i = numInputs - 1; i >= 0; i--) {
-        inputs[i] = (mask & 1) == 0 ? (idx & 1) == 0 ? Entry.ZERO : Entry.ONE : Entry.DONT_CARE;
-        idx = idx >> 1;
-        mask = mask >> 1;
+  private long[] rows; // visible input rows, null when every row is visible on its own
+  private final ArrayList<Column> columns = new ArrayList<>(); // output columns
+
+  /**
+   * The entries of an output column, one bit per row in each of its bit sets: the don't cares, the
+   * errors, and the values, which tell the ones from the zeros and the oscillations from the bus
+   * errors. Errors are rare, so their bit set is only made for the first one.
+   */
+  private static class Column {
+    // for each bit of an index, the bits of a word whose index has that bit cleared
+    private static final long[] LOWER_HALVES = {
+      0x5555555555555555L,
+      0x3333333333333333L,
+      0x0f0f0f0f0f0f0f0fL,
+      0x00ff00ff00ff00ffL,
+      0x0000ffff0000ffffL,
+      0x00000000ffffffffL
+    };
+
+    final long[] values;
+    final long[] dontCares;
+    long[] errors;
+
+    Column(int rowCount) {
+      final var words = getWordCount(rowCount);
+      values = new long[words];
+      dontCares = new long[words];
+    }
+
+    static int getWordCount(int rowCount) {
+      return (rowCount + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    static Column of(Entry[] entries) {
+      final var column = new Column(entries.length);
+      for (var idx = 0; idx < entries.length; idx++) {
+        if (entries[idx] != Entry.ZERO) column.set(idx, entries[idx]);
       }
+      return column;
     }
 
-    Row(Entry[] entries, int numInputs) {
-      inputs = new Entry[numInputs];
-      System.arraycopy(entries, 0, inputs, 0, numInputs);
+    static Column allDontCare(int rowCount) {
+      final var column = new Column(rowCount);
+      Arrays.fill(column.dontCares, -1L);
+      if (rowCount % Long.SIZE != 0) column.dontCares[0] = (1L << rowCount) - 1;
+      return column;
     }
 
-    public int baseIndex() {
-      var idx = 0;
-      for (final var input : inputs) idx = (idx << 1) | (input == Entry.ONE ? 1 : 0);
-      return idx;
+    Entry get(int idx) {
+      final var word = idx >>> 6;
+      final var bit = 1L << idx;
+      if ((dontCares[word] & bit) != 0) return Entry.DONT_CARE;
+      final var value = (values[word] & bit) != 0;
+      if (errors != null && (errors[word] & bit) != 0) {
+        return value ? Entry.OSCILLATE_ERROR : Entry.BUS_ERROR;
+      }
+      return value ? Entry.ONE : Entry.ZERO;
+    }
+
+    void set(int idx, Entry entry) {
+      final var word = idx >>> 6;
+      final var bit = 1L << idx;
+      values[word] &= ~bit;
+      dontCares[word] &= ~bit;
+      if (errors != null) errors[word] &= ~bit;
+      if (entry == Entry.ONE) {
+        values[word] |= bit;
+      } else if (entry == Entry.BUS_ERROR || entry == Entry.OSCILLATE_ERROR) {
+        if (errors == null) errors = new long[values.length];
+        errors[word] |= bit;
+        if (entry == Entry.OSCILLATE_ERROR) values[word] |= bit;
+      } else if (entry != Entry.ZERO) {
+        dontCares[word] |= bit;
+      }
     }
 
-    public int dcMask() {
-      var mask = 0;
-      for (final var input : inputs) mask = (mask << 1) | (input == Entry.DONT_CARE ? 1 : 0);
-      return mask;
+    Entry[] toEntries(int rowCount) {
+      final var entries = new Entry[rowCount];
+      for (var idx = 0; idx < rowCount; idx++) entries[idx] = get(idx);
+      return entries;
     }
 
-    public int duplicity() {
-      int count = 1;
-      for (Entry input : inputs) count *= (input == Entry.DONT_CARE ? 2 : 1);
-      return count;
+    boolean isUniform(long row) {
+      final var entry = get(getBaseIndex(row));
+      final var uniform = new boolean[] {true};
+      forEachIndex(row, idx -> uniform[0] &= get(idx) == entry);
+      return uniform[0];
     }
 
-    @Override
-    public String toString() {
-      final var s = new StringBuilder("row[");
-      for (var i = 0; i < inputs.length; i++) {
-        if (i != 0) s.append(" ");
-        s.append(inputs[i].getDescription());
-      }
-      s.append("]");
-      s.append(" dup=").append(duplicity());
-      s.append(String.format(" base=%x dcmask=%x", baseIndex(), dcMask()));
-      return s.toString();
-    }
-
-    public String toBitString(List<Var> vars) {
-      final var s = new StringBuilder();
-      var i = 0;
-      for (final var variable : vars) {
-        s.append(" ");
-        for (var j = 0; j < variable.width; j++) s.append(inputs[i++].toBitString());
-      }
-      return s.toString();
+    /**
+     * Marks, at the index of each row with the given input bit cleared, whether the row differs
+     * from the one with the bit set.
+     */
+    void addDifferences(int bit, long[] differences) {
+      addDifferences(values, bit, differences);
+      addDifferences(dontCares, bit, differences);
+      if (errors != null) addDifferences(errors, bit, differences);
     }
 
-    public boolean contains(int idx) {
-      return (idx & ~dcMask()) == baseIndex();
+    private static void addDifferences(long[] bits, int bit, long[] differences) {
+      if (bit < 6) {
+        final var shift = 1 << bit;
+        for (var word = 0; word < bits.length; word++) {
+          differences[word] |= (bits[word] ^ (bits[word] >>> shift)) & LOWER_HALVES[bit];
+        }
+      } else {
+        final var stride = 1 << (bit - 6);
+        for (var word = 0; word < bits.length; word++) {
+          if ((word & stride) == 0) differences[word] |= bits[word] ^ bits[word | stride];
+        }
+      }
     }
+  }
 
-    public boolean contains(Row other) {
-      return contains(other.baseIndex()) && (other.dcMask() & ~dcMask()) == 0;
-    }
+  private static long getRow(int baseIndex, int dcMask) {
+    return ((long) baseIndex << 32) | (dcMask & 0xffffffffL);
+  }
 
-    public boolean intersects(Row other) {
-      final var dc = dcMask() | other.dcMask();
-      return (other.baseIndex() & ~dc) == (baseIndex() & ~dc);
-    }
+  private static int getBaseIndex(long row) {
+    return (int) (row >>> 32);
+  }
 
-    @Override
-    public Iterator<Integer> iterator() {
-      return new Iterator<>() {
-        final int base = baseIndex();
-        final int mask = dcMask();
-        final int nbits = inputs.length;
-        final int count = duplicity();
-        int iter = 0;
-
-        @Override
-        public boolean hasNext() {
-          return iter < count;
-        }
+  private static int getDcMask(long row) {
+    return (int) row;
+  }
 
-        @Override
-        public Integer next() {
-          var add = iter;
-          var keep = 0;
-          for (var b = 0; b < nbits; b++) {
-            if ((mask & (1 << b)) == 0) {
-              add = ((add & ~keep) << 1) | (add & keep);
-            }
-            keep |= (1 << b);
-          }
-          iter++;
-          return base | add;
-        }
+  private static boolean contains(long row, int idx) {
+    return (idx & ~getDcMask(row)) == getBaseIndex(row);
+  }
 
-        @Override
-        public void remove() {
-          throw new UnsupportedOperationException();
-        }
-      };
+  private static boolean intersects(long row, int baseIndex, int dcMask) {
+    final var dc = getDcMask(row) | dcMask;
+    return (getBaseIndex(row) & ~dc) == (baseIndex & ~dc);
+  }
+
+  /** Calls the consumer with each index of a row, in increasing order. */
+  private static void forEachIndex(long row, IntConsumer consumer) {
+    final var base = getBaseIndex(row);
+    final var mask = getDcMask(row);
+    var add = 0;
+    while (true) {
+      consumer.accept(base | add);
+      if (add == mask) return;
+      add = (add - mask) & mask;
     }
   }
 
-  public static class CompareInputs implements Comparator<Row> {
-    @Override
-    public int compare(Row r1, Row r2) {
-      return r1.baseIndex() - r2.baseIndex();
+  /**
+   * Gives the rows that make up the part of a row outside of the one with the given base index and
+   * don't care mask, which it must intersect, and returns the part inside.
+   */
+  private static long subtract(long row, int baseIndex, int dcMask, LongConsumer pieces) {
+    var base = getBaseIndex(row);
+    var mask = getDcMask(row);
+    var split = mask & ~dcMask;
+    while (split != 0) {
+      final var bit = Integer.highestOneBit(split);
+      split ^= bit;
+      mask ^= bit;
+      pieces.accept(getRow(base | (~baseIndex & bit), mask));
+      base |= baseIndex & bit;
     }
+    return getRow(base, mask);
   }
 
-  private void initRows() {
-    final var inputs = getInputColumnCount();
-    final var n = getRowCount();
-    rows.clear();
-    rows.ensureCapacity(n);
-    for (int i = 0; i < n; i++) rows.add(new Row(i, inputs, 0));
+  /** Gives the rows into which a row has to be split for the column to be the same in each. */
+  private static void splitUniform(long row, Column column, LongConsumer pieces) {
+    final var mask = getDcMask(row);
+    if (mask == 0 || column.isUniform(row)) {
+      pieces.accept(row);
+      return;
+    }
+    final var bit = Integer.highestOneBit(mask);
+    final var base = getBaseIndex(row);
+    splitUniform(getRow(base, mask ^ bit), column, pieces);
+    splitUniform(getRow(base | bit, mask ^ bit), column, pieces);
+  }
+
+  private long getVisibleRow(int row) {
+    if (rows != null) return rows[row];
+    return getRow(Objects.checkIndex(row, getRowCount()), 0);
+  }
+
+  private long[] getRows() {
+    if (rows == null) {
+      rows = new long[getRowCount()];
+      for (var idx = 0; idx < rows.length; idx++) rows[idx] = getRow(idx, 0);
+    }
+    return rows;
+  }
+
+  private void setRows(long[] sortedRows) {
+    // rows that cover all indexes one by one are all single rows
+    rows = sortedRows.length == getRowCount() ? null : sortedRows;
   }
 
   private void initColumns() {
@@ -158,132 +237,167 @@ public class TruthTable {
     for (int i = 0; i < outputs; i++) columns.add(null /* created lazily */);
   }
 
+  private Column getColumn(int col) {
+    var column = columns.get(col);
+    if (column == null) {
+      column = Column.allDontCare(getRowCount());
+      columns.set(col, column);
+    }
+    return column;
+  }
+
   public TruthTable(AnalyzerModel model) {
     this.model = model;
-    initRows();
     initColumns();
     model.getInputs().addVariableListListener(myListener);
     model.getOutputs().addVariableListListener(myListener);
   }
 
   public void expandVisibleRows() {
-    if (getVisibleRowCount() == getRowCount()) return;
-    initRows();
+    if (rows == null) return;
+    rows = null;
     fireRowsChanged();
   }
 
+  /**
+   * Merges the rows with the same outputs. Going through the inputs from the last one, each row is
+   * merged with the one that differs from it only in that input, if the two have the same don't
+   * cares and outputs; which rows differ is found for the whole table at once, a word of the bit
+   * sets of each column at a time.
+   */
   public void compactVisibleRows() {
-    final var partition = Implicant.computePartition(model);
-    rows.clear();
-    initColumns();
-    final var ni = getInputColumnCount();
-    final var no = getOutputColumnCount();
-    for (final var it : partition.entrySet()) {
-      final var imp = it.getKey();
-      final var val = it.getValue();
-      final var r = new Row(imp.values, ni, imp.unknowns);
-      rows.add(r);
-      for (var col = 0; col < no; col++) {
-        final var value = Entry.parse("" + val.charAt(col));
-        var column = columns.get(col);
-        if (column == null && value == DEFAULT_ENTRY) continue;
-        else if (column == null) column = getOutputColumn(col);
-        for (Integer idx : r) {
-          column[idx] = value;
+    final var count = getRowCount();
+    final var inputs = getInputColumnCount();
+    // for each index, the don't care mask of the row it is the base of, or -1 if in another row
+    final var masks = new int[count];
+    for (var bit = 0; bit < inputs; bit++) {
+      final var differences = new long[Column.getWordCount(count)];
+      for (final var column : columns) {
+        if (column != null) column.addDifferences(bit, differences);
+      }
+      final var b = 1 << bit;
+      for (var idx = 0; idx < count; idx++) {
+        if ((idx & b) != 0 || masks[idx] < 0) continue;
+        if (masks[idx | b] == masks[idx] && (differences[idx >>> 6] & (1L << idx)) == 0) {
+          masks[idx] |= b;
+          masks[idx | b] = -1;
         }
       }
     }
-    fireRowsChanged();
-    for (var col = 0; col < no; col++) {
-      if (columns.get(col) != null) fireCellsChanged(col);
+    final var compacted = LongStream.builder();
+    for (var idx = 0; idx < count; idx++) {
+      if (masks[idx] >= 0) compacted.add(getRow(idx, masks[idx]));
     }
+    setRows(compacted.build().toArray());
+    fireRowsChanged();
   }
 
   public void setOutputColumn(int col, Entry[] values) {
     if (values.length != getRowCount()) throw new IllegalArgumentException("bad column length");
-    final var oldValues = columns.set(col, values);
-    if (oldValues == values) return;
+    final var column = Column.of(values);
+    columns.set(col, column);
     // Expand rows as dictated by column inconsistencies
-    var rowsChanged = false;
-    for (var i = rows.size() - 1; i >= 0; i--) {
-      final var r = rows.get(i);
-      final var base = r.baseIndex();
-      final var v = values[base];
-      var split = true;
-      while (split) {
-        split = false;
-        for (final var idx : r) {
-          if (v != values[idx]) {
-            splitRow(r, idx);
-            rowsChanged = true;
-            split = true;
-            break;
-          }
+    if (rows != null) {
+      final var split = LongStream.builder();
+      var rowsChanged = false;
+      for (final var row : rows) {
+        if (column.isUniform(row)) {
+          split.add(row);
+        } else {
+          splitUniform(row, column, split);
+          rowsChanged = true;
         }
       }
+      if (rowsChanged) {
+        setRows(split.build().sorted().toArray());
+        fireRowsChanged();
+      }
     }
-    if (rowsChanged) fireRowsChanged();
     fireCellsChanged(col);
   }
 
-  void splitRow(Row r, int idx) {
-    final var base = r.baseIndex();
-    if (idx == base || !r.contains(idx)) throw new IllegalArgumentException("bad row split");
-    final var diff = idx ^ base;
-    final var n = r.duplicity();
-    if (n <= 1) throw new IllegalStateException("row duplicity should be at least 2");
-    final var splits = new Row(base, r.inputs.length, diff);
-    var m = 0;
-    rows.remove(r);
-    for (final var other : splits) {
-      final var s = new Row(other, r.inputs.length, r.dcMask() & ~diff);
-      m += s.duplicity();
-      int pos = Collections.binarySearch(rows, s, sortByInputs);
-      if (pos < 0) rows.add(-pos - 1, s);
-      else throw new IllegalStateException("unexpected row split");
+  /** Splits a visible row in the part of it in the given row, and the rest. */
+  private void splitRow(int row, int baseIndex, int dcMask) {
+    final var r = getRows()[row];
+    final var pieces = LongStream.builder();
+    pieces.add(subtract(r, baseIndex, dcMask, pieces));
+    final var split = pieces.build().sorted().toArray();
+    // the pieces go in the place of the row, merged with the rows around it by base index
+    final var newRows = new long[rows.length - 1 + split.length];
+    var i = 0;
+    var j = 0;
+    for (var k = 0; k < newRows.length; k++) {
+      if (i == row) i++;
+      if (j == split.length || (i < rows.length && rows[i] < split[j])) {
+        newRows[k] = rows[i++];
+      } else {
+        newRows[k] = split[j++];
+      }
     }
-    if (m != n) throw new IllegalStateException("assertion failed in row split");
+    setRows(newRows);
   }
 
   public Entry getVisibleOutputEntry(int row, int col) {
-    final var r = rows.get(row);
-    final var idx = r.baseIndex();
-    return getOutputEntry(idx, col);
+    return getOutputEntry(getBaseIndex(getVisibleRow(row)), col);
   }
 
   public Entry getOutputEntry(int idx, int col) {
     if (idx < 0 || col < 0) return DEFAULT_ENTRY;
     final var column = columns.get(col);
-    return (column == null ? DEFAULT_ENTRY : idx < column.length ? column[idx] : DEFAULT_ENTRY);
+    return (column == null ? DEFAULT_ENTRY : idx < getRowCount() ? column.get(idx) : DEFAULT_ENTRY);
   }
 
   public String getVisibleOutputs(int row) {
-    final var r = rows.get(row);
-    final var idx = r.baseIndex();
+    final var idx = getBaseIndex(getVisibleRow(row));
     final var s = new StringBuilder();
-    for (Entry[] column : columns) {
-      s.append((column == null ? DEFAULT_ENTRY : column[idx]).getDescription());
+    for (final var column : columns) {
+      s.append((column == null ? DEFAULT_ENTRY : column.get(idx)).getDescription());
     }
     return s.toString();
   }
 
   public Entry getVisibleInputEntry(int row, int col) {
-    final var r = rows.get(row);
-    return r.inputs[col];
+    final var r = getVisibleRow(row);
+    return getInputEntry(getBaseIndex(r), getDcMask(r), col);
+  }
+
+  private Entry getInputEntry(int baseIndex, int dcMask, int col) {
+    final var bit = 1 << (getInputColumnCount() - 1 - col);
+    if ((dcMask & bit) != 0) return Entry.DONT_CARE;
+    return (baseIndex & bit) != 0 ? Entry.ONE : Entry.ZERO;
   }
 
   public int getVisibleRowDcMask(int row) {
-    final var r = rows.get(row);
-    return r.dcMask();
+    return getDcMask(getVisibleRow(row));
   }
 
   public int getVisibleRowIndex(int row) {
-    final var r = rows.get(row);
-    return r.baseIndex();
+    return getBaseIndex(getVisibleRow(row));
   }
 
   public Iterable<Integer> getVisibleRowIndexes(int row) {
-    return rows.get(row);
+    final var r = getVisibleRow(row);
+    final var base = getBaseIndex(r);
+    final var mask = getDcMask(r);
+    return () ->
+        new Iterator<>() {
+          int add = 0;
+          boolean done = false;
+
+          @Override
+          public boolean hasNext() {
+            return !done;
+          }
+
+          @Override
+          public Integer next() {
+            if (done) throw new NoSuchElementException();
+            final var idx = base | add;
+            done = add == mask;
+            add = (add - mask) & mask;
+            return idx;
+          }
+        };
   }
 
   public Entry getInputEntry(int idx, int col) {
@@ -297,23 +411,24 @@ public class TruthTable {
     return (idx & (1 << (inputs - col - 1))) != 0;
   }
 
+  /** Returns the entries of an output column, in a new array. */
   public Entry[] getOutputColumn(int col) {
-    var column = columns.get(col);
+    if (col < 0 || col >= getOutputColumnCount())
+      throw new IndexOutOfBoundsException("bad output column index");
+    final var column = columns.get(col);
     if (column == null) {
-      if (col < 0 || col >= getOutputColumnCount())
-        throw new IndexOutOfBoundsException("bad output column index");
-      column = new Entry[getRowCount()];
-      Arrays.fill(column, DEFAULT_ENTRY);
-      columns.set(col, column);
+      final var entries = new Entry[getRowCount()];
+      Arrays.fill(entries, DEFAULT_ENTRY);
+      return entries;
     }
-    return column;
+    return column.toEntries(getRowCount());
   }
 
   private boolean identicalOutputs(int idx1, int idx2) {
     if (idx1 == idx2) return true;
     for (final var column : columns) {
       if (column == null) continue;
-      if (column[idx1] != column[idx2]) return false;
+      if (column.get(idx1) != column.get(idx2)) return false;
     }
     return true;
   }
@@ -323,60 +438,55 @@ public class TruthTable {
     for (var col = 0; col < columns.size(); col++) {
       final var column = columns.get(col);
       if (column == null) continue;
-      if (column[idx1] != column[idx2]) {
-        column[idx2] = column[idx1];
+      final var entry = column.get(idx1);
+      if (column.get(idx2) != entry) {
+        column.set(idx2, entry);
         changed[col] = true;
       }
     }
   }
 
-  private boolean setDontCare(Row r, int dc, boolean force, boolean[] changed) {
-    final var newRow = new Row(r.baseIndex(), r.inputs.length, r.dcMask() | dc);
-    final var base = newRow.baseIndex();
+  private boolean setDontCare(int row, int dc, boolean force, boolean[] changed) {
+    final var r = getRows()[row];
+    final var mask = getDcMask(r) | dc;
+    final var base = getBaseIndex(r) & ~mask;
+    final var newRow = getRow(base, mask);
     if (!force) {
-      for (final var idx : newRow) {
-        if (!identicalOutputs(base, idx)) return false;
-      }
-    }
-    for (var i = 0; i < rows.size(); i++) {
-      final var row = rows.get(i);
-      if (!newRow.intersects(row)) continue;
-      if (newRow.contains(row)) {
-        for (final var idx : row) mergeOutputs(base, idx, changed);
-        rows.remove(i);
+      final var identical = new boolean[] {true};
+      forEachIndex(newRow, idx -> identical[0] &= identicalOutputs(base, idx));
+      if (!identical[0]) return false;
+    }
+    forEachIndex(newRow, idx -> mergeOutputs(base, idx, changed));
+    // the rows it overlaps give up the part of them in the new row
+    final var merged = LongStream.builder();
+    for (final var other : rows) {
+      if (intersects(other, base, mask)) {
+        subtract(other, base, mask, merged);
       } else {
-        // find a bit we can flip in s so it doesn't conflict
-        int pos;
-        for (pos = row.inputs.length - 1; pos >= 0; pos--) {
-          if (row.inputs[pos] == Entry.DONT_CARE && newRow.inputs[pos] != Entry.DONT_CARE) break;
-        }
-        if (pos < 0) throw new IllegalStateException("failed row merge");
-        int bit = (1 << (row.inputs.length - 1 - pos));
-        splitRow(row, row.baseIndex() ^ bit);
+        merged.add(other);
       }
-      i--; // back up, may need a second split
     }
-    final var pos = Collections.binarySearch(rows, newRow, sortByInputs);
-    if (pos < 0) rows.add(-pos - 1, newRow);
-    else throw new IllegalStateException("failed row merge");
+    merged.add(newRow);
+    setRows(merged.build().sorted().toArray());
     return true;
   }
 
   public boolean setVisibleInputEntry(int row, int col, Entry value, boolean force) {
-    final var r = rows.get(row);
-    if (r.inputs[col] == value) return false;
-    final var dc = (1 << (r.inputs.length - 1 - col));
+    final var r = getVisibleRow(row);
+    final var current = getInputEntry(getBaseIndex(r), getDcMask(r), col);
+    if (current == value) return false;
+    final var dc = (1 << (getInputColumnCount() - 1 - col));
     if (value == Entry.DONT_CARE) {
       final var changed = new boolean[columns.size()];
-      if (!setDontCare(r, dc, force, changed)) return false;
+      if (!setDontCare(row, dc, force, changed)) return false;
       fireRowsChanged();
       for (int ocol = 0; ocol < columns.size(); ocol++) {
         if (changed[ocol]) fireCellsChanged(ocol);
       }
       return true;
     } else if (value == Entry.ONE || value == Entry.ZERO) {
-      if (r.inputs[col] != Entry.DONT_CARE) return false;
-      splitRow(r, r.baseIndex() | dc);
+      if (current != Entry.DONT_CARE) return false;
+      splitRow(row, getBaseIndex(r), getDcMask(r) & ~dc);
       fireRowsChanged();
       return true;
     } else {
@@ -385,92 +495,105 @@ public class TruthTable {
   }
 
   public void setVisibleOutputEntry(int row, int col, Entry value) {
-    final var r = rows.get(row);
-    var column = columns.get(col);
-    if (column == null && value == DEFAULT_ENTRY) return;
-    else if (column == null) column = getOutputColumn(col);
-    var changed = false;
-    for (Integer idx : r) {
-      if (column[idx] == value) continue;
-      changed = true;
-      column[idx] = value;
-    }
-    if (changed) fireCellsChanged(col);
+    final var r = getVisibleRow(row);
+    if (columns.get(col) == null && value == DEFAULT_ENTRY) return;
+    final var column = getColumn(col);
+    final var changed = new boolean[] {false};
+    forEachIndex(r, idx -> {
+      if (column.get(idx) != value) {
+        changed[0] = true;
+        column.set(idx, value);
+      }
+    });
+    if (changed[0]) fireCellsChanged(col);
   }
 
-  Row findRow(int idx) {
-    for (var i = rows.size() - 1; i >= 0; i--) {
-      final var r = rows.get(i);
-      if (r.contains(idx)) return r;
+  public int findVisibleRowContaining(int idx) {
+    if (rows == null) return Objects.checkIndex(idx, getRowCount());
+    // the row is one of those whose base index is at most the index
+    final var pos = Arrays.binarySearch(rows, getRow(idx, -1));
+    for (var i = (pos < 0 ? -pos - 1 : pos + 1) - 1; i >= 0; i--) {
+      if (contains(rows[i], idx)) return i;
     }
     throw new IllegalStateException("missing row");
   }
 
-  public int findVisibleRowContaining(int idx) {
-    for (var i = rows.size() - 1; i >= 0; i--) {
-      final var r = rows.get(i);
-      if (r.contains(idx)) return i;
+  private String toBitString(long row, List<Var> vars) {
+    final var s = new StringBuilder();
+    var i = 0;
+    for (final var variable : vars) {
+      s.append(" ");
+      for (var j = 0; j < variable.width; j++) {
+        s.append(getInputEntry(getBaseIndex(row), getDcMask(row), i++).toBitString());
+      }
     }
-    throw new IllegalStateException("missing row");
+    return s.toString();
   }
 
   public void setVisibleRows(List<Entry[]> newEntries, boolean force) {
     final var ni = getInputColumnCount();
     final var no = getOutputColumnCount();
-    final var newRows = new ArrayList<Row>(newEntries.size());
-    for (final var values : newEntries) {
+    final var newRows = new long[newEntries.size()];
+    for (var i = 0; i < newRows.length; i++) {
+      final var values = newEntries.get(i);
       if (values.length != ni + no) throw new IllegalArgumentException("wrong column count");
-      newRows.add(new Row(values, ni));
+      var base = 0;
+      var mask = 0;
+      for (var col = 0; col < ni; col++) {
+        base = (base << 1) | (values[col] == Entry.ONE ? 1 : 0);
+        mask = (mask << 1) | (values[col] == Entry.DONT_CARE ? 1 : 0);
+      }
+      newRows[i] = getRow(base, mask);
     }
     // check that newRows has no intersections
     final var ivars = getInputVariables();
     final var taken = new int[getRowCount()];
-    for (int i = 0; i < newRows.size(); i++) {
-      final var r = newRows.get(i);
-      for (final var idx : r) {
+    for (var i = 0; i < newRows.length; i++) {
+      final var r = newRows[i];
+      final var row = i + 1;
+      forEachIndex(r, idx -> {
         if (taken[idx] != 0 && !force) {
           throw new IllegalArgumentException(
               String.format(
                   "Some inputs are repeated."
                       + " For example, rows %d and %d have overlapping input values %s and %s.",
                   taken[idx],
-                  i + 1,
-                  newRows.get(taken[idx] - 1).toBitString(ivars),
-                  r.toBitString(ivars)));
+                  row,
+                  toBitString(newRows[taken[idx] - 1], ivars),
+                  toBitString(r, ivars)));
         } else if (taken[idx] != 0) {
           // TODO: split row
           throw new IllegalArgumentException(
               "Sorry, this error can't yet be fixed. Eliminate duplicate rows then try again.");
         } else {
-          taken[idx] = i + 1;
+          taken[idx] = row;
         }
-      }
+      });
     }
     // check that newRows covers all possible cases
+    final var allRows = LongStream.builder();
+    for (final var r : newRows) allRows.add(r);
     for (var i = 0; i < getRowCount(); i++) {
       if (taken[i] == 0 && !force) {
         throw new IllegalArgumentException(
             String.format(
                 "Some inputs are missing." + " For example, there is no row for input %s.",
-                new Row(i, ni, 0).toBitString(ivars)));
+                toBitString(getRow(i, 0), ivars)));
       } else if (taken[i] == 0) {
-        newRows.add(new Row(i, ni, 0));
+        allRows.add(getRow(i, 0));
       }
     }
 
-    newRows.sort(sortByInputs);
-    rows.clear();
-    rows = newRows;
+    setRows(allRows.build().sorted().toArray());
     initColumns();
 
-    for (Entry[] values : newEntries) {
-      final var r = new Row(values, ni);
+    for (var i = 0; i < newRows.length; i++) {
+      final var values = newEntries.get(i);
       for (var col = 0; col < no; col++) {
         final var value = values[ni + col];
-        var column = columns.get(col);
-        if (column == null && value == DEFAULT_ENTRY) continue;
-        else if (column == null) column = getOutputColumn(col);
-        for (final var idx : r) column[idx] = value;
+        if (columns.get(col) == null && value == DEFAULT_ENTRY) continue;
+        final var column = getColumn(col);
+        forEachIndex(newRows[i], idx -> column.set(idx, value));
       }
     }
     fireRowsChanged();
@@ -480,15 +603,16 @@ public class TruthTable {
   }
 
   public void setOutputEntry(int idx, int col, Entry value) {
-    var column = columns.get(col);
-    if (column == null && value == DEFAULT_ENTRY) return;
-    else if (column == null) column = getOutputColumn(col);
-    if (column[idx] == value) return;
-    column[idx] = value;
-    final var r = findRow(idx);
-    if (r.duplicity() > 1) {
-      splitRow(r, idx);
-      fireRowsChanged();
+    if (columns.get(col) == null && value == DEFAULT_ENTRY) return;
+    final var column = getColumn(col);
+    if (column.get(idx) == value) return;
+    column.set(idx, value);
+    if (rows != null) {
+      final var row = findVisibleRowContaining(idx);
+      if (getDcMask(rows[row]) != 0) {
+        splitRow(row, idx, 0);
+        fireRowsChanged();
+      }
     }
     fireCellsChanged(col);
   }
@@ -581,11 +705,13 @@ public class TruthTable {
           while (lost++ != 0) addInput(pos, oldCount++);
         }
       } else if (action == VariableListEvent.ALL_REPLACED) {
-        initRows();
+        rows = null;
       }
     }
 
+
     private void moveInput(int oldIndex, int newIndex) {
+      if (rows == null) return;
       final var inputs = getInputColumnCount();
       oldIndex = inputs - 1 - oldIndex;
       newIndex = inputs - 1 - newIndex;
@@ -598,10 +724,10 @@ public class TruthTable {
       final var moveDist = Math.abs(newIndex - oldIndex);
       final var moveLeft = newIndex > oldIndex;
       final var blockMask = allMask ^ sameMask ^ moveMask; // bits that move by one
-      ArrayList<Row> ret = new ArrayList<>(2 * rows.size());
-      for (final var row : rows) {
-        final var i = row.baseIndex();
-        final var dc = row.dcMask();
+      final var ret = new long[rows.length];
+      for (var r = 0; r < rows.length; r++) {
+        final var i = getBaseIndex(rows[r]);
+        final var dc = getDcMask(rows[r]);
         int idx0;
         int dc0;
         if (moveLeft) {
@@ -611,54 +737,49 @@ public class TruthTable {
           idx0 = (i & sameMask) | ((i & moveMask) >> moveDist) | ((i & blockMask) << 1);
           dc0 = (dc & sameMask) | ((dc & moveMask) >> moveDist) | ((dc & blockMask) << 1);
         }
-        ret.add(new Row(idx0, inputs, dc0));
+        ret[r] = getRow(idx0, dc0);
       }
-      ret.sort(sortByInputs);
-      rows = ret;
+      Arrays.sort(ret);
+      setRows(ret);
     }
 
     private void addInput(int index, int oldCount) {
-      // add another Entry column to each row.input
-      final var ret = new ArrayList<Row>(2 * rows.size());
-      for (final var row : rows) {
-        final var i = row.baseIndex();
-        final var dc = row.dcMask();
-        final var b = 1 << (oldCount - index); // _0001000
-        var mask = b - 1; // _0000111
-        final var idx0 = ((i & ~mask) << 1) | 0 | (i & mask); // xxxx0yyy
-        final var dc0 = ((dc & ~mask) << 1) | 0 | (dc & mask); // wwww0zzz
-        ret.add(new Row(idx0 | 0, oldCount + 1, dc0)); // xxxx0yyy
-        ret.add(new Row(idx0 | b, oldCount + 1, dc0)); // xxxx1yyy
+      // split each row in one with the new input 0 and one with it 1
+      if (rows == null) return;
+      final var b = 1 << (oldCount - index); // _0001000
+      final var mask = b - 1; // _0000111
+      final var ret = new long[2 * rows.length];
+      for (var r = 0; r < rows.length; r++) {
+        final var i = getBaseIndex(rows[r]);
+        final var dc = getDcMask(rows[r]);
+        final var idx0 = ((i & ~mask) << 1) | (i & mask); // xxxx0yyy
+        final var dc0 = ((dc & ~mask) << 1) | (dc & mask); // wwww0zzz
+        ret[2 * r] = getRow(idx0, dc0); // xxxx0yyy
+        ret[2 * r + 1] = getRow(idx0 | b, dc0); // xxxx1yyy
       }
-      ret.sort(sortByInputs);
-      rows = ret;
+      Arrays.sort(ret);
+      setRows(ret);
     }
 
     private void removeInput(int index, int oldCount) {
-      // force an Entry column of each row.input to 'x', then remove it
+      // the table keeps the half with the input 0, and so do the rows: those with the input 1 go,
+      // and those with the input 0 or don't care are left to cover the same indexes as before
+      if (rows == null) return;
       final var b = (1 << (oldCount - 1 - index)); // _0001000
-      final var changed = new boolean[columns.size()];
-      // loop rows by index to avoid java.util.ConcurrentModificationException
-      //noinspection ForLoopReplaceableByForEach
-      for (var i = 0; i < rows.size(); ++i) {
-        final var r = rows.get(i);
-        if (r.inputs[index] == Entry.DONT_CARE) continue;
-        setDontCare(r, b, true, changed); // mutates row
-      }
       final var mask = b - 1; // _0000111
-      final var ret = new ArrayList<Row>(rows.size());
+      final var ret = LongStream.builder();
       for (final var r : rows) {
-        final var i = r.baseIndex();
-        final var dc = r.dcMask();
+        final var i = getBaseIndex(r);
+        if ((i & b) != 0) continue;
+        final var dc = getDcMask(r);
         final var idx0 = ((i >> 1) & ~mask) | (i & mask); // __xxxyyy
-        final var dc0 = ((dc >> 1) & ~mask) | (dc & mask); // wwww0zzz
-        ret.add(new Row(idx0, oldCount - 1, dc0));
+        final var dc0 = ((dc >> 1) & ~mask) | (dc & mask); // __wwwzzz
+        ret.add(getRow(idx0, dc0));
       }
-      ret.sort(sortByInputs);
-      rows = ret;
+      setRows(ret.build().toArray());
     }
 
-    private Entry[] inputsChangedForOutput(Entry[] column, VariableListEvent event) {
+    private Column inputsChangedForOutput(Column column, VariableListEvent event) {
       final var v = event.getVariable();
       final var action = event.getType();
       if (action == VariableListEvent.ADD) {
@@ -696,52 +817,52 @@ public class TruthTable {
       return column;
     }
 
-    private Entry[] moveInputForOutput(Entry[] old, int oldIndex, int newIndex) {
+    private Column moveInputForOutput(Column old, int oldIndex, int newIndex) {
       final var inputs = getInputColumnCount();
+      final var length = 1 << inputs;
       oldIndex = inputs - 1 - oldIndex;
       newIndex = inputs - 1 - newIndex;
-      final var ret = new Entry[old.length];
+      final var ret = new Column(length);
       final var sameMask =
-          (old.length - 1)
+          (length - 1)
               ^ ((1 << (1 + Math.max(oldIndex, newIndex))) - 1)
               ^ ((1 << Math.min(oldIndex, newIndex)) - 1); // bits that don't change
       final var moveMask = 1 << oldIndex; // bit that moves
       final var moveDist = Math.abs(newIndex - oldIndex);
       final var moveLeft = newIndex > oldIndex;
-      final var blockMask = (old.length - 1) ^ sameMask ^ moveMask; // bits that move by one
-      for (var i = 0; i < old.length; i++) {
+      final var blockMask = (length - 1) ^ sameMask ^ moveMask; // bits that move by one
+      for (var i = 0; i < length; i++) {
         int j; // new index
         if (moveLeft) {
           j = (i & sameMask) | ((i & moveMask) << moveDist) | ((i & blockMask) >> 1);
         } else {
           j = (i & sameMask) | ((i & moveMask) >> moveDist) | ((i & blockMask) << 1);
         }
-        ret[j] = old[i];
+        ret.set(j, old.get(i));
       }
       return ret;
     }
 
-    private Entry[] removeInputForOutput(Entry[] old, int index, int oldCount) {
-      var ret = new Entry[old.length / 2];
+    private Column removeInputForOutput(Column old, int index, int oldCount) {
+      final var length = 1 << oldCount;
+      final var ret = new Column(length / 2);
       var j = 0;
       final var mask = 1 << (oldCount - 1 - index);
-      for (var i = 0; i < old.length; i++) {
-        if ((i & mask) == 0) {
-          Entry e0 = old[i];
-          Entry e1 = old[i | mask];
-          ret[j++] = (e0 == e1 ? e0 : Entry.DONT_CARE);
-        }
+      for (var i = 0; i < length; i++) {
+        if ((i & mask) == 0) ret.set(j++, old.get(i));
       }
       return ret;
     }
 
-    private Entry[] addInputForOutput(Entry[] old, int index, int oldCount) {
-      final var ret = new Entry[2 * old.length];
+    private Column addInputForOutput(Column old, int index, int oldCount) {
+      final var length = 1 << oldCount;
+      final var ret = new Column(2 * length);
       final var b = 1 << (oldCount - index); // _0001000
       final var mask = b - 1; // _0000111
-      for (var i = 0; i < old.length; i++) {
-        ret[((i & ~mask) << 1) | 0 | (i & mask)] = old[i]; // xxxx0yyy
-        ret[((i & ~mask) << 1) | b | (i & mask)] = old[i]; // xxxx1yyy
+      for (var i = 0; i < length; i++) {
+        final var entry = old.get(i);
+        ret.set(((i & ~mask) << 1) | 0 | (i & mask), entry); // xxxx0yyy
+        ret.set(((i & ~mask) << 1) | b | (i & mask), entry); // xxxx1yyy
       }
       return ret;
     }
@@ -821,6 +942,6 @@ public class TruthTable {
   }
 
   public int getVisibleRowCount() {
-    return rows.size();
+    return rows == null ? getRowCount() : rows.length;
   }
 }
@@ -12,6 +12,7 @@ package com.cburch.logisim.circuit;
 import static com.cburch.logisim.circuit.Strings.S;
 
 import com.cburch.logisim.analyze.model.AnalyzerModel;
+import com.cburch.logisim.analyze.model.Bdd;
 import com.cburch.logisim.analyze.model.Entry;
 import com.cburch.logisim.analyze.model.Expression;
 import com.cburch.logisim.analyze.model.Expressions;
@@ -29,11 +30,16 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
 
 public class Analyze {
   public static class LocationBit {
@@ -63,6 +69,8 @@ public class Analyze {
     private final Circuit circuit;
     private final Set<LocationBit> dirtyPoints = new HashSet<>();
     private final Map<LocationBit, Component> causes = new HashMap<>();
+    // the expressions of the points share their common parts, rather than each being a tree
+    private final Expressions.Table expressions = new Expressions.Table();
     private Component currentCause = null;
 
     ExpressionMap(Circuit circuit) {
@@ -71,6 +79,7 @@ public class Analyze {
 
     @Override
     public Expression put(LocationBit point, Expression expression) {
+      expression = expressions.intern(expression);
       final var ret = super.put(point, expression);
       if (currentCause != null) causes.put(point, currentCause);
       if (!Objects.equals(ret, expression)) {
@@ -90,18 +99,6 @@ public class Analyze {
     }
   }
 
-  /**
-   * Checks whether any of the recently placed expressions in the expression map are
-   * self-referential; if so, return it.
-   */
-  private static Expression checkForCircularExpressions(ExpressionMap expressionMap) {
-    for (final var point : expressionMap.dirtyPoints) {
-      final var expr = expressionMap.get(point);
-      if (expr.isCircular()) return expr;
-    }
-    return null;
-  }
-
   //
   // computeExpression
   //
@@ -110,11 +107,32 @@ public class Analyze {
    * difficulties arise.
    */
   public static void computeExpression(AnalyzerModel model, Circuit circuit, Map<Instance, String> pinNames) throws AnalyzeException {
-    final var expressionMap = new ExpressionMap(circuit);
+    final var outputExpressions = getOutputExpressions(circuit, pinNames);
 
     final var inputVars = new ArrayList<Var>();
     final var outputVars = new ArrayList<Var>();
-    final var outputPins = new ArrayList<Instance>();
+    for (final var entry : pinNames.entrySet()) {
+      final var pin = entry.getKey();
+      final var variable = new Var(entry.getValue(), pin.getAttributeValue(StdAttr.WIDTH).getWidth());
+      if (Pin.FACTORY.isInputPin(pin)) {
+        inputVars.add(variable);
+      } else {
+        outputVars.add(variable);
+      }
+    }
+    model.setVariables(inputVars, outputVars);
+    for (final var output : outputExpressions.entrySet()) {
+      model.getOutputExpressions().setExpression(output.getKey(), output.getValue());
+    }
+  }
+
+  /**
+   * Propagates the variables of the input pins through the circuit, and returns the expressions
+   * this gives for all the points of the circuit.
+   */
+  private static ExpressionMap propagateExpressions(Circuit circuit, Map<Instance, String> pinNames) throws AnalyzeException {
+    final var expressionMap = new ExpressionMap(circuit);
+
     for (final var entry : pinNames.entrySet()) {
       final var pin = entry.getKey();
       final var label = entry.getValue();
@@ -125,41 +143,186 @@ public class Analyze {
           final var e = Expressions.variable(width > 1 ? label + "[" + b + "]" : label);
           expressionMap.put(new LocationBit(pin.getLocation(), b), e);
         }
-        inputVars.add(new Var(label, width));
-      } else {
-        outputPins.add(pin);
-        outputVars.add(new Var(label, width));
       }
     }
 
     propagateComponents(expressionMap, circuit.getNonWires());
 
-    final var maxIterations = 100;
+    // An expression is built from those already in the map, so it can never contain itself: a
+    // feedback loop shows up as expressions that keep changing instead. Without one, they settle
+    // after at most one iteration for each component on the longest path through the circuit.
+    final var maxIterations = Math.max(100, circuit.getNonWires().size());
     for (var iterations = 0; !expressionMap.dirtyPoints.isEmpty(); iterations++) {
       if (iterations > maxIterations) {
         throw new AnalyzeException.Circular();
       }
+      if (Thread.currentThread().isInterrupted()) throw new CancellationException();
 
       propagateWires(expressionMap, new HashSet<>(expressionMap.dirtyPoints));
 
       final var dirtyComponents = getDirtyComponents(circuit, expressionMap.dirtyPoints);
       expressionMap.dirtyPoints.clear();
       propagateComponents(expressionMap, dirtyComponents);
-
-      final var expr = checkForCircularExpressions(expressionMap);
-      if (expr != null) throw new AnalyzeException.Circular();
     }
+    return expressionMap;
+  }
 
-    model.setVariables(inputVars, outputVars);
-    for (final var pin : outputPins) {
-      final var label = pinNames.get(pin);
+  /**
+   * Returns the expression of each output bit of the circuit, by name, null where there is none, as
+   * the components build them.
+   */
+  static Map<String, Expression> getOutputExpressions(Circuit circuit, Map<Instance, String> pinNames) throws AnalyzeException {
+    return getOutputExpressions(propagateExpressions(circuit, pinNames), pinNames);
+  }
+
+  /** Returns the expression of each output bit, by name, null where there is none. */
+  private static Map<String, Expression> getOutputExpressions(ExpressionMap expressionMap, Map<Instance, String> pinNames) {
+    final var outputs = new LinkedHashMap<String, Expression>();
+    for (final var entry : pinNames.entrySet()) {
+      final var pin = entry.getKey();
+      if (Pin.FACTORY.isInputPin(pin)) continue;
+      final var label = entry.getValue();
       final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
       for (var b = 0; b < width; b++) {
         final var loc = new LocationBit(pin.getLocation(), b);
-        final var name = (width > 1 ? label + "[" + b + "]" : label);
-        model.getOutputExpressions().setExpression(name, expressionMap.get(loc));
+        outputs.put(width > 1 ? label + "[" + b + "]" : label, expressionMap.get(loc));
+      }
+    }
+    return outputs;
+  }
+
+  //
+  // computeBdds
+  //
+  /**
+   * Builds the decision diagram of each output bit of the circuit, by name, from the expressions
+   * the components give, see {@link #computeExpression}. The diagrams are referenced; an output
+   * bit that no expression reaches has none. The function gives the index of the variable of an
+   * input bit, by name.
+   */
+  public static Map<String, Integer> computeBdds(Bdd bdd, Circuit circuit, Map<Instance, String> pinNames, ToIntFunction<String> variableIndexes) throws AnalyzeException {
+    return computeBdds(bdd, circuit, pinNames, variableIndexes, () -> {});
+  }
+
+  private static Map<String, Integer> computeBdds(Bdd bdd, Circuit circuit, Map<Instance, String> pinNames, ToIntFunction<String> variableIndexes, Runnable built) throws AnalyzeException {
+    final var outputs = new LinkedHashMap<String, Integer>();
+    for (final var output : getOutputExpressions(circuit, pinNames).entrySet()) {
+      if (output.getValue() != null) outputs.put(output.getKey(), bdd.build(output.getValue(), variableIndexes));
+      built.run();
+    }
+    return outputs;
+  }
+
+  //
+  // checkEquivalence
+  //
+  /**
+   * Checks that two circuits compute the same outputs from the same inputs, with decision diagrams
+   * rather than row by row, so that there is no limit on the number of inputs. The pins are matched
+   * by label, see {@link #getPinLabels}. Returns the differences: pins that are missing or have
+   * other widths, and outputs that differ, each with inputs for which it does; none if the
+   * circuits are equivalent.
+   */
+  public static List<String> checkEquivalence(Circuit circuit, Circuit other) throws AnalyzeException {
+    return checkEquivalence(circuit, other, percent -> {});
+  }
+
+  /**
+   * Checks the equivalence of two circuits as above, giving the share of the output bits built so
+   * far, in percent, as it goes. The check can be cancelled by interrupting the thread that runs
+   * it, in which case it throws a {@link CancellationException}.
+   */
+  public static List<String> checkEquivalence(Circuit circuit, Circuit other, IntConsumer progress) throws AnalyzeException {
+    final var differences = new ArrayList<String>();
+    final var pins = getPinLabels(circuit);
+    final var otherPins = getPinLabels(other);
+    final var widths = getPinWidths(pins);
+    final var otherWidths = getPinWidths(otherPins);
+    for (final var pin : widths.entrySet()) {
+      final var otherWidth = otherWidths.get(pin.getKey());
+      if (otherWidth == null) {
+        differences.add(S.get("analyzeEquivalenceMissingPin", pin.getKey(), other.getName()));
+      } else if (!otherWidth.equals(pin.getValue())) {
+        differences.add(S.get("analyzeEquivalenceWidth", pin.getKey(), pin.getValue(),
+            circuit.getName(), otherWidth, other.getName()));
+      }
+    }
+    for (final var pin : otherWidths.keySet()) {
+      if (!widths.containsKey(pin)) {
+        differences.add(S.get("analyzeEquivalenceMissingPin", pin, circuit.getName()));
+      }
+    }
+
+    // the input bits are the variables, in the order of the pins of the first circuit
+    final var inputs = new ArrayList<Var>();
+    for (final var entry : pins.entrySet()) {
+      final var pin = entry.getKey();
+      if (Pin.FACTORY.isInputPin(pin)) {
+        inputs.add(new Var(entry.getValue(), pin.getAttributeValue(StdAttr.WIDTH).getWidth()));
+      }
+    }
+    final var variables = new HashMap<String, Integer>();
+    for (final var input : inputs) {
+      for (final var name : input) variables.put(name, variables.size());
+    }
+    final ToIntFunction<String> variableIndexes = name -> variables.computeIfAbsent(name, n -> variables.size());
+    final var bdd = new Bdd(EQUIVALENCE_NODE_LIMIT);
+    final var outputBits = getOutputBitCount(pins) + getOutputBitCount(otherPins);
+    final var built = new int[] {0};
+    final Runnable report = () -> progress.accept(100 * ++built[0] / Math.max(1, outputBits));
+    final var outputs = computeBdds(bdd, circuit, pins, variableIndexes, report);
+    final var otherOutputs = computeBdds(bdd, other, otherPins, variableIndexes, report);
+    for (final var entry : pins.entrySet()) {
+      final var pin = entry.getKey();
+      final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+      if (Pin.FACTORY.isInputPin(pin) || !Objects.equals(otherWidths.get(entry.getValue()), width)) {
+        continue;
+      }
+      for (final var name : new Var(entry.getValue(), width)) {
+        final var output = outputs.get(name);
+        final var otherOutput = otherOutputs.get(name);
+        if (Objects.equals(output, otherOutput)) continue;
+        if (output == null || otherOutput == null) {
+          differences.add(S.get("analyzeEquivalenceUndriven", name,
+              output == null ? circuit.getName() : other.getName()));
+          continue;
+        }
+        final var values = bdd.getAssignment(bdd.xor(output, otherOutput), variables.size());
+        differences.add(S.get("analyzeEquivalenceOutput", name, getAssignment(inputs, variables, values)));
+      }
+    }
+    return differences;
+  }
+
+  // enough for a few million nodes, at about 36 bytes each
+  private static final int EQUIVALENCE_NODE_LIMIT = 1 << 22;
+
+  private static int getOutputBitCount(Map<Instance, String> pinNames) {
+    var count = 0;
+    for (final var pin : pinNames.keySet()) {
+      if (!Pin.FACTORY.isInputPin(pin)) count += pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+    }
+    return count;
+  }
+
+  private static Map<String, Integer> getPinWidths(Map<Instance, String> pinNames) {
+    final var widths = new LinkedHashMap<String, Integer>();
+    for (final var entry : pinNames.entrySet()) {
+      widths.put(entry.getValue(), entry.getKey().getAttributeValue(StdAttr.WIDTH).getWidth());
+    }
+    return widths;
+  }
+
+  private static String getAssignment(List<Var> inputs, Map<String, Integer> variables, boolean[] values) {
+    final var assignment = new StringBuilder();
+    for (final var input : inputs) {
+      if (assignment.length() > 0) assignment.append(", ");
+      assignment.append(input.name).append('=');
+      for (var b = input.width - 1; b >= 0; b--) {
+        assignment.append(values[variables.get(input.bitName(b))] ? '1' : '0');
       }
     }
+    return assignment.toString();
   }
 
   //
@@ -14,9 +14,15 @@ import static com.cburch.logisim.circuit.Strings.S;
 public class AnalyzeException extends Exception {
   public static class CannotHandle extends AnalyzeException {
     private static final long serialVersionUID = 1L;
+    private final String reason;
 
     public CannotHandle(String reason) {
       super(S.get("analyzeCannotHandleError", reason));
+      this.reason = reason;
+    }
+
+    public String getReason() {
+      return reason;
     }
   }
 
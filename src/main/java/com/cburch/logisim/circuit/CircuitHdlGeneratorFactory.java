@@ -15,6 +15,7 @@ import com.cburch.logisim.fpga.data.MappableResourcesContainer;
 import com.cburch.logisim.fpga.designrulecheck.CorrectLabel;
 import com.cburch.logisim.fpga.designrulecheck.Netlist;
 import com.cburch.logisim.fpga.designrulecheck.netlistComponent;
+import com.cburch.logisim.fpga.file.HdlManifest;
 import com.cburch.logisim.fpga.gui.Reporter;
 import com.cburch.logisim.fpga.hdlgenerator.AbstractHdlGeneratorFactory;
 import com.cburch.logisim.fpga.hdlgenerator.Hdl;
@@ -88,15 +89,23 @@ public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
   }
 
   @Override
-  public boolean generateAllHDLDescriptions(Set<String> handledComponents, String workingDir, List<String> hierarchy) {
-    return generateAllHDLDescriptions(handledComponents, workingDir, hierarchy, false);
+  public boolean generateAllHDLDescriptions(Set<String> handledComponents, HdlManifest manifest,
+      String workingDir, List<String> hierarchy) {
+    return generateAllHDLDescriptions(handledComponents, manifest, workingDir, hierarchy, false,
+        new HashMap<>());
   }
 
-  public boolean generateAllHDLDescriptions(
+  /**
+   * Writes the HDL of this circuit and of everything it contains, but keeps the files of a circuit
+   * if the manifest has them for its HDL hash, see {@link Netlist#getHdlHash}.
+   */
+  private boolean generateAllHDLDescriptions(
       Set<String> handledComponents,
+      HdlManifest manifest,
       String workingDir,
       List<String> hierarchy,
-      boolean gatedInstance) {
+      boolean gatedInstance,
+      Map<Circuit, Long> contentHashes) {
     if (myCircuit == null) {
       return false;
     }
@@ -132,6 +141,7 @@ public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
         }
         if (!worker.isOnlyInlined()) {
           if (!Hdl.writeEntity(
+              manifest,
               workPath + worker.getRelativeDirectory(),
               worker.getEntity(
                   myNetList,
@@ -141,6 +151,7 @@ public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
             return false;
           }
           if (!Hdl.writeArchitecture(
+              manifest,
               workPath + worker.getRelativeDirectory(),
               worker.getArchitecture(
                   myNetList,
@@ -171,8 +182,8 @@ public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
       hierarchy.add(
           CorrectLabel.getCorrectLabel(
               thisCircuit.getComponent().getAttributeSet().getValue(StdAttr.LABEL)));
-      if (!worker.generateAllHDLDescriptions(
-          handledComponents, workingDir, hierarchy, thisCircuit.isGatedInstance())) {
+      if (!worker.generateAllHDLDescriptions(handledComponents, manifest, workingDir, hierarchy,
+          thisCircuit.isGatedInstance(), contentHashes)) {
         return false;
       }
       hierarchy.remove(hierarchy.size() - 1);
@@ -181,17 +192,27 @@ public class CircuitHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
     var componentName = CorrectLabel.getCorrectLabel(myCircuit.getName());
     if (gatedInstance) componentName = componentName.concat("_gated");
     if (!handledComponents.contains(componentName)) {
+      final var directory = workPath + getRelativeDirectory();
+      final var key = myNetList.getHdlHash(gatedInstance, contentHashes);
+      if (manifest.keep(directory, componentName, key)) {
+        handledComponents.add(componentName);
+        return true;
+      }
       if (!Hdl.writeEntity(
-          workPath + getRelativeDirectory(),
+          manifest,
+          directory,
           getEntity(myNetList, null, componentName),
-          componentName)) {
+          componentName,
+          key)) {
         return false;
       }
 
       if (!Hdl.writeArchitecture(
-          workPath + getRelativeDirectory(),
+          manifest,
+          directory,
           getArchitecture(myNetList, null, componentName),
-          componentName)) {
+          componentName,
+          key)) {
         return false;
       }
     }
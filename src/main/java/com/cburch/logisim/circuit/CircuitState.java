@@ -31,6 +31,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 
 public class CircuitState implements InstanceData {
@@ -39,6 +40,13 @@ public class CircuitState implements InstanceData {
     @Override
     public void circuitChanged(CircuitEvent event) {
       int action = event.getAction();
+      if (base != null
+          && (action == CircuitEvent.ACTION_ADD
+              || action == CircuitEvent.ACTION_REMOVE
+              || action == CircuitEvent.ACTION_CLEAR
+              || action == CircuitEvent.TRANSACTION_DONE)) {
+        base.forgetHistory();
+      }
 
       if (action == CircuitEvent.ACTION_ADD) {
         /* Component was added */
@@ -138,11 +146,16 @@ public class CircuitState implements InstanceData {
   private HashSet<CircuitState> subStates = new HashSet<>();
 
   private CircuitWires.State wireData = null;
-  private final HashMap<Component, Object> componentData = new HashMap<>();
-  private final Map<Location, Value> values = new HashMap<>();
-  private CopyOnWriteArraySet<Component> dirtyComponents = new CopyOnWriteArraySet<>();
-  private final CopyOnWriteArraySet<Location> dirtyPoints = new CopyOnWriteArraySet<>();
+  final HashMap<Component, Object> componentData = new HashMap<>();
+  final Map<Location, Value> values = new HashMap<>();
+  CopyOnWriteArraySet<Component> dirtyComponents = new CopyOnWriteArraySet<>();
+  final CopyOnWriteArraySet<Location> dirtyPoints = new CopyOnWriteArraySet<>();
   final HashMap<Location, SetData> causes = new HashMap<>();
+  // callbacks run whenever a given component is propagated or gets new data, see watchComponent
+  private final ConcurrentHashMap<Component, CopyOnWriteArraySet<Runnable>> watchers =
+      new ConcurrentHashMap<>();
+  // recent activity, only recorded while SimulationStatistics is enabled
+  private volatile HotSpots hotSpots = null;
 
   private static int lastId = 0;
   private final int id = lastId++;
@@ -158,11 +171,17 @@ public class CircuitState implements InstanceData {
     return cloneState();
   }
 
+  /**
+   * Returns a copy of this state and its substates, with its own propagator, which continues from
+   * the same point: the events pending for the copied states are pending in the copy as well.
+   */
   public CircuitState cloneState() {
     final var ret = new CircuitState(proj, circuit);
-    ret.copyFrom(this, new Propagator(ret));
+    final var copies = new HashMap<CircuitState, CircuitState>();
+    ret.copyFrom(this, new Propagator(ret), copies);
     ret.parentComp = null;
     ret.parentState = null;
+    if (base != null) ret.base.copyFrom(base, copies);
     return ret;
   }
 
@@ -170,7 +189,8 @@ public class CircuitState implements InstanceData {
     return values.containsKey(pt);
   }
 
-  private void copyFrom(CircuitState src, Propagator base) {
+  private void copyFrom(CircuitState src, Propagator base, Map<CircuitState, CircuitState> copies) {
+    copies.put(src, this);
     this.base = base;
     this.parentComp = src.parentComp;
     this.parentState = src.parentState;
@@ -178,7 +198,7 @@ public class CircuitState implements InstanceData {
     this.subStates = new HashSet<>();
     for (final var oldSub : src.subStates) {
       final var newSub = new CircuitState(src.proj, oldSub.circuit);
-      newSub.copyFrom(oldSub, base);
+      newSub.copyFrom(oldSub, base, copies);
       newSub.parentState = this;
       this.subStates.add(newSub);
       substateData.put(oldSub, newSub);
@@ -207,6 +227,52 @@ public class CircuitState implements InstanceData {
     this.dirtyPoints.addAll(src.dirtyPoints);
   }
 
+  /**
+   * Makes this state and its substates continue from where a copy of them made by {@link
+   * #cloneState} is, as {@link #cloneState} would, but keeping the state objects themselves, which
+   * the canvas and the component watchers refer to. As any value may have changed, all watchers are
+   * run afterwards.
+   */
+  void restoreFrom(CircuitState src) {
+    final var copies = new HashMap<CircuitState, CircuitState>();
+    restoreFrom(src, copies);
+    base.copyFrom(src.base, copies);
+  }
+
+  private void restoreFrom(CircuitState src, Map<CircuitState, CircuitState> copies) {
+    copies.put(src, this);
+    // the data of components first touched after the copy was made must go as well
+    for (final var entry : componentData.entrySet()) {
+      final var later = !src.componentData.containsKey(entry.getKey());
+      if (later && entry.getValue() instanceof CircuitState sub) sub.reset();
+    }
+    componentData.entrySet().removeIf(entry -> !(entry.getValue() instanceof CircuitState));
+    for (final var entry : src.componentData.entrySet()) {
+      final var key = entry.getKey();
+      final var oldValue = entry.getValue();
+      if (oldValue instanceof CircuitState oldSub) {
+        if (componentData.get(key) instanceof CircuitState sub) sub.restoreFrom(oldSub, copies);
+      } else {
+        final var newValue = (oldValue instanceof ComponentState state) ? state.clone() : oldValue;
+        componentData.put(key, newValue);
+      }
+    }
+    causes.clear();
+    for (final var entry : src.causes.entrySet()) {
+      causes.put(entry.getKey(), entry.getValue().cloneFor(this));
+    }
+    wireData = src.wireData == null ? null : (CircuitWires.State) src.wireData.clone();
+    values.clear();
+    values.putAll(src.values);
+    dirtyComponents.clear();
+    dirtyComponents.addAll(src.dirtyComponents);
+    dirtyPoints.clear();
+    dirtyPoints.addAll(src.dirtyPoints);
+    for (final var set : watchers.values()) {
+      for (final var watcher : set) watcher.run();
+    }
+  }
+
   public void drawOscillatingPoints(ComponentDrawContext context) {
     if (base != null) base.drawOscillatingPoints(context);
   }
@@ -252,6 +318,20 @@ public class CircuitState implements InstanceData {
     return proj;
   }
 
+  /** Returns the recent simulation activity in this state, or null if none was recorded. */
+  public HotSpots getHotSpots() {
+    return hotSpots;
+  }
+
+  HotSpots recordHotSpots() {
+    var ret = hotSpots;
+    if (ret == null) {
+      ret = new HotSpots();
+      hotSpots = ret;
+    }
+    return ret;
+  }
+
   public Propagator getPropagator() {
     if (base == null) {
       base = new Propagator(this);
@@ -308,6 +388,26 @@ public class CircuitState implements InstanceData {
     }
   }
 
+  /**
+   * Subscribes to changes of a component in this state: the watcher is run on the simulation
+   * thread each time the component is propagated or its data is replaced, which covers every way
+   * its ports or internal state can change. Watchers are not copied by {@link #cloneState}.
+   */
+  public void watchComponent(Component comp, Runnable watcher) {
+    watchers.computeIfAbsent(comp, k -> new CopyOnWriteArraySet<>()).add(watcher);
+  }
+
+  public void unwatchComponent(Component comp, Runnable watcher) {
+    final var set = watchers.get(comp);
+    if (set != null && set.remove(watcher) && set.isEmpty()) watchers.remove(comp, set);
+  }
+
+  private void fireWatchers(Component comp) {
+    if (watchers.isEmpty()) return;
+    final var set = watchers.get(comp);
+    if (set != null) for (final var watcher : set) watcher.run();
+  }
+
   public void markComponentsDirty(Collection<Component> comps) {
     dirtyComponents.addAll(comps);
   }
@@ -336,9 +436,18 @@ public class CircuitState implements InstanceData {
         }
       }
       dirtyComponents.clear();
+      final var stats = SimulationStatistics.enabled ? SimulationStatistics.getInstance() : null;
+      if (stats != null) stats.componentBatch(toProcess.length);
       for (final var compObj : toProcess) {
         if (compObj instanceof Component comp) {
-          comp.propagate(this);
+          if (stats == null) {
+            comp.propagate(this);
+          } else {
+            final var start = System.nanoTime();
+            comp.propagate(this);
+            stats.componentPropagated(this, comp, System.nanoTime() - start);
+          }
+          fireWatchers(comp);
           if (comp.getFactory() instanceof Pin && parentState != null) {
             // should be propagated in superstate
             parentComp.propagate(parentState);
@@ -372,6 +481,7 @@ public class CircuitState implements InstanceData {
       }
     }
     if (!dirty.isEmpty()) {
+      if (SimulationStatistics.enabled) SimulationStatistics.getInstance().pointBatch(dirty.size());
       circuit.wires.propagate(this, dirty);
     }
 
@@ -439,6 +549,7 @@ public class CircuitState implements InstanceData {
 
     }
     componentData.put(comp, data);
+    fireWatchers(comp);
   }
 
   public void setValue(Location pt, Value val, Component cause, int delay) {
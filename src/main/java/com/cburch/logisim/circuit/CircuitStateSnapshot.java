@@ -0,0 +1,390 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.circuit.Propagator.SetData;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Attribute;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.SnapshotData;
+import com.cburch.logisim.proj.Project;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The complete state of a simulation at one moment: the values, causes and pending events of a
+ * circuit state and all of its substates, the tick count, the state of the random noise generator,
+ * and the data of every component, such as the contents of memories and the registers of
+ * processors. Every simulation restored from a snapshot therefore runs the same way.
+ *
+ * <p>A snapshot is taken with {@link #take} and can be restored any number of times, each time as
+ * a new simulation of its own, so it can serve as a fork point: a test bench can run a system until
+ * it has booted once, and then start every test from there. The snapshot keeps a copy of the state
+ * that is never simulated; memory pages are shared between it and the restored states until one
+ * of them writes to a page.
+ *
+ * <p>A snapshot can also be written to a compact binary file with {@link #write}, and read back
+ * with {@link #read} for a project holding the same circuits. Reading starts a fresh simulation,
+ * in which every component creates its data as usual, and then overwrites its values, events and
+ * component data with those in the file. Only the data of components implementing {@link
+ * SnapshotData} is in the file; other components keep their initial data.
+ */
+public final class CircuitStateSnapshot {
+  private static final int MAGIC = 0x4c534e50; // "LSNP"
+  private static final int VERSION = 2;
+  // kinds of component data records
+  private static final int SUBSTATE = 0;
+  private static final int DATA = 1;
+
+  private final CircuitState state; // a copy that is never simulated itself
+
+  private CircuitStateSnapshot(CircuitState state) {
+    this.state = state;
+  }
+
+  /** Takes a snapshot of the whole simulation the given state is part of. */
+  public static CircuitStateSnapshot take(CircuitState state) {
+    return new CircuitStateSnapshot(state.getPropagator().getRootState().cloneState());
+  }
+
+  public Circuit getCircuit() {
+    return state.getCircuit();
+  }
+
+  /** Returns the number of clock ticks simulated when the snapshot was taken. */
+  public int getTickCount() {
+    return state.getPropagator().getTickCount();
+  }
+
+  /** Returns a new simulation, independent of any other, continuing from this snapshot. */
+  public CircuitState restore() {
+    return state.cloneState();
+  }
+
+  /** Makes the simulation the snapshot was taken of continue from the snapshot again. */
+  void restoreInto(CircuitState root) {
+    root.restoreFrom(state);
+  }
+
+  // components at the same location are told apart by their attributes, which is rarely needed
+  private static final Comparator<Component> ORDER =
+      Comparator.comparing(Component::getLocation)
+          .thenComparing(comp -> comp.getFactory().getName())
+          .thenComparing(comp -> getAttributeText(comp.getAttributeSet()));
+
+  /**
+   * The non-wire components of a circuit, in an order that does not depend on how it was read.
+   * Fails if two components cannot be told apart, as their data could not be matched on reading.
+   */
+  private static Component[] components(Circuit circuit) throws IOException {
+    final var ret = circuit.getNonWires().toArray(new Component[0]);
+    Arrays.sort(ret, ORDER);
+    for (var i = 1; i < ret.length; i++) {
+      if (ORDER.compare(ret[i - 1], ret[i]) == 0) {
+        throw new IOException(
+            "snapshot cannot tell apart the "
+                + ret[i].getFactory().getName()
+                + " components at "
+                + ret[i].getLocation()
+                + " in "
+                + circuit.getName());
+      }
+    }
+    return ret;
+  }
+
+  private static String getAttributeText(AttributeSet attrs) {
+    final var ret = new StringBuilder();
+    for (final var attr : attrs.getAttributes()) {
+      ret.append(attr.getName()).append('=').append(getStandardString(attrs, attr)).append('\n');
+    }
+    return ret.toString();
+  }
+
+  private static <V> String getStandardString(AttributeSet attrs, Attribute<V> attr) {
+    final var value = attrs.getValue(attr);
+    return value == null ? "" : attr.toStandardString(value);
+  }
+
+  private static int signature(Component[] comps) {
+    var ret = comps.length;
+    for (final var comp : comps) {
+      ret = 31 * ret + comp.getLocation().hashCode();
+      ret = 31 * ret + comp.getFactory().getName().hashCode();
+    }
+    return ret;
+  }
+
+  private static Map<Component, Integer> indices(Component[] comps) {
+    final var ret = new HashMap<Component, Integer>();
+    for (var i = 0; i < comps.length; i++) ret.put(comps[i], i);
+    return ret;
+  }
+
+  private static void writeLocation(DataOutputStream out, Location loc) throws IOException {
+    out.writeInt(loc.getX());
+    out.writeInt(loc.getY());
+  }
+
+  private static Location readLocation(DataInputStream in) throws IOException {
+    final var x = in.readInt();
+    return Location.create(x, in.readInt(), false);
+  }
+
+  //
+  // writing
+  //
+
+  /** Writes the snapshot, compressed; the stream is not closed. */
+  public void write(OutputStream out) throws IOException {
+    final var zip = new GZIPOutputStream(out);
+    final var data = new DataOutputStream(new BufferedOutputStream(zip));
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    data.writeUTF(state.getCircuit().getName());
+    data.writeInt(getTickCount());
+    final var prop = state.getPropagator();
+    data.writeLong(prop.getNoiseSource());
+    data.writeInt(prop.getNoiseCount());
+    final var numbers = new HashMap<CircuitState, Integer>();
+    final var indices = new HashMap<CircuitState, Map<Component, Integer>>();
+    writeState(data, state, numbers, indices);
+
+    final var events = new ArrayList<SetData>();
+    for (final var event : prop.getPendingEvents()) {
+      if (numbers.containsKey(event.state)) events.add(event);
+    }
+    data.writeInt(events.size());
+    for (final var event : events) {
+      data.writeInt(numbers.get(event.state));
+      data.writeInt(prop.getDelay(event));
+      data.writeInt(indices.get(event.state).getOrDefault(event.cause, -1));
+      writeLocation(data, event.loc);
+      SnapshotData.writeValue(data, event.val);
+    }
+    data.flush();
+    zip.finish();
+  }
+
+  private static void writeState(
+      DataOutputStream out,
+      CircuitState state,
+      Map<CircuitState, Integer> numbers,
+      Map<CircuitState, Map<Component, Integer>> indices)
+      throws IOException {
+    numbers.put(state, numbers.size());
+    final var comps = components(state.getCircuit());
+    final var index = indices(comps);
+    indices.put(state, index);
+    out.writeUTF(state.getCircuit().getName());
+    out.writeInt(comps.length);
+    out.writeInt(signature(comps));
+
+    out.writeInt(state.values.size());
+    for (final var entry : state.values.entrySet()) {
+      writeLocation(out, entry.getKey());
+      SnapshotData.writeValue(out, entry.getValue());
+    }
+
+    out.writeInt(state.causes.size());
+    for (final var entry : state.causes.entrySet()) {
+      writeLocation(out, entry.getKey());
+      var count = 0;
+      for (var n = entry.getValue(); n != null; n = n.next) count++;
+      out.writeInt(count);
+      for (var n = entry.getValue(); n != null; n = n.next) {
+        out.writeInt(index.getOrDefault(n.cause, -1));
+        SnapshotData.writeValue(out, n.val);
+      }
+    }
+
+    final var dirtyPoints = new ArrayList<>(state.dirtyPoints);
+    out.writeInt(dirtyPoints.size());
+    for (final var loc : dirtyPoints) writeLocation(out, loc);
+    final var dirtyComponents = new ArrayList<Integer>();
+    for (final var comp : state.dirtyComponents) {
+      final var i = index.get(comp);
+      if (i != null) dirtyComponents.add(i);
+    }
+    out.writeInt(dirtyComponents.size());
+    for (final var i : dirtyComponents) out.writeInt(i);
+
+    final var records = new ArrayList<Component>();
+    for (final var comp : comps) {
+      final var data = state.getData(comp);
+      if (data instanceof CircuitState || data instanceof SnapshotData) records.add(comp);
+    }
+    out.writeInt(records.size());
+    for (final var comp : records) {
+      out.writeInt(index.get(comp));
+      final var data = state.getData(comp);
+      if (data instanceof CircuitState sub) {
+        out.writeByte(SUBSTATE);
+        writeState(out, sub, numbers, indices);
+      } else {
+        // length-prefixed, so that a reader can skip data it cannot restore
+        final var bytes = new ByteArrayOutputStream();
+        final var bytesOut = new DataOutputStream(bytes);
+        ((SnapshotData) data).writeSnapshot(bytesOut);
+        bytesOut.flush();
+        out.writeByte(DATA);
+        out.writeUTF(data.getClass().getName());
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+      }
+    }
+  }
+
+  //
+  // reading
+  //
+
+  /**
+   * Reads a snapshot written by {@link #write} into a new simulation of the same circuit in the
+   * given project. Fails if the project's circuits differ from those the snapshot was taken of.
+   */
+  public static CircuitStateSnapshot read(InputStream in, Project proj) throws IOException {
+    final var data = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in)));
+    if (data.readInt() != MAGIC) throw new IOException("not a simulation snapshot");
+    final var version = data.readInt();
+    if (version != VERSION) throw new IOException("unsupported snapshot version " + version);
+    final var name = data.readUTF();
+    final var circuit = proj.getLogisimFile().getCircuit(name);
+    if (circuit == null) throw new IOException("snapshot of unknown circuit " + name);
+    final var ticks = data.readInt();
+    final var noiseSource = data.readLong();
+    final var noiseCount = data.readInt();
+
+    // let every component create its data, and every subcircuit its substate
+    final var state = new CircuitState(proj, circuit);
+    final var prop = state.getPropagator();
+    prop.propagate();
+
+    final var states = new ArrayList<CircuitState>();
+    final var comps = new ArrayList<Component[]>();
+    readState(data, state, states, comps);
+
+    prop.clearPendingEvents();
+    prop.setTickCount(ticks);
+    prop.setNoise(noiseSource, noiseCount);
+    final var count = data.readInt();
+    for (var i = 0; i < count; i++) {
+      final var number = data.readInt();
+      if (number < 0 || number >= states.size()) throw new IOException("bad snapshot event");
+      final var delay = data.readInt();
+      final var cause = component(comps.get(number), data.readInt());
+      final var loc = readLocation(data);
+      final var val = SnapshotData.readValue(data);
+      if (cause != null) prop.addPendingEvent(states.get(number), delay, loc, cause, val);
+    }
+    return new CircuitStateSnapshot(state);
+  }
+
+  private static Component component(Component[] comps, int index) throws IOException {
+    if (index == -1) return null;
+    if (index < 0 || index >= comps.length) throw new IOException("bad snapshot component");
+    return comps[index];
+  }
+
+  private static void readState(
+      DataInputStream in,
+      CircuitState state,
+      List<CircuitState> states,
+      List<Component[]> compLists)
+      throws IOException {
+    states.add(state);
+    final var circuit = state.getCircuit();
+    final var comps = components(circuit);
+    compLists.add(comps);
+    if (!in.readUTF().equals(circuit.getName())
+        || in.readInt() != comps.length
+        || in.readInt() != signature(comps)) {
+      throw new IOException("snapshot does not match circuit " + circuit.getName());
+    }
+
+    state.values.clear();
+    var count = in.readInt();
+    for (var i = 0; i < count; i++) {
+      final var loc = readLocation(in);
+      state.values.put(loc, SnapshotData.readValue(in));
+    }
+
+    state.causes.clear();
+    count = in.readInt();
+    for (var i = 0; i < count; i++) {
+      final var loc = readLocation(in);
+      SetData head = null;
+      SetData tail = null;
+      final var links = in.readInt();
+      for (var j = 0; j < links; j++) {
+        final var cause = component(comps, in.readInt());
+        final var val = SnapshotData.readValue(in);
+        if (cause == null) continue;
+        final var link = new SetData(0, 0, state, loc, cause, val);
+        if (head == null) head = link;
+        else tail.next = link;
+        tail = link;
+      }
+      if (head != null) state.causes.put(loc, head);
+    }
+    // the values of wires are recomputed from the causes when needed
+    state.setWireData(null);
+
+    state.dirtyPoints.clear();
+    count = in.readInt();
+    for (var i = 0; i < count; i++) state.dirtyPoints.add(readLocation(in));
+    state.dirtyComponents.clear();
+    count = in.readInt();
+    for (var i = 0; i < count; i++) {
+      final var comp = component(comps, in.readInt());
+      if (comp != null) state.markComponentAsDirty(comp);
+    }
+
+    count = in.readInt();
+    for (var i = 0; i < count; i++) {
+      final var comp = component(comps, in.readInt());
+      final var data = comp == null ? null : state.getData(comp);
+      final var kind = in.readByte();
+      if (kind == SUBSTATE) {
+        if (!(data instanceof CircuitState sub)) {
+          throw new IOException("snapshot does not match circuit " + circuit.getName());
+        }
+        readState(in, sub, states, compLists);
+      } else if (kind == DATA) {
+        final var className = in.readUTF();
+        final var bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        if (data instanceof SnapshotData snapshotData
+            && data.getClass().getName().equals(className)) {
+          snapshotData.readSnapshot(new DataInputStream(new ByteArrayInputStream(bytes)));
+        }
+      } else {
+        throw new IOException("bad snapshot record");
+      }
+    }
+  }
+}
@@ -181,7 +181,7 @@ class CircuitWires {
   // derived data
   private Bounds bounds = Bounds.EMPTY_BOUNDS;
 
-  private BundleMap masterBundleMap = null;
+  private volatile BundleMap masterBundleMap = null;
 
   CircuitWires() {}
 
@@ -228,8 +228,8 @@ class CircuitWires {
     return true;
   }
 
-  // To be called by getBundleMap only
-  private void computeBundleMap(BundleMap ret) {
+  // To be called by getBundleMap only (and by benchmarks, which run on a single thread)
+  void computeBundleMap(BundleMap ret) {
     // create bundles corresponding to wires and tunnels
     connectWires(ret);
     connectTunnels(ret);
@@ -573,7 +573,10 @@ class CircuitWires {
       }
       return ret;
     } else {
-      // Simulation thread.
+      // Simulation thread. A map already computed by the AWT thread is never
+      // modified afterwards, so it can be used without the round trip.
+      final var map = masterBundleMap;
+      if (map != null) return map;
       try {
         final var ret = new BundleMap[1];
         SwingUtilities.invokeAndWait(() -> ret[0] = getBundleMap());
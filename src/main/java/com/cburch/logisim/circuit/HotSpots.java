@@ -0,0 +1,159 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Recent simulation activity in one circuit state: how many events reached each location, how often
+ * and how long each component was propagated, and how much activity there was inside each
+ * subcircuit. Activity is kept for the current window of {@link #WINDOW} ms and the one before it,
+ * so what is reported covers between one and two windows of the most recent activity. It is only
+ * recorded while {@link SimulationStatistics} is enabled, and read through a {@link #snapshot}.
+ */
+public class HotSpots {
+  /** Length of a window, in ms. */
+  public static final int WINDOW = 1000;
+
+  /** Activity of one component or location. Only written by the simulation thread. */
+  private static class Heat {
+    long events;
+    long nanos;
+  }
+
+  private static class Window {
+    final long start;
+    final ConcurrentHashMap<Component, Heat> components = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<Location, Heat> points = new ConcurrentHashMap<>();
+    // everything recorded in the substates of each subcircuit component, at any depth
+    final ConcurrentHashMap<Component, Heat> subcircuits = new ConcurrentHashMap<>();
+    long events;
+    long nanos;
+
+    Window(long start) {
+      this.start = start;
+    }
+  }
+
+  private static final Window EMPTY = new Window(0);
+
+  private final LongSupplier clock;
+  private volatile Window current;
+  private volatile Window previous = EMPTY;
+
+  HotSpots() {
+    this(System::currentTimeMillis);
+  }
+
+  /** Creates hot spots whose windows follow the given clock, in ms. */
+  HotSpots(LongSupplier clock) {
+    this.clock = clock;
+    current = new Window(clock.getAsLong());
+  }
+
+  private Window window() {
+    final var ret = current;
+    return clock.getAsLong() - ret.start < WINDOW ? ret : rotate();
+  }
+
+  private synchronized Window rotate() {
+    final var now = clock.getAsLong();
+    final var old = current;
+    if (now - old.start < WINDOW) return old;
+    // a window that ended more than a window ago is too old to keep
+    previous = now - old.start < 2 * WINDOW ? old : EMPTY;
+    current = new Window(now);
+    return current;
+  }
+
+  void eventAt(Location loc) {
+    final var w = window();
+    w.points.computeIfAbsent(loc, k -> new Heat()).events++;
+    w.events++;
+  }
+
+  void componentPropagated(Component comp, long nanos) {
+    final var w = window();
+    final var heat = w.components.computeIfAbsent(comp, k -> new Heat());
+    heat.events++;
+    heat.nanos += nanos;
+    w.nanos += nanos;
+  }
+
+  /** Adds events and time recorded somewhere inside the given subcircuit component. */
+  void subcircuitActivity(Component sub, long events, long nanos) {
+    final var heat = window().subcircuits.computeIfAbsent(sub, k -> new Heat());
+    heat.events += events;
+    heat.nanos += nanos;
+  }
+
+  /** Returns the recent activity, as of now. */
+  public Snapshot snapshot() {
+    final var w = window();
+    return new Snapshot(w, previous);
+  }
+
+  /** The activity of the two most recent windows, which no longer move on as time passes. */
+  public static final class Snapshot {
+    private final Window current;
+    private final Window previous;
+
+    private Snapshot(Window current, Window previous) {
+      this.current = current;
+      this.previous = previous;
+    }
+
+    /** Returns the number of events that reached the location. */
+    public long getEvents(Location loc) {
+      return events(current.points.get(loc)) + events(previous.points.get(loc));
+    }
+
+    /** Returns the number of times the component was propagated. */
+    public long getEvents(Component comp) {
+      return events(current.components.get(comp)) + events(previous.components.get(comp));
+    }
+
+    /** Returns the time, in ns, spent propagating the component. */
+    public long getNanos(Component comp) {
+      return nanos(current.components.get(comp)) + nanos(previous.components.get(comp));
+    }
+
+    /** Returns the number of events processed inside the subcircuit component. */
+    public long getSubcircuitEvents(Component sub) {
+      return events(current.subcircuits.get(sub)) + events(previous.subcircuits.get(sub));
+    }
+
+    /** Returns the time, in ns, spent propagating components inside the subcircuit component. */
+    public long getSubcircuitNanos(Component sub) {
+      return nanos(current.subcircuits.get(sub)) + nanos(previous.subcircuits.get(sub));
+    }
+
+    /** Returns the number of events processed in the state, not counting substates. */
+    public long getTotalEvents() {
+      return current.events + previous.events;
+    }
+
+    /** Returns the time, in ns, spent in the state, not counting substates. */
+    public long getTotalNanos() {
+      return current.nanos + previous.nanos;
+    }
+  }
+
+  private static long events(Heat heat) {
+    return heat == null ? 0 : heat.events;
+  }
+
+  private static long nanos(Heat heat) {
+    return heat == null ? 0 : heat.nanos;
+  }
+}
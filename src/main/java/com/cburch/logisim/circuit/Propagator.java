@@ -16,9 +16,12 @@ import com.cburch.logisim.data.AttributeListener;
 import com.cburch.logisim.data.Location;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.file.Options;
+import com.cburch.logisim.prefs.AppPreferences;
 import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Random;
 
@@ -77,7 +80,7 @@ public class Propagator {
     Value val; // value being emitted
     SetData next = null;
 
-    private SetData(
+    SetData(
         int time, int serialNumber, CircuitState state, Location loc, Component cause, Value val) {
       this.time = time;
       this.serialNumber = serialNumber;
@@ -142,8 +145,11 @@ public class Propagator {
   private boolean oscAdding = false;
   private PropagationPoints oscPoints = new PropagationPoints();
   private int halfClockCycles = 0;
-  private final Random noiseSource = new Random();
+  // state of the noise generator, which is copied along with the simulation so that a copy adds
+  // the same noise as the original would have
+  private long noiseSource = new Random().nextLong();
   private int noiseCount = 0;
+  private SimulationHistory history = null;
 
   private int setDataSerialNumber = 0;
   static int lastId = 0;
@@ -287,12 +293,14 @@ public class Propagator {
       } else {
         isOscillating = true;
         oscAdding = false;
+        if (SimulationStatistics.enabled) SimulationStatistics.getInstance().propagated(iters);
         return true;
       }
     }
     isOscillating = false;
     oscAdding = false;
     oscPoints.clear();
+    if (SimulationStatistics.enabled) SimulationStatistics.getInstance().propagated(iters);
     return iters > 0;
   }
 
@@ -318,11 +326,85 @@ public class Propagator {
     return head;
   }
 
+  /**
+   * Makes this propagator continue where another one is: same tick count and the same pending
+   * events, each for the state that corresponds to its own in the given map.
+   */
+  void copyFrom(Propagator src, Map<CircuitState, CircuitState> states) {
+    halfClockCycles = src.halfClockCycles;
+    isOscillating = src.isOscillating;
+    noiseSource = src.noiseSource;
+    noiseCount = src.noiseCount;
+    toProcess.clear();
+    for (final var data : src.getPendingEvents()) {
+      final var state = states.get(data.state);
+      if (state != null) {
+        addPendingEvent(state, src.getDelay(data), data.loc, data.cause, data.val);
+      }
+    }
+  }
+
+  /** Returns the events waiting to be processed, in the order they will be. */
+  SetData[] getPendingEvents() {
+    final var ret = toProcess.toArray(new SetData[0]);
+    Arrays.sort(ret);
+    return ret;
+  }
+
+  /** Returns how many steps after the current one an event is due. */
+  int getDelay(SetData data) {
+    return data.time - clock;
+  }
+
+  /** Queues an event as it was queued by {@link #setValue}, without adding any random noise. */
+  void addPendingEvent(CircuitState state, int delay, Location loc, Component cause, Value val) {
+    toProcess.add(new SetData(clock + delay, setDataSerialNumber, state, loc, cause, val));
+    setDataSerialNumber++;
+  }
+
+  void clearPendingEvents() {
+    toProcess.clear();
+  }
+
+  void setTickCount(int value) {
+    halfClockCycles = value;
+  }
+
+  long getNoiseSource() {
+    return noiseSource;
+  }
+
+  int getNoiseCount() {
+    return noiseCount;
+  }
+
+  void setNoise(long source, int count) {
+    noiseSource = source;
+    noiseCount = count;
+  }
+
+  /**
+   * Returns the checkpoints and inputs recorded to step this simulation back, creating them if
+   * needed; returns null if the preferences disable stepping back.
+   */
+  public SimulationHistory getHistory() {
+    if (history == null && AppPreferences.SIM_HISTORY_CHECKPOINTS.get() > 0) {
+      history = new SimulationHistory(this);
+    }
+    return history;
+  }
+
+  /** Forgets the history, which cannot be replayed once the circuits have been edited. */
+  void forgetHistory() {
+    if (history != null) history.clear();
+  }
+
   void reset() {
     halfClockCycles = 0;
     toProcess.clear();
     root.reset();
     isOscillating = false;
+    forgetHistory();
   }
 
   //
@@ -343,7 +425,7 @@ public class Propagator {
           noiseCount--;
         } else {
           delay++;
-          noiseCount = noiseSource.nextInt(1 << randomShift);
+          noiseCount = nextNoise(randomShift);
         }
       }
     }
@@ -378,6 +460,9 @@ public class Propagator {
     // update clock
     clock = toProcess.peek().time;
 
+    final var stats = SimulationStatistics.enabled ? SimulationStatistics.getInstance() : null;
+    if (stats != null) stats.queueDepth(toProcess.size());
+
     // propagate all values for this clock tick
     final var visited = new HashMap<CircuitState, HashSet<ComponentPoint>>();
     while (true) {
@@ -389,12 +474,16 @@ public class Propagator {
       // if it's already handled for this clock tick, continue
       var handled = visited.get(state);
       if (handled != null) {
-        if (!handled.add(new ComponentPoint(data.cause, data.loc))) continue;
+        if (!handled.add(new ComponentPoint(data.cause, data.loc))) {
+          if (stats != null) stats.eventProcessed(state, data.loc, true);
+          continue;
+        }
       } else {
         handled = new HashSet<>();
         visited.put(state, handled);
         handled.add(new ComponentPoint(data.cause, data.loc));
       }
+      if (stats != null) stats.eventProcessed(state, data.loc, false);
 
       /*
        * DEBUGGING - comment out Simulator.log(data.time + ": proc " +
@@ -430,6 +519,15 @@ public class Propagator {
     return "Prop" + id;
   }
 
+  /** Returns the next number of the given number of bits from the noise generator (SplitMix64). */
+  private int nextNoise(int bits) {
+    noiseSource += 0x9e3779b97f4a7c15L;
+    var z = noiseSource;
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return (int) ((z ^ (z >>> 31)) >>> (64 - bits));
+  }
+
   private void updateRandomness() {
     final var opts = root.getProject().getOptions();
     final var rand = opts.getAttributeSet().getValue(Options.ATTR_SIM_RAND);
@@ -0,0 +1,192 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * The recent past of a simulation, kept so that it can step back: a bounded ring of checkpoints,
+ * taken every so many ticks while the simulation is stable, and the inputs given since each of
+ * them. Stepping back restores the nearest checkpoint before the tick to go back to and replays
+ * the inputs from there. As the noise of the propagator is part of a checkpoint, the replay
+ * arrives in the very state the simulation was in.
+ *
+ * <p>The inputs recorded are the values of the input pins of the root circuit, as seen by the
+ * simulator thread when it starts propagating them, the clock ticks and the propagations. Other
+ * interactive components, such as buttons and keyboards, are not replayed; they keep the state
+ * they had in the checkpoint.
+ *
+ * <p>The number of checkpoints and the number of ticks between two of them are set by {@link
+ * AppPreferences#SIM_HISTORY_CHECKPOINTS} and {@link AppPreferences#SIM_HISTORY_INTERVAL}, unless
+ * given when the history is made. The history reaches back their product in ticks; stepping back
+ * replays up to an interval of ticks.
+ * Editing the circuits or resetting the simulation forgets the history.
+ */
+public final class SimulationHistory {
+  // kinds of inputs
+  private static final int POKE = 0;
+  private static final int TICK = 1;
+  private static final int PROPAGATE = 2;
+
+  private record Input(int kind, Component pin, Value value) {}
+
+  private static final Input TICK_INPUT = new Input(TICK, null, null);
+  private static final Input PROPAGATE_INPUT = new Input(PROPAGATE, null, null);
+
+  private static final class Checkpoint {
+    final CircuitStateSnapshot snapshot;
+    final int ticks;
+    final ArrayList<Input> inputs = new ArrayList<>();
+
+    Checkpoint(CircuitStateSnapshot snapshot) {
+      this.snapshot = snapshot;
+      this.ticks = snapshot.getTickCount();
+    }
+  }
+
+  private final Propagator prop;
+  private final IntSupplier capacity;
+  private final IntSupplier interval;
+  private final ArrayDeque<Checkpoint> checkpoints = new ArrayDeque<>();
+  private List<Component> inputPins = null; // of the root circuit, found when first needed
+  private final HashMap<Component, Value> pinValues = new HashMap<>(); // as last recorded
+  private boolean propagationPending = false; // whether inputs were recorded since propagating
+
+  SimulationHistory(Propagator prop) {
+    this(prop, AppPreferences.SIM_HISTORY_CHECKPOINTS::get, AppPreferences.SIM_HISTORY_INTERVAL::get);
+  }
+
+  /** Makes a history that keeps the given number of checkpoints, that many ticks apart. */
+  SimulationHistory(Propagator prop, int checkpoints, int interval) {
+    this(prop, () -> checkpoints, () -> interval);
+  }
+
+  private SimulationHistory(Propagator prop, IntSupplier capacity, IntSupplier interval) {
+    this.prop = prop;
+    this.capacity = capacity;
+    this.interval = interval;
+  }
+
+  /** Forgets all checkpoints; the next stable state becomes the first one. */
+  public synchronized void clear() {
+    checkpoints.clear();
+    inputPins = null;
+    pinValues.clear();
+    propagationPending = false;
+  }
+
+  /** Returns how many ticks the simulation can step back at most. */
+  public synchronized int getReach() {
+    final var first = checkpoints.peekFirst();
+    return first == null ? 0 : prop.getTickCount() - first.ticks;
+  }
+
+  private List<Component> getInputPins() {
+    if (inputPins == null) {
+      inputPins = new ArrayList<>();
+      for (final var comp : prop.getRootState().getCircuit().getNonWires()) {
+        if (comp.getFactory() instanceof Pin pin && pin.isInputPin(Instance.getInstanceFor(comp))) {
+          inputPins.add(comp);
+        }
+      }
+    }
+    return inputPins;
+  }
+
+  /** Records the input pins whose values changed since they were last recorded. */
+  synchronized void recordInputs() {
+    if (checkpoints.isEmpty()) return;
+    final var root = prop.getRootState();
+    final var inputs = checkpoints.peekLast().inputs;
+    for (final var pin : getInputPins()) {
+      final var value = Pin.FACTORY.getValue(root.getInstanceState(pin));
+      if (!value.equals(pinValues.put(pin, value))) {
+        inputs.add(new Input(POKE, pin, value));
+        propagationPending = true;
+      }
+    }
+  }
+
+  synchronized void recordTick() {
+    if (checkpoints.isEmpty()) return;
+    checkpoints.peekLast().inputs.add(TICK_INPUT);
+    propagationPending = true;
+  }
+
+  /**
+   * Records that the simulation has propagated, and takes a checkpoint if the last one is an
+   * interval of ticks ago, or if there is none yet.
+   */
+  synchronized void recordPropagation() {
+    final var last = checkpoints.peekLast();
+    if (last != null && propagationPending) last.inputs.add(PROPAGATE_INPUT);
+    propagationPending = false;
+    if (prop.isPending() || prop.isOscillating()) return;
+    final var ticks = Math.max(1, interval.getAsInt());
+    if (last != null && prop.getTickCount() - last.ticks < ticks) return;
+
+    final var count = capacity.getAsInt();
+    while (!checkpoints.isEmpty() && checkpoints.size() >= count) checkpoints.removeFirst();
+    if (count <= 0) return;
+    if (last == null) readPinValues();
+    checkpoints.addLast(new Checkpoint(CircuitStateSnapshot.take(prop.getRootState())));
+  }
+
+  private void readPinValues() {
+    final var root = prop.getRootState();
+    pinValues.clear();
+    for (final var pin : getInputPins()) {
+      pinValues.put(pin, Pin.FACTORY.getValue(root.getInstanceState(pin)));
+    }
+  }
+
+  /**
+   * Takes the simulation back the given number of ticks, or as far as the history reaches, and
+   * forgets what came after. Returns false if the simulation cannot step back at all.
+   */
+  synchronized boolean stepBack(int ticks) {
+    final var first = checkpoints.peekFirst();
+    if (first == null || ticks <= 0) return false;
+    final var target = Math.max(first.ticks, prop.getTickCount() - ticks);
+    while (checkpoints.peekLast().ticks > target) checkpoints.removeLast();
+    final var from = checkpoints.peekLast();
+
+    final var root = prop.getRootState();
+    from.snapshot.restoreInto(root);
+    final var inputs = from.inputs;
+    var i = 0;
+    for (; i < inputs.size(); i++) {
+      final var input = inputs.get(i);
+      if (input.kind() == PROPAGATE) {
+        prop.propagate();
+      } else if (prop.getTickCount() == target) {
+        break; // the target tick has been propagated; the rest came after it
+      } else if (input.kind() == TICK) {
+        prop.toggleClocks();
+      } else {
+        Pin.FACTORY.setValue(root.getInstanceState(input.pin()), input.value());
+        root.markComponentAsDirty(input.pin());
+      }
+    }
+    inputs.subList(i, inputs.size()).clear();
+    readPinValues();
+    propagationPending = false;
+    return true;
+  }
+}
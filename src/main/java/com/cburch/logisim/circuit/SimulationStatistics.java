@@ -0,0 +1,313 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static com.cburch.logisim.circuit.Strings.S;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.prefs.AppPreferences;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counts where simulation time goes: events processed by the {@link Propagator}, the sizes of the
+ * batches of dirty points and components handled by {@link CircuitState}, and the wall time spent
+ * propagating each type of component and each circuit. Each circuit state also keeps its own
+ * recent {@link HotSpots}. Counting is off unless it was asked for, or hot spots are shown on the
+ * canvas (see {@link AppPreferences#HOT_SPOTS}); while it is off the simulator only tests {@link
+ * #enabled}.
+ *
+ * <p>The counters are shared by all simulations and are published as the JMX bean {@value
+ * #OBJECT_NAME}.
+ */
+public final class SimulationStatistics implements SimulationStatisticsMBean {
+  static final Logger logger = LoggerFactory.getLogger(SimulationStatistics.class);
+
+  public static final String OBJECT_NAME = "com.cburch.logisim:type=SimulationStatistics";
+
+  private static final SimulationStatistics INSTANCE = new SimulationStatistics();
+
+  // tested by the simulator before doing any counting
+  static volatile boolean enabled = false;
+
+  // whether counting was asked for through setEnabled
+  private static volatile boolean requested = false;
+
+  static {
+    AppPreferences.HOT_SPOTS.addPropertyChangeListener(event -> updateEnabled());
+    updateEnabled();
+    try {
+      ManagementFactory.getPlatformMBeanServer()
+          .registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+    } catch (JMException | SecurityException e) {
+      logger.warn("Cannot publish simulation statistics: {}", e.toString());
+    }
+  }
+
+  /** Time spent and number of calls. */
+  private static class Cost {
+    final LongAdder nanos = new LongAdder();
+    final LongAdder calls = new LongAdder();
+  }
+
+  private final LongAdder events = new LongAdder();
+  private final LongAdder duplicates = new LongAdder();
+  private final LongAdder propagations = new LongAdder();
+  private final LongAdder steps = new LongAdder();
+  private final AtomicLong maxSteps = new AtomicLong();
+  private final LongAdder componentBatches = new LongAdder();
+  private final LongAdder components = new LongAdder();
+  private final AtomicLong maxComponentBatch = new AtomicLong();
+  private final LongAdder pointBatches = new LongAdder();
+  private final LongAdder points = new LongAdder();
+  private final AtomicLong maxPointBatch = new AtomicLong();
+  private final AtomicLong maxQueueDepth = new AtomicLong();
+  private final ConcurrentHashMap<String, Cost> factoryCosts = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, Cost> circuitCosts = new ConcurrentHashMap<>();
+
+  private SimulationStatistics() {}
+
+  public static SimulationStatistics getInstance() {
+    return INSTANCE;
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public void setEnabled(boolean value) {
+    requested = value;
+    updateEnabled();
+  }
+
+  // the hot spots shown on the canvas are only recorded while counting
+  private static void updateEnabled() {
+    enabled = requested || !AppPreferences.HOT_SPOTS.get().equals(AppPreferences.HOT_SPOTS_NONE);
+  }
+
+  @Override
+  public void reset() {
+    events.reset();
+    duplicates.reset();
+    propagations.reset();
+    steps.reset();
+    maxSteps.set(0);
+    componentBatches.reset();
+    components.reset();
+    maxComponentBatch.set(0);
+    pointBatches.reset();
+    points.reset();
+    maxPointBatch.set(0);
+    maxQueueDepth.set(0);
+    factoryCosts.clear();
+    circuitCosts.clear();
+  }
+
+  //
+  // recording, only called while enabled
+  //
+  void eventProcessed(CircuitState state, Location loc, boolean duplicate) {
+    if (duplicate) {
+      duplicates.increment();
+    } else {
+      events.increment();
+      state.recordHotSpots().eventAt(loc);
+      addToSubcircuits(state, 1, 0);
+    }
+  }
+
+  void propagated(int stepCount) {
+    propagations.increment();
+    steps.add(stepCount);
+    maxSteps.accumulateAndGet(stepCount, Math::max);
+  }
+
+  void queueDepth(int depth) {
+    maxQueueDepth.accumulateAndGet(depth, Math::max);
+  }
+
+  void componentBatch(int size) {
+    componentBatches.increment();
+    components.add(size);
+    maxComponentBatch.accumulateAndGet(size, Math::max);
+  }
+
+  void pointBatch(int size) {
+    pointBatches.increment();
+    points.add(size);
+    maxPointBatch.accumulateAndGet(size, Math::max);
+  }
+
+  void componentPropagated(CircuitState state, Component comp, long nanos) {
+    add(factoryCosts, comp.getFactory().getClass().getSimpleName(), nanos);
+    add(circuitCosts, state.getCircuit().getName(), nanos);
+    state.recordHotSpots().componentPropagated(comp, nanos);
+    addToSubcircuits(state, 0, nanos);
+  }
+
+  // the subcircuit components holding the state, at each level up, add up what happens in it
+  private static void addToSubcircuits(CircuitState state, long events, long nanos) {
+    for (var cur = state; ; ) {
+      final var parent = cur.getParentState();
+      final var sub = cur.getSubcircuit();
+      if (parent == null || sub == null) return;
+      parent.recordHotSpots().subcircuitActivity(sub, events, nanos);
+      cur = parent;
+    }
+  }
+
+  private static void add(Map<String, Cost> costs, String key, long nanos) {
+    final var cost = costs.computeIfAbsent(key, k -> new Cost());
+    cost.nanos.add(nanos);
+    cost.calls.increment();
+  }
+
+  //
+  // reading
+  //
+  @Override
+  public long getEventCount() {
+    return events.sum();
+  }
+
+  @Override
+  public long getDuplicateEventCount() {
+    return duplicates.sum();
+  }
+
+  @Override
+  public long getPropagationCount() {
+    return propagations.sum();
+  }
+
+  @Override
+  public long getStepCount() {
+    return steps.sum();
+  }
+
+  @Override
+  public long getMaxStepsPerPropagation() {
+    return maxSteps.get();
+  }
+
+  @Override
+  public long getComponentBatchCount() {
+    return componentBatches.sum();
+  }
+
+  @Override
+  public long getComponentCount() {
+    return components.sum();
+  }
+
+  @Override
+  public long getMaxComponentBatch() {
+    return maxComponentBatch.get();
+  }
+
+  @Override
+  public long getPointBatchCount() {
+    return pointBatches.sum();
+  }
+
+  @Override
+  public long getPointCount() {
+    return points.sum();
+  }
+
+  @Override
+  public long getMaxPointBatch() {
+    return maxPointBatch.get();
+  }
+
+  @Override
+  public long getMaxQueueDepth() {
+    return maxQueueDepth.get();
+  }
+
+  @Override
+  public String[] getFactoryCosts() {
+    return formatCosts(factoryCosts);
+  }
+
+  @Override
+  public String[] getCircuitCosts() {
+    return formatCosts(circuitCosts);
+  }
+
+  private static ArrayList<Map.Entry<String, Cost>> sorted(Map<String, Cost> costs) {
+    final var ret = new ArrayList<>(costs.entrySet());
+    ret.sort(Comparator.comparingLong(e -> -e.getValue().nanos.sum()));
+    return ret;
+  }
+
+  private static String[] formatCosts(Map<String, Cost> costs) {
+    return sorted(costs).stream()
+        .map(e -> e.getKey() + ": " + e.getValue().nanos.sum() + " " + e.getValue().calls.sum())
+        .toArray(String[]::new);
+  }
+
+  /** Returns all counters as text, one item per line, as shown by the GUI and the TTY mode. */
+  @Override
+  public String getReport() {
+    final var ret = new StringBuilder();
+    ret.append(S.get("simStatsEvents", getEventCount(), getDuplicateEventCount())).append('\n');
+    ret.append(
+            S.get(
+                "simStatsPropagations",
+                getPropagationCount(),
+                getStepCount(),
+                getMaxStepsPerPropagation()))
+        .append('\n');
+    ret.append(S.get("simStatsQueue", getMaxQueueDepth())).append('\n');
+    ret.append(
+            S.get(
+                "simStatsComponents",
+                getComponentBatchCount(),
+                getComponentCount(),
+                getMaxComponentBatch()))
+        .append('\n');
+    ret.append(
+            S.get("simStatsPoints", getPointBatchCount(), getPointCount(), getMaxPointBatch()))
+        .append('\n');
+    appendCosts(ret, S.get("simStatsFactoryCosts"), factoryCosts);
+    appendCosts(ret, S.get("simStatsCircuitCosts"), circuitCosts);
+    return ret.toString();
+  }
+
+  private static void appendCosts(StringBuilder buf, String title, Map<String, Cost> costs) {
+    final var entries = sorted(costs);
+    if (entries.isEmpty()) return;
+    var width = 0;
+    for (final var e : entries) width = Math.max(width, e.getKey().length());
+    buf.append(title).append('\n');
+    for (final var e : entries) {
+      final var cost = e.getValue();
+      buf.append(
+          String.format(
+              "  %-" + width + "s %12.3f ms %12d\n",
+              e.getKey(),
+              cost.nanos.sum() / 1e6,
+              cost.calls.sum()));
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+/** Management interface of {@link SimulationStatistics}, as published through JMX. */
+public interface SimulationStatisticsMBean {
+  boolean isEnabled();
+
+  void setEnabled(boolean value);
+
+  void reset();
+
+  long getEventCount();
+
+  long getDuplicateEventCount();
+
+  long getPropagationCount();
+
+  long getStepCount();
+
+  long getMaxStepsPerPropagation();
+
+  long getComponentBatchCount();
+
+  long getComponentCount();
+
+  long getMaxComponentBatch();
+
+  long getPointBatchCount();
+
+  long getPointCount();
+
+  long getMaxPointBatch();
+
+  long getMaxQueueDepth();
+
+  /** Returns "name: nanoseconds calls" for each component type, most expensive first. */
+  String[] getFactoryCosts();
+
+  /** Returns "name: nanoseconds calls" for each circuit, most expensive first. */
+  String[] getCircuitCosts();
+
+  String getReport();
+}
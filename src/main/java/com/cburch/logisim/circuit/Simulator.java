@@ -117,6 +117,7 @@ public class Simulator {
     private long autoTickNanos = Math.round(1.0e9 / autoTickFreq);
     private int manualTicksRequested = 0;
     private int manualStepsRequested = 0;
+    private int backTicksRequested = 0;
     private boolean nudgeRequested = false;
     private boolean resetRequested = false;
     private boolean complete = false;
@@ -211,10 +212,17 @@ public class Simulator {
       notifyAll();
     }
 
+    synchronized void requestStepBack(int count) {
+      backTicksRequested += count;
+      manualTicksRequested = 0;
+      notifyAll();
+    }
+
     synchronized void requestReset() {
       resetRequested = true;
       manualTicksRequested = 0;
       manualStepsRequested = 0;
+      backTicksRequested = 0;
       notifyAll();
     }
 
@@ -239,6 +247,7 @@ public class Simulator {
       boolean doTickIfStable = false;
       boolean doStep = false;
       boolean doProp = false;
+      int doStepBack = 0;
       long now = 0;
 
       synchronized (this) {
@@ -255,6 +264,11 @@ public class Simulator {
             doProp = autoPropagating;
             ready = true;
           }
+          if (backTicksRequested > 0) {
+            doStepBack = backTicksRequested;
+            backTicksRequested = 0;
+            ready = true;
+          }
           if (nudgeRequested) {
             nudgeRequested = false;
             doNudge = true;
@@ -308,6 +322,7 @@ public class Simulator {
       var ticked = false;
       var stepped = false;
       var propagated = false;
+      var steppedBack = false;
       var hasClocks = true;
 
       if (doReset)
@@ -320,10 +335,25 @@ public class Simulator {
           err.printStackTrace();
         }
 
+      final var history = prop == null ? null : prop.getHistory();
+      if (doStepBack > 0 && history != null)
+        try {
+          stepPoints.clear();
+          steppedBack = history.stepBack(doStepBack);
+        } catch (Exception err) {
+          oops = true;
+          err.printStackTrace();
+        }
+      if (history != null) {
+        if (doStep) history.clear(); // single steps cannot be replayed
+        else history.recordInputs();
+      }
+
       if (doTick || (doTickIfStable && prop != null && !prop.isPending())) {
         lastTick = now;
         ticked = true;
         if (prop != null) hasClocks = prop.toggleClocks();
+        if (history != null && !doStep) history.recordTick();
       }
 
       if (doProp || doNudge)
@@ -334,6 +364,7 @@ public class Simulator {
           final var evt = p == null ? null : new Event(sim, false, false, false);
           stepPoints.clear();
           if (prop != null) propagated |= prop.propagate(p, evt);
+          if (history != null && !doStep) history.recordPropagation();
         } catch (Exception err) {
           oops = true;
           err.printStackTrace();
@@ -369,9 +400,11 @@ public class Simulator {
       // We report nudges, but we report them as no-ops, unless they were
       // accompanied by a tick, step, or propagate. That allows for a repaint in
       // some components.
-      if (ticked || stepped || propagated || doNudge)
+      if (ticked || stepped || propagated || steppedBack || doNudge)
         sim.firePropagationCompleted(
-            ticked, stepped && !propagated, propagated); // FIXME: ack, wrong thread!
+            ticked,
+            stepped && !propagated,
+            propagated || steppedBack); // FIXME: ack, wrong thread!
       if (clockDied) sim.fireSimulatorStateChanged(); // FIXME: ack, wrong thread!
       return true;
     }
@@ -559,6 +592,22 @@ public class Simulator {
   }
 
   // User/GUI manually requests a reset
+  /**
+   * Takes the simulation back the given number of clock ticks, as far as its history reaches, and
+   * stops the clock; see {@link SimulationHistory}.
+   */
+  public void stepBack(int count) {
+    setAutoTicking(false);
+    simThread.requestStepBack(count);
+  }
+
+  /** Returns how many clock ticks the simulation can step back at most. */
+  public int getStepBackReach() {
+    final var prop = simThread.getPropagator();
+    final var history = prop == null ? null : prop.getHistory();
+    return history == null ? 0 : history.getReach();
+  }
+
   public void reset() {
     simThread.requestReset();
   }
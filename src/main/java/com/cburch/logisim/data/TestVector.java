@@ -9,17 +9,26 @@
 
 package com.cburch.logisim.data;
 
+import com.cburch.logisim.util.UniquelyNamedThread;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.List;
 import java.util.StringTokenizer;
 import javax.swing.filechooser.FileFilter;
 
 /**
  * Code taken from Cornell's version of Logisim: http://www.cs.cornell.edu/courses/cs3410/2015sp/
+ *
+ * <p>Rows are kept in blocks of packed columns (one long per cell, plus unknown and error masks for
+ * the columns that use them), and are only turned into {@link Value}s when asked for. A vector created
+ * with {@link #stream} is parsed on a background thread while it is being tested.
+ *
+ * <p>A header column named {@value #TICKS_COLUMN} makes the vector clocked: its rows are applied in
+ * order to one circuit state that is only reset before the first row, and each row gives the number
+ * of clock ticks to run after setting the inputs and before checking the outputs. In any vector, a
+ * cell holding just {@code -} leaves an input unchanged or an output unchecked.
  */
 public class TestVector {
 
@@ -43,6 +52,9 @@ public class TestVector {
   private class TestVectorReader {
     private final BufferedReader in;
     private StringTokenizer curLine;
+    private Block block;
+    // the radix of a column is that of its first value that is not a don't-care
+    private boolean[] radixFound;
 
     public TestVectorReader(BufferedReader in) throws IOException {
       this.in = in;
@@ -63,45 +75,28 @@ public class TestVector {
       return null;
     }
 
-    public void parse() throws IOException {
+    public void parseHeader() throws IOException {
       if (curLine == null) throw new IOException("TestVector format error: empty file");
 
-      parseHeader();
-      data = new ArrayList<>();
-      curLine = findNonemptyLine();
-
-      while (curLine != null) {
-        parseData();
-        curLine = findNonemptyLine();
-      }
-    }
-
-    private void parseData() throws IOException {
-      final var vals = new Value[columnName.length];
-      for (var i = 0; i < columnName.length; i++) {
-        final var t = curLine.nextToken();
-
-        try {
-          vals[i] = Value.fromLogString(columnWidth[i], t);
-        } catch (Exception e) {
-          throw new IOException("Test Vector data format error: " + e.getMessage());
+      var n = curLine.countTokens();
+      final var tokens = new String[n];
+      for (var i = 0; i < tokens.length; i++) {
+        tokens[i] = curLine.nextToken();
+        if (tokens[i].equals(TICKS_COLUMN)) {
+          if (ticksColumn >= 0)
+            throw new IOException("Test Vector header format error: duplicate " + TICKS_COLUMN);
+          ticksColumn = i;
+          n--;
         }
-        if (data.isEmpty()) columnRadix[i] = Value.radixOfLogString(columnWidth[i], t);
       }
-      if (curLine.hasMoreTokens())
-        throw new IOException("Test Vector data format error: " + curLine.nextToken());
-      data.add(vals);
-    }
-
-    private void parseHeader() throws IOException {
-      final var n = curLine.countTokens();
       columnName = new String[n];
       columnWidth = new BitWidth[n];
       columnRadix = new int[n];
+      radixFound = new boolean[n];
 
       for (var i = 0; i < n; i++) {
         columnRadix[i] = 2;
-        final var t = (String) curLine.nextElement();
+        final var t = tokens[ticksColumn >= 0 && i >= ticksColumn ? i + 1 : i];
         int s = t.indexOf('[');
 
         if (s < 0) {
@@ -126,23 +121,262 @@ public class TestVector {
         }
       }
     }
+
+    public void parseData() throws IOException, InterruptedException {
+      curLine = findNonemptyLine();
+
+      try {
+        while (curLine != null) {
+          parseRow();
+          if (block.rows == BLOCK_ROWS) {
+            addBlock(block);
+            block = null;
+          }
+          curLine = findNonemptyLine();
+        }
+      } finally {
+        // rows before a format error can still be tested
+        if (block != null && block.rows > 0) addBlock(block);
+      }
+    }
+
+    private void parseRow() throws IOException {
+      if (block == null) block = new Block(columnName.length, isClocked());
+      final var row = block.rows;
+      for (var i = 0; i < columnName.length; i++) {
+        if (i == ticksColumn) parseTicks(row);
+        if (!curLine.hasMoreTokens())
+          throw new IOException("Test Vector data format error: missing value for " + columnName[i]);
+        final var t = curLine.nextToken();
+
+        if (t.equals(DONT_CARE)) {
+          if (block.dontCare[i] == null) block.dontCare[i] = new boolean[BLOCK_ROWS];
+          block.dontCare[i][row] = true;
+          continue;
+        }
+        final Value val;
+        try {
+          val = Value.fromLogString(columnWidth[i], t);
+        } catch (Exception e) {
+          throw new IOException("Test Vector data format error: " + e.getMessage());
+        }
+        block.value[i][row] = val.getValueBits();
+        if (val.getUnknownBits() != 0) {
+          if (block.unknown[i] == null) block.unknown[i] = new long[BLOCK_ROWS];
+          block.unknown[i][row] = val.getUnknownBits();
+        }
+        if (val.getErrorBits() != 0) {
+          if (block.error[i] == null) block.error[i] = new long[BLOCK_ROWS];
+          block.error[i][row] = val.getErrorBits();
+        }
+        if (!radixFound[i]) {
+          columnRadix[i] = Value.radixOfLogString(columnWidth[i], t);
+          radixFound[i] = true;
+        }
+      }
+      if (ticksColumn == columnName.length) parseTicks(row);
+      if (curLine.hasMoreTokens())
+        throw new IOException("Test Vector data format error: " + curLine.nextToken());
+      block.rows++;
+    }
+
+    private void parseTicks(int row) throws IOException {
+      if (!curLine.hasMoreTokens())
+        throw new IOException("Test Vector data format error: missing value for " + TICKS_COLUMN);
+      final var t = curLine.nextToken();
+      var ticks = -1;
+      try {
+        ticks = Integer.parseInt(t);
+      } catch (NumberFormatException ignored) {
+      }
+      if (ticks < 0) throw new IOException("Test Vector data format error: bad tick count: " + t);
+      block.ticks[row] = ticks;
+    }
+  }
+
+  /** A fixed number of consecutive rows, stored column by column. */
+  private static class Block {
+    final long[][] value;
+    final long[][] unknown;
+    final long[][] error;
+    final boolean[][] dontCare;
+    final int[] ticks;
+    int rows;
+
+    Block(int columns, boolean clocked) {
+      value = new long[columns][BLOCK_ROWS];
+      unknown = new long[columns][];
+      error = new long[columns][];
+      dontCare = new boolean[columns][];
+      ticks = clocked ? new int[BLOCK_ROWS] : null;
+    }
   }
 
   public static final FileFilter FILE_FILTER = new TestVectorFilter();
+
+  /** Header name of the column holding the number of clock ticks of each row. */
+  public static final String TICKS_COLUMN = "<ticks>";
+
+  private static final String DONT_CARE = "-";
+
+  /** Number of rows per block; blocks are the unit of publication and of discarding. */
+  private static final int BLOCK_ROWS = 4096;
+
+  /** Minimum number of blocks a streaming reader may parse ahead of the last discarded row. */
+  private static final int READ_AHEAD_BLOCKS = 16;
+
   public String[] columnName;
   public BitWidth[] columnWidth;
   public int[] columnRadix;
+  private int ticksColumn = -1;
 
-  public List<Value[]> data;
+  // all of the following are guarded by this
+  private final ArrayList<Block> blocks = new ArrayList<>();
+  private final int readAheadBlocks;
+  private int rowCount;
+  private int firstKept;
+  private boolean complete;
+  private IOException failure;
 
   public TestVector(File src) throws IOException {
+    readAheadBlocks = Integer.MAX_VALUE;
     try (final var in = new BufferedReader(new FileReader(src))) {
       final var r = new TestVectorReader(in);
-      r.parse();
+      r.parseHeader();
+      r.parseData();
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
     }
+    complete = true;
   }
 
   public TestVector(String filename) throws IOException {
     this(new File(filename));
   }
+
+  private TestVector(int readAheadRows) {
+    // the rows still in use may straddle a block at either end
+    readAheadBlocks = Math.max(READ_AHEAD_BLOCKS, (readAheadRows + BLOCK_ROWS - 1) / BLOCK_ROWS + 2);
+  }
+
+  /**
+   * Opens a test vector whose rows are parsed on a background thread. Only the header is read
+   * before returning; rows become available through {@link #waitForRows} as they are parsed.
+   * The reader keeps a bounded number of rows ahead of the consumer, which must therefore release
+   * the rows it is done with using {@link #discardBefore}.
+   *
+   * @param readAheadRows Number of rows the consumer may ask for beyond the last one it released;
+   *     the reader keeps at least that many rows ahead.
+   */
+  public static TestVector stream(File src, int readAheadRows) throws IOException {
+    final var ret = new TestVector(readAheadRows);
+    final var in = new BufferedReader(new FileReader(src));
+    final TestVectorReader r;
+    try {
+      r = ret.new TestVectorReader(in);
+      r.parseHeader();
+    } catch (IOException e) {
+      in.close();
+      throw e;
+    }
+    final var thread =
+        new UniquelyNamedThread(
+            () -> {
+              try (in) {
+                r.parseData();
+                ret.finish(null);
+              } catch (IOException e) {
+                ret.finish(e);
+              } catch (InterruptedException e) {
+                ret.finish(new IOException(e));
+              }
+            },
+            "TestVectorReader");
+    thread.setDaemon(true);
+    thread.start();
+    return ret;
+  }
+
+  private synchronized void addBlock(Block block) throws InterruptedException {
+    while (blocks.size() - firstKept >= readAheadBlocks) wait();
+    blocks.add(block);
+    rowCount += block.rows;
+    notifyAll();
+  }
+
+  private synchronized void finish(IOException e) {
+    failure = e;
+    complete = true;
+    notifyAll();
+  }
+
+  /** Returns the number of rows parsed so far; this is the final count once {@link #isComplete}. */
+  public synchronized int getRowCount() {
+    return rowCount;
+  }
+
+  public synchronized boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * Waits until the given row has been parsed, or the end of the file is reached.
+   *
+   * @return the number of consecutive rows, at most max, available from row first on; 0 if the
+   *     vector has fewer rows.
+   * @throws IOException if the file turned out to be malformed before row first.
+   */
+  public synchronized int waitForRows(int first, int max) throws IOException, InterruptedException {
+    while (first >= rowCount && !complete) wait();
+    if (first < rowCount) return Math.min(max, rowCount - first);
+    if (failure != null) throw failure;
+    return 0;
+  }
+
+  /**
+   * Tells a streaming vector that rows before the given one will not be asked for again, so the
+   * memory they use can be released and the reader can continue.
+   */
+  public synchronized void discardBefore(int row) {
+    final var last = Math.min(row / BLOCK_ROWS, blocks.size());
+    if (last <= firstKept) return;
+    for (var i = firstKept; i < last; i++) blocks.set(i, null);
+    firstKept = last;
+    notifyAll();
+  }
+
+  /** Returns whether the rows run in sequence on one state, see {@link #TICKS_COLUMN}. */
+  public boolean isClocked() {
+    return ticksColumn >= 0;
+  }
+
+  private synchronized Block getBlock(int row) {
+    if (row < 0 || row >= rowCount) throw new IndexOutOfBoundsException(row);
+    final var block = blocks.get(row / BLOCK_ROWS);
+    if (block == null) throw new IllegalStateException("row " + row + " was discarded");
+    return block;
+  }
+
+  /**
+   * Returns the values of one row, which must already have been parsed. Don't-care cells are
+   * null.
+   */
+  public Value[] getRow(int row) {
+    final var block = getBlock(row);
+    final var idx = row % BLOCK_ROWS;
+    final var ret = new Value[columnName.length];
+    for (var i = 0; i < ret.length; i++) {
+      if (block.dontCare[i] != null && block.dontCare[i][idx]) continue;
+      final var unknown = block.unknown[i] == null ? 0 : block.unknown[i][idx];
+      final var error = block.error[i] == null ? 0 : block.error[i][idx];
+      ret[i] = Value.create(columnWidth[i].getWidth(), error, unknown, block.value[i][idx]);
+    }
+    return ret;
+  }
+
+  /** Returns the number of clock ticks of a row of a clocked vector, 0 for other vectors. */
+  public int getTicks(int row) {
+    final var block = getBlock(row);
+    return block.ticks == null ? 0 : block.ticks[row % BLOCK_ROWS];
+  }
 }
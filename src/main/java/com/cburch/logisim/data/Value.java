@@ -16,7 +16,11 @@ import java.util.Arrays;
 
 public class Value {
 
-  private static Value create(int width, long error, long unknown, long value) {
+  /**
+   * Returns the value of the given width made of the given bit-planes, as returned by {@link
+   * #getErrorBits}, {@link #getUnknownBits} and {@link #getValueBits}.
+   */
+  public static Value create(int width, long error, long unknown, long value) {
     if (width == 0) {
       return Value.NIL;
     } else if (width == 1) {
@@ -527,6 +531,18 @@ public class Value {
     }
   }
 
+  public long getErrorBits() {
+    return error;
+  }
+
+  public long getUnknownBits() {
+    return unknown;
+  }
+
+  public long getValueBits() {
+    return value;
+  }
+
   public long toLongValue() {
     if (error != 0) return -1L;
     if (unknown != 0) return -1L;
@@ -19,16 +19,19 @@ import com.cburch.logisim.circuit.SplitterFactory;
 import com.cburch.logisim.circuit.SubcircuitFactory;
 import com.cburch.logisim.circuit.Wire;
 import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Attribute;
 import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.Location;
 import com.cburch.logisim.fpga.gui.Reporter;
 import com.cburch.logisim.fpga.hdlgenerator.Hdl;
+import com.cburch.logisim.generated.BuildInfo;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.std.wiring.Clock;
 import com.cburch.logisim.std.wiring.Pin;
 import com.cburch.logisim.std.wiring.Probe;
 import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.util.UniquelyNamedThread;
 import java.awt.Color;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -37,6 +40,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class Netlist {
 
@@ -92,8 +99,11 @@ public class Netlist {
   private final ClockTreeFactory myClockInformation = new ClockTreeFactory();
   private final Circuit myCircuit;
   private int drcStatus;
-  private final Set<Wire> wires = new HashSet<>();
   private ArrayList<String> currentHierarchyLevel;
+  // content hash of the circuit when its check last passed, 0 if it has to be checked anew
+  private long contentHash;
+  // the messages of that check, reported again while the netlist is kept
+  private List<Runnable> drcMessages;
   public static final int DRC_REQUIRED = 4;
   public static final int DRC_PASSED = 0;
   public static final int ANNOTATE_REQUIRED = 1;
@@ -102,6 +112,9 @@ public class Netlist {
   public static final Color DRC_INSTANCE_MARK_COLOR = Color.RED;
   public static final Color DRC_LABEL_MARK_COLOR = Color.MAGENTA;
   public static final Color DRC_WIRE_MARK_COLOR = Color.RED;
+  // of the content hash, which is an FNV-1a hash on 64 bits
+  private static final long HASH_BASIS = 0xcbf29ce484222325L;
+  private static final long HASH_PRIME = 0x100000001b3L;
 
   public Netlist(Circuit ThisCircuit) {
     myCircuit = ThisCircuit;
@@ -119,11 +132,13 @@ public class Netlist {
     }
   }
 
+  /**
+   * Empties this netlist, so that the next check builds it anew. The netlists of the subcircuits
+   * are kept, as they do not depend on this circuit.
+   */
   public void clear() {
-    for (final var subcirc : mySubCircuits) {
-      final var subFact = (SubcircuitFactory) subcirc.getComponent().getFactory();
-      subFact.getSubcircuit().getNetList().clear();
-    }
+    contentHash = 0;
+    drcMessages = List.of();
     drcStatus = DRC_REQUIRED;
     myNets.clear();
     mySubCircuits.clear();
@@ -223,49 +238,203 @@ public class Netlist {
     }
   }
 
+  /**
+   * Checks the design rules of this circuit and the circuits it contains, and builds their
+   * netlists. Each circuit is first checked on its own, after the circuits it contains, on a pool
+   * of worker threads; a circuit whose structure is the same as when its check last passed keeps
+   * its netlist. The messages are reported in the order of a check of one circuit after the other.
+   * On the top level, the steps that depend on the whole hierarchy, such as the clock tree and the
+   * bubbles, follow.
+   */
   public int designRuleCheckResult(boolean isTopLevel, ArrayList<String> sheetNames) {
-    final var compNames = new ArrayList<String>();
-    final var labels = new HashMap<String, Component>();
-    final var drc = new ArrayList<SimpleDrcContainer>();
-
-    // if we are the toplevel component we clear the complete netlist
-    if (isTopLevel) clear();
+    // the netlists of the hierarchy, each one after those of the circuits it contains
+    final var hierarchy = new ArrayList<Netlist>();
+    if (!gatherHierarchy(sheetNames, new HashSet<>(), hierarchy)) {
+      drcStatus = DRC_ERROR;
+      return drcStatus;
+    }
+    try {
+      checkHierarchy(hierarchy);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      drcStatus = DRC_REQUIRED;
+      return DRC_ERROR;
+    }
+    for (final var netlist : hierarchy) {
+      Reporter.report.replay(netlist.drcMessages);
+      // the first circuit that fails stops the check, as the ones containing it cannot be built
+      if (netlist.drcStatus != DRC_PASSED) return netlist == this ? drcStatus : DRC_ERROR;
+      if (netlist != this) netlist.reportPassed();
+    }
 
-    // if we already have good drc results we can leave
-    if (drcStatus == DRC_PASSED) return DRC_PASSED;
+    /* Only if we are on the top-level we are going to build the clock-tree */
+    if (isTopLevel) {
+      for (final var netlist : hierarchy) netlist.clearHierarchyInformation();
+      if (!detectClockTree()) {
+        drcStatus = DRC_ERROR;
+        return drcStatus;
+      }
+      constructHierarchyTree(null, new ArrayList<>(), 0, 0, 0);
+      var ports =
+          getNumberOfInputPorts()
+              + numberOfOutputPorts()
+              + localNrOfInportBubbles
+              + localNrOfOutportBubbles
+              + localNrOfInOutBubbles;
+      if (ports == 0) {
+        Reporter.report.addFatalError(S.get("TopLevelNoIO", myCircuit.getName()));
+        drcStatus = DRC_ERROR;
+        return drcStatus;
+      }
+      /* Check for gated clocks */
+      if (!detectGatedClocks()) {
+        drcStatus = DRC_ERROR;
+        return drcStatus;
+      }
+    }
 
-    // we mark already passed, if an error * occurs the status is changed
+    reportPassed();
     drcStatus = DRC_PASSED;
+    return drcStatus;
+  }
 
+  /**
+   * Adds the netlists of this circuit and of the circuits it contains that were not visited yet to
+   * the hierarchy, each one after those of the circuits it contains. Returns false if a circuit
+   * has no name, or the name of another.
+   */
+  private boolean gatherHierarchy(List<String> sheetNames, Set<Circuit> visited, List<Netlist> hierarchy) {
+    visited.add(myCircuit);
     // Check for duplicated sheet names, this is bad as we will have
     // multiple "different" components with the same name
     if (myCircuit.getName().isEmpty()) {
       // in the current implementation of logisim this should never
       // happen, but we leave it in
       Reporter.report.addFatalError(S.get("EmptyNamedSheet"));
-      drcStatus |= DRC_ERROR;
+      return false;
     }
     if (sheetNames.contains(myCircuit.getName())) {
       // in the current implementation of logisim this should never
       // happen, but we leave it in
       Reporter.report.addFatalError(S.get("MultipleSheetSameName", myCircuit.getName()));
-      drcStatus |= DRC_ERROR;
-    } else {
-      sheetNames.add(myCircuit.getName());
+      return false;
     }
-    // we have to go down the tree to build first all subcircuits
-    final var handledCircuits = new ArrayList<Circuit>();
+    sheetNames.add(myCircuit.getName());
+    for (final var subCircuit : getContainedCircuits()) {
+      if (visited.contains(subCircuit)) continue;
+      if (!subCircuit.getNetList().gatherHierarchy(sheetNames, visited, hierarchy)) return false;
+    }
+    hierarchy.add(this);
+    return true;
+  }
+
+  /** Returns the circuits of the subcircuit components in this circuit, each one once. */
+  private List<Circuit> getContainedCircuits() {
+    final var ret = new ArrayList<Circuit>();
     for (final var comp : myCircuit.getNonWires()) {
-      if (comp.getFactory() instanceof SubcircuitFactory factory) {
-        final var subCircuit = factory.getSubcircuit();
-        if (handledCircuits.contains(subCircuit)) continue;
-        handledCircuits.add(subCircuit);
-        if (subCircuit.getNetList().designRuleCheckResult(false, sheetNames) != DRC_PASSED) {
-          drcStatus = DRC_REQUIRED;
-          return DRC_ERROR;
+      if (comp.getFactory() instanceof SubcircuitFactory factory
+          && !ret.contains(factory.getSubcircuit())) {
+        ret.add(factory.getSubcircuit());
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Checks each circuit of a hierarchy, as ordered by {@link #gatherHierarchy}, on its own, unless
+   * its content hash is the one of its last check that passed. The circuits are grouped in
+   * levels, a circuit one level above the highest of those it contains; the circuits of a level
+   * are checked at the same time. A circuit containing one that failed is not checked.
+   */
+  private static void checkHierarchy(List<Netlist> hierarchy) throws InterruptedException {
+    final var hashes = new HashMap<Circuit, Long>();
+    final var levelOf = new HashMap<Circuit, Integer>();
+    final var levels = new ArrayList<List<Netlist>>();
+    for (final var netlist : hierarchy) {
+      final var circuit = netlist.myCircuit;
+      netlist.getContentHash(hashes);
+      var level = 0;
+      for (final var sub : netlist.getContainedCircuits()) {
+        level = Math.max(level, levelOf.get(sub) + 1);
+      }
+      levelOf.put(circuit, level);
+      if (level == levels.size()) levels.add(new ArrayList<>());
+      levels.get(level).add(netlist);
+    }
+
+    final var threads = Runtime.getRuntime().availableProcessors();
+    ExecutorService pool = null;
+    try {
+      for (final var level : levels) {
+        final var tasks = new ArrayList<Runnable>();
+        for (final var netlist : level) {
+          final long hash = hashes.get(netlist.myCircuit);
+          if (hash == netlist.contentHash) {
+            netlist.drcStatus = DRC_PASSED;
+          } else if (!netlist.containedCircuitsPassed()) {
+            netlist.clear();
+          } else {
+            tasks.add(() -> netlist.checkCircuit(hash));
+          }
+        }
+        if (tasks.size() < 2 || threads < 2) {
+          for (final var task : tasks) task.run();
+          continue;
+        }
+        if (pool == null) {
+          pool =
+              Executors.newFixedThreadPool(
+                  threads,
+                  r -> {
+                    final var thread = new UniquelyNamedThread(r, "DrcWorker");
+                    thread.setDaemon(true);
+                    return thread;
+                  });
+        }
+        final var pending = new ArrayList<Future<?>>();
+        for (final var task : tasks) pending.add(pool.submit(task));
+        for (final var result : pending) {
+          try {
+            result.get();
+          } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+          }
         }
       }
+    } finally {
+      if (pool != null) pool.shutdownNow();
+    }
+  }
+
+  private boolean containedCircuitsPassed() {
+    for (final var sub : getContainedCircuits()) {
+      if (sub.getNetList().drcStatus != DRC_PASSED) return false;
     }
+    return true;
+  }
+
+  /**
+   * Checks the design rules of this circuit on its own and builds its netlist, holding back the
+   * messages to be reported later. The circuits it contains must have passed their checks.
+   */
+  private void checkCircuit(long hash) {
+    clear();
+    Reporter.report.beginCapture();
+    try {
+      checkCircuitRules();
+    } finally {
+      drcMessages = Reporter.report.endCapture();
+    }
+    if (drcStatus == DRC_PASSED) contentHash = hash;
+  }
+
+  private void checkCircuitRules() {
+    final var compNames = new ArrayList<String>();
+    final var labels = new HashMap<String, Component>();
+    final var drc = new ArrayList<SimpleDrcContainer>();
+
+    // we mark already passed, if an error * occurs the status is changed
+    drcStatus = DRC_PASSED;
 
     // Preparing stage
     for (final var comp : myCircuit.getNonWires()) {
@@ -368,7 +537,7 @@ public class Netlist {
     }
     drc.clear();
     /* Here we have to quit as the netlist generation needs a clean tree */
-    if (drcStatus != DRC_PASSED) return drcStatus;
+    if (drcStatus != DRC_PASSED) return;
 
     /*
      * Okay we now know for sure that all elements are supported, lets build
@@ -382,13 +551,13 @@ public class Netlist {
        * here we have to quit, as all the following steps depend on a
        * proper netlist
        */
-      return drcStatus;
+      return;
     }
 
     if (netlistHasShortCircuits()) {
       clear();
       drcStatus = DRC_ERROR;
-      return drcStatus;
+      return;
     }
 
     /* Check for connections without a source */
@@ -461,36 +630,121 @@ public class Netlist {
         Reporter.report.addWarning(warn);
       }
     }
+  }
 
-    /* Only if we are on the top-level we are going to build the clock-tree */
-    if (isTopLevel) {
-      if (!detectClockTree()) {
-        drcStatus = DRC_ERROR;
-        return drcStatus;
+  private void reportPassed() {
+    Reporter.report.addInfo(S.get("CircuitInfoString", myCircuit.getName(), numberOfNets(), numberOfBusses()));
+    Reporter.report.addInfo(S.get("DRCPassesString", myCircuit.getName()));
+  }
+
+  /** Forgets what the last check on the top level found about this circuit in its hierarchy. */
+  private void clearHierarchyInformation() {
+    for (final var comp : mySubCircuits) comp.clearHierarchyInformation();
+    for (final var comp : myComponents) comp.clearHierarchyInformation();
+    for (final var comp : myClockGenerators) comp.clearHierarchyInformation();
+    currentHierarchyLevel.clear();
+  }
+
+  /**
+   * Returns a hash of everything the HDL of this circuit depends on at the current hierarchy level,
+   * so that an export can keep the files it wrote for the same hash before. Besides the circuit
+   * and those it contains, given in or added to contentHashes, it covers what the check of the
+   * whole design found: the nets the ends of the components are on, the clock trees on them, the
+   * bubbles and the gated clocks.
+   */
+  public long getHdlHash(boolean gatedInstance, Map<Circuit, Long> contentHashes) {
+    final var netIds = new HashMap<Net, Integer>();
+    for (final var net : myNets) netIds.put(net, netIds.size());
+    var ret = hash(getContentHash(contentHashes), Boolean.toString(gatedInstance));
+    ret = hash(ret, projName());
+    ret = hash(ret, BuildInfo.buildId);
+    ret = hash(ret, AppPreferences.VhdlKeywordsUpperCase.get().toString());
+    ret = hash(ret, numberOfClockTrees() + " " + requiresGlobalClockConnection());
+    ret = hash(ret, localNrOfInportBubbles + " " + localNrOfOutportBubbles + " " + localNrOfInOutBubbles);
+    for (final var comps : List.of(mySubCircuits, myComponents, myClockGenerators)) {
+      for (final var comp : comps) {
+        final var text = new StringBuilder(comp.getComponent().getLocation().toString());
+        text.append(comp.isGatedInstance() ? " gated" : " ")
+            .append(comp.getLocalBubbleInputStartId()).append(' ')
+            .append(comp.getLocalBubbleInputEndId()).append(' ')
+            .append(comp.getLocalBubbleOutputStartId()).append(' ')
+            .append(comp.getLocalBubbleOutputEndId()).append(' ')
+            .append(comp.getLocalBubbleInOutStartId()).append(' ')
+            .append(comp.getLocalBubbleInOutEndId());
+        if (comps == myClockGenerators) {
+          text.append(" clock ").append(getClockSourceId(comp.getComponent()));
+        }
+        for (var end = 0; end < comp.nrOfEnds(); end++) {
+          final var endData = comp.getEnd(end);
+          text.append(endData.isOutputEnd() ? " >" : " <");
+          for (byte bit = 0; bit < endData.getNrOfBits(); bit++) {
+            final var point = endData.get(bit);
+            text.append(' ').append(netIds.get(point.getParentNet()))
+                .append('.').append(point.getParentNetBitIndex());
+          }
+        }
+        ret = hash(ret, text.toString());
       }
-      constructHierarchyTree(null, new ArrayList<>(), 0, 0, 0);
-      var ports =
-          getNumberOfInputPorts()
-              + numberOfOutputPorts()
-              + localNrOfInportBubbles
-              + localNrOfOutportBubbles
-              + localNrOfInOutBubbles;
-      if (ports == 0) {
-        Reporter.report.addFatalError(S.get("TopLevelNoIO", myCircuit.getName()));
-        drcStatus = DRC_ERROR;
-        return drcStatus;
+    }
+    for (final var net : myNets) {
+      final var text = new StringBuilder();
+      for (byte bit = 0; bit < net.getBitWidth(); bit++) {
+        text.append(getClockSourceId(currentHierarchyLevel, net, bit)).append(' ');
       }
-      /* Check for gated clocks */
-      if (!detectGatedClocks()) {
-        drcStatus = DRC_ERROR;
-        return drcStatus;
+      ret = hash(ret, text.toString());
+    }
+    return ret;
+  }
+
+  /**
+   * Returns a hash of everything the check of this circuit on its own depends on: the name and
+   * attributes of the circuit, its components with their locations and attributes, its wires, the
+   * circuits it contains, whose hashes are added to the given ones, and the preferences the check
+   * reads. Attributes are taken by their text in the circuit file, as values such as memory
+   * contents are changed in place. The check of the design rules keeps its result for this hash,
+   * and an export its files, see {@link #getHdlHash}.
+   */
+  private long getContentHash(Map<Circuit, Long> hashes) {
+    final var known = hashes.get(myCircuit);
+    if (known != null) return known;
+    var parts = 0L;
+    for (final var comp : myCircuit.getNonWires()) {
+      var part = hash(HASH_BASIS, comp.getFactory().getClass().getName());
+      part = hash(part, comp.getFactory().getName());
+      part = hash(part, comp.getLocation().toString());
+      for (final var attr : comp.getAttributeSet().getAttributes()) {
+        part = hash(hash(part, attr.getName()), getStandardString(comp.getAttributeSet(), attr));
       }
+      if (comp.getFactory() instanceof SubcircuitFactory factory) {
+        final var sub = factory.getSubcircuit().getNetList().getContentHash(hashes);
+        part = hash(part, Long.toString(sub));
+      }
+      parts += part;
+    }
+    for (final var wire : myCircuit.getWires()) {
+      parts += hash(hash(HASH_BASIS, wire.getEnd0().toString()), wire.getEnd1().toString());
     }
+    var ret = hash(HASH_BASIS, myCircuit.getName());
+    final var attrs = myCircuit.getStaticAttributes();
+    for (final var attr : attrs.getAttributes()) {
+      ret = hash(hash(ret, attr.getName()), getStandardString(attrs, attr));
+    }
+    ret = hash(ret, Hdl.getType());
+    ret = hash(ret, AppPreferences.SupressOpenPinWarnings.get().toString());
+    ret = hash(ret, Long.toString(parts));
+    hashes.put(myCircuit, ret);
+    return ret;
+  }
 
-    Reporter.report.addInfo(S.get("CircuitInfoString", myCircuit.getName(), numberOfNets(), numberOfBusses()));
-    Reporter.report.addInfo(S.get("DRCPassesString", myCircuit.getName()));
-    drcStatus = DRC_PASSED;
-    return drcStatus;
+  private static <V> String getStandardString(AttributeSet attrs, Attribute<V> attr) {
+    final var value = attrs.getValue(attr);
+    return value == null ? "" : attr.toStandardString(value);
+  }
+
+  private static long hash(long hash, String text) {
+    for (var i = 0; i < text.length(); i++) hash = (hash ^ text.charAt(i)) * HASH_PRIME;
+    // a character that is not in texts ends this one, so that "ab", "c" differs from "a", "bc"
+    return (hash ^ 0xffff) * HASH_PRIME;
   }
 
   private boolean detectClockTree() {
@@ -563,14 +817,13 @@ public class Netlist {
       progress.setString(S.get("NetListBuild", circuitName, 1));
     }
 
-    wires.clear();
-    wires.addAll(myCircuit.getWires());
     // FIRST PASS: In this pass we take all wire segments and see if they
     // are connected to other segments. If they are connected we build a net.
-    while (wires.size() != 0) {
-      final var newNet = new Net();
-      getNet(null, newNet);
-      if (!newNet.isEmpty()) myNets.add(newNet);
+    myNets.addAll(getWireNets());
+    // Until nets are merged below, each point is on one net at most
+    final var netAt = new HashMap<Location, Net>();
+    for (final var net : myNets) {
+      for (final var loc : net.getPoints()) netAt.put(loc, net);
     }
     // Here we start to detect direct input-output component connections, read we detect "hidden"
     // nets
@@ -632,9 +885,8 @@ public class Netlist {
         /* Here we are going to mark the bitwidths on the nets */
         final var width = end.getWidth().getWidth();
         final var loc = end.getLocation();
-        for (final var thisNet : myNets) {
-          if (thisNet.contains(loc) && !thisNet.setWidth(width)) drc.get(1).addMarkComponents(thisNet.getWires());
-        }
+        final var thisNet = netAt.get(loc);
+        if (thisNet != null && !thisNet.setWidth(width)) drc.get(1).addMarkComponents(thisNet.getWires());
       }
     }
     for (final var simpleDRCContainer : drc) {
@@ -662,14 +914,12 @@ public class Netlist {
         final var loc = end.getLocation();
         if (points.containsKey(loc)) {
           /* Found a connection already used */
-          var newNet = true;
-          for (final var net : myNets) {
-            if (net.contains(loc)) newNet = false;
-          }
-          if (newNet) {
+          if (!netAt.containsKey(loc)) {
             final var bitWidth = points.get(loc);
             if (bitWidth == end.getWidth().getWidth()) {
-              myNets.add(new Net(loc, bitWidth));
+              final var newNet = new Net(loc, bitWidth);
+              myNets.add(newNet);
+              netAt.put(loc, newNet);
             } else {
               drc.get(0).addMarkComponent(comp);
             }
@@ -696,11 +946,10 @@ public class Netlist {
     for (final var comp : tunnelList) {
       final var ends = comp.getEnds();
       for (final var end : ends) {
-        for (final var thisNet : myNets) {
-          if (thisNet.contains(end.getLocation())) {
-            thisNet.addTunnel(comp.getAttributeSet().getValue(StdAttr.LABEL));
-            areTunnelsPresent = true;
-          }
+        final var thisNet = netAt.get(end.getLocation());
+        if (thisNet != null) {
+          thisNet.addTunnel(comp.getAttributeSet().getValue(StdAttr.LABEL));
+          areTunnelsPresent = true;
         }
       }
     }
@@ -1252,24 +1501,64 @@ public class Netlist {
     return components;
   }
 
-  private void getNet(Wire wire, Net thisNet) {
-    final var myIterator = wires.iterator();
-    final var matchedWires = new ArrayList<Wire>();
-    var compWire = wire;
-    while (myIterator.hasNext()) {
-      final var thisWire = myIterator.next();
-      if (compWire == null) {
-        compWire = thisWire;
-        thisNet.add(thisWire);
-        myIterator.remove();
-      } else if (thisWire.sharesEnd(compWire)) {
-        matchedWires.add(thisWire);
-        thisNet.add(thisWire);
-        myIterator.remove();
-      }
-    }
-    for (final var matched : matchedWires) getNet(matched, thisNet);
-    matchedWires.clear();
+  /**
+   * Groups the wires of the circuit into nets, two wires being on the same net when they share an
+   * end. The ends are joined with a union-find, which takes linear time; the nets are returned in
+   * the order in which their first wires are found.
+   */
+  List<Net> getWireNets() {
+    final var wires = new ArrayList<>(new HashSet<>(myCircuit.getWires()));
+    final var ends = new HashMap<Location, Integer>();
+    final var parent = new int[2 * wires.size()];
+    final var size = new int[parent.length];
+    for (final var wire : wires) {
+      final var end0 = indexOfEnd(ends, parent, size, wire.getEnd0());
+      final var end1 = indexOfEnd(ends, parent, size, wire.getEnd1());
+      var root0 = findRoot(parent, end0);
+      var root1 = findRoot(parent, end1);
+      if (root0 == root1) continue;
+      // the smaller tree goes under the larger one, which keeps the trees flat
+      if (size[root0] < size[root1]) {
+        final var swap = root0;
+        root0 = root1;
+        root1 = swap;
+      }
+      parent[root1] = root0;
+      size[root0] += size[root1];
+    }
+    final var nets = new HashMap<Integer, Net>();
+    final var result = new ArrayList<Net>();
+    for (final var wire : wires) {
+      final var root = findRoot(parent, ends.get(wire.getEnd0()));
+      var net = nets.get(root);
+      if (net == null) {
+        net = new Net();
+        nets.put(root, net);
+        result.add(net);
+      }
+      net.add(wire);
+    }
+    return result;
+  }
+
+  private static int indexOfEnd(
+      Map<Location, Integer> ends, int[] parent, int[] size, Location loc) {
+    var index = ends.get(loc);
+    if (index == null) {
+      index = ends.size();
+      ends.put(loc, index);
+      parent[index] = index;
+      size[index] = 1;
+    }
+    return index;
+  }
+
+  private static int findRoot(int[] parent, int index) {
+    while (parent[index] != index) {
+      parent[index] = parent[parent[index]]; // path halving
+      index = parent[index];
+    }
+    return index;
   }
 
   public Integer getNetId(Net selectedNet) {
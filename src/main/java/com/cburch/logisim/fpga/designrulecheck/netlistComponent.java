@@ -225,6 +225,13 @@ public class netlistComponent {
     }
   }
 
+  /** Forgets the bubble ids and gated clocks found for the hierarchy this component was in. */
+  public void clearHierarchyInformation() {
+    globalIds = null;
+    localId = null;
+    isGatedInstance = false;
+  }
+
   public boolean isGatedInstance() {
     return isGatedInstance;
   }
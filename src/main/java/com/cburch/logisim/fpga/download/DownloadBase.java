@@ -18,6 +18,7 @@ import com.cburch.logisim.fpga.data.MappableResourcesContainer;
 import com.cburch.logisim.fpga.designrulecheck.CorrectLabel;
 import com.cburch.logisim.fpga.designrulecheck.Netlist;
 import com.cburch.logisim.fpga.file.FileWriter;
+import com.cburch.logisim.fpga.file.HdlManifest;
 import com.cburch.logisim.fpga.gui.Reporter;
 import com.cburch.logisim.fpga.hdlgenerator.Hdl;
 import com.cburch.logisim.fpga.hdlgenerator.HdlGeneratorFactory;
@@ -33,6 +34,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 
 public abstract class DownloadBase {
@@ -114,7 +116,6 @@ public abstract class DownloadBase {
     if (root == null) {
       drcResult |= Netlist.DRC_ERROR;
     } else {
-      root.getNetList().clear();
       drcResult = root.getNetList().designRuleCheckResult(true, sheetNames);
     }
     return drcResult == Netlist.DRC_PASSED;
@@ -145,7 +146,7 @@ public abstract class DownloadBase {
     }
     final var projectDir = getProjDir(selectedCircuit);
     final var rootSheet = myProject.getLogisimFile().getCircuit(selectedCircuit);
-    if (!cleanDirectory(projectDir)) {
+    if (!cleanProjectDirectory(projectDir)) {
       Reporter.report.addFatalError(
           "Unable to cleanup old project files in directory: \"" + projectDir + "\"");
       return false;
@@ -162,13 +163,14 @@ public abstract class DownloadBase {
       }
     }
 
+    final var manifest = new HdlManifest(projectDir);
     final var generatedHDLComponents = new HashSet<String>();
     var worker = rootSheet.getSubcircuitFactory().getHDLGenerator(rootSheet.getStaticAttributes());
     if (worker == null) {
       Reporter.report.addFatalError("Internal error on HDL generation, null pointer exception");
       return false;
     }
-    if (!worker.generateAllHDLDescriptions(generatedHDLComponents, projectDir, null)) {
+    if (!worker.generateAllHDLDescriptions(generatedHDLComponents, manifest, projectDir, null)) {
       return false;
     }
     /* Here we generate the top-level shell */
@@ -178,6 +180,7 @@ public abstract class DownloadBase {
               myBoardInformation.fpga.getClockFrequency(),
               frequency /* , boardFreq.isSelected() */);
       if (!Hdl.writeEntity(
+          manifest,
           projectDir + ticker.getRelativeDirectory(),
           ticker.getEntity(
               rootSheet.getNetList(), null, TickComponentHdlGeneratorFactory.HDL_IDENTIFIER),
@@ -185,6 +188,7 @@ public abstract class DownloadBase {
         return false;
       }
       if (!Hdl.writeArchitecture(
+          manifest,
           projectDir + ticker.getRelativeDirectory(),
           ticker.getArchitecture(
               rootSheet.getNetList(), null, TickComponentHdlGeneratorFactory.HDL_IDENTIFIER),
@@ -203,12 +207,14 @@ public abstract class DownloadBase {
       final var compName =
           rootSheet.getNetList().getAllClockSources().get(0).getFactory().getHDLName(null);
       if (!Hdl.writeEntity(
+          manifest,
           projectDir + clockGen.getRelativeDirectory(),
           clockGen.getEntity(rootSheet.getNetList(), null, compName),
           compName)) {
         return false;
       }
       if (!Hdl.writeArchitecture(
+          manifest,
           projectDir + clockGen.getRelativeDirectory(),
           clockGen.getArchitecture(rootSheet.getNetList(), null, compName),
           compName)) {
@@ -225,12 +231,14 @@ public abstract class DownloadBase {
           final var name = LedArrayGenericHdlGeneratorFactory.getSpecificHDLName(type);
           if (worker != null && name != null) {
             if (!Hdl.writeEntity(
+                manifest,
                 projectDir + worker.getRelativeDirectory(),
                 worker.getEntity(rootSheet.getNetList(), null, name),
                 name)) {
               return false;
             }
             if (!Hdl.writeArchitecture(
+                manifest,
                 projectDir + worker.getRelativeDirectory(),
                 worker.getArchitecture(rootSheet.getNetList(), null, name),
                 name)) {
@@ -241,17 +249,24 @@ public abstract class DownloadBase {
       }
     }
     if (!Hdl.writeEntity(
+        manifest,
         projectDir + top.getRelativeDirectory(),
         top.getEntity(
             rootSheet.getNetList(), null, ToplevelHdlGeneratorFactory.FPGA_TOP_LEVEL_NAME),
         ToplevelHdlGeneratorFactory.FPGA_TOP_LEVEL_NAME)) {
       return false;
     }
-    return Hdl.writeArchitecture(
+    if (!Hdl.writeArchitecture(
+        manifest,
         projectDir + top.getRelativeDirectory(),
         top.getArchitecture(
             rootSheet.getNetList(), null, ToplevelHdlGeneratorFactory.FPGA_TOP_LEVEL_NAME),
-        ToplevelHdlGeneratorFactory.FPGA_TOP_LEVEL_NAME);
+        ToplevelHdlGeneratorFactory.FPGA_TOP_LEVEL_NAME)) {
+      return false;
+    }
+    return manifest.finish(List.of(
+        getDirectoryLocation(projectDir, VERILOG_SOURCE_PATH),
+        getDirectoryLocation(projectDir, VHDL_SOURCE_PATH)));
   }
 
   protected boolean genDirectory(String dirPath) {
@@ -303,6 +318,27 @@ public abstract class DownloadBase {
     return base + HDLPaths[identifier] + File.separator;
   }
 
+  /**
+   * Removes the files of the last export of a project, but for its HDL sources and their
+   * manifest, which the next export only changes where it has to.
+   */
+  private boolean cleanProjectDirectory(String projectDir) {
+    final var thisDir = new File(projectDir);
+    if (!thisDir.exists()) return true;
+    for (final var theFile : thisDir.listFiles()) {
+      final var name = theFile.getName();
+      if (name.equals(HdlManifest.FILE_NAME)
+          || name.equals(HDLPaths[VERILOG_SOURCE_PATH])
+          || name.equals(HDLPaths[VHDL_SOURCE_PATH])) {
+        continue;
+      }
+      if (theFile.isDirectory() ? !cleanDirectory(theFile.getPath()) : !theFile.delete()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private boolean cleanDirectory(String dir) {
     try {
       final var thisDir = new File(dir);
@@ -0,0 +1,251 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.download;
+
+import static com.cburch.logisim.fpga.Strings.S;
+
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.fpga.designrulecheck.Netlist;
+import com.cburch.logisim.fpga.designrulecheck.netlistComponent;
+import com.cburch.logisim.fpga.file.HdlManifest;
+import com.cburch.logisim.fpga.gui.Reporter;
+import com.cburch.logisim.fpga.hdlgenerator.Hdl;
+import com.cburch.logisim.fpga.hdlgenerator.TestbenchHdlGeneratorFactory;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Clock;
+import com.cburch.logisim.std.wiring.Pin;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Exports the HDL of a circuit and of everything it contains to a directory, without a board: no
+ * top level with the board's I/O and clock is generated, and no vendor tools are needed. The
+ * circuits are checked at the same time where they can be (see {@link Netlist}), and the files of
+ * an earlier export to the same directory are only changed where they have to be (see {@link
+ * HdlManifest}). The time taken by each phase of the export is recorded.
+ *
+ * <p>The export can also simulate the circuit for a number of ticks and write a testbench that
+ * checks its HDL against the simulation, see {@link TestbenchHdlGeneratorFactory}.
+ */
+public class HdlExport {
+
+  public enum Phase {
+    LOAD("hdlExportLoad"),
+    ANNOTATE("hdlExportAnnotate"),
+    DRC("hdlExportDrc"),
+    GENERATE("hdlExportGenerate"),
+    TESTBENCH("hdlExportTestbench"),
+    WRITE("hdlExportWrite");
+
+    private final String key;
+
+    Phase(String key) {
+      this.key = key;
+    }
+
+    public String getDisplayName() {
+      return S.get(key);
+    }
+  }
+
+  // the inputs of the testbench are random, but the same for every export
+  private static final long TESTBENCH_SEED = 0x5eed;
+
+  private final Project project;
+  private final Circuit root;
+  private final String directory;
+  private final String hdlType;
+  private final Map<Phase, Long> times = new EnumMap<>(Phase.class);
+  private int testbenchTicks;
+
+  /**
+   * Prepares the export of a circuit to a directory, in the given HDL, or in the one of the
+   * preferences if it is null.
+   */
+  public HdlExport(Project project, Circuit root, String directory, String hdlType) {
+    this.project = project;
+    this.root = root;
+    this.directory = directory.endsWith(File.separator) ? directory : directory + File.separator;
+    this.hdlType = hdlType == null ? AppPreferences.HdlType.get() : hdlType;
+  }
+
+  /** Records the time a phase took outside of the export, like loading the project. */
+  public void setTime(Phase phase, long nanos) {
+    times.put(phase, nanos);
+  }
+
+  /** Also writes a testbench that runs the circuit for the given number of ticks, if above 0. */
+  public void setTestbenchTicks(int ticks) {
+    testbenchTicks = ticks;
+  }
+
+  public long getTime(Phase phase) {
+    return times.getOrDefault(phase, 0L);
+  }
+
+  public boolean export() {
+    // the generators all take the language from Hdl, which is not persisted
+    Hdl.setType(hdlType);
+    try {
+      return exportHdl();
+    } finally {
+      Hdl.setType(null);
+    }
+  }
+
+  private boolean exportHdl() {
+    var start = System.nanoTime();
+    root.annotate(project, false, false);
+    times.put(Phase.ANNOTATE, System.nanoTime() - start);
+
+    start = System.nanoTime();
+    final var drcResult = root.getNetList().designRuleCheckResult(true, new ArrayList<>());
+    times.put(Phase.DRC, System.nanoTime() - start);
+    if (drcResult != Netlist.DRC_PASSED) return false;
+
+    final var dir = new File(directory);
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      Reporter.report.addFatalError(S.fmt("fileUnableToCreate", directory));
+      return false;
+    }
+    final var worker = root.getSubcircuitFactory().getHDLGenerator(root.getStaticAttributes());
+    if (worker == null) {
+      Reporter.report.addFatalError("Internal error on HDL generation, null pointer exception");
+      return false;
+    }
+    final var manifest = new HdlManifest(directory);
+    start = System.nanoTime();
+    final var generated =
+        worker.generateAllHDLDescriptions(new HashSet<>(), manifest, directory, null);
+    final var generateTime = System.nanoTime() - start;
+    times.put(Phase.GENERATE, generateTime - manifest.getFileTime());
+    if (!generated) return false;
+
+    if (testbenchTicks > 0) {
+      start = System.nanoTime();
+      final var fileTime = manifest.getFileTime();
+      final var written = writeTestbench(manifest);
+      times.put(Phase.TESTBENCH, System.nanoTime() - start - (manifest.getFileTime() - fileTime));
+      if (!written) return false;
+    }
+
+    start = System.nanoTime();
+    final var finished =
+        manifest.finish(
+            List.of(
+                DownloadBase.getDirectoryLocation(directory, DownloadBase.VERILOG_SOURCE_PATH),
+                DownloadBase.getDirectoryLocation(directory, DownloadBase.VHDL_SOURCE_PATH)));
+    times.put(Phase.WRITE, manifest.getFileTime() + System.nanoTime() - start);
+    return finished;
+  }
+
+  /**
+   * Simulates the circuit from random inputs, with a fixed seed, for the ticks of the testbench,
+   * and writes the testbench with the inputs and the outputs of every tick. This does not go
+   * through the simulation loop of {@link com.cburch.logisim.gui.start.TtyInterface}: that loop
+   * never sets the input pins, and it is tied to the console, printing tables, reading the keyboard
+   * and ending the program.
+   */
+  private boolean writeTestbench(HdlManifest manifest) {
+    final var nets = root.getNetList();
+    if (nets.getNumberOfInputBubbles() > 0 || nets.numberOfInOutBubbles() > 0) {
+      Reporter.report.addFatalError(S.get("hdlTestbenchBubbles"));
+      return false;
+    }
+    if (nets.requiresGlobalClockConnection()) {
+      Reporter.report.addFatalError(S.get("hdlTestbenchGlobalClock"));
+      return false;
+    }
+    if (nets.numberOfOutputPorts() == 0) {
+      Reporter.report.addFatalError(S.get("hdlTestbenchNoOutputs"));
+      return false;
+    }
+    final var inputs = TestbenchHdlGeneratorFactory.getInputPins(nets);
+    final var outputs = TestbenchHdlGeneratorFactory.getOutputPins(nets);
+    final var clocks = nets.getAllClockSources();
+    final var testbench = new TestbenchHdlGeneratorFactory(root, testbenchTicks);
+    final var stimulus = new ArrayList<String>();
+    final var expected = new ArrayList<String>();
+    stimulus.add(getHeader("inputs", inputs, clocks.size()));
+    expected.add(getHeader("outputs", outputs, 0));
+
+    final var state = new CircuitState(project, root);
+    final var prop = state.getPropagator();
+    final var random = new Random(TESTBENCH_SEED);
+    prop.propagate();
+    for (var tick = 0; tick < testbenchTicks; tick++) {
+      final var inputValues = new ArrayList<Value>();
+      for (final var input : inputs) {
+        final var pin = Instance.getInstanceFor(input.getComponent());
+        final var value = Value.createKnown(Pin.FACTORY.getWidth(pin), random.nextLong());
+        Pin.FACTORY.setValue(state.getInstanceState(pin), value);
+        state.markComponentAsDirty(input.getComponent());
+        inputValues.add(value);
+      }
+      prop.propagate();
+      prop.toggleClocks();
+      prop.propagate();
+      if (prop.isOscillating()) {
+        Reporter.report.addFatalError(S.fmt("hdlTestbenchOscillation", tick));
+        return false;
+      }
+      final var clockLevels = new boolean[clocks.size()];
+      for (var clock = 0; clock < clocks.size(); clock++)
+        clockLevels[clock] = !Clock.isLow(clocks.get(clock).getAttributeSet(), prop.getTickCount());
+      final var outputValues = new ArrayList<Value>();
+      for (final var output : outputs) {
+        final var pin = Instance.getInstanceFor(output.getComponent());
+        outputValues.add(Pin.FACTORY.getValue(state.getInstanceState(pin)));
+      }
+      stimulus.add(TestbenchHdlGeneratorFactory.getStimulusWord(inputValues, clockLevels));
+      expected.add(TestbenchHdlGeneratorFactory.getExpectedWord(outputValues));
+    }
+
+    final var testbenchDirectory = directory + testbench.getRelativeDirectory();
+    final var name = testbench.getComponentName();
+    return manifest.writeData(testbenchDirectory, name + TestbenchHdlGeneratorFactory.STIMULUS_EXTENSION, stimulus)
+        && manifest.writeData(testbenchDirectory, name + TestbenchHdlGeneratorFactory.EXPECTED_EXTENSION, expected)
+        && testbench.writeTestbench(manifest, testbenchDirectory);
+  }
+
+  private String getHeader(String kind, List<netlistComponent> pins, int clocks) {
+    final var header = new StringBuilder("// ").append(root.getName()).append(' ').append(kind).append(':');
+    for (final var pin : pins) {
+      final var attrs = pin.getComponent().getAttributeSet();
+      header.append(' ').append(attrs.getValue(StdAttr.LABEL));
+      final var width = attrs.getValue(StdAttr.WIDTH).getWidth();
+      if (width > 1) header.append('[').append(width - 1).append(":0]");
+    }
+    if (clocks > 0) header.append(" clocks[").append(clocks - 1).append(":0]");
+    return header.append(", one word per tick").toString();
+  }
+
+  /** Prints the time of each phase and the total, in milliseconds. */
+  public void printTimes(PrintStream out) {
+    var total = 0L;
+    out.println(S.get("hdlExportTimes"));
+    for (final var phase : Phase.values()) {
+      total += getTime(phase);
+      out.printf("%10.1f ms\t%s%n", getTime(phase) / 1e6, phase.getDisplayName());
+    }
+    out.printf("%10.1f ms\t%s%n", total / 1e6, S.get("hdlExportTotal"));
+  }
+}
@@ -15,7 +15,6 @@ import com.cburch.logisim.fpga.gui.Reporter;
 import com.cburch.logisim.fpga.hdlgenerator.Hdl;
 import com.cburch.logisim.generated.BuildInfo;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -24,33 +23,15 @@ public class FileWriter {
   public static final String ENTITY_EXTENSION = "_entity";
   public static final String ARCHITECTURE_EXTENSION = "_behavior";
 
-  public static File getFilePointer(
-      String targetDirectory, String componentName, boolean isEntity) {
-    final var fileName = new StringBuilder();
-    try {
-      final var outDir = new File(targetDirectory);
-      if (!outDir.exists()) {
-        if (!outDir.mkdirs()) {
-          return null;
-        }
-      }
-      fileName.append(targetDirectory);
-      if (!targetDirectory.endsWith(File.separator)) fileName.append(File.separator);
-      fileName.append(componentName);
-      if (isEntity && Hdl.isVhdl()) fileName.append(ENTITY_EXTENSION);
-      if (!isEntity && Hdl.isVhdl()) fileName.append(ARCHITECTURE_EXTENSION);
-      fileName.append(Hdl.isVhdl() ? ".vhd" : ".v");
-      final var outFile = new File(fileName.toString());
-      Reporter.report.addInfo(S.fmt("fileCreateHDLFile", fileName.toString()));
-      if (outFile.exists()) {
-        Reporter.report.addWarning(S.fmt("fileHDLFileExists", fileName.toString()));
-        return null;
-      }
-      return outFile;
-    } catch (Exception e) {
-      Reporter.report.addFatalError(S.fmt("fileUnableToCreate", fileName.toString()));
-      return null;
-    }
+  /** Returns the file the entity or the architecture of a component is written to. */
+  public static File getHdlFile(String targetDirectory, String componentName, boolean isEntity) {
+    final var fileName = new StringBuilder(targetDirectory);
+    if (!targetDirectory.endsWith(File.separator)) fileName.append(File.separator);
+    fileName.append(componentName);
+    if (isEntity && Hdl.isVhdl()) fileName.append(ENTITY_EXTENSION);
+    if (!isEntity && Hdl.isVhdl()) fileName.append(ARCHITECTURE_EXTENSION);
+    fileName.append(Hdl.isVhdl() ? ".vhd" : ".v");
+    return new File(fileName.toString());
   }
 
   public static File getFilePointer(String targetDirectory, String name) {
@@ -134,16 +115,8 @@ public class FileWriter {
   }
 
   public static boolean writeContents(File outfile, List<String> contents) {
-    try {
-      final var output = new FileOutputStream(outfile);
-      for (var thisLine : contents) {
-        if (!thisLine.isEmpty()) {
-          output.write(thisLine.getBytes());
-        }
-        output.write("\n".getBytes());
-      }
-      output.flush();
-      output.close();
+    try (final var output = LineWriter.open(outfile)) {
+      output.lines(contents);
       return true;
     } catch (Exception e) {
       Reporter.report.addFatalError(S.fmt("fileUnableToWrite", outfile.getAbsolutePath()));
@@ -0,0 +1,246 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.file;
+
+import static com.cburch.logisim.fpga.Strings.S;
+
+import com.cburch.logisim.fpga.gui.Reporter;
+import com.cburch.logisim.fpga.hdlgenerator.Hdl;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The HDL files of an export, kept in the project directory next to them, so that the next export
+ * of the project only rewrites the files whose contents change. Files that come out the same are
+ * left alone, with their modification time, so that synthesis tools do not process them again.
+ * The files of a component can also be given a key, a hash of everything they are generated from;
+ * when the next export asks for the same key, they are kept without generating them at all.
+ *
+ * <p>The manifest file lists every file of the last export with whether it was added, changed,
+ * left unchanged or removed, its key, its size and its modification time.
+ */
+public class HdlManifest {
+
+  public static final String FILE_NAME = "hdl_manifest.txt";
+  public static final long NO_KEY = 0;
+
+  private static final String ADDED = "added";
+  private static final String CHANGED = "changed";
+  private static final String UNCHANGED = "unchanged";
+  private static final String REMOVED = "removed";
+
+  private record Entry(String status, long key, long size, long modified) {}
+
+  private final Path projectDir;
+  private final Map<String, Entry> previous = new HashMap<>();
+  // sorted by path, as written to the manifest file
+  private final Map<String, Entry> current = new TreeMap<>();
+  // time spent on the files themselves, in nanoseconds
+  private long fileTime;
+
+  /**
+   * Reads the manifest of the last export to the given project directory. Without one, all files
+   * are written, as if the last export had none of them.
+   */
+  public HdlManifest(String projectDirectory) {
+    projectDir = Path.of(projectDirectory).toAbsolutePath().normalize();
+    final var file = projectDir.resolve(FILE_NAME);
+    if (!Files.isRegularFile(file)) return;
+    try {
+      for (final var line : Files.readAllLines(file)) {
+        if (line.isEmpty() || line.startsWith("#")) continue;
+        final var fields = line.split(" ", 5);
+        if (fields.length < 5 || fields[0].equals(REMOVED)) continue;
+        previous.put(fields[4], new Entry(fields[0], Long.parseUnsignedLong(fields[1], 16),
+            Long.parseLong(fields[2]), Long.parseLong(fields[3])));
+      }
+    } catch (IOException | NumberFormatException e) {
+      // a manifest that cannot be read only means that all files are written anew
+      previous.clear();
+    }
+  }
+
+  private String getPath(File file) {
+    return projectDir.relativize(file.toPath().toAbsolutePath().normalize())
+        .toString().replace(File.separatorChar, '/');
+  }
+
+  private List<File> getFiles(String targetDirectory, String componentName) {
+    final var files = new ArrayList<File>();
+    if (Hdl.isVhdl()) files.add(FileWriter.getHdlFile(targetDirectory, componentName, true));
+    files.add(FileWriter.getHdlFile(targetDirectory, componentName, false));
+    return files;
+  }
+
+  /**
+   * Keeps the files of a component if the last export wrote them for the given key and they have
+   * not been touched since. Returns false if they have to be generated.
+   */
+  public boolean keep(String targetDirectory, String componentName, long key) {
+    if (key == NO_KEY) return false;
+    final var start = System.nanoTime();
+    try {
+      return keepFiles(targetDirectory, componentName, key);
+    } finally {
+      fileTime += System.nanoTime() - start;
+    }
+  }
+
+  private boolean keepFiles(String targetDirectory, String componentName, long key) {
+    final var files = getFiles(targetDirectory, componentName);
+    for (final var file : files) {
+      final var entry = previous.get(getPath(file));
+      if (entry == null
+          || entry.key() != key
+          || entry.size() != file.length()
+          || entry.modified() != file.lastModified()) {
+        return false;
+      }
+    }
+    for (final var file : files) {
+      Reporter.report.addInfo(S.fmt("fileKeepHDLFile", file.getPath()));
+      final var entry = previous.get(getPath(file));
+      current.put(getPath(file), new Entry(UNCHANGED, key, entry.size(), entry.modified()));
+    }
+    return true;
+  }
+
+  /**
+   * Writes the entity or the architecture of a component, unless the file already has the given
+   * contents, and records it with the given key.
+   */
+  public boolean write(
+      String targetDirectory,
+      String componentName,
+      boolean isEntity,
+      List<String> contents,
+      long key) {
+    return writeFile(FileWriter.getHdlFile(targetDirectory, componentName, isEntity), contents, key);
+  }
+
+  /**
+   * Writes a file that is not HDL, like the memory contents read by a testbench, unless it already
+   * has the given contents, and records it so that {@link #finish} leaves it in place.
+   */
+  public boolean writeData(String targetDirectory, String fileName, List<String> contents) {
+    return writeFile(new File(targetDirectory, fileName), contents, NO_KEY);
+  }
+
+  private boolean writeFile(File outFile, List<String> contents, long key) {
+    final var start = System.nanoTime();
+    try {
+      return writeContents(outFile, contents, key);
+    } finally {
+      fileTime += System.nanoTime() - start;
+    }
+  }
+
+  private boolean writeContents(File outFile, List<String> contents, long key) {
+    final var outDir = outFile.getParentFile();
+    if (!outDir.exists() && !outDir.mkdirs()) {
+      Reporter.report.addFatalError(S.fmt("fileUnableToCreate", outFile.getPath()));
+      return false;
+    }
+    final var existed = outFile.exists();
+    if (existed && hasContents(outFile, contents)) {
+      Reporter.report.addInfo(S.fmt("fileKeepHDLFile", outFile.getPath()));
+      current.put(getPath(outFile),
+          new Entry(UNCHANGED, key, outFile.length(), outFile.lastModified()));
+      return true;
+    }
+    Reporter.report.addInfo(S.fmt("fileCreateHDLFile", outFile.getPath()));
+    if (!FileWriter.writeContents(outFile, contents)) return false;
+    current.put(getPath(outFile),
+        new Entry(existed ? CHANGED : ADDED, key, outFile.length(), outFile.lastModified()));
+    return true;
+  }
+
+  /**
+   * Returns the time spent in {@link #keep}, {@link #write} and {@link #writeData} on reading,
+   * comparing and writing files, in nanoseconds, as opposed to generating their contents.
+   */
+  public long getFileTime() {
+    return fileTime;
+  }
+
+  private static boolean hasContents(File file, List<String> contents) {
+    // the same bytes as FileWriter.writeContents writes
+    final var bytes = new ByteArrayOutputStream();
+    try (final var output = new LineWriter(Channels.newChannel(bytes))) {
+      output.lines(contents);
+    } catch (IOException e) {
+      return false;
+    }
+    if (file.length() != bytes.size()) return false;
+    try {
+      return Arrays.equals(Files.readAllBytes(file.toPath()), bytes.toByteArray());
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Ends the export: removes the files in the given directories, and those of the last export, that
+   * were not written or kept this time, and writes the manifest file.
+   */
+  public boolean finish(List<String> sourceDirectories) {
+    final var stale = new TreeMap<String, File>();
+    for (final var path : previous.keySet()) stale.put(path, projectDir.resolve(path).toFile());
+    for (final var directory : sourceDirectories) addFiles(new File(directory), stale);
+    stale.keySet().removeAll(current.keySet());
+    var removed = 0;
+    for (final var file : stale.entrySet()) {
+      if (!file.getValue().exists()) continue;
+      Reporter.report.addInfo(S.fmt("fileRemoveHDLFile", file.getValue().getPath()));
+      if (!file.getValue().delete()) {
+        Reporter.report.addFatalError(S.fmt("fileUnableToRemove", file.getValue().getPath()));
+        return false;
+      }
+      current.put(file.getKey(), new Entry(REMOVED, NO_KEY, 0, 0));
+      removed++;
+    }
+
+    final var lines = new ArrayList<String>();
+    lines.add("# status key size modified path");
+    final var counts = new HashMap<String, Integer>();
+    for (final var file : current.entrySet()) {
+      final var entry = file.getValue();
+      counts.merge(entry.status(), 1, Integer::sum);
+      lines.add(String.format("%s %s %d %d %s", entry.status(), Long.toHexString(entry.key()),
+          entry.size(), entry.modified(), file.getKey()));
+    }
+    if (!FileWriter.writeContents(projectDir.resolve(FILE_NAME).toFile(), lines)) return false;
+    Reporter.report.addInfo(S.fmt("fileHDLChanges", counts.getOrDefault(ADDED, 0),
+        counts.getOrDefault(CHANGED, 0), counts.getOrDefault(UNCHANGED, 0), removed));
+    return true;
+  }
+
+  private void addFiles(File directory, Map<String, File> files) {
+    final var contents = directory.listFiles();
+    if (contents == null) return;
+    for (final var file : contents) {
+      if (file.isDirectory()) {
+        addFiles(file, files);
+      } else {
+        files.put(getPath(file), file);
+      }
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.file;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes lines of text to a channel. The characters are encoded straight into one buffer, which is
+ * written out whenever it fills up, instead of into new byte arrays for every line. Each line ends
+ * in a line feed, and unmappable characters are replaced, so in the default character set the
+ * bytes are those of {@link String#getBytes()}.
+ */
+public class LineWriter implements Closeable {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final WritableByteChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+  private final CharsetEncoder encoder;
+
+  public LineWriter(WritableByteChannel channel) {
+    this(channel, Charset.defaultCharset());
+  }
+
+  public LineWriter(WritableByteChannel channel, Charset charset) {
+    this.channel = channel;
+    encoder =
+        charset
+            .newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  }
+
+  /** Opens a file for writing, replacing what it contains. */
+  public static LineWriter open(File file) throws IOException {
+    return new LineWriter(
+        FileChannel.open(
+            file.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE));
+  }
+
+  public LineWriter line(CharSequence line) throws IOException {
+    if (line.length() > 0) {
+      final var chars = CharBuffer.wrap(line);
+      while (encoder.encode(chars, buffer, true).isOverflow()) flushBuffer();
+      while (encoder.flush(buffer).isOverflow()) flushBuffer();
+      encoder.reset();
+    }
+    if (!buffer.hasRemaining()) flushBuffer();
+    buffer.put((byte) '\n');
+    return this;
+  }
+
+  public LineWriter lines(Iterable<? extends CharSequence> lines) throws IOException {
+    for (final var line : lines) line(line);
+    return this;
+  }
+
+  private void flushBuffer() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) channel.write(buffer);
+    buffer.clear();
+  }
+
+  /** Writes out what is in the buffer, leaving the channel open. */
+  public void flush() throws IOException {
+    flushBuffer();
+  }
+
+  /** Writes out what is left in the buffer and closes the channel. */
+  @Override
+  public void close() throws IOException {
+    try {
+      flushBuffer();
+    } finally {
+      channel.close();
+    }
+  }
+}
@@ -10,6 +10,8 @@
 package com.cburch.logisim.fpga.gui;
 
 import com.cburch.logisim.fpga.designrulecheck.SimpleDrcContainer;
+import java.util.ArrayList;
+import java.util.List;
 import javax.swing.JProgressBar;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,9 +22,40 @@ public class Reporter {
   private static final Logger logger = LoggerFactory.getLogger(Reporter.class);
   private FpgaReportTabbedPane myCommander = null;
   private JProgressBar progress = null;
+  // messages held back for each thread that captures them, see beginCapture
+  private final ThreadLocal<List<Runnable>> captured = new ThreadLocal<>();
 
   public JProgressBar getProgressBar() {
-    return progress;
+    // a thread that captures its messages runs beside others; the bar would only flicker
+    return captured.get() == null ? progress : null;
+  }
+
+  /**
+   * Holds back the messages the current thread reports, until {@link #endCapture}. This lets
+   * worker threads check parts of a design at the same time, and their messages be reported later
+   * in a fixed order, with {@link #replay}.
+   */
+  public void beginCapture() {
+    captured.set(new ArrayList<>());
+  }
+
+  /** Stops holding back messages and returns those held back since {@link #beginCapture}. */
+  public List<Runnable> endCapture() {
+    final var ret = captured.get();
+    captured.remove();
+    return ret;
+  }
+
+  /** Reports messages that were held back. */
+  public void replay(List<Runnable> messages) {
+    for (final var message : messages) message.run();
+  }
+
+  private boolean holdBack(Runnable message) {
+    final var list = captured.get();
+    if (list == null) return false;
+    list.add(message);
+    return true;
   }
 
   public void setGuiLogger(FpgaReportTabbedPane gui) {
@@ -34,6 +67,7 @@ public class Reporter {
   }
 
   public void addErrorIncrement(String message) {
+    if (holdBack(() -> addErrorIncrement(message))) return;
     if (myCommander == null)
       logger.error(message);
     else
@@ -41,6 +75,7 @@ public class Reporter {
   }
 
   public void addError(Object message) {
+    if (holdBack(() -> addError(message))) return;
     if (myCommander == null) {
       if (message instanceof String msg) logger.error(msg);
     } else {
@@ -55,6 +90,7 @@ public class Reporter {
   }
 
   public void addFatalError(String message) {
+    if (holdBack(() -> addFatalError(message))) return;
     if (myCommander == null)
       logger.error(message);
     else
@@ -62,6 +98,7 @@ public class Reporter {
   }
 
   public void addSevereError(String message) {
+    if (holdBack(() -> addSevereError(message))) return;
     if (myCommander == null)
       logger.error(message);
     else
@@ -69,6 +106,7 @@ public class Reporter {
   }
 
   public void addInfo(String message) {
+    if (holdBack(() -> addInfo(message))) return;
     if (myCommander == null)
       logger.info(message);
     else
@@ -76,6 +114,7 @@ public class Reporter {
   }
 
   public void addSevereWarning(String message) {
+    if (holdBack(() -> addSevereWarning(message))) return;
     if (myCommander == null)
       logger.warn(message);
     else
@@ -83,6 +122,7 @@ public class Reporter {
   }
 
   public void addWarningIncrement(String message) {
+    if (holdBack(() -> addWarningIncrement(message))) return;
     if (myCommander == null)
       logger.warn(message);
     else
@@ -90,6 +130,7 @@ public class Reporter {
   }
 
   public void addWarning(Object message) {
+    if (holdBack(() -> addWarning(message))) return;
     if (myCommander == null) {
       if (message instanceof String msg) logger.warn(msg);
     } else {
@@ -105,6 +146,7 @@ public class Reporter {
   }
 
   public void print(String message) {
+    if (holdBack(() -> print(message))) return;
     if (myCommander == null)
       logger.info(message);
     else
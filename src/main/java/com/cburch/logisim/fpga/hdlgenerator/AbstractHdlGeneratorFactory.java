@@ -14,10 +14,10 @@ import com.cburch.logisim.fpga.designrulecheck.CorrectLabel;
 import com.cburch.logisim.fpga.designrulecheck.Netlist;
 import com.cburch.logisim.fpga.designrulecheck.netlistComponent;
 import com.cburch.logisim.fpga.file.FileWriter;
+import com.cburch.logisim.fpga.file.HdlManifest;
 import com.cburch.logisim.fpga.gui.Reporter;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
-import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.std.wiring.ClockHdlGeneratorFactory;
 import com.cburch.logisim.util.LineBuffer;
 import com.cburch.logisim.util.StringUtil;
@@ -56,6 +56,7 @@ public class AbstractHdlGeneratorFactory implements HdlGeneratorFactory {
   @Override
   public boolean generateAllHDLDescriptions(
       Set<String> handledComponents,
+      HdlManifest manifest,
       String workingDirectory,
       List<String> hierarchy) {
     return true;
@@ -435,7 +436,7 @@ public class AbstractHdlGeneratorFactory implements HdlGeneratorFactory {
 
   @Override
   public String getRelativeDirectory() {
-    final var mainDirectory = AppPreferences.HdlType.get().toLowerCase();
+    final var mainDirectory = Hdl.getType().toLowerCase();
     final var directoryName = new StringBuilder();
     directoryName.append(mainDirectory);
     if (!mainDirectory.endsWith(File.separator)) directoryName.append(File.separator);
@@ -11,7 +11,7 @@ package com.cburch.logisim.fpga.hdlgenerator;
 
 import com.cburch.logisim.fpga.designrulecheck.Netlist;
 import com.cburch.logisim.fpga.designrulecheck.netlistComponent;
-import com.cburch.logisim.fpga.file.FileWriter;
+import com.cburch.logisim.fpga.file.HdlManifest;
 import com.cburch.logisim.fpga.gui.Reporter;
 import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.util.CollectionUtil;
@@ -33,16 +33,36 @@ public class Hdl {
    */
   public static final int REMARK_MARKER_LENGTH = 3;
 
+  // the language of an export that does not follow the preferences, only kept in memory
+  private static volatile String typeOverride = null;
+
   private Hdl() {
     throw new IllegalStateException("Utility class. No instantiation allowed.");
   }
 
+  /**
+   * Returns the language the generators write: the one set by {@link #setType}, if any, or the one
+   * of the preferences.
+   */
+  public static String getType() {
+    final var type = typeOverride;
+    return type == null ? AppPreferences.HdlType.get() : type;
+  }
+
+  /**
+   * Makes the generators write the given language, without changing the preferences, until it is
+   * set back to null.
+   */
+  public static void setType(String type) {
+    typeOverride = type;
+  }
+
   public static boolean isVhdl() {
-    return AppPreferences.HdlType.get().equals(HdlGeneratorFactory.VHDL);
+    return getType().equals(HdlGeneratorFactory.VHDL);
   }
 
   public static boolean isVerilog() {
-    return AppPreferences.HdlType.get().equals(HdlGeneratorFactory.VERILOG);
+    return getType().equals(HdlGeneratorFactory.VERILOG);
   }
 
   public static String bracketOpen() {
@@ -243,7 +263,7 @@ public class Hdl {
   }
 
   public static String splitVector(int start, int end) {
-    if (start == end) return LineBuffer.formatHdl("{{<}}{{2}}{{>}}", start);
+    if (start == end) return LineBuffer.formatHdl("{{<}}{{1}}{{>}}", start);
     return isVhdl()
                 ? LineBuffer.formatHdl("({{1}}{{2}}{{3}})", start, vectorLoopId(), end)
                 : LineBuffer.formatHdl("[{{1}}:{{2}}]", start, end);
@@ -412,27 +432,31 @@ public class Hdl {
     return contents.toString();
   }
 
-  public static boolean writeEntity(String targetDirectory, List<String> contents, String componentName) {
+  public static boolean writeEntity(HdlManifest manifest, String targetDirectory, List<String> contents, String componentName) {
+    return writeEntity(manifest, targetDirectory, contents, componentName, HdlManifest.NO_KEY);
+  }
+
+  public static boolean writeEntity(HdlManifest manifest, String targetDirectory, List<String> contents, String componentName, long key) {
     if (!Hdl.isVhdl()) return true;
     if (contents.isEmpty()) {
       // FIXME: hardcoded string
       Reporter.report.addFatalError("INTERNAL ERROR: Empty entity description received!");
       return false;
     }
-    final var outFile = FileWriter.getFilePointer(targetDirectory, componentName, true);
-    if (outFile == null) return false;
-    return FileWriter.writeContents(outFile, contents);
+    return manifest.write(targetDirectory, componentName, true, contents, key);
+  }
+
+  public static boolean writeArchitecture(HdlManifest manifest, String targetDirectory, List<String> contents, String componentName) {
+    return writeArchitecture(manifest, targetDirectory, contents, componentName, HdlManifest.NO_KEY);
   }
 
-  public static boolean writeArchitecture(String targetDirectory, List<String> contents, String componentName) {
+  public static boolean writeArchitecture(HdlManifest manifest, String targetDirectory, List<String> contents, String componentName, long key) {
     if (CollectionUtil.isNullOrEmpty(contents)) {
       // FIXME: hardcoded string
       Reporter.report.addFatalErrorFmt("INTERNAL ERROR: Empty behavior description for Component '%s' received!", componentName);
       return false;
     }
-    final var outFile = FileWriter.getFilePointer(targetDirectory, componentName, false);
-    if (outFile == null)  return false;
-    return FileWriter.writeContents(outFile, contents);
+    return manifest.write(targetDirectory, componentName, false, contents, key);
   }
 
   public static Map<String, String> getNetMap(String sourceName, boolean floatingPinTiedToGround,
@@ -0,0 +1,398 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.hdlgenerator;
+
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitHdlGeneratorFactory;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.fpga.designrulecheck.CorrectLabel;
+import com.cburch.logisim.fpga.designrulecheck.Netlist;
+import com.cburch.logisim.fpga.designrulecheck.netlistComponent;
+import com.cburch.logisim.fpga.file.HdlManifest;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.wiring.Clock;
+import com.cburch.logisim.std.wiring.ClockHdlGeneratorFactory;
+import com.cburch.logisim.util.LineBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Generates a self-checking testbench for a circuit, which compares its HDL with the simulation in
+ * Logisim. The testbench reads the stimulus and the expected outputs of every tick from two
+ * memory files, see {@link #getStimulusWord} and {@link #getExpectedWord}, and reports the ticks
+ * on which the outputs of the circuit differ.
+ *
+ * <p>Each tick the inputs change first; then the clock trees take their next levels, with the edge
+ * ticks where they change; and then the FPGA clock has one cycle, on which the flip-flops take over
+ * their inputs. The outputs are compared at the end of the tick. The circuit can have neither input
+ * nor inout bubbles, nor components that need the FPGA clock itself.
+ */
+public class TestbenchHdlGeneratorFactory extends AbstractHdlGeneratorFactory {
+
+  public static final String STIMULUS_EXTENSION = "_stimulus.mem";
+  public static final String EXPECTED_EXTENSION = "_expected.mem";
+  private static final String TESTBENCH_EXTENSION = "_tb";
+  private static final String SIGNAL_PREFIX = "s_";
+
+  private final Circuit circuit;
+  private final int ticks;
+
+  public TestbenchHdlGeneratorFactory(Circuit circuit, int ticks) {
+    super("testbench");
+    this.circuit = circuit;
+    this.ticks = ticks;
+    final var nets = circuit.getNetList();
+    for (var clock = 0; clock < nets.numberOfClockTrees(); clock++)
+      myWires.addRegister(SIGNAL_PREFIX + CLOCK_TREE_NAME + clock, ClockHdlGeneratorFactory.NR_OF_CLOCK_BITS);
+    for (final var input : getInputPins(nets))
+      myWires.addRegister(SIGNAL_PREFIX + getPinName(input), getPinWidth(input));
+    final var outputBubbles = nets.numberOfOutputBubbles();
+    if (outputBubbles > 0)
+      myWires.addWire(SIGNAL_PREFIX + LOCAL_OUTPUT_BUBBLE_BUS_NAME, outputBubbles > 1 ? outputBubbles : 0);
+    for (final var output : getOutputPins(nets))
+      myWires.addWire(SIGNAL_PREFIX + getPinName(output), getPinWidth(output));
+  }
+
+  public String getComponentName() {
+    return getCircuitName() + TESTBENCH_EXTENSION;
+  }
+
+  private String getCircuitName() {
+    return CorrectLabel.getCorrectLabel(circuit.getName());
+  }
+
+  public static List<netlistComponent> getInputPins(Netlist nets) {
+    final var pins = new ArrayList<netlistComponent>();
+    for (var input = 0; input < nets.getNumberOfInputPorts(); input++) pins.add(nets.getInputPin(input));
+    return pins;
+  }
+
+  public static List<netlistComponent> getOutputPins(Netlist nets) {
+    final var pins = new ArrayList<netlistComponent>();
+    for (var output = 0; output < nets.numberOfOutputPorts(); output++) pins.add(nets.getOutputPin(output));
+    return pins;
+  }
+
+  private static String getPinName(netlistComponent pin) {
+    return CorrectLabel.getCorrectLabel(pin.getComponent().getAttributeSet().getValue(StdAttr.LABEL));
+  }
+
+  private static int getPinWidth(netlistComponent pin) {
+    return pin.getComponent().getAttributeSet().getValue(StdAttr.WIDTH).getWidth();
+  }
+
+  /**
+   * Returns the stimulus word of a tick: the values of the input pins, in the order of the
+   * netlist, followed by the levels of the clock trees after the tick, the last tree first. A
+   * circuit without either has a word of one bit that is not used.
+   */
+  public static String getStimulusWord(List<Value> inputs, boolean[] clockLevels) {
+    final var word = new StringBuilder();
+    for (final var input : inputs) appendBits(word, input);
+    for (var clock = clockLevels.length - 1; clock >= 0; clock--) word.append(clockLevels[clock] ? '1' : '0');
+    return word.isEmpty() ? "0" : word.toString();
+  }
+
+  /**
+   * Returns the expected word of a tick: the values of the output pins, in the order of the
+   * netlist, with an "x" for each bit that Logisim does not know, which is not checked.
+   */
+  public static String getExpectedWord(List<Value> outputs) {
+    final var word = new StringBuilder();
+    for (final var output : outputs) appendBits(word, output);
+    return word.toString();
+  }
+
+  private static void appendBits(StringBuilder word, Value value) {
+    for (var bit = value.getWidth() - 1; bit >= 0; bit--) {
+      final var bitValue = value.get(bit);
+      word.append(bitValue == Value.TRUE ? '1' : bitValue == Value.FALSE ? '0' : 'x');
+    }
+  }
+
+  private static int getStimulusWidth(Netlist nets) {
+    var width = nets.numberOfClockTrees();
+    for (final var input : getInputPins(nets)) width += getPinWidth(input);
+    return Math.max(width, 1);
+  }
+
+  private static int getExpectedWidth(Netlist nets) {
+    var width = 0;
+    for (final var output : getOutputPins(nets)) width += getPinWidth(output);
+    return width;
+  }
+
+  /** Writes the testbench to the given directory, next to its memory files. */
+  public boolean writeTestbench(HdlManifest manifest, String directory) {
+    final var nets = circuit.getNetList();
+    final var name = getComponentName();
+    return Hdl.writeEntity(manifest, directory, getEntity(nets, null, name), name)
+        && Hdl.writeArchitecture(manifest, directory, getArchitecture(nets, null, name), name);
+  }
+
+  @Override
+  public LineBuffer getComponentDeclarationSection(Netlist theNetlist, AttributeSet attrs) {
+    return new CircuitHdlGeneratorFactory(circuit).getComponentInstantiation(theNetlist, null, getCircuitName());
+  }
+
+  private LineBuffer getCircuitUnderTest(Netlist nets) {
+    final var portMap = new TreeMap<String, String>();
+    for (var clock = 0; clock < nets.numberOfClockTrees(); clock++)
+      portMap.put(CLOCK_TREE_NAME + clock, SIGNAL_PREFIX + CLOCK_TREE_NAME + clock);
+    if (nets.numberOfOutputBubbles() > 0)
+      portMap.put(LOCAL_OUTPUT_BUBBLE_BUS_NAME, SIGNAL_PREFIX + LOCAL_OUTPUT_BUBBLE_BUS_NAME);
+    for (final var input : getInputPins(nets)) portMap.put(getPinName(input), SIGNAL_PREFIX + getPinName(input));
+    for (final var output : getOutputPins(nets)) portMap.put(getPinName(output), SIGNAL_PREFIX + getPinName(output));
+    final var worker = new CircuitHdlGeneratorFactory(circuit) {
+      @Override
+      public Map<String, String> getPortMap(Netlist nets, Object mapInfo) {
+        return portMap;
+      }
+    };
+    return worker.getComponentMap(nets, 0L, null, getCircuitName());
+  }
+
+  @Override
+  public LineBuffer getModuleFunctionality(Netlist nets, AttributeSet attrs) {
+    final var contents = LineBuffer.getHdlBuffer()
+        .pair("stimulusFile", getComponentName() + STIMULUS_EXTENSION)
+        .pair("expectedFile", getComponentName() + EXPECTED_EXTENSION)
+        .pair("stimulusHigh", getStimulusWidth(nets) - 1)
+        .pair("expectedHigh", getExpectedWidth(nets) - 1)
+        .pair("lastTick", ticks - 1)
+        .pair("ticks", ticks);
+    final var wordPrefix = Hdl.isVhdl() ? "v_" : "tb_";
+    final var setVariable = Hdl.isVhdl() ? " := " : " = ";
+    // the inputs are at the top of the stimulus word, the clock levels at the bottom
+    final var applyInputs = LineBuffer.getHdlBuffer();
+    var bit = getStimulusWidth(nets);
+    for (final var input : getInputPins(nets)) {
+      bit -= getPinWidth(input);
+      applyInputs.add("{{1}}{{2}}{{=}}{{3}}stimulusWord{{4}};", SIGNAL_PREFIX, getPinName(input), wordPrefix,
+          Hdl.splitVector(bit + getPinWidth(input) - 1, bit));
+    }
+    final var initialClocks = LineBuffer.getHdlBuffer();
+    final var tickClocks = LineBuffer.getHdlBuffer();
+    final var startClockCycle = LineBuffer.getHdlBuffer();
+    final var endClockCycle = LineBuffer.getHdlBuffer();
+    for (var clock = 0; clock < nets.numberOfClockTrees(); clock++) {
+      final var tree = SIGNAL_PREFIX + CLOCK_TREE_NAME + clock;
+      final var isLow = Clock.isLow(nets.getAllClockSources().get(clock).getAttributeSet(), 0);
+      initialClocks.add("{{1}}{{=}}{{2}};", tree, Hdl.getConstantVector(
+          1L << (isLow ? ClockHdlGeneratorFactory.INVERTED_DERIVED_CLOCK_INDEX : ClockHdlGeneratorFactory.DERIVED_CLOCK_INDEX),
+          ClockHdlGeneratorFactory.NR_OF_CLOCK_BITS));
+      final var clockPairs = LineBuffer.getHdlBuffer()
+          .pair("tree", tree)
+          .pair("level", wordPrefix + "stimulusWord" + Hdl.splitVector(clock, clock))
+          .pair("derived", ClockHdlGeneratorFactory.DERIVED_CLOCK_INDEX)
+          .pair("inverted", ClockHdlGeneratorFactory.INVERTED_DERIVED_CLOCK_INDEX)
+          .pair("positive", ClockHdlGeneratorFactory.POSITIVE_EDGE_TICK_INDEX)
+          .pair("negative", ClockHdlGeneratorFactory.NEGATIVE_EDGE_TICK_INDEX)
+          .pair("global", ClockHdlGeneratorFactory.GLOBAL_CLOCK_INDEX);
+      // the edge ticks first, as they need the level from before the tick
+      if (Hdl.isVhdl()) {
+        tickClocks.add(clockPairs.addVhdlKeywords().add("""
+            {{tree}}({{positive}}) <= {{not}}({{tree}}({{derived}})) {{and}} {{level}};
+            {{tree}}({{negative}}) <= {{tree}}({{derived}}) {{and}} {{not}}({{level}});
+            {{tree}}({{derived}}) <= {{level}};
+            {{tree}}({{inverted}}) <= {{not}}({{level}});
+            """));
+        startClockCycle.add("{{1}}({{2}}) <= '1';", tree, ClockHdlGeneratorFactory.GLOBAL_CLOCK_INDEX);
+      } else {
+        tickClocks.add(clockPairs.add("""
+            {{tree}}[{{positive}}] = ~{{tree}}[{{derived}}] & {{level}};
+            {{tree}}[{{negative}}] = {{tree}}[{{derived}}] & ~{{level}};
+            {{tree}}[{{derived}}] = {{level}};
+            {{tree}}[{{inverted}}] = ~{{level}};
+            """));
+        startClockCycle.add("{{1}}[{{2}}] = 1'b1;", tree, ClockHdlGeneratorFactory.GLOBAL_CLOCK_INDEX);
+      }
+      endClockCycle.add("{{1}}{{2}}{{=}}{{3}};", tree,
+          Hdl.splitVector(ClockHdlGeneratorFactory.GLOBAL_CLOCK_INDEX, ClockHdlGeneratorFactory.POSITIVE_EDGE_TICK_INDEX),
+          Hdl.getConstantVector(0, ClockHdlGeneratorFactory.GLOBAL_CLOCK_INDEX - ClockHdlGeneratorFactory.POSITIVE_EDGE_TICK_INDEX + 1));
+    }
+    final var readOutputs = LineBuffer.getHdlBuffer();
+    bit = getExpectedWidth(nets);
+    for (final var output : getOutputPins(nets)) {
+      bit -= getPinWidth(output);
+      readOutputs.add("{{1}}actualWord{{2}}{{3}}{{4}}{{5}};", wordPrefix,
+          Hdl.splitVector(bit + getPinWidth(output) - 1, bit), setVariable, SIGNAL_PREFIX, getPinName(output));
+    }
+
+    contents.addRemarkBlock("Here the circuit under test is instantiated")
+        .add(getCircuitUnderTest(nets))
+        .empty()
+        .addRemarkBlock("The memory files have to be in the directory the simulator runs in");
+    if (Hdl.isVhdl()) {
+      contents.addVhdlKeywords().add("""
+          simulate : {{process}} {{is}}
+             {{use}} std.textio.{{all}};
+             {{file}} stimulusFile : text {{open}} read_mode {{is}} "{{stimulusFile}}";
+             {{file}} expectedFile : text {{open}} read_mode {{is}} "{{expectedFile}}";
+             {{variable}} v_stimulusWord : std_logic_vector( {{stimulusHigh}} {{downto}} 0 );
+             {{variable}} v_expectedWord : std_logic_vector( {{expectedHigh}} {{downto}} 0 );
+             {{variable}} v_actualWord   : std_logic_vector( {{expectedHigh}} {{downto}} 0 );
+             {{variable}} v_failed       : boolean;
+             {{variable}} v_mismatches   : {{integer}} := 0;
+             {{variable}} v_undefined    : {{integer}} := 0;
+
+             -- Reads the next word after the comment lines; bits other than 0 and 1 are not checked
+             {{procedure}} readWord( {{file}} f : text; word : {{out}} std_logic_vector ) {{is}}
+                {{variable}} l : line;
+                {{variable}} c : character;
+             {{begin}}
+                {{loop}}
+                   readline(f, l);
+                   {{exit}} {{when}} l'length > 0 {{and}} l(l'left) /= '/';
+                {{end}} {{loop}};
+                {{for}} i {{in}} word'range {{loop}}
+                   read(l, c);
+                   {{case}} c {{is}}
+                      {{when}} '0'    => word(i) := '0';
+                      {{when}} '1'    => word(i) := '1';
+                      {{when}} {{others}} => word(i) := '-';
+                   {{end}} {{case}};
+                {{end}} {{loop}};
+                deallocate(l);
+             {{end}} {{procedure}} readWord;
+
+             {{function}} toString( word : std_logic_vector ) {{return}} string {{is}}
+                {{constant}} bits : string( 1 {{to}} 9 ) := "UX01ZWLH-";
+                {{variable}} s    : string( 1 {{to}} word'length );
+                {{variable}} n    : {{integer}} := 1;
+             {{begin}}
+                {{for}} i {{in}} word'range {{loop}}
+                   s(n) := bits(std_ulogic'pos(word(i)) + 1);
+                   n := n + 1;
+                {{end}} {{loop}};
+                {{return}} s;
+             {{end}} {{function}} toString;
+          {{begin}}
+          """)
+          .add(initialClocks.getWithIndent())
+          .add("""
+                 {{for}} tick {{in}} 0 {{to}} {{lastTick}} {{loop}}
+                    readWord(stimulusFile, v_stimulusWord);
+                    readWord(expectedFile, v_expectedWord);
+                    -- The inputs change first
+              """)
+          .add(applyInputs.getWithIndent(2))
+          .add("""
+                    {{wait}} {{for}} 1 ns;
+                    -- Then the clock trees take their next levels
+              """)
+          .add(tickClocks.getWithIndent(2))
+          .add("""
+                    {{wait}} {{for}} 1 ns;
+                    -- And the flip-flops take over their inputs on the FPGA clock
+              """)
+          .add(startClockCycle.getWithIndent(2))
+          .add("      {{wait}} {{for}} 1 ns;")
+          .add(endClockCycle.getWithIndent(2))
+          .add("      {{wait}} {{for}} 1 ns;")
+          .add(readOutputs.getWithIndent(2))
+          .add("""
+                    v_failed := false;
+                    {{for}} i {{in}} v_expectedWord'range {{loop}}
+                       {{if}} v_expectedWord(i) /= '-' {{then}}
+                          {{if}} v_actualWord(i) /= '0' {{and}} v_actualWord(i) /= '1' {{then}}
+                             v_undefined := v_undefined + 1;
+                          {{elsif}} v_actualWord(i) /= v_expectedWord(i) {{then}}
+                             v_failed := true;
+                          {{end}} {{if}};
+                       {{end}} {{if}};
+                    {{end}} {{loop}};
+                    {{if}} v_failed {{then}}
+                       v_mismatches := v_mismatches + 1;
+                       {{report}} "tick " & {{integer}}'image(tick) & ": expected " & toString(v_expectedWord)
+                          & ", got " & toString(v_actualWord) {{severity}} error;
+                    {{end}} {{if}};
+                 {{end}} {{loop}};
+                 {{report}} "{{ticks}} ticks, " & {{integer}}'image(v_mismatches) & " with mismatches, "
+                    & {{integer}}'image(v_undefined) & " undefined output bits" {{severity}} note;
+                 {{if}} v_mismatches = 0 {{then}}
+                    {{report}} "Logisim co-simulation passed" {{severity}} note;
+                 {{else}}
+                    {{report}} "Logisim co-simulation FAILED" {{severity}} failure;
+                 {{end}} {{if}};
+                 {{wait}};
+              {{end}} {{process}} simulate;
+              """);
+    } else {
+      contents.add("""
+          reg [{{stimulusHigh}}:0] tb_stimulus [0:{{lastTick}}];
+          reg [{{expectedHigh}}:0] tb_expected [0:{{lastTick}}];
+          reg [{{stimulusHigh}}:0] tb_stimulusWord;
+          reg [{{expectedHigh}}:0] tb_expectedWord;
+          reg [{{expectedHigh}}:0] tb_actualWord;
+          reg tb_failed;
+          integer tb_tick, tb_bit, tb_mismatches, tb_undefined;
+
+          initial
+          begin
+             $readmemb("{{stimulusFile}}", tb_stimulus);
+             $readmemb("{{expectedFile}}", tb_expected);
+             tb_mismatches = 0;
+             tb_undefined  = 0;
+          """)
+          .add(initialClocks.getWithIndent())
+          .add("""
+                 for (tb_tick = 0; tb_tick < {{ticks}}; tb_tick = tb_tick + 1)
+                 begin
+                    tb_stimulusWord = tb_stimulus[tb_tick];
+                    tb_expectedWord = tb_expected[tb_tick];
+                    // The inputs change first
+              """)
+          .add(applyInputs.getWithIndent(2))
+          .add("""
+                    #1;
+                    // Then the clock trees take their next levels
+              """)
+          .add(tickClocks.getWithIndent(2))
+          .add("""
+                    #1;
+                    // And the flip-flops take over their inputs on the FPGA clock
+              """)
+          .add(startClockCycle.getWithIndent(2))
+          .add("      #1;")
+          .add(endClockCycle.getWithIndent(2))
+          .add("      #1;")
+          .add(readOutputs.getWithIndent(2))
+          .add("""
+                    tb_failed = 1'b0;
+                    for (tb_bit = 0; tb_bit <= {{expectedHigh}}; tb_bit = tb_bit + 1)
+                       if (tb_expectedWord[tb_bit] !== 1'bx)
+                       begin
+                          if (tb_actualWord[tb_bit] !== 1'b0 && tb_actualWord[tb_bit] !== 1'b1)
+                             tb_undefined = tb_undefined + 1;
+                          else if (tb_actualWord[tb_bit] !== tb_expectedWord[tb_bit])
+                             tb_failed = 1'b1;
+                       end
+                    if (tb_failed)
+                    begin
+                       tb_mismatches = tb_mismatches + 1;
+                       $display("tick %0d: expected %b, got %b", tb_tick, tb_expectedWord, tb_actualWord);
+                    end
+                 end
+                 $display("{{ticks}} ticks, %0d with mismatches, %0d undefined output bits", tb_mismatches, tb_undefined);
+                 if (tb_mismatches == 0)
+                    $display("Logisim co-simulation passed");
+                 else
+                    $display("Logisim co-simulation FAILED");
+                 $finish;
+              end
+              """);
+    }
+    return contents;
+  }
+}
@@ -26,6 +26,7 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import javax.swing.DefaultListSelectionModel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
@@ -43,6 +44,12 @@ public class RightPanel extends JPanel {
   private static final int EXTRA_SPACE = 40;
   private static final int CURSOR_GAP = 20;
   private static final int TIMELINE_SPACING = 80;
+  private static final int TILE_WIDTH = 256;
+  private static final int MAX_TILES = 64; // cached per signal
+  // coordinates are clamped to this distance outside the tile being drawn, so that very long
+  // values do not overflow, while labels starting before the tile still land in the right place
+  private static final int CLAMP = 4096;
+  private static final double MAX_WIDTH = Integer.MAX_VALUE / 2.0;
   private final ChronoPanel chronoPanel;
   final DefaultListSelectionModel selectionModel;
   private Model model;
@@ -134,14 +141,25 @@ public class RightPanel extends JPanel {
   public void updateWaveforms(boolean force) {
     final var t0 = model.getStartTime();
     final var t1 = model.getEndTime();
-    if (!force && t0 == timeStartDraw && t1 == timeNextDraw) {
+    final var shifted = force || t0 != timeStartDraw;
+    var changed = shifted || t1 != timeNextDraw;
+    timeStartDraw = t0;
+    timeNextDraw = t1;
+    // keep the tiles left of the first change of each signal, which is usually near the end
+    for (final var w : rows) {
+      final var dirty = w.signal.takeDirtyFrom();
+      if (shifted || dirty == Long.MIN_VALUE) {
+        w.flush();
+      } else if (dirty != Long.MAX_VALUE) {
+        w.flushFrom(dirty);
+        changed = true;
+      }
+    }
+    if (!changed) {
       // already drawn all signal values
       return;
     }
-    timeStartDraw = t0;
-    timeNextDraw = t1;
     updateSize(true);
-    flushWaveforms();
     header.repaint();
     repaint();
   }
@@ -284,15 +302,8 @@ public class RightPanel extends JPanel {
       gfx.setFont(f);
       return;
     }
-    if (width > 32000) {
-      gfx.setColor(Color.BLACK);
-      gfx.setFont(MSG_FONT);
-      gfx.drawString("Oops! Chronogram is too large to display.", 15, 15);
-      gfx.drawString("Try zooming out, or reset the simulation.", 15, 29);
-    } else {
-      for (final var w : rows) w.paintWaveform(gfx);
-      paintCursor(gfx);
-    }
+    for (final var w : rows) w.paintWaveform(gfx);
+    paintCursor(gfx);
   }
 
   private void paintCursor(Graphics2D g) {
@@ -405,7 +416,9 @@ public class RightPanel extends JPanel {
     private static final int MID = WAVE_HEIGHT / 2;
 
     final Signal signal;
-    private BufferedImage buf;
+    // rendered tiles by index, TILE_WIDTH pixels each, least recently painted first
+    private final LinkedHashMap<Integer, BufferedImage> tiles = new LinkedHashMap<>(16, 0.75f, true);
+    private int labelWidth;
     boolean selected;
 
     public Waveform(Signal s) {
@@ -417,26 +430,38 @@ public class RightPanel extends JPanel {
       return new Rectangle(0, y, width, WAVE_HEIGHT);
     }
 
-    private void drawSignal(Graphics2D g, boolean bold, Color[] colors) {
+    private int toX(long t, long t0, double z, int left, int right) {
+      final var x = (long) (z * (t - t0));
+      return (int) Math.max(left - CLAMP, Math.min(right + CLAMP, x));
+    }
+
+    /**
+     * Draws the part of the waveform between pixels left and right. Values narrower than a pixel
+     * are drawn as one vertical bar per pixel, skipping the rest of the pixel with a seek, so the
+     * cost depends on the width drawn and not on the number of transitions.
+     */
+    private void drawSignal(Graphics2D g, boolean bold, Color[] colors, int left, int right) {
       g.setStroke(new BasicStroke(bold ? 2 : 1));
 
       final var t0 = model.getStartTime();
-      Signal.Iterator cur = signal.new Iterator(t0);
+      final var z = tickWidth / model.getTimeScale();
+      // start before the tile, so that the first transition in it knows what it comes from
+      final var cur = signal.entryAt(t0 + (long) ((left - slope - 1) / z));
 
       final var fm = g.getFontMetrics();
 
       final var max = signal.getFormattedMaxValue();
       final var min = signal.getFormattedMinValue();
-      final var labelWidth = Math.max(fm.stringWidth(max), fm.stringWidth(min));
+      labelWidth = Math.max(fm.stringWidth(max), fm.stringWidth(min));
 
-      final var z = tickWidth / model.getTimeScale();
       var prevHi = false;
       var prevLo = false;
       Color prevFill = null;
       while (cur.value != null) {
         final var v = cur.getFormattedValue();
-        final var x0 = (int) (z * (cur.time - t0));
-        final var x1 = (int) (z * (cur.time + cur.duration - t0));
+        final var x0 = toX(cur.time, t0, z, left, right);
+        final var x1 = toX(cur.time + cur.duration, t0, z, left, right);
+        if (x0 > right) break;
 
         var hi = true;
         var lo = true;
@@ -461,6 +486,13 @@ public class RightPanel extends JPanel {
           fillColor = colors[1];
           lineColor = colors[2];
         }
+        if (x1 == x0) {
+          g.setColor(lineColor);
+          g.drawLine(x0, HIGH, x0, LOW);
+          prevFill = null;
+          if (!cur.advance(t0 + (long) Math.ceil((x0 + 1) / z) - cur.time)) break;
+          continue;
+        }
         // __________       _____ __________       ______
         //     \_____\_____/_____X_____/    \_____/
         //    |     |     |     |     |    |     |
@@ -575,9 +607,11 @@ public class RightPanel extends JPanel {
       }
     }
 
-    private void createOffscreen() {
-      buf = (BufferedImage) createImage(width, WAVE_HEIGHT);
-      final var g = buf.createGraphics();
+    private BufferedImage createTile(int index) {
+      final var left = index * TILE_WIDTH;
+      final var w = Math.min(TILE_WIDTH, width - left);
+      final var tile = (BufferedImage) createImage(w, WAVE_HEIGHT);
+      final var g = tile.createGraphics();
       g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_DEFAULT);
       g.setRenderingHint(
           RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
@@ -585,41 +619,59 @@ public class RightPanel extends JPanel {
       final var isBold = (model.getSpotlight() == signal);
       final var colors = chronoPanel.rowColors(signal.info, selected);
       g.setColor(Color.WHITE);
-      g.fillRect(0, 0, width, ChronoPanel.GAP - 1);
-      g.fillRect(0, LOW, width, ChronoPanel.GAP - 1);
+      g.fillRect(0, 0, w, ChronoPanel.GAP - 1);
+      g.fillRect(0, LOW, w, ChronoPanel.GAP - 1);
       g.setColor(colors[0]);
-      g.fillRect(0, HIGH, width, LOW - HIGH);
+      g.fillRect(0, HIGH, w, LOW - HIGH);
       g.setColor(Color.BLACK);
-      drawSignal(g, isBold, colors);
+      g.translate(-left, 0);
+      drawSignal(g, isBold, colors, left, left + w);
       g.dispose();
+      return tile;
     }
 
     public void paintWaveform(Graphics2D g) {
-      if (buf == null) {
-        // TODO: reallocating image each time seems silly
-        createOffscreen();
-      }
       final var y = WAVE_HEIGHT * signal.idx;
-      g.drawImage(buf, null, 0, y);
+      final var clip = g.getClipBounds();
+      if (clip != null && (clip.y >= y + WAVE_HEIGHT || clip.y + clip.height <= y)) return;
+      final var left = clip == null ? 0 : Math.max(0, clip.x);
+      final var right = clip == null ? width : Math.min(width, clip.x + clip.width);
+      for (var i = left / TILE_WIDTH; i * TILE_WIDTH < right; i++) {
+        var tile = tiles.get(i);
+        if (tile == null) {
+          tile = createTile(i);
+          tiles.put(i, tile);
+          if (tiles.size() > MAX_TILES) tiles.remove(tiles.keySet().iterator().next());
+        }
+        g.drawImage(tile, null, i * TILE_WIDTH, y);
+      }
     }
 
     public void flush() {
-      buf = null;
+      tiles.clear();
+    }
+
+    /** Drops the tiles that may show values from time t on. */
+    void flushFrom(long t) {
+      final var z = tickWidth / model.getTimeScale();
+      // a label of the value holding at t starts at most labelWidth before t
+      final var x = (long) (z * (t - model.getStartTime())) - labelWidth - slope - 8;
+      final var first = (int) Math.max(0, x / TILE_WIDTH);
+      tiles.keySet().removeIf(i -> i >= first);
+      repaint(0, WAVE_HEIGHT * signal.idx, width, WAVE_HEIGHT);
     }
   }
 
   public void zoom(int sens, int posX) {
     if (zoom + sens < 1 || zoom + sens > 40) return;
 
-    // fixme: Offscreen image can be max 32k pixels wide. We should not be
-    // making such huge offscreen images anyway.
     final var timeScale = model.getTimeScale();
     final var t0 = model.getStartTime();
     final var t1 = model.getEndTime();
     final var numTicks = (t1 - t0 + timeScale - 1) / timeScale;
     final var newTickWidth = 20 * Math.pow(1.15, zoom + sens - 20);
-    final var newWidth = (int) (newTickWidth * numTicks + EXTRA_SPACE + 0.5);
-    if (newWidth > 32000) return;
+    final var newWidth = newTickWidth * numTicks + EXTRA_SPACE + 0.5;
+    if (newWidth > MAX_WIDTH) return;
     final var f = timeScale / tickWidth;
     final var mouseT = t0 + posX * f;
     final var sb = chronoPanel.getHorizontalScrollBar();
@@ -721,11 +773,16 @@ public class RightPanel extends JPanel {
       final var h = ChronoPanel.HEADER_HEIGHT - ChronoPanel.GAP;
       g.setColor(Color.BLACK);
       g.drawLine(0, height - 2, width, height - 2);
-      for (var i = 0; true; i++) {
+      // only the visible part, starting one label early since labels extend to the right
+      final var clip = g.getClipBounds();
+      final var left = clip == null ? 0 : Math.max(0, clip.x - TIMELINE_SPACING);
+      final var right = clip == null ? width : Math.min(width, clip.x + clip.width);
+      final var first = (long) (left / pixelPerTime / divMajor) * numMinor;
+      for (var i = first; true; i++) {
         final var t = timeL + divMinor * i;
         if (t < time0) continue;
         final var x = (int) ((t - time0) * pixelPerTime);
-        if (x >= width) break;
+        if (x >= right) break;
         if (i % numMinor == 0) {
           if (x + EXTRA_SPACE <= width) {
             g.drawString(Model.formatDuration(t), x, h / 2);
@@ -22,10 +22,12 @@ import java.io.FileWriter;
 import java.io.IOException;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
+import javax.swing.Timer;
 
 class FilePanel extends LogPanel {
   private static final long serialVersionUID = 1L;
@@ -36,6 +38,11 @@ class FilePanel extends LogPanel {
   private final JTextField fileField = new JTextField();
   private final JButton selectButton = new JButton();
   private final JCheckBox headerCheckBox = new JCheckBox();
+  private final JLabel behindLabel = new JLabel();
+  // items are in the order of the Model.FILE_* policies
+  private final JComboBox<String> behindCombo = new JComboBox<>();
+  private final JLabel statsLabel = new JLabel();
+  private final Timer statsTimer = new Timer(500, e -> updateStats());
   private final JFileChooser chooser = JFileChoosers.create();
 
   public FilePanel(LogFrame frame) {
@@ -43,6 +50,7 @@ class FilePanel extends LogPanel {
 
     chooser.addChoosableFileFilter(chooser.getAcceptAllFileFilter());
     chooser.addChoosableFileFilter(TestVector.FILE_FILTER);
+    chooser.addChoosableFileFilter(VcdWriter.FILE_FILTER);
     chooser.setFileFilter(TestVector.FILE_FILTER);
 
     final var filePanel = new JPanel(new GridBagLayout());
@@ -91,6 +99,13 @@ class FilePanel extends LogPanel {
     gc.weighty = 0.0;
     gb.setConstraints(headerCheckBox, gc);
     add(headerCheckBox);
+    final var behindPanel = new JPanel();
+    behindPanel.add(behindLabel);
+    behindPanel.add(behindCombo);
+    gb.setConstraints(behindPanel, gc);
+    add(behindPanel);
+    gb.setConstraints(statsLabel, gc);
+    add(statsLabel);
     glue = new JPanel();
     gc.weighty = 1.0;
     gb.setConstraints(glue, gc);
@@ -100,10 +115,24 @@ class FilePanel extends LogPanel {
     enableButton.addActionListener(listener);
     selectButton.addActionListener(listener);
     headerCheckBox.addActionListener(listener);
+    behindCombo.addActionListener(listener);
     modelChanged(null, getModel());
     localeChanged();
   }
 
+  // the statistics only need refreshing while the panel is in a window
+  @Override
+  public void addNotify() {
+    super.addNotify();
+    statsTimer.start();
+  }
+
+  @Override
+  public void removeNotify() {
+    statsTimer.stop();
+    super.removeNotify();
+  }
+
   @Override
   public String getHelpText() {
     return S.get("fileHelp");
@@ -120,6 +149,31 @@ class FilePanel extends LogPanel {
     fileLabel.setText(S.get("fileLabel") + " ");
     selectButton.setText(S.get("fileSelectButton"));
     headerCheckBox.setText(S.get("fileHeaderCheck"));
+    behindLabel.setText(S.get("fileBehindLabel"));
+    behindCombo.removeActionListener(listener);
+    behindCombo.removeAllItems();
+    behindCombo.addItem(S.get("fileBehindBlock"));
+    behindCombo.addItem(S.get("fileBehindDrop"));
+    behindCombo.addItem(S.get("fileBehindMerge"));
+    behindCombo.setSelectedIndex(getModel().getFileBehindPolicy() - Model.FILE_BLOCK);
+    behindCombo.addActionListener(listener);
+    updateStats();
+  }
+
+  private void updateStats() {
+    if (!isShowing() && statsLabel.getText().length() > 0) return;
+    final var logger = getModel().getLogThread();
+    if (logger == null) {
+      statsLabel.setText(S.get("fileStats", "0", "0", "0", "0"));
+      return;
+    }
+    statsLabel.setText(
+        S.get(
+            "fileStats",
+            Long.toString(logger.getQueueDepth()),
+            Long.toString(logger.getBytesWritten()),
+            Long.toString(logger.getDroppedRows()),
+            Long.toString(logger.getMergedRows())));
   }
 
   @Override
@@ -178,6 +232,8 @@ class FilePanel extends LogPanel {
         getModel().setFile(file);
       } else if (src == headerCheckBox) {
         getModel().setFileHeader(headerCheckBox.isSelected());
+      } else if (src == behindCombo && behindCombo.getSelectedIndex() >= 0) {
+        getModel().setFileBehindPolicy(Model.FILE_BLOCK + behindCombo.getSelectedIndex());
       }
     }
 
@@ -201,6 +257,9 @@ class FilePanel extends LogPanel {
       enableButton.setEnabled(file != null);
 
       headerCheckBox.setSelected(model.getFileHeader());
+      final var policy = model.getFileBehindPolicy() - Model.FILE_BLOCK;
+      if (behindCombo.getSelectedIndex() != policy && policy < behindCombo.getItemCount())
+        behindCombo.setSelectedIndex(policy);
     }
   }
 }
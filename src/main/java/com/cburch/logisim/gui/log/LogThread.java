@@ -9,12 +9,29 @@
 
 package com.cburch.logisim.gui.log;
 
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.fpga.file.LineWriter;
 import com.cburch.logisim.util.UniquelyNamedThread;
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.swing.SwingUtilities;
 
+/**
+ * Writes the signals of a model to its file. The simulation thread only turns new signal values
+ * into rows and queues them in a fixed-size ring buffer; this thread drains the buffer and does all
+ * formatting and file I/O. What happens when the buffer is full is up to {@link
+ * Model#getFileBehindPolicy}: the simulation waits, rows are dropped, or rows are merged into one
+ * holding the latest values.
+ */
 class LogThread extends UniquelyNamedThread implements Model.Listener {
   // file will be flushed with at least this frequency (ms)
   private static final int FLUSH_FREQUENCY = 500;
@@ -22,15 +39,59 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
   // file will be closed after waiting this long between writes (ms)
   private static final int IDLE_UNTIL_CLOSE = 10000;
 
+  // number of records that may be queued; must be a power of two
+  static final int QUEUE_SIZE = 4096;
+
+  // Records passed from the simulation to this thread.
+  /** Starts writing to a new file, or stops writing if file is null. */
+  private record Target(File file) {}
+
+  /** A comment or header line of a text file. */
+  private record Line(String text) {}
+
+  /** The signals of a VCD file; rows for it hold values of exactly these. */
+  private record Declare(String scope, String[] names, int[] widths) {}
+
+  /** Values of the given signals from time on, for duration. */
+  private record Row(long time, long duration, Signal[] columns, Value[] values) {}
+
+  /** Rows that were dropped because the queue was full. */
+  private record Gap(long time, long duration, long rows) {}
+
   private final Model model;
-  private final Object lock = new Object();
-  private boolean canceled = false;
-  private PrintWriter writer = null;
+
+  // The ring buffer. Only one thread at a time produces, holding lock, and only this thread
+  // consumes, so head and tail are enough to hand records over without locking. A producer may
+  // wait for room while holding lock, so this thread never waits for lock: it only retries the
+  // pending record when lock happens to be free.
+  private final Object[] queue = new Object[QUEUE_SIZE];
+  private volatile long head; // next record to be written by the producer
+  private volatile long tail; // next record to be taken by the consumer
+
+  // producer state, guarded by lock
+  private final ReentrantLock lock = new ReentrantLock();
+  private volatile boolean canceled = false;
+  private File target;
+  private boolean vcdFormat;
+  private Signal[] vcdSignals;
+  private long vcdTimeOffset = 0; // VCD time may not go back when the signals are reset
   private boolean modeDirty = true;
   private boolean headerDirty = true;
-  private long lastWrite = 0;
-  private long timeNextWrite = 0; // done writing up to this time, exclusive
+  private long timeNextWrite = 0; // done queueing up to this time, exclusive
   private final HashMap<Signal, Signal.Iterator> cursors = new HashMap<>();
+  private Object pending; // a Row or Gap that did not fit in the queue
+
+  // consumer state, only used by this thread
+  private LineWriter writer = null;
+  private VcdWriter vcd = null;
+  private File file;
+  private boolean failed;
+  private long lastWrite = 0;
+
+  // statistics, for display
+  private volatile long bytesWritten;
+  private volatile long droppedRows;
+  private volatile long mergedRows;
 
   public LogThread(Model model) {
     super("LogThread");
@@ -38,98 +99,206 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
     model.addModelListener(this);
   }
 
+  /** Returns the number of records waiting to be written. */
+  long getQueueDepth() {
+    return head - tail;
+  }
+
+  long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  long getDroppedRows() {
+    return droppedRows;
+  }
+
+  long getMergedRows() {
+    return mergedRows;
+  }
+
+  //
+  // producer side
+  //
+
+  private boolean offer(Object record) {
+    final var h = head;
+    if (h - tail == QUEUE_SIZE) return false;
+    queue[(int) h & (QUEUE_SIZE - 1)] = record;
+    head = h + 1;
+    if (h == tail) LockSupport.unpark(this);
+    return true;
+  }
+
+  /** Queues a control record, which is never dropped. */
+  private void put(Object record) {
+    while (!offer(record) && !canceled) LockSupport.parkNanos(100_000);
+  }
+
+  // precondition: lock held
+  private void putRow(Row row) {
+    if (pending != null && !offer(pending)) {
+      pending = combine(pending, row);
+      return;
+    }
+    pending = null;
+    if (offer(row)) return;
+    switch (model.getFileBehindPolicy()) {
+      case Model.FILE_DROP, Model.FILE_MERGE -> pending = combine(null, row);
+      default -> put(row);
+    }
+  }
+
+  // precondition: lock held
+  private Object combine(Object prev, Row row) {
+    if (model.getFileBehindPolicy() == Model.FILE_DROP) {
+      droppedRows++;
+      if (!(prev instanceof Gap gap)) return new Gap(row.time, row.duration, 1);
+      return new Gap(gap.time, gap.duration + row.duration, gap.rows + 1);
+    }
+    if (prev instanceof Row old) {
+      mergedRows++;
+      // the merged row holds the latest values, over the whole time
+      return new Row(old.time, old.duration + row.duration, row.columns, row.values);
+    }
+    return row;
+  }
+
+  // precondition: lock held
+  private void retryPending() {
+    if (pending != null && offer(pending)) pending = null;
+  }
+
+  private Signal.Iterator cursor(Signal s) {
+    var cur = cursors.get(s);
+    // a cursor that ran into the end of the history stays there when the signal is extended, so
+    // it is placed again where writing got to
+    if (cur == null || cur.value == null) {
+      cur = s.new Iterator(timeNextWrite);
+      cursors.put(s, cur);
+    }
+    return cur;
+  }
+
   // precondition: lock held and writing()==true
   private void writeSignals() {
-    if (writer == null) {
-      try {
-        writer = new PrintWriter(new FileWriter(model.getFile(), true));
-      } catch (IOException e) {
-        model.setFile(null);
-        return;
-      }
+    final var f = model.getFile();
+    if (!f.equals(target)) {
+      retryPending();
+      pending = null;
+      put(new Target(f));
+      target = f;
+      vcdFormat = VcdWriter.isVcdFile(f);
+      vcdSignals = null;
+      vcdTimeOffset = 0;
+      modeDirty = true;
+      headerDirty = true;
     }
-    if (modeDirty) {
-      var mode = model.isStepMode() ? "step" : model.isRealMode() ? "real-time" : "clocked";
-      var gran = model.isFine() ? "fine" : "coarse";
-      writer.println("# mode: " + mode + " granularity: " + gran);
-      modeDirty = false;
-    }
-    if (headerDirty) {
-      if (model.getFileHeader()) {
-        StringBuilder buf = new StringBuilder();
-        for (int i = 0; i < model.getSignalCount(); i++) {
-          if (i > 0) buf.append("\t");
-          buf.append(model.getItem(i).getDisplayName());
+    final Signal[] columns;
+    if (vcdFormat) {
+      if (vcdSignals == null) {
+        // the signal set is fixed when the header is written; signals added later are not dumped
+        vcdSignals = model.getSignals().toArray(new Signal[0]);
+        final var names = new String[vcdSignals.length];
+        final var widths = new int[vcdSignals.length];
+        for (var i = 0; i < names.length; i++) {
+          names[i] = vcdSignals[i].getName();
+          widths[i] = vcdSignals[i].getWidth();
         }
-        writer.println(buf);
+        put(new Declare(model.getCircuit().getName(), names, widths));
       }
-      headerDirty = false;
-    }
-    Signal.Iterator[] cur = new Signal.Iterator[model.getSignalCount()];
-    for (int i = 0; i < model.getSignalCount(); i++) {
-      final var s = model.getSignal(i);
-      cur[i] = cursors.get(s);
-      if (cur[i] == null) {
-        cur[i] = s.new Iterator(timeNextWrite);
-        cursors.put(s, cur[i]);
+      columns = vcdSignals;
+    } else {
+      if (modeDirty) {
+        var mode = model.isStepMode() ? "step" : model.isRealMode() ? "real-time" : "clocked";
+        var gran = model.isFine() ? "fine" : "coarse";
+        put(new Line("# mode: " + mode + " granularity: " + gran));
+        modeDirty = false;
       }
+      if (headerDirty) {
+        if (model.getFileHeader()) {
+          StringBuilder buf = new StringBuilder();
+          for (int i = 0; i < model.getSignalCount(); i++) {
+            if (i > 0) buf.append("\t");
+            buf.append(model.getItem(i).getDisplayName());
+          }
+          put(new Line(buf.toString()));
+        }
+        headerDirty = false;
+      }
+      columns = model.getSignals().toArray(new Signal[0]);
     }
-    long timeStop = model.getEndTime();
+    final var cur = new Signal.Iterator[columns.length];
+    for (var i = 0; i < cur.length; i++) cur[i] = cursor(columns[i]);
+    final var timeStop = model.getEndTime();
     while (timeNextWrite < timeStop) {
       var duration = timeStop - timeNextWrite;
-      final var buf = new StringBuilder();
-      for (int i = 0; i < cur.length; i++) {
-        if (i > 0) buf.append("\t");
-        buf.append(cur[i].getFormattedValue());
+      final var values = new Value[cur.length];
+      for (var i = 0; i < cur.length; i++) {
+        values[i] = cur[i].value;
         if (cur[i].duration < duration) duration = cur[i].duration;
       }
-      // TODO: only write duration if not in coarse-step or coarse-clock mode?
-      writer.println(buf + "\t# " + Model.formatDuration(duration));
+      putRow(new Row(vcdTimeOffset + timeNextWrite, duration, columns, values));
       for (final var c : cur) c.advance(duration);
       timeNextWrite += duration;
     }
-    lastWrite = System.currentTimeMillis();
+  }
+
+  // precondition: lock held
+  private void stopWriting() {
+    if (target == null) return;
+    pending = null;
+    put(new Target(null));
+    target = null;
   }
 
   public void cancel() {
-    synchronized (lock) {
-      canceled = true;
-      if (writer != null) {
-        writer.close();
-        writer = null;
-      }
+    // set first, so that a producer waiting for room in the queue gives up and releases lock
+    canceled = true;
+    lock.lock();
+    try {
+      stopWriting();
+    } finally {
+      lock.unlock();
     }
+    LockSupport.unpark(this);
   }
 
   @Override
   public void signalsReset(Model.Event event) {
-    synchronized (lock) {
+    lock.lock();
+    try {
       if (writing()) {
+        vcdTimeOffset += timeNextWrite;
         timeNextWrite = 0;
         cursors.clear();
         writeSignals();
       }
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public void signalsExtended(Model.Event event) {
-    synchronized (lock) {
+    lock.lock();
+    try {
       if (writing()) writeSignals();
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public void filePropertyChanged(Model.Event event) {
-    synchronized (lock) {
+    lock.lock();
+    try {
       if (writing()) {
-        if (writer == null) writeSignals();
+        if (target == null || !target.equals(model.getFile())) writeSignals();
       } else {
-        if (writer != null) {
-          writer.close();
-          writer = null;
-        }
+        stopWriting();
       }
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -137,47 +306,195 @@ class LogThread extends UniquelyNamedThread implements Model.Listener {
     return !canceled && model.isSelected() && model.isFileEnabled() && model.getFile() != null;
   }
 
+  @Override
+  public void selectionChanged(Model.Event event) {
+    lock.lock();
+    try {
+      cursors.keySet().retainAll(model.getSignals()); // removes dead cursors
+      headerDirty = true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void modeChanged(Model.Event event) {
+    lock.lock();
+    try {
+      modeDirty = true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void historyLimitChanged(Model.Event event) {}
+
+  //
+  // consumer side
+  //
+
+  /** Counts the bytes that reach the file. */
+  private class CountingChannel implements WritableByteChannel {
+    private final WritableByteChannel channel;
+
+    CountingChannel(WritableByteChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      final var n = channel.write(src);
+      bytesWritten += n;
+      return n;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+
+  private WritableByteChannel open(StandardOpenOption... options) throws IOException {
+    return new CountingChannel(FileChannel.open(file.toPath(), options));
+  }
+
   @Override
   public void run() {
-    while (!canceled) {
-      synchronized (lock) {
-        if (writer != null) {
-          if (System.currentTimeMillis() - lastWrite > IDLE_UNTIL_CLOSE) {
-            writer.close();
-            writer = null;
-          } else {
-            writer.flush();
+    var lastFlush = System.currentTimeMillis();
+    while (true) {
+      final var done = canceled;
+      var drained = 0;
+      while (tail != head) {
+        final var t = tail;
+        final var idx = (int) t & (QUEUE_SIZE - 1);
+        final var record = queue[idx];
+        queue[idx] = null;
+        tail = t + 1;
+        write(record);
+        drained++;
+      }
+      if (done) break;
+      final var now = System.currentTimeMillis();
+      if (now - lastFlush >= FLUSH_FREQUENCY) {
+        flush(now);
+        lastFlush = now;
+        if (lock.tryLock()) {
+          try {
+            retryPending();
+          } finally {
+            lock.unlock();
           }
         }
       }
-      try {
-        Thread.sleep(FLUSH_FREQUENCY);
-      } catch (InterruptedException ignored) {
-      }
+      if (drained == 0) LockSupport.parkNanos(this, FLUSH_FREQUENCY * 1_000_000L);
     }
-    synchronized (lock) {
-      if (writer != null) {
-        writer.close();
-        writer = null;
+    closeWriters();
+  }
+
+  private void write(Object record) {
+    try {
+      if (record instanceof Target t) {
+        closeWriters();
+        file = t.file();
+        failed = false;
+        return;
+      }
+      if (file == null || failed) return;
+      if (record instanceof Declare d) {
+        final var channel =
+            open(
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        vcd = new VcdWriter(Channels.newOutputStream(channel), d.scope(), "1 ns");
+        for (var i = 0; i < d.names().length; i++) vcd.addSignal(d.names()[i], d.widths()[i]);
+      } else if (record instanceof Line line) {
+        textWriter().line(line.text());
+      } else if (record instanceof Row row) {
+        if (vcd != null) {
+          vcd.setTime(row.time());
+          for (var i = 0; i < row.values().length; i++) vcd.change(i, row.values()[i]);
+        } else {
+          final var buf = new StringBuilder();
+          for (var i = 0; i < row.values().length; i++) {
+            if (i > 0) buf.append("\t");
+            final var v = row.values()[i];
+            buf.append(v == null ? "-" : row.columns()[i].format(v));
+          }
+          // TODO: only write duration if not in coarse-step or coarse-clock mode?
+          textWriter().line(buf.append("\t# ").append(Model.formatDuration(row.duration())));
+        }
+      } else if (record instanceof Gap gap && vcd == null) {
+        final var duration = Model.formatDuration(gap.duration());
+        textWriter().line("# " + gap.rows() + " rows dropped over " + duration);
       }
+      lastWrite = System.currentTimeMillis();
+    } catch (IOException e) {
+      closeWriters();
+      failed = true;
+      final var f = file;
+      SwingUtilities.invokeLater(
+          () -> {
+            if (f.equals(model.getFile())) model.setFile(null);
+          });
     }
   }
 
-  @Override
-  public void selectionChanged(Model.Event event) {
-    synchronized (lock) {
-      cursors.keySet().retainAll(model.getSignals()); // removes dead cursors
-      headerDirty = true;
+  private LineWriter textWriter() throws IOException {
+    if (writer == null) {
+      writer =
+          new LineWriter(
+              open(StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8);
     }
+    return writer;
   }
 
-  @Override
-  public void modeChanged(Model.Event event) {
-    synchronized (lock) {
-      modeDirty = true;
+  private void flush(long now) {
+    if (writer != null) {
+      try {
+        if (now - lastWrite > IDLE_UNTIL_CLOSE) {
+          final var w = writer;
+          writer = null;
+          w.close();
+        } else {
+          writer.flush();
+        }
+      } catch (IOException ignored) {
+        // reported by the next write
+      }
+    }
+    // a VCD file cannot be appended to, so it stays open while logging is enabled
+    if (vcd != null) {
+      try {
+        vcd.flush();
+      } catch (IOException ignored) {
+        // reported by the next write
+      }
     }
   }
 
-  @Override
-  public void historyLimitChanged(Model.Event event) {}
+  private void closeWriters() {
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (IOException ignored) {
+        // nothing more can be done about it
+      }
+      writer = null;
+    }
+    if (vcd != null) {
+      try {
+        vcd.close();
+      } catch (IOException ignored) {
+        // nothing more can be done about it
+      }
+      vcd = null;
+    }
+  }
 }
@@ -40,6 +40,10 @@ public class Model implements CircuitListener, SignalInfo.Listener {
   public static final int CLOCK_LOW = 70;
   public static final int COARSE = 1;
   public static final int FINE = 2;
+  // what file output does when it cannot keep up with the simulation
+  public static final int FILE_BLOCK = 1; // the simulation waits
+  public static final int FILE_DROP = 2; // rows are left out, and the gap noted
+  public static final int FILE_MERGE = 3; // rows are merged, keeping the latest values
 
   // FIXME: it looks we can get rid of Even class as it's a) dummy b) unused which forcess callers
   // to pass `null`
@@ -84,6 +88,7 @@ public class Model implements CircuitListener, SignalInfo.Listener {
   private boolean fileEnabled = false;
   private File file = null;
   private boolean fileHeader = true;
+  private int fileBehindPolicy = FILE_BLOCK;
   private boolean selected = false;
   private LogThread logger = null;
   private int mode = STEP;
@@ -510,6 +515,15 @@ public class Model implements CircuitListener, SignalInfo.Listener {
     return fileHeader;
   }
 
+  public int getFileBehindPolicy() {
+    return fileBehindPolicy;
+  }
+
+  /** Returns the thread writing the file, or null if the model is not selected. */
+  LogThread getLogThread() {
+    return logger;
+  }
+
   public int getSignalCount() {
     return signals.size();
   }
@@ -555,19 +569,18 @@ public class Model implements CircuitListener, SignalInfo.Listener {
   }
 
   private void extendWithOldValues(long duration) {
-    for (Signal s : signals) {
-      Value v = s.info.fetchValue(circuitState);
-      s.extend(duration);
-    }
+    for (Signal s : signals) s.extend(duration);
     elapsedSinceTrigger += duration;
     timeEnd += duration;
     fireSignalsExtended(null);
   }
 
   private void extendWithNewValues(long duration) {
+    // only signals whose component was touched by the simulation need to be read again
     for (Signal s : signals) {
-      Value v = s.info.fetchValue(circuitState);
-      s.extend(v, duration);
+      Value v = s.info.fetchValueIfChanged(circuitState);
+      if (v == null) s.extend(duration);
+      else s.extend(v, duration);
     }
     elapsedSinceTrigger += duration;
     timeEnd += duration;
@@ -576,8 +589,8 @@ public class Model implements CircuitListener, SignalInfo.Listener {
 
   private void replaceWithNewValues(long duration) {
     for (Signal s : signals) {
-      Value v = s.info.fetchValue(circuitState);
-      s.replaceRecent(v, duration);
+      Value v = s.info.fetchValueIfChanged(circuitState);
+      if (v != null) s.replaceRecent(v, duration);
     }
     fireSignalsExtended(null); // changed, not extended, but works fine for now
   }
@@ -730,6 +743,12 @@ public class Model implements CircuitListener, SignalInfo.Listener {
     fireFilePropertyChanged(null);
   }
 
+  public void setFileBehindPolicy(int value) {
+    if (fileBehindPolicy == value) return;
+    fileBehindPolicy = value;
+    fireFilePropertyChanged(null);
+  }
+
   public void setSelected(boolean value) {
     if (selected == value) return;
     selected = value;
@@ -0,0 +1,126 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import static com.cburch.logisim.gui.Strings.S;
+
+import com.cburch.logisim.circuit.SimulationStatistics;
+import com.cburch.logisim.prefs.AppPreferences;
+import java.awt.BorderLayout;
+import java.awt.Font;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Arrays;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+
+/** Shows the counters of {@link SimulationStatistics} while the simulation runs. */
+class ProfilePanel extends LogPanel implements ActionListener {
+  private static final long serialVersionUID = 1L;
+  private static final int REFRESH_FREQUENCY = 500; // ms
+  // choices of hotSpotsCombo, in order
+  private static final String[] HOT_SPOTS = {
+    AppPreferences.HOT_SPOTS_NONE, AppPreferences.HOT_SPOTS_EVENTS, AppPreferences.HOT_SPOTS_TIME
+  };
+
+  private final JCheckBox enableCheckBox = new JCheckBox();
+  private final JButton resetButton = new JButton();
+  private final JLabel hotSpotsLabel = new JLabel();
+  private final JComboBox<String> hotSpotsCombo = new JComboBox<>();
+  private final JTextArea report = new JTextArea();
+  private final Timer timer = new Timer(REFRESH_FREQUENCY, this);
+
+  public ProfilePanel(LogFrame frame) {
+    super(frame, new BorderLayout());
+    final var buttons = new JPanel();
+    buttons.add(enableCheckBox);
+    buttons.add(resetButton);
+    buttons.add(hotSpotsLabel);
+    buttons.add(hotSpotsCombo);
+    add(buttons, BorderLayout.NORTH);
+    report.setEditable(false);
+    report.setFont(new Font(Font.MONOSPACED, Font.PLAIN, report.getFont().getSize()));
+    add(new JScrollPane(report), BorderLayout.CENTER);
+
+    enableCheckBox.addActionListener(this);
+    resetButton.addActionListener(this);
+    hotSpotsCombo.addActionListener(this);
+    localeChanged();
+  }
+
+  // the report only needs refreshing while the panel is in a window
+  @Override
+  public void addNotify() {
+    super.addNotify();
+    timer.start();
+  }
+
+  @Override
+  public void removeNotify() {
+    timer.stop();
+    super.removeNotify();
+  }
+
+  @Override
+  public void actionPerformed(ActionEvent event) {
+    final var stats = SimulationStatistics.getInstance();
+    final var src = event.getSource();
+    if (src == enableCheckBox) {
+      stats.setEnabled(enableCheckBox.isSelected());
+    } else if (src == resetButton) {
+      stats.reset();
+    } else if (src == hotSpotsCombo) {
+      final var index = hotSpotsCombo.getSelectedIndex();
+      if (index < 0) return;
+      // statistics are collected while the preference asks for hot spots
+      AppPreferences.HOT_SPOTS.set(HOT_SPOTS[index]);
+    } else if (!isShowing()) {
+      return; // nobody is looking
+    }
+    // the counters may also be switched on and off through JMX
+    enableCheckBox.setSelected(stats.isEnabled());
+    final var text = stats.getReport();
+    if (!text.equals(report.getText())) report.setText(text);
+  }
+
+  @Override
+  public String getHelpText() {
+    return S.get("profileHelp");
+  }
+
+  @Override
+  public String getTitle() {
+    return S.get("profileTab");
+  }
+
+  @Override
+  public void localeChanged() {
+    enableCheckBox.setText(S.get("profileEnableCheck"));
+    resetButton.setText(S.get("profileResetButton"));
+    hotSpotsLabel.setText(S.get("profileHotSpotsLabel"));
+    hotSpotsCombo.removeActionListener(this);
+    hotSpotsCombo.removeAllItems();
+    hotSpotsCombo.addItem(S.get("profileHotSpotsNone"));
+    hotSpotsCombo.addItem(S.get("profileHotSpotsEvents"));
+    hotSpotsCombo.addItem(S.get("profileHotSpotsTime"));
+    final var hotSpots = Arrays.asList(HOT_SPOTS).indexOf(AppPreferences.HOT_SPOTS.get());
+    hotSpotsCombo.setSelectedIndex(Math.max(0, hotSpots));
+    hotSpotsCombo.addActionListener(this);
+    final var stats = SimulationStatistics.getInstance();
+    enableCheckBox.setSelected(stats.isEnabled());
+    report.setText(stats.getReport());
+  }
+}
@@ -15,57 +15,141 @@ import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.datatransfer.UnsupportedFlavorException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * The history of one logged signal, as a sequence of values each holding from its start time until
+ * the start of the next one.
+ *
+ * <p>The history is stored in blocks of up to {@value #BLOCK_SIZE} entries. Within a block, start
+ * times are 32-bit offsets from the start of the block, and values are bit-planes of exactly the
+ * signal width per entry; the unknown and error planes are only allocated once a value in the
+ * block needs them. Seeking by time is a binary search over blocks, then within a block.
+ */
 public class Signal {
 
-  private static final int CHUNK = 512;
+  private static final int BLOCK_SIZE = 1024;
+
+  /** Consecutive entries of one width; arrays grow by doubling up to BLOCK_SIZE entries. */
+  private static final class Block {
+    final long start; // start time of entry 0
+    final int width;
+    int[] offset; // start time of each entry, minus start
+    long[] value;
+    long[] unknown;
+    long[] error;
+    int size;
+
+    Block(long start, int width) {
+      this.start = start;
+      this.width = width;
+      offset = new int[8];
+      value = new long[planeLength(8, width)];
+    }
+
+    long startOf(int i) {
+      return start + offset[i];
+    }
+
+    Value get(int i) {
+      return Value.create(
+          width,
+          error == null ? 0 : getBits(error, i, width),
+          unknown == null ? 0 : getBits(unknown, i, width),
+          getBits(value, i, width));
+    }
+
+    void add(Value v, long t) {
+      if (size == offset.length) {
+        final var cap = Math.min(2 * size, BLOCK_SIZE);
+        offset = Arrays.copyOf(offset, cap);
+        value = Arrays.copyOf(value, planeLength(cap, width));
+        if (unknown != null) unknown = Arrays.copyOf(unknown, value.length);
+        if (error != null) error = Arrays.copyOf(error, value.length);
+      }
+      offset[size] = (int) (t - start);
+      setBits(value, size, width, v.getValueBits());
+      if (unknown != null || v.getUnknownBits() != 0) {
+        if (unknown == null) unknown = new long[value.length];
+        setBits(unknown, size, width, v.getUnknownBits());
+      }
+      if (error != null || v.getErrorBits() != 0) {
+        if (error == null) error = new long[value.length];
+        setBits(error, size, width, v.getErrorBits());
+      }
+      size++;
+    }
+
+    boolean canAdd(Value v, long t) {
+      return size < BLOCK_SIZE && v.getWidth() == width && t - start <= Integer.MAX_VALUE;
+    }
+  }
+
+  private static int planeLength(int entries, int width) {
+    return (int) (((long) entries * width + 63) / 64);
+  }
+
+  private static long getBits(long[] plane, int i, int width) {
+    if (width == 0) return 0;
+    final var bit = (long) i * width;
+    final var word = (int) (bit >>> 6);
+    final var shift = (int) (bit & 63);
+    var ret = plane[word] >>> shift;
+    if (shift + width > 64) ret |= plane[word + 1] << (64 - shift);
+    return width == 64 ? ret : ret & ~(-1L << width);
+  }
+
+  private static void setBits(long[] plane, int i, int width, long bits) {
+    if (width == 0) return;
+    final var mask = width == 64 ? -1L : ~(-1L << width);
+    final var bit = (long) i * width;
+    final var word = (int) (bit >>> 6);
+    final var shift = (int) (bit & 63);
+    bits &= mask;
+    plane[word] = (plane[word] & ~(mask << shift)) | (bits << shift);
+    if (shift + width > 64)
+      plane[word + 1] = (plane[word + 1] & ~(mask >>> (64 - shift))) | (bits >>> (64 - shift));
+  }
 
   // Signal position in list, name, etc.
   public int idx;
   public final SignalInfo info;
 
   // Signal data
-  private long timeStart;
-  private Value[][] val; // values, in blocks no larger than CHUNK
+  private final ArrayList<Block> blocks = new ArrayList<>();
+  private int first; // index of the oldest entry kept in blocks.get(0)
+  private int size; // number of entries kept
+  private long end; // end time of the newest entry, or start time of the next one if empty
   private Value last;
-  private long[][] dur; // duration of each value
-  private int curSize;
   private int maxSize; // limit, or zero for unlimited
-  private short firstIndex; // for wrapping, only when limited
+  // earliest time changed since takeDirtyFrom; written by the simulation, taken by the views
+  private final AtomicLong dirtyFrom = new AtomicLong(Long.MAX_VALUE);
 
   public Signal(
       int idx, SignalInfo info, Value initialValue, long duration, long timeStart, int maxSize) {
     this.idx = idx;
     this.info = info;
-    this.timeStart = timeStart;
+    this.end = timeStart;
     this.maxSize = maxSize;
-    this.val = new Value[1][maxSize == 0 || maxSize > CHUNK ? CHUNK : maxSize];
-    this.dur = new long[1][maxSize == 0 || maxSize > CHUNK ? CHUNK : maxSize];
-    this.curSize = 0;
-    this.firstIndex = 0;
     extend(initialValue, duration);
   }
 
   public long omittedDataTime() {
-    return curSize == maxSize ? timeStart : 0;
+    return size == maxSize ? getStartTime() : 0;
+  }
+
+  private long getStartTime() {
+    return size == 0 ? end : blocks.get(0).startOf(first);
   }
 
   public long getEndTime() {
-    var t = timeStart;
-    for (var p = 0; p < curSize; p++) {
-      var i = (firstIndex + p) % curSize;
-      t += dur[i / CHUNK][i % CHUNK];
-    }
-    return t;
+    return end;
   }
 
   public void extend(long duration) {
-    if (last == null) {
-      timeStart += duration;
-    } else {
-      final var i = (firstIndex + curSize - 1) % curSize;
-      dur[i / CHUNK][i % CHUNK] += duration;
-    }
+    markDirty(end);
+    end += duration;
   }
 
   public void extend(Value v, long duration) {
@@ -73,185 +157,147 @@ public class Signal {
       System.out.printf(
           "*** notice: value width mismatch for %s: width=%d bits, newVal=%s (%d bits)\n",
           info, info.getWidth(), v, v.getWidth());
-    if (last != null && last.equals(v)) {
-      final var i = (firstIndex + curSize - 1) % curSize;
-      dur[i / CHUNK][i % CHUNK] += duration;
-      return;
+    markDirty(end);
+    if (last == null || !last.equals(v)) add(v, end);
+    end += duration;
+  }
+
+  private void add(Value v, long t) {
+    var block = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+    if (block == null || !block.canAdd(v, t)) {
+      block = new Block(t, v.getWidth());
+      blocks.add(block);
     }
+    block.add(v, t);
     last = v;
-    final var c = val.length;
-    final var cap = CHUNK * (c - 1) + val[c - 1].length;
-    if (curSize < cap) {
-      // fits in an existing chunk
-      val[curSize / CHUNK][curSize % CHUNK] = v;
-      dur[curSize / CHUNK][curSize % CHUNK] = duration;
-      curSize++;
-    } else if (curSize < maxSize || maxSize <= 0) {
-      // allocate another chunk
-      final var val2 = new Value[c + 1][];
-      final var dur2 = new long[c + 1][];
-      System.arraycopy(val, 0, val2, 0, c);
-      System.arraycopy(dur, 0, dur2, 0, c);
-      val2[c + 1] = new Value[maxSize == 0 || (maxSize - cap) > CHUNK ? CHUNK : (maxSize - cap)];
-      dur2[c + 1] = new long[maxSize == 0 || (maxSize - cap) > CHUNK ? CHUNK : (maxSize - cap)];
-      val = val2;
-      dur = dur2;
-      val[curSize / CHUNK][curSize % CHUNK] = v;
-      dur[curSize / CHUNK][curSize % CHUNK] = duration;
-      curSize++;
+    size++;
+    if (maxSize > 0 && size > maxSize) removeFirst();
+  }
+
+  private void removeFirst() {
+    size--;
+    if (++first == blocks.get(0).size) {
+      blocks.remove(0);
+      first = 0;
+    }
+  }
+
+  private void removeLast() {
+    final var block = blocks.get(blocks.size() - 1);
+    size--;
+    if (--block.size == (blocks.size() == 1 ? first : 0)) {
+      blocks.remove(blocks.size() - 1);
+      if (blocks.isEmpty()) first = 0;
+    }
+    if (size == 0) {
+      last = null;
     } else {
-      // limited size is filled, wrap around, and adjust start offset
-      timeStart += dur[firstIndex / CHUNK][firstIndex % CHUNK];
-      val[firstIndex / CHUNK][firstIndex % CHUNK] = v;
-      dur[firstIndex / CHUNK][firstIndex % CHUNK] = duration;
-      firstIndex++;
-      if (firstIndex >= maxSize) firstIndex = 0;
+      final var tail = blocks.get(blocks.size() - 1);
+      last = tail.get(tail.size - 1);
     }
   }
 
+  private long lastStart() {
+    final var block = blocks.get(blocks.size() - 1);
+    return block.startOf(block.size - 1);
+  }
+
+  /** Returns the value before the newest one; size must be at least 2. */
+  private Value previous() {
+    final var block = blocks.get(blocks.size() - 1);
+    if (block.size >= 2) return block.get(block.size - 2);
+    final var prev = blocks.get(blocks.size() - 2);
+    return prev.get(prev.size - 1);
+  }
+
   public void replaceRecent(Value v, long duration) {
-    if (last == null || curSize == 0)
+    if (last == null || size == 0)
       throw new IllegalStateException("signal should have at least " + duration + " ns of data");
-    final var i = (firstIndex + curSize - 1) % curSize;
-    if (dur[i / CHUNK][i % CHUNK] == duration) {
-      val[i / CHUNK][i % CHUNK] = v;
-      last = v;
-      final var j = (i + curSize - 1) % curSize;
-      if (curSize > 1 && val[j / CHUNK][j % CHUNK].equals(v)) {
-        dur[j / CHUNK][j % CHUNK] += duration;
-        curSize--;
-        // special case: last chunk is now entirely empty, must be removed
-        if (i % CHUNK == 0) {
-          int c = val.length - 1;
-          final var valueNew = new Value[c][];
-          final var durNew = new long[c][];
-          System.arraycopy(val, 0, valueNew, 0, c);
-          System.arraycopy(dur, 0, durNew, 0, c);
-          val = valueNew;
-          dur = durNew;
-        }
-      }
-    } else if (dur[i / CHUNK][i % CHUNK] > duration) {
-      dur[i / CHUNK][i % CHUNK] -= duration;
+    final var t = lastStart();
+    final var d = end - t;
+    markDirty(end - duration);
+    if (d == duration) {
+      removeLast();
+      // merge with the entry before, if it has the same value
+      if (size == 0 || !last.equals(v)) add(v, t);
+    } else if (d > duration) {
+      end -= duration;
       extend(v, duration);
-    } else if (curSize == 1 && dur[i / CHUNK][i % CHUNK] + timeStart >= duration) {
-      timeStart -= (duration - dur[i / CHUNK][i % CHUNK]);
-      val[i / CHUNK][i % CHUNK] = v;
-      dur[i / CHUNK][i % CHUNK] = duration;
-      last = v;
+    } else if (size == 1 && end >= duration) {
+      removeLast();
+      add(v, end - duration);
     } else {
       throw new IllegalStateException(
           "signal data should be at least "
               + duration
               + " ns in duration,"
               + " but only "
-              + dur[i / CHUNK][i % CHUNK]
+              + d
               + " in last signal");
     }
   }
 
-  private void retainOnly(int offset, int amt, int cap) {
-    // shift all values [from offset to offset+amt] left into new arrays
-    // of size appropriate for eventual capacity cap
-    final var c = (amt + CHUNK - 1) / CHUNK;
-    final var last = cap == 0 ? CHUNK : Math.min(CHUNK, cap - (c - 1) * CHUNK);
-    final var v = new Value[c][];
-    final var d = new long[c][];
-    for (var i = 0; i < c; i++) {
-      v[i] = new Value[i < c - 1 ? CHUNK : last];
-      d[i] = new long[i < c - 1 ? CHUNK : last];
-    }
-    for (var p = 0; p < amt; p++) {
-      int i = (firstIndex + offset + p) % curSize;
-      v[p / CHUNK][p % CHUNK] = val[i / CHUNK][i % CHUNK];
-      d[p / CHUNK][p % CHUNK] = dur[i / CHUNK][i % CHUNK];
-    }
-    val = v;
-    dur = d;
-    firstIndex = 0;
-    curSize = amt;
-  }
-
   public void resize(int newMaxSize) {
-    if (newMaxSize == maxSize) return;
-    if (newMaxSize == 0 || newMaxSize > maxSize) {
-      // growing
-      if (firstIndex != 0) retainOnly(0, curSize, newMaxSize); // keeps all data, but shifts it left
-    } else {
-      // shrinking: newMaxSize < maxSize
-      if (curSize <= newMaxSize) {
-        // Mostly empty, keep all data, but maybe truncate last chunk if needed
-        // to get capacity below new max size.
-        // Note: firstIndex must be 0, since otherwize curSize==maxSize,
-        // and that would mean curSize > newMaxSize.
-        // There are two cases:
-        //  very unfull:
-        //    cap -----------------------------------------------|
-        //    curSize --------------------------|
-        //    [ 0+ full large-chunks ] [ partly full large-chunk ] [ not yet allocated... ]
-        //  nearly full:
-        //    cap ---------------------------------------------|
-        //    curSize -------------------------|
-        //    [ 0+ full large-chunks ] [ partly full end-chunk ]
-        // In the very unfull case, we may be able to do nothing at all
-        // (if cap <= newMaxSize), or we may have to shrink that last allocated
-        // chunk (if cap > newMaxSize).
-        // In the nearly full case, cap > newMaxSize and we need to shrink the
-        // last allocated chunk.
-        final var c = val.length;
-        final var cap = CHUNK * (c - 1) + val[c - 1].length;
-        if (cap > newMaxSize) {
-          // Note: # of existing chunks (c) must be equal to # of new chunks
-          final var last = Math.min(CHUNK, newMaxSize - (c - 1) * CHUNK);
-          final var v = new Value[last];
-          final var d = new long[last];
-          System.arraycopy(val[c - 1], 0, v, 0, last);
-          System.arraycopy(dur[c - 1], 0, d, 0, last);
-          val[c - 1] = v;
-          dur[c - 1] = d;
-        }
-      } else { // curSize > newMaxSize
-        // too much data, keep only most recent data and shift it left
-        final var discard = (maxSize - newMaxSize);
-        for (var p = 0; p < discard; p++) {
-          final var i = (firstIndex + p) % curSize;
-          timeStart += dur[i / CHUNK][i % CHUNK];
-        }
-        retainOnly(discard, newMaxSize, newMaxSize);
-      }
-    }
     maxSize = newMaxSize;
+    // too much data, keep only most recent data
+    if (maxSize > 0) while (size > maxSize) removeFirst();
   }
 
   public void reset(Value v, long duration) {
-    if (val.length > 1) {
-      final var val2 = new Value[1][];
-      final var dur2 = new long[1][];
-      val2[0] = val[0];
-      dur2[0] = dur[0];
-      val = val2;
-      dur = dur2;
-    }
+    blocks.clear();
+    first = 0;
+    size = 0;
+    end = 0;
     last = null;
-    curSize = 0;
-    firstIndex = 0;
+    dirtyFrom.set(Long.MIN_VALUE);
     extend(v, duration);
   }
 
+  /**
+   * Returns the earliest time whose value may have changed since the previous call, or {@code
+   * Long.MAX_VALUE} if nothing changed; {@code Long.MIN_VALUE} means the history was reset. Meant
+   * for views that cache what they drew.
+   */
+  public long takeDirtyFrom() {
+    return dirtyFrom.getAndSet(Long.MAX_VALUE);
+  }
+
+  private void markDirty(long t) {
+    if (dirtyFrom.get() > t) dirtyFrom.accumulateAndGet(t, Math::min);
+  }
+
+  /**
+   * Returns an iterator on the whole entry holding time t, or on the first entry if t is before
+   * it. Unlike {@code new Iterator(t)}, whose time is t itself, its time is that of the value
+   * change.
+   */
+  public Iterator entryAt(long t) {
+    final var ret = new Iterator();
+    if (ret.value != null && t >= ret.time + ret.duration) {
+      if (t >= end) {
+        ret.position = size;
+        ret.load();
+      } else {
+        ret.seek(t);
+      }
+    }
+    return ret;
+  }
+
   public class Iterator {
 
     public int position;
     public long time;
     public long duration;
     public Value value;
+    private int block;
+    private int index;
 
     public Iterator() {
       position = 0;
-      time = timeStart;
-      final var i = firstIndex;
-      final var width = info.getWidth();
-      value = val[i / CHUNK][i % CHUNK].extendWidth(width, Value.FALSE);
-      duration = dur[i / CHUNK][i % CHUNK];
+      block = 0;
+      index = first;
+      load();
     }
 
     public Iterator(long t) {
@@ -259,22 +305,38 @@ public class Signal {
       if (t > time) advance(t - time);
     }
 
+    private void load() {
+      if (position >= size) {
+        value = null;
+        duration = 0;
+        return;
+      }
+      final var b = blocks.get(block);
+      time = b.startOf(index);
+      final var next =
+          index + 1 < b.size
+              ? b.startOf(index + 1)
+              : block + 1 < blocks.size() ? blocks.get(block + 1).startOf(0) : end;
+      duration = next - time;
+      value = b.get(index).extendWidth(info.getWidth(), Value.FALSE);
+    }
+
     public String getFormattedValue() {
       return value == null ? "-" : info.format(value);
     }
 
     public boolean advance() {
-      if (position == curSize - 1) {
+      if (position >= size - 1) {
         value = null;
         duration = 0;
         return false;
       }
       position++;
-      time += duration;
-      final var i = (firstIndex + position) % curSize;
-      final var width = info.getWidth();
-      value = val[i / CHUNK][i % CHUNK].extendWidth(width, Value.FALSE);
-      duration = dur[i / CHUNK][i % CHUNK];
+      if (++index == blocks.get(block).size) {
+        block++;
+        index = 0;
+      }
+      load();
       return true;
     }
 
@@ -282,8 +344,13 @@ public class Signal {
       if (value == null) return false;
       if (timeFwd <= 0) return true;
       final var t = time + timeFwd;
-      while (t >= time + duration) {
-        if (!advance()) return false;
+      if (t >= time + duration) {
+        if (t >= end) {
+          position = size;
+          load();
+          return false;
+        }
+        seek(t);
       }
       // postcondition: t < time + duration
       //                t - time < duration
@@ -291,20 +358,41 @@ public class Signal {
       time = t;
       return true;
     }
+
+    /** Moves to the entry holding at time t, which lies after the current one and before end. */
+    private void seek(long t) {
+      var lo = block;
+      var hi = blocks.size() - 1;
+      while (lo < hi) {
+        final var mid = (lo + hi + 1) >>> 1;
+        if (blocks.get(mid).start <= t) lo = mid;
+        else hi = mid - 1;
+      }
+      final var b = blocks.get(lo);
+      final var offset = t - b.start;
+      var i = lo == block ? index : 0;
+      var j = b.size - 1;
+      while (i < j) {
+        final var mid = (i + j + 1) >>> 1;
+        if (b.offset[mid] <= offset) i = mid;
+        else j = mid - 1;
+      }
+      if (lo == block) {
+        position += i - index;
+      } else {
+        position += blocks.get(block).size - index;
+        for (var k = block + 1; k < lo; k++) position += blocks.get(k).size;
+        position += i;
+      }
+      block = lo;
+      index = i;
+      load();
+    }
   }
 
-  // TODO: easily optimized
   public Value getValue(long t) { // always current width, even when width changes
-    if (t < timeStart) return null;
-    final var width = info.getWidth();
-    var tt = timeStart;
-    for (int p = 0; p < curSize; p++) {
-      final var i = (firstIndex + p) % curSize;
-      final var d = dur[i / CHUNK][i % CHUNK];
-      if (t < tt + d) return val[i / CHUNK][i % CHUNK].extendWidth(width, Value.FALSE);
-      tt += d;
-    }
-    return null;
+    if (t < getStartTime() || t >= end) return null;
+    return new Iterator(t).value;
   }
 
   public String getFormattedValue(long t) {
@@ -72,6 +72,14 @@ public class SignalInfo implements AttributeListener, CircuitListener, Location.
   private boolean obsoleted;
   private Listener listener; // only one supported, for now, usally just the LogModel
 
+  // The state found by walking path[] down from cachedRoot, and a watch on path[n-1] in it that
+  // tells when the logged value may have changed. Both are dropped whenever a circuit on the path
+  // is edited, and rebuilt on the next fetch.
+  private CircuitState cachedRoot;
+  private CircuitState cachedState;
+  private volatile boolean changed = true;
+  private final Runnable watcher = () -> changed = true;
+
   public interface Listener {
     void signalInfoNameChanged(SignalInfo s);
 
@@ -108,6 +116,7 @@ public class SignalInfo implements AttributeListener, CircuitListener, Location.
   public void setListener(Listener l) {
     if (listener != null && l != null && l != listener) throw new IllegalStateException("already have a different listener");
     listener = l;
+    if (l == null) unwatch();
   }
 
   @Override
@@ -121,6 +130,10 @@ public class SignalInfo implements AttributeListener, CircuitListener, Location.
       return; // this SelectionItem doesn't appear to be alive any more
     }
     final var action = event.getAction();
+    if (action == CircuitEvent.ACTION_CLEAR || action == CircuitEvent.TRANSACTION_DONE) {
+      // substates may have been replaced, and path[] may be about to change
+      unwatch();
+    }
     if (action == CircuitEvent.ACTION_CLEAR) {
       // This happens only when analyzer is replacing an entire circuit. Can we
       // match up pin names perhaps? todo later
@@ -238,12 +251,43 @@ public class SignalInfo implements AttributeListener, CircuitListener, Location.
     return changed;
   }
 
+  private synchronized CircuitState getState(CircuitState root) {
+    if (root != cachedRoot) {
+      unwatch();
+      var cur = root;
+      for (var i = 0; i < n - 1; i++) cur = circ[i].getSubcircuitFactory().getSubstate(cur, path[i]);
+      cur.watchComponent(path[n - 1], watcher);
+      cachedRoot = root;
+      cachedState = cur;
+      changed = true;
+    }
+    return cachedState;
+  }
+
+  private synchronized void unwatch() {
+    if (cachedState != null) cachedState.unwatchComponent(path[n - 1], watcher);
+    cachedRoot = null;
+    cachedState = null;
+  }
+
   public Value fetchValue(CircuitState root) {
     final var log = (LoggableContract) path[n - 1].getFeature(LoggableContract.class);
     if (log == null) return Value.NIL;
-    var cur = root;
-    for (var i = 0; i < n - 1; i++) cur = circ[i].getSubcircuitFactory().getSubstate(cur, path[i]);
-    return log.getLogValue(cur, option);
+    return log.getLogValue(getState(root), option);
+  }
+
+  /**
+   * Like {@link #fetchValue}, but returns null if the component has not been touched by the
+   * simulation since the previous call of this method for the same root state, in which case its
+   * value is still the one returned then.
+   */
+  public Value fetchValueIfChanged(CircuitState root) {
+    final var log = (LoggableContract) path[n - 1].getFeature(LoggableContract.class);
+    if (log == null) return Value.NIL;
+    final var state = getState(root);
+    if (!changed) return null;
+    changed = false;
+    return log.getLogValue(state, option);
   }
 
   public Component getComponent() {
@@ -350,6 +394,7 @@ public class SignalInfo implements AttributeListener, CircuitListener, Location.
   private void remove() {
     if (obsoleted) return;
     obsoleted = true;
+    unwatch();
     for (final var t : circ) t.removeCircuitListener(this);
     for (final var c : path) c.getAttributeSet().removeAttributeListener(this);
     if (listener != null) listener.signalInfoObsoleted(this);
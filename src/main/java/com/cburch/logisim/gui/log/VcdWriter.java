@@ -0,0 +1,178 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import static com.cburch.logisim.gui.Strings.S;
+
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.generated.BuildInfo;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import javax.swing.filechooser.FileFilter;
+
+/**
+ * Writes signal waveforms as a Value Change Dump (IEEE 1364 VCD). Only changes are written, and
+ * the only state kept is the last value of each signal, so memory use does not depend on how long
+ * the simulation runs.
+ *
+ * <p>Signals are declared with {@link #addSignal} before the first call to {@link #setTime} or
+ * {@link #change}; the header is written at that point and cannot be extended afterwards.
+ */
+public class VcdWriter implements Closeable {
+
+  private static class VcdFileFilter extends FileFilter {
+    @Override
+    public boolean accept(File f) {
+      return !f.isFile() || isVcdFile(f);
+    }
+
+    @Override
+    public String getDescription() {
+      return S.get("vcdFileFilter");
+    }
+  }
+
+  public static final FileFilter FILE_FILTER = new VcdFileFilter();
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final BufferedWriter out;
+  private final String scope;
+  private final String timescale;
+  private final ArrayList<String> names = new ArrayList<>();
+  private final ArrayList<Integer> widths = new ArrayList<>();
+  private Value[] last;
+  private String[] codes;
+  private long time = -1;
+  private boolean timeWritten;
+
+  /**
+   * Creates the file, replacing any existing one.
+   *
+   * @param scope Name of the module the signals are declared in, usually the circuit name.
+   * @param timescale VCD time unit, for instance {@code "1 ns"}.
+   */
+  public VcdWriter(Path file, String scope, String timescale) throws IOException {
+    this(Files.newOutputStream(file), scope, timescale);
+  }
+
+  /** Writes to the given stream, which is closed by {@link #close}. */
+  public VcdWriter(OutputStream stream, String scope, String timescale) {
+    this.out =
+        new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.US_ASCII), BUFFER_SIZE);
+    this.scope = identifier(scope);
+    this.timescale = timescale;
+  }
+
+  public static boolean isVcdFile(File f) {
+    return f.getName().toLowerCase().endsWith(".vcd");
+  }
+
+  /** Declares a signal, returning the index to pass to {@link #change}. */
+  public int addSignal(String name, int width) {
+    if (last != null) throw new IllegalStateException("VCD header already written");
+    names.add(identifier(name));
+    widths.add(width);
+    return names.size() - 1;
+  }
+
+  public int getSignalCount() {
+    return names.size();
+  }
+
+  private static String identifier(String name) {
+    final var ret = name.trim().replaceAll("\\s+", "_");
+    return ret.isEmpty() ? "_" : ret;
+  }
+
+  /** Short printable code of a signal, as VCD uses in value changes. */
+  private static String code(int index) {
+    final var ret = new StringBuilder();
+    do {
+      ret.append((char) ('!' + index % 94));
+      index /= 94;
+    } while (index > 0);
+    return ret.toString();
+  }
+
+  private void writeHeader() throws IOException {
+    last = new Value[names.size()];
+    codes = new String[names.size()];
+    out.write("$date " + new Date() + " $end\n");
+    out.write("$version " + BuildInfo.displayName + " $end\n");
+    out.write("$timescale " + timescale + " $end\n");
+    out.write("$scope module " + scope + " $end\n");
+    for (var i = 0; i < names.size(); i++) {
+      codes[i] = code(i);
+      out.write("$var wire " + widths.get(i) + " " + codes[i] + " " + names.get(i) + " $end\n");
+    }
+    out.write("$upscope $end\n");
+    out.write("$enddefinitions $end\n");
+  }
+
+  /** Moves to the given time, which may not go backwards. */
+  public void setTime(long t) throws IOException {
+    if (last == null) writeHeader();
+    if (t < time) throw new IllegalArgumentException("VCD time went backwards: " + t);
+    if (t != time) {
+      time = t;
+      timeWritten = false;
+    }
+  }
+
+  /** Records the value of a signal at the current time, writing it only if it changed. */
+  public void change(int signal, Value v) throws IOException {
+    if (last == null) setTime(0);
+    if (v == null || v.equals(last[signal])) return;
+    if (!timeWritten) {
+      out.write('#');
+      out.write(Long.toString(time));
+      out.write('\n');
+      timeWritten = true;
+    }
+    last[signal] = v;
+    final var width = widths.get(signal);
+    if (width == 1) {
+      out.write(bitChar(v.get(0)));
+    } else {
+      out.write('b');
+      for (var i = width - 1; i >= 0; i--) out.write(bitChar(v.get(i)));
+      out.write(' ');
+    }
+    out.write(codes[signal]);
+    out.write('\n');
+  }
+
+  private static char bitChar(Value bit) {
+    if (bit == Value.TRUE) return '1';
+    if (bit == Value.FALSE) return '0';
+    // an unknown value in Logisim is an undriven one
+    return bit == Value.UNKNOWN ? 'z' : 'x';
+  }
+
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (last == null) writeHeader();
+    out.close();
+  }
+}
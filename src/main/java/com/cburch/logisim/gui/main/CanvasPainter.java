@@ -46,6 +46,7 @@ class CanvasPainter implements PropertyChangeListener {
     AppPreferences.GRID_BG_COLOR.addPropertyChangeListener(this);
     AppPreferences.GRID_DOT_COLOR.addPropertyChangeListener(this);
     AppPreferences.GRID_ZOOMED_DOT_COLOR.addPropertyChangeListener(this);
+    AppPreferences.HOT_SPOTS.addPropertyChangeListener(this);
   }
 
   private void drawWidthIncompatibilityData(Graphics base, Graphics g, Project proj) {
@@ -200,6 +201,11 @@ class CanvasPainter implements PropertyChangeListener {
     var circ = proj.getCurrentCircuit();
 
     var circState = proj.getCircuitState();
+    final var hotSpots = AppPreferences.HOT_SPOTS.get();
+    if (!hotSpots.equals(AppPreferences.HOT_SPOTS_NONE)) {
+      HotSpotPainter.paint(
+          gfxScaled, circ, circState, hotSpots.equals(AppPreferences.HOT_SPOTS_TIME));
+    }
     var ptContext = new ComponentDrawContext(canvas, circ, circState, g, gfxScaled);
     ptContext.setHighlightedWires(highlightedWires);
     gfxScaled.setColor(Color.RED);
@@ -215,7 +221,8 @@ class CanvasPainter implements PropertyChangeListener {
   public void propertyChange(PropertyChangeEvent event) {
     if (AppPreferences.GRID_BG_COLOR.isSource(event)
         || AppPreferences.GRID_DOT_COLOR.isSource(event)
-        || AppPreferences.GRID_ZOOMED_DOT_COLOR.isSource(event)) {
+        || AppPreferences.GRID_ZOOMED_DOT_COLOR.isSource(event)
+        || AppPreferences.HOT_SPOTS.isSource(event)) {
       canvas.repaint();
     }
   }
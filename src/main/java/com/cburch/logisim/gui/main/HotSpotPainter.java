@@ -0,0 +1,81 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.main;
+
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.HotSpots;
+import com.cburch.logisim.circuit.SubcircuitFactory;
+import com.cburch.logisim.circuit.Wire;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.util.GraphicsUtil;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.util.HashMap;
+
+/**
+ * Draws the recent {@link HotSpots} of a circuit state over the circuit, as a heat map of either
+ * the number of events or the propagation time. A subcircuit is as hot as everything inside it.
+ */
+class HotSpotPainter {
+  private HotSpotPainter() {}
+
+  static void paint(Graphics g, Circuit circ, CircuitState state, boolean byTime) {
+    final var hotSpots = state.getHotSpots();
+    if (hotSpots == null) return;
+    final var snapshot = hotSpots.snapshot();
+    final var heats = new HashMap<Component, Long>();
+    var max = 0L;
+    for (final var comp : circ.getNonWires()) {
+      final long heat;
+      if (comp.getFactory() instanceof SubcircuitFactory) {
+        heat = byTime ? snapshot.getSubcircuitNanos(comp) : snapshot.getSubcircuitEvents(comp);
+      } else {
+        heat = byTime ? snapshot.getNanos(comp) : snapshot.getEvents(comp);
+      }
+      if (heat == 0) continue;
+      heats.put(comp, heat);
+      max = Math.max(max, heat);
+    }
+    // wires are not propagated, so they only have events
+    if (!byTime) {
+      for (final var wire : circ.getWires()) {
+        final var heat =
+            Math.max(snapshot.getEvents(wire.getEnd0()), snapshot.getEvents(wire.getEnd1()));
+        if (heat == 0) continue;
+        heats.put(wire, heat);
+        max = Math.max(max, heat);
+      }
+    }
+    if (max == 0) return;
+
+    final var scale = Math.log1p(max);
+    for (final var entry : heats.entrySet()) {
+      g.setColor(color(Math.log1p(entry.getValue()) / scale));
+      if (entry.getKey() instanceof Wire wire) {
+        GraphicsUtil.switchToWidth(g, 7);
+        final var e0 = wire.getEnd0();
+        final var e1 = wire.getEnd1();
+        g.drawLine(e0.getX(), e0.getY(), e1.getX(), e1.getY());
+      } else {
+        final var bds = entry.getKey().getBounds(g).expand(3);
+        g.fillRect(bds.getX(), bds.getY(), bds.getWidth(), bds.getHeight());
+      }
+    }
+    GraphicsUtil.switchToWidth(g, 1);
+  }
+
+  /** Translucent yellow for little activity, up to red for the most. */
+  private static Color color(double ratio) {
+    final var green = (int) Math.round(220 * (1 - ratio));
+    final var alpha = (int) Math.round(60 + 100 * ratio);
+    return new Color(255, green, 0, alpha);
+  }
+}
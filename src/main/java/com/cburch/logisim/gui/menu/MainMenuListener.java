@@ -104,6 +104,8 @@ public class MainMenuListener extends MenuListener {
         proj.doAction(new RevertAppearanceAction(cur));
       } else if (src == LogisimMenuBar.ANALYZE_CIRCUIT) {
         ProjectCircuitActions.doAnalyze(proj, cur);
+      } else if (src == LogisimMenuBar.CHECK_EQUIVALENCE) {
+        ProjectCircuitActions.doCheckEquivalence(proj, cur);
       } else if (src == LogisimMenuBar.CIRCUIT_STATS) {
         StatisticsDialog.show(frame, proj.getLogisimFile(), cur);
       }
@@ -147,6 +149,7 @@ public class MainMenuListener extends MenuListener {
       menubar.setEnabled(LogisimMenuBar.TOGGLE_APPEARANCE, true);
       menubar.setEnabled(LogisimMenuBar.REVERT_APPEARANCE, canRevert);
       menubar.setEnabled(LogisimMenuBar.ANALYZE_CIRCUIT, true);
+      menubar.setEnabled(LogisimMenuBar.CHECK_EQUIVALENCE, true);
       menubar.setEnabled(LogisimMenuBar.CIRCUIT_STATS, true);
       fireEnableChanged();
     }
@@ -222,6 +225,7 @@ public class MainMenuListener extends MenuListener {
       menubar.addActionListener(LogisimMenuBar.TOGGLE_APPEARANCE, this);
       menubar.addActionListener(LogisimMenuBar.REVERT_APPEARANCE, this);
       menubar.addActionListener(LogisimMenuBar.ANALYZE_CIRCUIT, this);
+      menubar.addActionListener(LogisimMenuBar.CHECK_EQUIVALENCE, this);
       menubar.addActionListener(LogisimMenuBar.CIRCUIT_STATS, this);
 
       computeEnabled();
@@ -39,6 +39,8 @@ class MenuProject extends Menu {
   private final MenuItemImpl toggleLayoutAppearance =
       new MenuItemImpl(this, LogisimMenuBar.TOGGLE_APPEARANCE);
   private final MenuItemImpl analyze = new MenuItemImpl(this, LogisimMenuBar.ANALYZE_CIRCUIT);
+  private final MenuItemImpl equivalence =
+      new MenuItemImpl(this, LogisimMenuBar.CHECK_EQUIVALENCE);
   private final MenuItemImpl stats = new MenuItemImpl(this, LogisimMenuBar.CIRCUIT_STATS);
   private final JMenuItem options = new JMenuItem();
 
@@ -61,6 +63,7 @@ class MenuProject extends Menu {
     menubar.registerItem(LogisimMenuBar.EDIT_APPEARANCE, appearance);
     menubar.registerItem(LogisimMenuBar.TOGGLE_APPEARANCE, toggleLayoutAppearance);
     menubar.registerItem(LogisimMenuBar.ANALYZE_CIRCUIT, analyze);
+    menubar.registerItem(LogisimMenuBar.CHECK_EQUIVALENCE, equivalence);
     menubar.registerItem(LogisimMenuBar.CIRCUIT_STATS, stats);
     options.addActionListener(myListener);
 
@@ -84,6 +87,7 @@ class MenuProject extends Menu {
     add(appearance);
     addSeparator();
     add(analyze);
+    add(equivalence);
     add(stats);
     addSeparator();
     add(options);
@@ -113,6 +117,7 @@ class MenuProject extends Menu {
             || revertAppearance.hasListeners()
             || appearance.hasListeners()
             || analyze.hasListeners()
+            || equivalence.hasListeners()
             || stats.hasListeners());
     menubar.fireEnableChanged();
   }
@@ -136,6 +141,7 @@ class MenuProject extends Menu {
     appearance.setText(S.get("projectEditCircuitAppearanceItem"));
     toggleLayoutAppearance.setText(S.get("projectToggleCircuitAppearanceItem"));
     analyze.setText(S.get("projectAnalyzeCircuitItem"));
+    equivalence.setText(S.get("projectCheckEquivalenceItem"));
     stats.setText(S.get("projectGetCircuitStatisticsItem"));
     options.setText(S.get("projectOptionsItem"));
   }
@@ -17,6 +17,7 @@ import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.circuit.Simulator;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.util.ArrayList;
 import java.util.List;
@@ -45,6 +46,8 @@ public class MenuSimulate extends Menu {
   private final MenuItemCheckImpl ticksEnabled;
   private final MenuItemImpl tickHalf;
   private final MenuItemImpl tickFull;
+  private final JMenuItem tickBackHalf = new JMenuItem();
+  private final JMenuItem tickBackFull = new JMenuItem();
   private final JMenu tickFreq = new JMenu();
   private final TickFrequencyChoice[] tickFreqs =
       new TickFrequencyChoice[SUPPORTED_TICK_FREQUENCIES.length];
@@ -84,6 +87,9 @@ public class MenuSimulate extends Menu {
     step.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_I, menuMask));
     tickHalf.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_T, menuMask));
     tickFull.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F9, 0));
+    tickBackHalf.setAccelerator(
+        KeyStroke.getKeyStroke(KeyEvent.VK_T, menuMask | InputEvent.SHIFT_DOWN_MASK));
+    tickBackFull.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F9, InputEvent.SHIFT_DOWN_MASK));
     ticksEnabled.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_K, menuMask));
 
     final var bgroup = new ButtonGroup();
@@ -104,6 +110,8 @@ public class MenuSimulate extends Menu {
     addSeparator();
     add(tickHalf);
     add(tickFull);
+    add(tickBackHalf);
+    add(tickBackFull);
     add(ticksEnabled);
     add(tickFreq);
     addSeparator();
@@ -122,6 +130,8 @@ public class MenuSimulate extends Menu {
     downStateMenu.setEnabled(false);
     tickHalf.setEnabled(false);
     tickFull.setEnabled(false);
+    tickBackHalf.setEnabled(false);
+    tickBackFull.setEnabled(false);
     ticksEnabled.setEnabled(false);
     tickFreq.setEnabled(false);
 
@@ -135,6 +145,8 @@ public class MenuSimulate extends Menu {
     menubar.addActionListener(LogisimMenuBar.TICK_FULL, myListener);
     // runToggle.addActionListener(myListener);
     reset.addActionListener(myListener);
+    tickBackHalf.addActionListener(myListener);
+    tickBackFull.addActionListener(myListener);
     // step.addActionListener(myListener);
     // tickHalf.addActionListener(myListener);
     // tickFull.addActionListener(myListener);
@@ -184,6 +196,8 @@ public class MenuSimulate extends Menu {
     downStateMenu.setEnabled(present);
     tickHalf.setEnabled(present);
     tickFull.setEnabled(present);
+    tickBackHalf.setEnabled(present);
+    tickBackFull.setEnabled(present);
     ticksEnabled.setEnabled(present);
     tickFreq.setEnabled(present);
     menubar.fireEnableChanged();
@@ -198,6 +212,8 @@ public class MenuSimulate extends Menu {
     vhdlSimFiles.setText(S.get("simulateGenVhdlFilesItem"));
     tickHalf.setText(S.get("simulateTickHalfItem"));
     tickFull.setText(S.get("simulateTickFullItem"));
+    tickBackHalf.setText(S.get("simulateTickBackHalfItem"));
+    tickBackFull.setText(S.get("simulateTickBackFullItem"));
     ticksEnabled.setText(S.get("simulateTickItem"));
     tickFreq.setText(S.get("simulateTickFreqMenu"));
 
@@ -380,6 +396,10 @@ public class MenuSimulate extends Menu {
         sim.tick(1);
       } else if (src == tickFull || src == LogisimMenuBar.TICK_FULL) {
         sim.tick(2);
+      } else if (src == tickBackHalf) {
+        sim.stepBack(1);
+      } else if (src == tickBackFull) {
+        sim.stepBack(2);
       } else if (src == ticksEnabled || src == LogisimMenuBar.TICK_ENABLE) {
         sim.setAutoTicking(!sim.isAutoTicking());
       } else if (src == assemblyWindow) {
@@ -15,6 +15,7 @@ import com.cburch.contracts.BaseWindowFocusListenerContract;
 import com.cburch.logisim.analyze.gui.Analyzer;
 import com.cburch.logisim.analyze.gui.AnalyzerManager;
 import com.cburch.logisim.analyze.model.AnalyzerModel;
+import com.cburch.logisim.analyze.model.Bdd;
 import com.cburch.logisim.analyze.model.Var;
 import com.cburch.logisim.circuit.Analyze;
 import com.cburch.logisim.circuit.AnalyzeException;
@@ -31,17 +32,26 @@ import com.cburch.logisim.tools.AddTool;
 import com.cburch.logisim.tools.Library;
 import com.cburch.logisim.util.SyntaxChecker;
 import com.cburch.logisim.vhdl.base.VhdlContent;
+import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.event.WindowEvent;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JButton;
+import javax.swing.JDialog;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
 import javax.swing.JTextField;
+import javax.swing.SwingWorker;
 
 public class ProjectCircuitActions {
   private ProjectCircuitActions() {
@@ -191,6 +201,98 @@ public class ProjectCircuitActions {
     analyzer.toFront();
   }
 
+  /**
+   * Asks for another circuit of the project, and shows whether it computes the same outputs as the
+   * given one, see {@link Analyze#checkEquivalence}.
+   */
+  public static void doCheckEquivalence(Project proj, Circuit circuit) {
+    final var others = new ArrayList<Circuit>(proj.getLogisimFile().getCircuits());
+    others.remove(circuit);
+    if (others.isEmpty()) {
+      OptionPane.showMessageDialog(proj.getFrame(), S.get("equivalenceNoOtherCircuit"),
+          S.get("equivalenceTitle"), OptionPane.INFORMATION_MESSAGE);
+      return;
+    }
+    final var other = (Circuit) OptionPane.showInputDialog(proj.getFrame(),
+        S.get("equivalenceChooseMessage", circuit.getName()), S.get("equivalenceTitle"),
+        OptionPane.QUESTION_MESSAGE, null, others.toArray(), others.get(0));
+    if (other == null) return;
+
+    final var progress = new JProgressBar(0, 100);
+    progress.setStringPainted(true);
+    final var cancelButton = new JButton(S.get("equivalenceCancel"));
+    final var dialog = new JDialog(proj.getFrame(), S.get("equivalenceTitle"), true);
+    dialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+    dialog.add(new JLabel(S.get("equivalenceChecking", circuit.getName(), other.getName())),
+        BorderLayout.NORTH);
+    dialog.add(progress, BorderLayout.CENTER);
+    dialog.add(cancelButton, BorderLayout.SOUTH);
+    dialog.pack();
+    dialog.setLocationRelativeTo(proj.getFrame());
+    // the check can be cancelled, which interrupts it and closes the dialog at once
+    final var worker = new SwingWorker<List<String>, Void>() {
+      @Override
+      protected List<String> doInBackground() throws AnalyzeException {
+        return Analyze.checkEquivalence(circuit, other, this::setProgress);
+      }
+
+      @Override
+      protected void done() {
+        dialog.dispose();
+        if (isCancelled()) return;
+        try {
+          showEquivalence(proj, circuit, other, get());
+        } catch (ExecutionException e) {
+          showEquivalenceError(proj, e.getCause());
+        } catch (InterruptedException e) {
+          // done is only called once the work has ended, so get does not wait
+        }
+      }
+    };
+    worker.addPropertyChangeListener(event -> {
+      if ("progress".equals(event.getPropertyName())) {
+        progress.setValue((Integer) event.getNewValue());
+      }
+    });
+    cancelButton.addActionListener(event -> worker.cancel(true));
+    worker.execute();
+    dialog.setVisible(true);
+  }
+
+  private static void showEquivalenceError(Project proj, Throwable cause) {
+    final String message;
+    if (cause instanceof AnalyzeException.CannotHandle cannotHandle) {
+      message = S.get("equivalenceCannotHandle", cannotHandle.getReason());
+    } else if (cause instanceof AnalyzeException.Circular) {
+      message = S.get("equivalenceCircular");
+    } else if (cause instanceof AnalyzeException.Conflict) {
+      message = S.get("equivalenceConflict");
+    } else if (cause instanceof Bdd.NodeLimitException) {
+      message = S.get("equivalenceTooLarge");
+    } else {
+      throw new IllegalStateException(cause);
+    }
+    OptionPane.showMessageDialog(proj.getFrame(), message, S.get("equivalenceTitle"),
+        OptionPane.ERROR_MESSAGE);
+  }
+
+  private static void showEquivalence(Project proj, Circuit circuit, Circuit other,
+      List<String> differences) {
+    if (differences.isEmpty()) {
+      OptionPane.showMessageDialog(proj.getFrame(), S.get("equivalenceSame", circuit.getName(),
+          other.getName()), S.get("equivalenceTitle"), OptionPane.INFORMATION_MESSAGE);
+      return;
+    }
+    final var text = new JTextArea(String.join("\n", differences), 10, 60);
+    text.setEditable(false);
+    final var panel = new JPanel(new BorderLayout());
+    panel.add(new JLabel(S.get("equivalenceDifferent", circuit.getName(), other.getName())),
+        BorderLayout.NORTH);
+    panel.add(new JScrollPane(text), BorderLayout.CENTER);
+    OptionPane.showMessageDialog(proj.getFrame(), panel, S.get("equivalenceTitle"),
+        OptionPane.WARNING_MESSAGE);
+  }
+
   public static void doMoveCircuit(Project proj, Circuit cur, int delta) {
     final var tool = proj.getLogisimFile().getAddTool(cur);
     if (tool != null) {
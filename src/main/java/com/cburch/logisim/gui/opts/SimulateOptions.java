@@ -38,6 +38,7 @@ class SimulateOptions extends OptionsPanel {
 
   private final JCheckBox simRandomness = new JCheckBox();
   private final JCheckBox memUnknown = new JCheckBox();
+  private final JCheckBox memOffHeap = new JCheckBox();
   private final JLabel gateUndefinedLabel = new JLabel();
 
   @SuppressWarnings({"rawtypes", "unchecked"})
@@ -66,8 +67,12 @@ class SimulateOptions extends OptionsPanel {
     memUnknown.addActionListener(myListener);
     memUnknown.setSelected(AppPreferences.Memory_Startup_Unknown.get());
 
+    memOffHeap.addActionListener(myListener);
+    memOffHeap.setSelected(AppPreferences.Memory_Off_Heap.get());
+
     setLayout(new TableLayout(1));
     add(memUnknown);
+    add(memOffHeap);
     add(simLimitPanel);
     add(gateUndefinedPanel);
     add(simRandomness);
@@ -95,6 +100,7 @@ class SimulateOptions extends OptionsPanel {
     gateUndefinedLabel.setText(S.get("gateUndefined"));
     simRandomness.setText(S.get("simulateRandomness"));
     memUnknown.setText(S.get("MemoriesStartupUnknown"));
+    memOffHeap.setText(S.get("MemoriesOffHeap"));
   }
 
   private class MyListener implements ActionListener, AttributeListener {
@@ -123,6 +129,8 @@ class SimulateOptions extends OptionsPanel {
         AppPreferences.Memory_Startup_Unknown.set(memUnknown.isSelected());
         final var sim = getProject().getSimulator();
         if (sim != null) sim.reset();
+      } else if (source == memOffHeap) {
+        AppPreferences.Memory_Off_Heap.set(memOffHeap.isSelected());
       }
     }
 
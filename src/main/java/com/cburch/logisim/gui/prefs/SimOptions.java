@@ -26,6 +26,8 @@ import java.util.prefs.PreferenceChangeListener;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.SwingConstants;
 
 public class SimOptions extends OptionsPanel {
@@ -68,6 +70,12 @@ public class SimOptions extends OptionsPanel {
   private final ColorChooserButton widthErrorBackgroundColor;
   private final JButton defaultButton = new JButton();
   private final JButton colorBlindButton = new JButton();
+  private final JLabel historyCheckpointsTitle = new JLabel();
+  private final HistorySpinner historyCheckpoints =
+      new HistorySpinner(AppPreferences.SIM_HISTORY_CHECKPOINTS, 0);
+  private final JLabel historyIntervalTitle = new JLabel();
+  private final HistorySpinner historyInterval =
+      new HistorySpinner(AppPreferences.SIM_HISTORY_INTERVAL, 1);
   private final JLabel kmap1ColorTitle = new JLabel();
   private final JLabel kmap2ColorTitle = new JLabel();
   private final JLabel kmap3ColorTitle = new JLabel();
@@ -213,6 +221,16 @@ public class SimOptions extends OptionsPanel {
     clockFrequencyColor = new ColorChooserButton(window, AppPreferences.CLOCK_FREQUENCY_COLOR);
     add(clockFrequencyColor, c);
 
+    c.gridx = 0;
+    c.gridy++;
+    add(historyCheckpointsTitle, c);
+    c.gridx++;
+    add(historyCheckpoints, c);
+    c.gridx++;
+    add(historyIntervalTitle, c);
+    c.gridx++;
+    add(historyInterval, c);
+
     c.gridx = 0;
     c.gridy++;
     c.gridwidth = 4;
@@ -358,6 +376,8 @@ public class SimOptions extends OptionsPanel {
     widthErrorHighlightColorTitle.setText(S.get("simWidthErrorHighlightTitle"));
     widthErrorBackgroundColorTitle.setText(S.get("simWidthErrorBackgroundTitle"));
     clockFrequencyColorTitle.setText(S.get("simClockFrequencyTitle"));
+    historyCheckpointsTitle.setText(S.get("simHistoryCheckpointsTitle"));
+    historyIntervalTitle.setText(S.get("simHistoryIntervalTitle"));
     defaultButton.setText(S.get("simDefaultColors"));
     colorBlindButton.setText(S.get("simColorBlindColors"));
     kmap1ColorTitle.setText(S.get("simKmapColors", 1));
@@ -521,6 +541,19 @@ public class SimOptions extends OptionsPanel {
     }
   }
 
+  private static class HistorySpinner extends JSpinner {
+    private static final long serialVersionUID = 1L;
+
+    public HistorySpinner(PrefMonitor<Integer> pref, int min) {
+      super(new SpinnerNumberModel(Math.max(min, pref.get()), min, 4096, 1));
+      addChangeListener(e -> pref.set((Integer) getValue()));
+      pref.addPropertyChangeListener(
+          e -> {
+            if (pref.isSource(e)) setValue(Math.max(min, pref.get()));
+          });
+    }
+  }
+
   private static class SymbolChooser extends JComboBox<Character> {
     private static final long serialVersionUID = 1L;
     private final PrefMonitor<String> myPref;
@@ -15,7 +15,9 @@ import com.cburch.logisim.Main;
 import com.cburch.logisim.file.LoadFailedException;
 import com.cburch.logisim.file.Loader;
 import com.cburch.logisim.fpga.download.Download;
+import com.cburch.logisim.fpga.download.HdlExport;
 import com.cburch.logisim.fpga.file.BoardReaderClass;
+import com.cburch.logisim.fpga.hdlgenerator.HdlGeneratorFactory;
 import com.cburch.logisim.generated.BuildInfo;
 import com.cburch.logisim.gui.generic.CanvasPane;
 import com.cburch.logisim.gui.generic.OptionPane;
@@ -93,10 +95,12 @@ public class Startup implements AWTEventListener {
   private boolean templPlain = false;
   private String testVector = null;
   private String circuitToTest = null;
+  private int testVectorThreads = 0;
   private boolean exitAfterStartup = false;
   private boolean showSplash;
   private File loadFile;
   private File saveFile;
+  private File vcdFile;
   private int ttyFormat = 0;
   // from other sources
   private boolean initialized = false;
@@ -118,6 +122,12 @@ public class Startup implements AWTEventListener {
   /* Testing Xml (circ file) Variable */
   private String testCircPathInput = null;
   private String testCircPathOutput = null;
+  /* Directory to export the HDL to, without a board */
+  private String exportHdlDir = null;
+  /* Language of the HDL export, or null for the one of the preferences */
+  private String exportHdlType = null;
+  /* Number of ticks of the testbench written with the HDL export, or 0 for none */
+  private int hdlTestbenchTicks = 0;
 
   private Startup(boolean isTty) {
     this.isTty = isTty;
@@ -147,6 +157,7 @@ public class Startup implements AWTEventListener {
   private static final String ARG_LOAD_SHORT = "l";
   private static final String ARG_LOAD_LONG = "load";
   private static final String ARG_SAVE_LONG = "save";
+  private static final String ARG_VCD_LONG = "vcd";
   private static final String ARG_GEOMETRY_SHORT = "m";
   private static final String ARG_GEOMETRY_LONG = "geometry";
   private static final String ARG_TEST_CIRC_GEN_SHORT = "n";
@@ -164,8 +175,13 @@ public class Startup implements AWTEventListener {
   private static final String ARG_VERSION_LONG = "version";
   private static final String ARG_TEST_VECTOR_SHORT = "w";
   private static final String ARG_TEST_VECTOR_LONG = "test-vector";
+  private static final String ARG_TEST_VECTOR_THREADS_LONG = "test-vector-threads";
   private static final String ARG_NO_SPLASH_LONG = "no-splash";
   private static final String ARG_MAIN_CIRCUIT = "toplevel-circuit";
+  private static final String ARG_EXPORT_HDL_LONG = "export-hdl";
+  private static final String ARG_VHDL_LONG = "vhdl";
+  private static final String ARG_VERILOG_LONG = "verilog";
+  private static final String ARG_HDL_TESTBENCH_LONG = "hdl-testbench";
 
   /**
    * Parses provided string expecting it represent boolean option. Accepted values
@@ -313,10 +329,15 @@ public class Startup implements AWTEventListener {
     // It is assumed that evey option always has long-form switch. Short forms are optional.
     addOption(opts, "argTtyOption", ARG_TTY_LONG, ARG_TTY_SHORT, 1);
     addOption(opts, "argTestImplement", ARG_TEST_FGPA_LONG, ARG_TEST_FGPA_SHORT, Option.UNLIMITED_VALUES);  // We can have 3, 4 or 5 arguments here
+    addOption(opts, "argExportHdlOption", ARG_EXPORT_HDL_LONG, 1);
+    addOption(opts, "argVhdlOption", ARG_VHDL_LONG);
+    addOption(opts, "argVerilogOption", ARG_VERILOG_LONG);
+    addOption(opts, "argHdlTestbenchOption", ARG_HDL_TESTBENCH_LONG, 1);
     addOption(opts, "argClearOption", ARG_CLEAR_PREFS_LONG);
     addOption(opts, "argSubOption", ARG_SUBSTITUTE_LONG, ARG_SUBSTITUTE_SHORT, 2);
     addOption(opts, "argLoadOption", ARG_LOAD_LONG, ARG_LOAD_SHORT, 1);
     addOption(opts, "argSaveOption", ARG_SAVE_LONG, 1);
+    addOption(opts, "argVcdOption", ARG_VCD_LONG, 1);
     addOption(opts, "argGatesOption", ARG_GATES_LONG, ARG_GATES_SHORT, 1);
     addOption(opts, "argGeometryOption", ARG_GEOMETRY_LONG, ARG_GEOMETRY_SHORT, 1);
     addOption(opts, "argLocaleOption", ARG_LOCALE_LONG, ARG_LOCALE_SHORT, 1);
@@ -324,6 +345,7 @@ public class Startup implements AWTEventListener {
     addOption(opts, "argNoSplashOption", ARG_NO_SPLASH_LONG);
     addOption(opts, "argMainCircuitOption", ARG_MAIN_CIRCUIT, 1);
     addOption(opts, "argTestVectorOption", ARG_TEST_VECTOR_LONG, ARG_TEST_VECTOR_SHORT, 2);
+    addOption(opts, "argTestVectorThreadsOption", ARG_TEST_VECTOR_THREADS_LONG, 1);
     addOption(opts, "argTestCircuitOption", ARG_TEST_CIRCUIT_LONG, ARG_TEST_CIRCUIT_SHORT, 1);     // FIXME add "Option" suffix to key name
     addOption(opts, "argTestCircGenOption", ARG_TEST_CIRC_GEN_LONG, ARG_TEST_CIRC_GEN_SHORT, 2);   // FIXME add "Option" suffix to key name
 
@@ -344,7 +366,8 @@ public class Startup implements AWTEventListener {
     // see whether we'll be using any graphics
     var isTty = false;
     var shallClearPreferences = false;
-    if (cmd.hasOption(ARG_TTY_SHORT) || cmd.hasOption(ARG_TEST_FGPA_SHORT) || cmd.hasOption(ARG_TEST_FGPA_LONG)) {
+    if (cmd.hasOption(ARG_TTY_SHORT) || cmd.hasOption(ARG_TEST_FGPA_SHORT) || cmd.hasOption(ARG_TEST_FGPA_LONG)
+        || cmd.hasOption(ARG_EXPORT_HDL_LONG)) {
       isTty = true;
       Main.headless = true;
     } else {
@@ -383,13 +406,19 @@ public class Startup implements AWTEventListener {
         case ARG_SUBSTITUTE_LONG -> handleArgSubstitute(startup, opt);
         case ARG_LOAD_LONG -> handleArgLoad(startup, opt);
         case ARG_SAVE_LONG -> handleArgSave(startup, opt);
+        case ARG_VCD_LONG -> handleArgVcd(startup, opt);
         case ARG_GATES_LONG -> handleArgGates(startup, opt);
         case ARG_GEOMETRY_LONG -> handleArgGeometry(startup, opt);
         case ARG_LOCALE_LONG -> handleArgLocale(startup, opt);
         case ARG_TEMPLATE_LONG -> handleArgTemplate(startup, opt);
         case ARG_NO_SPLASH_LONG -> handleArgNoSplash(startup, opt);
         case ARG_TEST_VECTOR_LONG -> handleArgTestVector(startup, opt);
+        case ARG_TEST_VECTOR_THREADS_LONG -> handleArgTestVectorThreads(startup, opt);
         case ARG_TEST_FGPA_LONG -> handleArgTestFpga(startup, opt);
+        case ARG_EXPORT_HDL_LONG -> handleArgExportHdl(startup, opt);
+        case ARG_VHDL_LONG -> handleArgHdlType(startup, HdlGeneratorFactory.VHDL);
+        case ARG_VERILOG_LONG -> handleArgHdlType(startup, HdlGeneratorFactory.VERILOG);
+        case ARG_HDL_TESTBENCH_LONG -> handleArgHdlTestbench(startup, opt);
         case ARG_TEST_CIRCUIT_LONG -> handleArgTestCircuit(startup, opt);
         case ARG_TEST_CIRC_GEN_LONG -> handleArgTestCircGen(startup, opt);
         case ARG_MAIN_CIRCUIT -> handleArgMainCircuit(startup, opt);
@@ -425,6 +454,14 @@ public class Startup implements AWTEventListener {
       logger.error(S.get("saveNeedsTtyError"));
       return null;
     }
+    if (startup.vcdFile != null && !startup.isTty) {
+      logger.error(S.get("vcdNeedsTtyError"));
+      return null;
+    }
+    if (startup.hdlTestbenchTicks > 0 && startup.exportHdlDir == null) {
+      logger.error(S.get("hdlTestbenchNeedsExportError"));
+      return null;
+    }
 
     return startup;
   }
@@ -462,6 +499,7 @@ public class Startup implements AWTEventListener {
           case "tty" -> TtyInterface.FORMAT_TTY;
           case "halt" -> TtyInterface.FORMAT_HALT;
           case "stats" -> TtyInterface.FORMAT_STATISTICS;
+          case "profile" -> TtyInterface.FORMAT_PROFILE;
           case "binary" -> TtyInterface.FORMAT_TABLE_BIN;
           case "hex" -> TtyInterface.FORMAT_TABLE_HEX;
           case "csv" -> TtyInterface.FORMAT_TABLE_CSV;
@@ -474,8 +512,8 @@ public class Startup implements AWTEventListener {
           return RC.QUIT;
         }
         startup.ttyFormat |= val;
-        return RC.OK;
       }
+      return RC.OK;
     }
     logger.error(S.get("ttyFormatError"));
     return RC.QUIT;
@@ -515,6 +553,15 @@ public class Startup implements AWTEventListener {
     return RC.OK;
   }
 
+  private static RC handleArgVcd(Startup startup, Option opt) {
+    if (startup.vcdFile != null) {
+      logger.error(S.get("vcdMultipleError"));
+      return RC.WARN;
+    }
+    startup.vcdFile = new File(opt.getValue());
+    return RC.OK;
+  }
+
   private static RC handleArgGates(Startup startup, Option opt) {
     final var gateShape = opt.getValue().toLowerCase();
     if ("ansi".equals(gateShape)) {
@@ -629,6 +676,20 @@ public class Startup implements AWTEventListener {
     return RC.OK;
   }
 
+  private static RC handleArgTestVectorThreads(Startup startup, Option opt) {
+    try {
+      startup.testVectorThreads = Integer.parseInt(opt.getValue());
+    } catch (NumberFormatException e) {
+      logger.error(S.get("argTestVectorThreadsError", opt.getValue()));
+      return RC.QUIT;
+    }
+    if (startup.testVectorThreads < 1) {
+      logger.error(S.get("argTestVectorThreadsError", opt.getValue()));
+      return RC.QUIT;
+    }
+    return RC.OK;
+  }
+
   private static RC handleArgMainCircuit(Startup startup, Option opt) {
     startup.circuitToTest = opt.getValues()[0];
     return RC.OK;
@@ -716,6 +777,31 @@ public class Startup implements AWTEventListener {
     return RC.OK;
   }
 
+  private static RC handleArgExportHdl(Startup startup, Option opt) {
+    startup.exportHdlDir = opt.getValue();
+    startup.showSplash = false;
+    return RC.OK;
+  }
+
+  private static RC handleArgHdlType(Startup startup, String hdlType) {
+    startup.exportHdlType = hdlType;
+    return RC.OK;
+  }
+
+  private static RC handleArgHdlTestbench(Startup startup, Option opt) {
+    try {
+      startup.hdlTestbenchTicks = Integer.parseInt(opt.getValue());
+    } catch (NumberFormatException e) {
+      logger.error(S.get("argHdlTestbenchError", opt.getValue()));
+      return RC.QUIT;
+    }
+    if (startup.hdlTestbenchTicks < 1) {
+      logger.error(S.get("argHdlTestbenchError", opt.getValue()));
+      return RC.QUIT;
+    }
+    return RC.OK;
+  }
+
   private static RC handleArgTestCircuit(Startup startup, Option opt) {
     final var fileName = opt.getValue();
     startup.testCircuitPathInput = fileName;
@@ -787,6 +873,10 @@ public class Startup implements AWTEventListener {
     return saveFile;
   }
 
+  File getVcdFile() {
+    return vcdFile;
+  }
+
   String getCircuitToTest() {
     return circuitToTest;
   }
@@ -825,6 +915,27 @@ public class Startup implements AWTEventListener {
     return downloader.runTty();
   }
 
+  boolean isHdlExport() {
+    return exportHdlDir != null;
+  }
+
+  boolean exportHdl(Project proj, long loadTime) {
+    final var circuit = (circuitToTest == null || circuitToTest.isEmpty())
+        ? proj.getLogisimFile().getMainCircuit()
+        : proj.getLogisimFile().getCircuit(circuitToTest);
+    if (circuit == null) {
+      logger.error(S.get("exportHdlNoCircuitError", circuitToTest));
+      return false;
+    }
+    final var export = new HdlExport(proj, circuit, exportHdlDir, exportHdlType);
+    export.setTime(HdlExport.Phase.LOAD, loadTime);
+    if (hdlTestbenchTicks > 0) logger.warn(S.get("hdlTestbenchExperimental"));
+    export.setTestbenchTicks(hdlTestbenchTicks);
+    final var result = export.export();
+    export.printTimes(System.out);
+    return result;
+  }
+
   private void loadTemplate(Loader loader, File templFile, boolean templEmpty) {
     if (showSplash) {
       monitor.setProgress(SplashScreen.TEMPLATE_OPEN);
@@ -930,7 +1041,7 @@ public class Startup implements AWTEventListener {
         try {
           if (testVector != null) {
             proj = ProjectActions.doOpenNoWindow(monitor, fileToOpen);
-            proj.doTestVector(testVector, circuitToTest);
+            proj.doTestVector(testVector, circuitToTest, testVectorThreads);
           } else if (testCircPathInput != null && testCircPathOutput != null) {
             /* This part of the function will create a new circuit file (
              * XML) which will be open and saved again using the  */
@@ -16,12 +16,14 @@ import com.cburch.logisim.analyze.model.Var;
 import com.cburch.logisim.circuit.Analyze;
 import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.SimulationStatistics;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.file.FileStatistics;
 import com.cburch.logisim.file.LoadFailedException;
 import com.cburch.logisim.file.Loader;
 import com.cburch.logisim.file.LogisimFile;
 import com.cburch.logisim.gui.hex.HexFile;
+import com.cburch.logisim.gui.log.VcdWriter;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.StdAttr;
@@ -52,6 +54,7 @@ public class TtyInterface {
   public static final int FORMAT_TABLE_CSV = 64;
   public static final int FORMAT_TABLE_BIN = 128;
   public static final int FORMAT_TABLE_HEX = 256;
+  public static final int FORMAT_PROFILE = 512;
   static final Logger logger = LoggerFactory.getLogger(TtyInterface.class);
   private static boolean lastIsNewline = true;
 
@@ -269,6 +272,7 @@ public class TtyInterface {
   public static void run(Startup args) {
     final var fileToOpen = args.getFilesToOpen().get(0);
     final var loader = new Loader(null);
+    final var loadStart = System.nanoTime();
     LogisimFile file;
     try {
       file = loader.openLogisimFile(fileToOpen, args.getSubstitutions());
@@ -278,6 +282,9 @@ public class TtyInterface {
       return;
     }
     final var proj = new Project(file);
+    if (args.isHdlExport()) {
+      System.exit(args.exportHdl(proj, System.nanoTime() - loadStart) ? 0 : -1);
+    }
     if (args.isFpgaDownload()) {
       if (!args.fpgaDownload(proj)) System.exit(-1);
     }
@@ -292,7 +299,7 @@ public class TtyInterface {
       format &= ~FORMAT_STATISTICS;
       displayStatistics(file, circuit);
     }
-    if (format == 0) { // no simulation remaining to perform, so just exit
+    if (format == 0 && args.getVcdFile() == null) { // no simulation remaining to perform, so just exit
       System.exit(0);
     }
 
@@ -333,8 +340,25 @@ public class TtyInterface {
         System.exit(-1);
       }
     }
+    VcdDump vcd = null;
+    if (args.getVcdFile() != null) {
+      try {
+        vcd = new VcdDump(args.getVcdFile(), circuit, pinNames);
+      } catch (IOException e) {
+        logger.error("{}: {}", S.get("vcdIoError"), e.toString());
+        System.exit(-1);
+      }
+    }
     final var ttyFormat = args.getTtyFormat();
-    final var simCode = runSimulation(circState, outputPins, haltPin, ttyFormat);
+    final var simCode = runSimulation(circState, outputPins, haltPin, ttyFormat, vcd);
+    if (vcd != null) {
+      try {
+        vcd.writer.close();
+      } catch (IOException e) {
+        logger.error("{}: {}", S.get("vcdIoError"), e.toString());
+        System.exit(-1);
+      }
+    }
 
     if (args.getSaveFile() != null) {
       try {
@@ -447,9 +471,11 @@ public class TtyInterface {
     return 0;
   }
 
-  private static int runSimulation(CircuitState circState, ArrayList<Instance> outputPins, Instance haltPin, int format) {
+  private static int runSimulation(
+      CircuitState circState, ArrayList<Instance> outputPins, Instance haltPin, int format, VcdDump vcd) {
     final var showTable = (format & FORMAT_TABLE) != 0;
     final var showSpeed = (format & FORMAT_SPEED) != 0;
+    final var showProfile = (format & FORMAT_PROFILE) != 0;
     final var showTty = (format & FORMAT_TTY) != 0;
     final var showHalt = (format & FORMAT_HALT) != 0;
 
@@ -472,6 +498,11 @@ public class TtyInterface {
 
     var retCode = 0;
     long tickCount = 0;
+    final var stats = SimulationStatistics.getInstance();
+    if (showProfile) {
+      stats.reset();
+      stats.setEnabled(true);
+    }
     final var start = System.currentTimeMillis();
     var halted = false;
     ArrayList<Value> prevOutputs = null;
@@ -490,6 +521,14 @@ public class TtyInterface {
       if (showTable) {
         displayTableRow(prevOutputs, curOutputs);
       }
+      if (vcd != null) {
+        try {
+          vcd.dump(circState, tickCount);
+        } catch (IOException e) {
+          logger.error("{}: {}", S.get("vcdIoError"), e.toString());
+          vcd = null;
+        }
+      }
 
       if (halted) {
         retCode = 0; // normal exit
@@ -524,9 +563,32 @@ public class TtyInterface {
     if (showSpeed) {
       displaySpeed(tickCount, elapse);
     }
+    if (showProfile) {
+      stats.setEnabled(false);
+      System.out.print(stats.getReport());
+    }
     return retCode;
   }
 
+  /** Dumps the top-level pins of the simulated circuit, one VCD time unit per clock tick. */
+  private static class VcdDump {
+    final VcdWriter writer;
+    final Instance[] pins;
+
+    VcdDump(File file, Circuit circuit, Map<Instance, String> pinNames) throws IOException {
+      writer = new VcdWriter(file.toPath(), circuit.getName(), "1 ns");
+      pins = pinNames.keySet().toArray(new Instance[0]);
+      for (final var pin : pins)
+        writer.addSignal(pinNames.get(pin), pin.getAttributeValue(StdAttr.WIDTH).getWidth());
+    }
+
+    void dump(CircuitState circState, long tick) throws IOException {
+      writer.setTime(tick);
+      for (var i = 0; i < pins.length; i++)
+        writer.change(i, Pin.FACTORY.getValue(circState.getInstanceState(pins[i])));
+    }
+  }
+
   public static void sendFromTty(char c) {
     lastIsNewline = c == '\n';
     System.out.print(c);
@@ -102,7 +102,7 @@ class Model {
     stop();
     synchronized (this) {
       vec = v;
-      results = (v != null ? new TestException[v.data.size()] : null);
+      results = (v != null ? new TestException[v.getRowCount()] : null);
       numPass = numFail = 0;
       failed.clear();
       passed.clear();
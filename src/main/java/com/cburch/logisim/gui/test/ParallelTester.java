@@ -0,0 +1,156 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.test;
+
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.SubcircuitFactory;
+import com.cburch.logisim.data.TestException;
+import com.cburch.logisim.data.TestVector;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.std.memory.Ram;
+import com.cburch.logisim.util.UniquelyNamedThread;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Runs the rows of a test vector on a pool of worker threads. Every worker owns a clone of the
+ * circuit state, so this is only valid when rows do not depend on each other (see {@link
+ * #canRunInParallel}). Results are handed out in row order, as soon as all earlier rows are done.
+ */
+class ParallelTester {
+
+  interface ResultHandler {
+    /**
+     * Receives the result of one row, in row order.
+     *
+     * @param row Index of the row in the test vector.
+     * @param result null if the row passed, otherwise the failure.
+     * @return false to stop testing.
+     */
+    boolean handle(int row, TestException result);
+  }
+
+  /** Number of rows a worker tests before handing its results back. */
+  private static final int CHUNK_SIZE = 64;
+
+  /** Number of chunks per worker that may be queued ahead of the result consumer. */
+  private static final int CHUNKS_AHEAD = 4;
+
+  private final Circuit circuit;
+  private final Instance[] pin;
+  private final TestVector vector;
+  private final int threads;
+  private final LinkedBlockingQueue<CircuitState> states = new LinkedBlockingQueue<>();
+
+  ParallelTester(Circuit circuit, Instance[] pin, TestVector vector, CircuitState template, int threads) {
+    this.circuit = circuit;
+    this.pin = pin;
+    this.vector = vector;
+    this.threads = threads;
+    final var base = template.cloneState();
+    for (var i = 0; i < threads; i++) states.add(base.cloneState());
+  }
+
+  /**
+   * Returns whether the rows of a test vector are independent for the given circuit. Every row
+   * starts from a reset, so this only fails for RAMs that keep their contents across resets.
+   */
+  static boolean canRunInParallel(Circuit circuit) {
+    return canRunInParallel(circuit, new HashSet<>());
+  }
+
+  private static boolean canRunInParallel(Circuit circuit, HashSet<Circuit> visited) {
+    if (!visited.add(circuit)) return true;
+    for (final var comp : circuit.getNonWires()) {
+      final var factory = comp.getFactory();
+      if (factory instanceof Ram ram && ram.isNonVolatile(comp.getAttributeSet())) return false;
+      if (factory instanceof SubcircuitFactory sub
+          && !canRunInParallel(sub.getSubcircuit(), visited)) return false;
+    }
+    return true;
+  }
+
+  static int getDefaultThreadCount() {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Returns the number of rows the given number of workers may have queued beyond the last row
+   * whose result was handed out; a streamed vector must read at least that far ahead.
+   */
+  static int getRowsAhead(int threads) {
+    return threads * CHUNKS_AHEAD * CHUNK_SIZE;
+  }
+
+  /**
+   * Tests all rows, blocking until done or until the handler asks to stop. Rows of a streamed
+   * vector are tested as soon as they have been read.
+   */
+  void run(ResultHandler handler) throws IOException, InterruptedException {
+    final var pool =
+        Executors.newFixedThreadPool(
+            threads,
+            r -> {
+              final var thread = new UniquelyNamedThread(r, "TestVectorWorker");
+              thread.setDaemon(true);
+              return thread;
+            });
+    final var pending = new ArrayDeque<Future<TestException[]>>();
+    try {
+      var next = 0;
+      var row = 0;
+      while (true) {
+        while (pending.size() < threads * CHUNKS_AHEAD) {
+          final var count = vector.waitForRows(next, CHUNK_SIZE);
+          if (count == 0) break;
+          final var first = next;
+          final var last = first + count;
+          pending.add(pool.submit(() -> testChunk(first, last)));
+          next = last;
+        }
+        if (pending.isEmpty()) return;
+        final TestException[] results;
+        try {
+          results = pending.remove().get();
+        } catch (ExecutionException e) {
+          throw new IllegalStateException(e.getCause());
+        }
+        for (final var result : results) {
+          if (!handler.handle(row++, result)) return;
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private TestException[] testChunk(int first, int last) throws InterruptedException {
+    final var state = states.take();
+    try {
+      final var ret = new TestException[last - first];
+      for (var i = first; i < last; i++) {
+        try {
+          circuit.doTestVector(state, pin, vector.getRow(i));
+        } catch (TestException e) {
+          ret[i - first] = e;
+        }
+      }
+      return ret;
+    } finally {
+      states.add(state);
+    }
+  }
+}
@@ -174,7 +174,7 @@ public class TestFrame extends LFrame.SubWindowWithSimulation {
         try {
           TestVector vec = new TestVector(file);
           finished = 0;
-          count = vec.data.size();
+          count = vec.getRowCount();
           getModel().setVector(vec);
           curFile = file;
           getModel().setPaused(true);
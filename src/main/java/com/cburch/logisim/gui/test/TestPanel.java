@@ -83,7 +83,7 @@ class TestPanel extends JPanel implements ValueTable.Model {
   @Override
   public int getRowCount() {
     TestVector vec = getModel().getVector();
-    return vec == null ? 0 : vec.data.size();
+    return vec == null ? 0 : vec.getRowCount();
   }
 
   @Override
@@ -101,7 +101,7 @@ class TestPanel extends JPanel implements ValueTable.Model {
 
     for (var i = firstRow; i < firstRow + numRows; i++) {
       final var row = model.sortedIndex(i);
-      final var data = vec.data.get(row);
+      final var data = vec.getRow(row);
       String rowmsg = null;
       String status = null;
       var failed = false;
@@ -127,7 +127,7 @@ class TestPanel extends JPanel implements ValueTable.Model {
       for (var col = 0; col < columns; col++) {
         rowData[i - firstRow][col + 1] =
             new ValueTable.Cell(
-                altdata[col] != null ? altdata[col] : data[col],
+                altdata[col] != null ? altdata[col] : data[col] != null ? data[col] : "-",
                 msg[col] != null ? failColor : null,
                 null,
                 msg[col]);
@@ -25,6 +25,8 @@ import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.proj.Project;
 import com.cburch.logisim.std.wiring.Pin;
 import com.cburch.logisim.util.UniquelyNamedThread;
+import java.io.File;
+import java.io.IOException;
 
 public class TestThread extends UniquelyNamedThread implements CircuitListener {
 
@@ -50,7 +52,7 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
   }
 
   // used only for automated testing via command line arguments
-  private TestThread(Project proj, Circuit circuit, TestVector vec) throws TestException {
+  TestThread(Project proj, Circuit circuit, TestVector vec) throws TestException {
     super("TestThread-Project");
     this.project = proj;
     this.circuit = circuit;
@@ -61,10 +63,16 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
 
   // used only for automated testing via command line arguments
   public static int doTestVector(Project proj, Circuit circuit, String vectorname) {
+    return doTestVector(proj, circuit, vectorname, ParallelTester.getDefaultThreadCount());
+  }
+
+  // used only for automated testing via command line arguments
+  public static int doTestVector(Project proj, Circuit circuit, String vectorname, int threads) {
     System.out.println(S.get("testLoadingVector", vectorname));
     TestVector vec;
     try {
-      vec = new TestVector(vectorname);
+      final var rowsAhead = ParallelTester.getRowsAhead(Math.max(threads, 1));
+      vec = TestVector.stream(new File(vectorname), rowsAhead);
     } catch (Exception e) {
       System.err.println(S.get("testLoadingFailed", e.getMessage()));
       return -1;
@@ -78,28 +86,61 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
       return -1;
     }
 
-    System.out.println(S.get("testRunning", Integer.toString(vec.data.size())));
-
-    int numPass = 0;
-    int numFail = 0;
-    for (int i = 0; i < vec.data.size(); i++) {
-      try {
-        System.out.print((i + 1) + " \r");
-        tester.test(i);
-        numPass++;
-      } catch (FailException e) {
-        System.out.println();
-        System.err.println(S.get("testFailed", Integer.toString(i + 1)));
-        for (FailException e1 : e.getAll()) System.out.println("  " + e1.getMessage());
-        numFail++;
-      } catch (TestException e) {
-        System.out.println();
-        System.err.println(S.get("testFailed", (i + 1) + " " + e.getMessage()));
-        numFail++;
+    System.out.println(S.get("testRunningStream"));
+
+    final var counts = new int[2]; // passed, failed
+    final ParallelTester.ResultHandler report =
+        (i, err) -> {
+          if (err == null) {
+            System.out.print((i + 1) + " \r");
+            counts[0]++;
+          } else {
+            System.out.println();
+            if (err instanceof FailException fail) {
+              System.err.println(S.get("testFailed", Integer.toString(i + 1)));
+              for (FailException e1 : fail.getAll()) System.out.println("  " + e1.getMessage());
+            } else {
+              System.err.println(S.get("testFailed", (i + 1) + " " + err.getMessage()));
+            }
+            counts[1]++;
+          }
+          vec.discardBefore(i);
+          return true;
+        };
+    final var workers =
+        !vec.isClocked() && ParallelTester.canRunInParallel(circuit) ? Math.max(threads, 1) : 1;
+    final var start = System.nanoTime();
+    try {
+      if (workers > 1) {
+        new ParallelTester(circuit, tester.pin, vec, proj.getCircuitState(circuit), workers)
+            .run(report);
+      } else {
+        for (int i = 0; vec.waitForRows(i, 1) > 0; i++) {
+          TestException result = null;
+          try {
+            tester.test(i);
+          } catch (TestException e) {
+            result = e;
+          }
+          report.handle(i, result);
+        }
       }
+    } catch (IOException e) {
+      System.out.println();
+      System.err.println(S.get("testLoadingFailed", e.getMessage()));
+      return -1;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return -1;
     }
+    final var seconds = (System.nanoTime() - start) / 1e9;
     System.out.println();
-    System.out.println(S.get("testResults", Integer.toString(numPass), Integer.toString(numFail)));
+    System.out.println(S.get("testResults", Integer.toString(counts[0]), Integer.toString(counts[1])));
+    System.out.println(
+        S.get(
+            "testThroughput",
+            String.format("%.0f", (counts[0] + counts[1]) / Math.max(seconds, 1e-9)),
+            Integer.toString(workers)));
     return 0;
   }
 
@@ -146,22 +187,36 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
   @Override
   public void run() {
     try {
-      for (int i = 0; i < vector.data.size() && !canceled; i++) {
-        while (paused) {
-          if (canceled) return;
+      final ParallelTester.ResultHandler handler =
+          (i, err) -> {
+            while (paused) {
+              if (canceled) return false;
+              try {
+                Thread.sleep(1000);
+              } catch (InterruptedException ignored) {
+              }
+            }
+            canceled = canceled || !model.setResult(vector, i, err);
+            return !canceled;
+          };
+      final var threads = ParallelTester.getDefaultThreadCount();
+      if (threads > 1 && !vector.isClocked() && ParallelTester.canRunInParallel(circuit)) {
+        new ParallelTester(circuit, pin, vector, project.getCircuitState(circuit), threads)
+            .run(handler);
+      } else {
+        for (int i = 0; i < vector.getRowCount() && !canceled; i++) {
+          TestException result = null;
           try {
-            Thread.sleep(1000);
-          } catch (InterruptedException ignored) {
+            test(i);
+          } catch (TestException e) {
+            result = e;
           }
+          handler.handle(i, result);
+          Thread.yield();
         }
-        try {
-          test(i);
-          canceled = canceled || !model.setResult(vector, i, null);
-        } catch (TestException e) {
-          canceled = canceled || !model.setResult(vector, i, e);
-        }
-        Thread.yield();
       }
+    } catch (IOException | InterruptedException ignored) {
+      // testing was aborted; vectors loaded from the GUI are always fully read
     } finally {
       model.stop();
     }
@@ -171,7 +226,14 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
     this.paused = paused;
   }
 
-  private void test(int idx) throws TestException {
-    circuit.doTestVector(project, pin, vector.data.get(idx));
+  void test(int idx) throws TestException {
+    if (vector.isClocked()) {
+      // rows of a clocked vector build on each other, so only the first one starts from a reset
+      final var state = project.getCircuitState(circuit);
+      if (idx == 0) circuit.resetForTestVector(state);
+      circuit.doTestVectorStep(state, pin, vector.getRow(idx), vector.getTicks(idx));
+    } else {
+      circuit.doTestVector(project, pin, vector.getRow(idx));
+    }
   }
 }
@@ -9,7 +9,20 @@
 
 package com.cburch.logisim.instance;
 
-public class InstanceDataSingleton implements InstanceData, Cloneable {
+import com.cburch.logisim.data.Value;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class InstanceDataSingleton implements InstanceData, Cloneable, SnapshotData {
+  // types of value that can be saved in a snapshot
+  private static final int NULL = 0;
+  private static final int VALUE = 1;
+  private static final int BOOLEAN = 2;
+  private static final int INTEGER = 3;
+  private static final int LONG = 4;
+  private static final int OTHER = -1;
+
   private Object value;
 
   public InstanceDataSingleton(Object value) {
@@ -25,6 +38,41 @@ public class InstanceDataSingleton implements InstanceData, Cloneable {
     }
   }
 
+  @Override
+  public void writeSnapshot(DataOutput out) throws IOException {
+    if (value == null) {
+      out.writeByte(NULL);
+    } else if (value instanceof Value v) {
+      out.writeByte(VALUE);
+      SnapshotData.writeValue(out, v);
+    } else if (value instanceof Boolean b) {
+      out.writeByte(BOOLEAN);
+      out.writeBoolean(b);
+    } else if (value instanceof Integer i) {
+      out.writeByte(INTEGER);
+      out.writeInt(i);
+    } else if (value instanceof Long l) {
+      out.writeByte(LONG);
+      out.writeLong(l);
+    } else {
+      out.writeByte(OTHER);
+    }
+  }
+
+  @Override
+  public void readSnapshot(DataInput in) throws IOException {
+    switch (in.readByte()) {
+      case NULL -> value = null;
+      case VALUE -> value = SnapshotData.readValue(in);
+      case BOOLEAN -> value = in.readBoolean();
+      case INTEGER -> value = in.readInt();
+      case LONG -> value = in.readLong();
+      default -> {
+        // not saved, keep the initial value
+      }
+    }
+  }
+
   public Object getValue() {
     return value;
   }
@@ -0,0 +1,58 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.instance;
+
+import com.cburch.logisim.data.Value;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Component data that can be saved in a simulation snapshot file (see {@link
+ * com.cburch.logisim.circuit.CircuitStateSnapshot}). A snapshot is restored into a fresh
+ * simulation of the same circuit, in which each component has already created its data as usual;
+ * {@link #readSnapshot} then overwrites that data with what {@link #writeSnapshot} saved. Data of
+ * components that do not implement this interface keeps its initial state.
+ */
+public interface SnapshotData {
+  /** Writes everything that changes while simulating. */
+  void writeSnapshot(DataOutput out) throws IOException;
+
+  /** Reads back what {@link #writeSnapshot} wrote, into data of the same class. */
+  void readSnapshot(DataInput in) throws IOException;
+
+  static void writeValue(DataOutput out, Value value) throws IOException {
+    if (value == null) {
+      out.writeByte(-1);
+      return;
+    }
+    final var width = value.getWidth();
+    final var defined = value.isFullyDefined();
+    // bit 7 of the width byte tells whether all bits are known, in which case only they follow
+    out.writeByte(defined ? width | 0x80 : width);
+    if (width == 0) return;
+    if (!defined) {
+      out.writeLong(value.getErrorBits());
+      out.writeLong(value.getUnknownBits());
+    }
+    out.writeLong(value.getValueBits());
+  }
+
+  static Value readValue(DataInput in) throws IOException {
+    final var head = in.readByte();
+    if (head == -1) return null;
+    final var width = head & 0x7f;
+    if (width == 0) return Value.NIL;
+    if (width > Value.MAX_WIDTH) throw new IOException("bad value width " + width);
+    final var error = (head & 0x80) != 0 ? 0 : in.readLong();
+    final var unknown = (head & 0x80) != 0 ? 0 : in.readLong();
+    return Value.create(width, error, unknown, in.readLong());
+  }
+}
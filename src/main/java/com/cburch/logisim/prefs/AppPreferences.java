@@ -479,6 +479,23 @@ public class AppPreferences {
   public static final String TOOLBAR_HIDDEN = "hidden";
   public static final PrefMonitor<Boolean> SHOW_TICK_RATE =
       create(new PrefMonitorBoolean("showTickRate", false));
+  public static final String HOT_SPOTS_NONE = "none";
+  public static final String HOT_SPOTS_EVENTS = "events";
+  public static final String HOT_SPOTS_TIME = "time";
+  public static final PrefMonitor<String> HOT_SPOTS =
+      create(
+          new PrefMonitorStringOpts(
+              "hotSpots",
+              new String[] {HOT_SPOTS_NONE, HOT_SPOTS_EVENTS, HOT_SPOTS_TIME},
+              HOT_SPOTS_NONE));
+  // To step back, the simulator keeps up to SIM_HISTORY_CHECKPOINTS copies of the simulation, one
+  // every SIM_HISTORY_INTERVAL ticks, and replays the ticks since the nearest one: more checkpoints
+  // reach further back, and a shorter interval makes stepping back faster, both at the cost of
+  // memory. No checkpoints turns stepping back off.
+  public static final PrefMonitor<Integer> SIM_HISTORY_CHECKPOINTS =
+      create(new PrefMonitorInt("simHistoryCheckpoints", 16));
+  public static final PrefMonitor<Integer> SIM_HISTORY_INTERVAL =
+      create(new PrefMonitorInt("simHistoryInterval", 64));
   public static final PrefMonitor<String> TOOLBAR_PLACEMENT =
       create(
           new PrefMonitorStringOpts(
@@ -627,6 +644,9 @@ public class AppPreferences {
   public static final PrefMonitor<Boolean> Memory_Startup_Unknown =
       create(new PrefMonitorBoolean("MemStartUnknown", false));
 
+  public static final PrefMonitor<Boolean> Memory_Off_Heap =
+      create(new PrefMonitorBoolean("MemOffHeap", false));
+
   // Simulation preferences
   public static final PrefMonitor<Integer> TRUE_COLOR =
       create(new PrefMonitorInt("SimTrueColor", 0x0000D200));
@@ -18,9 +18,8 @@ class PrefMonitorInt extends AbstractPrefMonitor<Integer> {
   public PrefMonitorInt(String name, int dflt) {
     super(name);
     this.dflt = dflt;
-    this.value = dflt;
     final var prefs = AppPreferences.getPrefs();
-    set(prefs.getInt(name, dflt));
+    this.value = prefs.getInt(name, dflt);
     prefs.addPreferenceChangeListener(this);
   }
 
@@ -45,7 +44,11 @@ class PrefMonitorInt extends AbstractPrefMonitor<Integer> {
   public void set(Integer newValue) {
     final var newVal = newValue;
     if (value != newVal) {
+      final var oldValue = value;
       AppPreferences.getPrefs().putInt(getIdentifier(), newVal);
+      // the change event comes later, from another thread, and get() must give the new value now
+      value = newVal;
+      AppPreferences.firePropertyChange(getIdentifier(), oldValue, newVal);
     }
   }
 }
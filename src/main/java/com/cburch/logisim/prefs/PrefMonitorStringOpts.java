@@ -25,13 +25,19 @@ class PrefMonitorStringOpts extends AbstractPrefMonitor<String> {
   public PrefMonitorStringOpts(String name, String[] opts, String dflt) {
     super(name);
     this.opts = opts;
-    this.value = opts[0];
     this.dflt = dflt;
     final var prefs = AppPreferences.getPrefs();
-    set(prefs.get(name, dflt));
+    this.value = choose(prefs.get(name, dflt));
     prefs.addPreferenceChangeListener(this);
   }
 
+  private String choose(String newValue) {
+    for (final var s : opts) {
+      if (isSame(s, newValue)) return s;
+    }
+    return dflt;
+  }
+
   public String get() {
     return value;
   }
@@ -44,14 +50,7 @@ class PrefMonitorStringOpts extends AbstractPrefMonitor<String> {
       final var oldValue = value;
       final var newValue = prefs.get(name, dflt);
       if (!isSame(oldValue, newValue)) {
-        String chosen = null;
-        for (final var s : opts) {
-          if (isSame(s, newValue)) {
-            chosen = s;
-            break;
-          }
-        }
-        if (chosen == null) chosen = dflt;
+        final var chosen = choose(newValue);
         value = chosen;
         AppPreferences.firePropertyChange(name, oldValue, chosen);
       }
@@ -62,6 +61,9 @@ class PrefMonitorStringOpts extends AbstractPrefMonitor<String> {
     final var oldValue = value;
     if (!isSame(oldValue, newValue)) {
       AppPreferences.getPrefs().put(getIdentifier(), newValue);
+      // the change event comes later, from another thread, and get() must give the new value now
+      value = choose(newValue);
+      AppPreferences.firePropertyChange(getIdentifier(), oldValue, value);
     }
   }
 }
@@ -212,13 +212,24 @@ public class Project {
   }
 
   public int doTestVector(String vectorname, String name) {
+    return doTestVector(vectorname, name, 0);
+  }
+
+  /**
+   * Runs a test vector file against a circuit of this project.
+   *
+   * @param threads Number of worker threads to test rows with, 0 for one per processor.
+   */
+  public int doTestVector(String vectorname, String name, int threads) {
     final var circuit = (name == null ? file.getMainCircuit() : file.getCircuit(name));
     if (circuit == null) {
       System.err.println("Circuit '" + name + "' not found.");
       return -1;
     }
     setCurrentCircuit(circuit);
-    return TestThread.doTestVector(this, circuit, vectorname);
+    return (threads <= 0)
+        ? TestThread.doTestVector(this, circuit, vectorname)
+        : TestThread.doTestVector(this, circuit, vectorname, threads);
   }
 
   private void fireEvent(int action, Object data) {
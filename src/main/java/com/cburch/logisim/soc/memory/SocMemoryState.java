@@ -12,19 +12,23 @@ package com.cburch.logisim.soc.memory;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.instance.InstanceComponent;
 import com.cburch.logisim.instance.InstanceData;
+import com.cburch.logisim.instance.SnapshotData;
 import com.cburch.logisim.soc.data.SocBusInfo;
 import com.cburch.logisim.soc.data.SocBusSlaveInterface;
 import com.cburch.logisim.soc.data.SocBusSlaveListener;
 import com.cburch.logisim.soc.data.SocBusTransaction;
 import com.cburch.logisim.soc.data.SocSupport;
 import com.cburch.logisim.util.StringUtil;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.Random;
 
 public class SocMemoryState implements SocBusSlaveInterface {
 
-  public class SocMemoryInfo implements InstanceData, Cloneable {
+  public class SocMemoryInfo implements InstanceData, Cloneable, SnapshotData {
     private class SocMemoryInfoBlock {
       private final LinkedList<Integer> contents = new LinkedList<>();
       private int startAddress;
@@ -87,7 +91,7 @@ public class SocMemoryState implements SocBusSlaveInterface {
       }
     }
 
-    private final ArrayList<SocMemoryInfoBlock> memInfo;
+    private ArrayList<SocMemoryInfoBlock> memInfo;
 
     public SocMemoryInfo() {
       memInfo = new ArrayList<>();
@@ -96,12 +100,43 @@ public class SocMemoryState implements SocBusSlaveInterface {
     @Override
     public SocMemoryInfo clone() {
       try {
-        return (SocMemoryInfo) super.clone();
+        final var ret = (SocMemoryInfo) super.clone();
+        ret.memInfo = new ArrayList<>();
+        for (final var block : memInfo) {
+          final var copy = new SocMemoryInfoBlock(block.startAddress, 0);
+          copy.contents.clear();
+          copy.contents.addAll(block.contents);
+          ret.memInfo.add(copy);
+        }
+        return ret;
       } catch (CloneNotSupportedException e) {
         return null;
       }
     }
 
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+      out.writeInt(memInfo.size());
+      for (final var block : memInfo) {
+        out.writeInt(block.startAddress);
+        out.writeInt(block.contents.size());
+        for (final int word : block.contents) out.writeInt(word);
+      }
+    }
+
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+      memInfo.clear();
+      final var count = in.readInt();
+      for (var i = 0; i < count; i++) {
+        final var block = new SocMemoryInfoBlock(in.readInt(), 0);
+        block.contents.clear();
+        final var size = in.readInt();
+        for (var j = 0; j < size; j++) block.contents.add(in.readInt());
+        memInfo.add(block);
+      }
+    }
+
     public int getWord(int address) {
       for (final var info : memInfo)
         if (info.contains(address)) return info.getValue(address);
@@ -21,6 +21,7 @@ import com.cburch.logisim.gui.generic.OptionPane;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.InstanceComponent;
 import com.cburch.logisim.instance.InstanceData;
+import com.cburch.logisim.instance.SnapshotData;
 import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.soc.data.SocBusInfo;
 import com.cburch.logisim.soc.data.SocBusTransaction;
@@ -44,6 +45,9 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.LinkedList;
 import java.util.Map;
 import javax.swing.JPanel;
@@ -52,12 +56,12 @@ import org.fife.ui.rsyntaxtextarea.TokenMakerFactory;
 
 public class Nios2State implements SocUpSimulationStateListener, SocProcessorInterface {
 
-  public class ProcessorState extends JPanel implements InstanceData, Cloneable, ComponentDataGuiProvider, BaseWindowListenerContract, SocUpStateInterface {
+  public class ProcessorState extends JPanel implements InstanceData, Cloneable, ComponentDataGuiProvider, BaseWindowListenerContract, SocUpStateInterface, SnapshotData {
     private static final int STATUS_RSIE = 1 << 23;
     private static final int STATUS_PIE = 1;
     private static final long serialVersionUID = 1L;
-    private final int[] registers;
-    private final Boolean[] registers_valid;
+    private int[] registers;
+    private Boolean[] registers_valid;
     private int pc;
     private int status;
     private int estatus;
@@ -364,12 +368,48 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     @Override
     public ProcessorState clone() {
       try {
-        return (ProcessorState) super.clone();
+        final var ret = (ProcessorState) super.clone();
+        ret.registers = registers.clone();
+        ret.registers_valid = registers_valid.clone();
+        return ret;
       } catch (CloneNotSupportedException e) {
         return null;
       }
     }
 
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+      out.writeInt(pc);
+      for (var i = 0; i < registers.length; i++) {
+        out.writeInt(registers[i]);
+        out.writeBoolean(registers_valid[i] == Boolean.TRUE);
+      }
+      out.writeInt(status);
+      out.writeInt(estatus);
+      out.writeInt(bstatus);
+      out.writeInt(ienable);
+      out.writeInt(ipending);
+      out.writeInt(lastRegisterWritten);
+      SnapshotData.writeValue(out, lastClock);
+    }
+
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+      pc = in.readInt();
+      for (var i = 0; i < registers.length; i++) {
+        registers[i] = in.readInt();
+        registers_valid[i] = in.readBoolean();
+      }
+      status = in.readInt();
+      estatus = in.readInt();
+      bstatus = in.readInt();
+      ienable = in.readInt();
+      ipending = in.readInt();
+      lastRegisterWritten = in.readInt();
+      lastClock = SnapshotData.readValue(in);
+      instrTrace.clear();
+    }
+
     public void insertTransaction(SocBusTransaction trans, boolean hidden, CircuitState cState) {
       if (hidden) trans.setAsHiddenTransaction();
       attachedBus
@@ -22,6 +22,7 @@ import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.InstanceComponent;
 import com.cburch.logisim.instance.InstanceData;
 import com.cburch.logisim.instance.InstanceStateImpl;
+import com.cburch.logisim.instance.SnapshotData;
 import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.soc.data.SocBusInfo;
 import com.cburch.logisim.soc.data.SocBusTransaction;
@@ -45,6 +46,9 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.LinkedList;
 import javax.swing.JPanel;
 import org.fife.ui.rsyntaxtextarea.AbstractTokenMakerFactory;
@@ -57,10 +61,11 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
           Cloneable,
           ComponentDataGuiProvider,
           BaseWindowListenerContract,
-          SocUpStateInterface {
+          SocUpStateInterface,
+          SnapshotData {
     private static final long serialVersionUID = 1L;
-    private final int[] registers;
-    private final Boolean[] registers_valid;
+    private int[] registers;
+    private Boolean[] registers_valid;
     private int pc;
     private int lastRegisterWritten = -1;
     private final LinkedList<TraceInfo> instrTrace;
@@ -283,12 +288,38 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     @Override
     public ProcessorState clone() {
       try {
-        return (ProcessorState) super.clone();
+        final var ret = (ProcessorState) super.clone();
+        ret.registers = registers.clone();
+        ret.registers_valid = registers_valid.clone();
+        return ret;
       } catch (CloneNotSupportedException e) {
         return null;
       }
     }
 
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+      out.writeInt(pc);
+      for (var i = 0; i < registers.length; i++) {
+        out.writeInt(registers[i]);
+        out.writeBoolean(registers_valid[i] == Boolean.TRUE);
+      }
+      out.writeInt(lastRegisterWritten);
+      SnapshotData.writeValue(out, lastClock);
+    }
+
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+      pc = in.readInt();
+      for (var i = 0; i < registers.length; i++) {
+        registers[i] = in.readInt();
+        registers_valid[i] = in.readBoolean();
+      }
+      lastRegisterWritten = in.readInt();
+      lastClock = SnapshotData.readValue(in);
+      instrTrace.clear();
+    }
+
     public void insertTransaction(SocBusTransaction trans, boolean hidden, CircuitState cState) {
       if (hidden) trans.setAsHiddenTransaction();
       attachedBus
@@ -29,6 +29,7 @@ import com.cburch.logisim.instance.InstancePainter;
 import com.cburch.logisim.instance.InstancePoker;
 import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.Port;
+import com.cburch.logisim.instance.SnapshotData;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.util.GraphicsUtil;
@@ -36,6 +37,9 @@ import com.cburch.logisim.util.StringGetter;
 import java.awt.Color;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import javax.swing.Icon;
 
 abstract class AbstractFlipFlop extends InstanceFactory {
@@ -124,6 +128,18 @@ abstract class AbstractFlipFlop extends InstanceFactory {
 
   private static class StateData extends ClockState implements InstanceData {
     Value curValue = (AppPreferences.Memory_Startup_Unknown.get()) ? Value.UNKNOWN : Value.FALSE;
+
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+      super.writeSnapshot(out);
+      SnapshotData.writeValue(out, curValue);
+    }
+
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+      super.readSnapshot(in);
+      curValue = SnapshotData.readValue(in);
+    }
   }
 
   private static final int STD_PORTS = 5;
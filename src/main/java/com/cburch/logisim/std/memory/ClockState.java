@@ -10,9 +10,13 @@
 package com.cburch.logisim.std.memory;
 
 import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.SnapshotData;
 import com.cburch.logisim.instance.StdAttr;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
-public class ClockState implements Cloneable {
+public class ClockState implements Cloneable, SnapshotData {
   private Value lastClock;
 
   public ClockState() {
@@ -28,6 +32,16 @@ public class ClockState implements Cloneable {
     }
   }
 
+  @Override
+  public void writeSnapshot(DataOutput out) throws IOException {
+    SnapshotData.writeValue(out, lastClock);
+  }
+
+  @Override
+  public void readSnapshot(DataInput in) throws IOException {
+    lastClock = SnapshotData.readValue(in);
+  }
+
   public boolean updateClock(Value newClock, Object trigger) {
     final var oldClock = lastClock;
     lastClock = newClock;
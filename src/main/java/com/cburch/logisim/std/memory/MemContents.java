@@ -13,11 +13,25 @@ import com.cburch.hex.HexModel;
 import com.cburch.hex.HexModelListener;
 import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.util.EventSourceWeakSupport;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MemContents implements Cloneable, HexModel {
   public static MemContents create(int addrBits, int width, boolean randomize) {
-    return new MemContents(addrBits, width, randomize);
+    return create(addrBits, width, randomize, AppPreferences.Memory_Off_Heap.getBoolean());
+  }
+
+  /**
+   * Creates a memory image. With offHeap set, pages are allocated in direct buffers outside of
+   * the Java heap (bounded by -XX:MaxDirectMemorySize instead of -Xmx). Either way, a page is only
+   * allocated once a non-zero value is written to it.
+   */
+  public static MemContents create(int addrBits, int width, boolean randomize, boolean offHeap) {
+    return new MemContents(addrBits, width, randomize, offHeap);
   }
 
   private static final int PAGE_SIZE_BITS = 12;
@@ -30,10 +44,15 @@ public class MemContents implements Cloneable, HexModel {
   private int addrBits;
   private long mask;
   private Page[] pages;
+  // Pages this instance may write in place. Pages not in this set may be shared with clones and
+  // are copied on the first write (see writablePage()).
+  private BitSet owned = new BitSet();
   private boolean randomize;
+  private final boolean offHeap;
 
-  private MemContents(int addrBits, int width, boolean randomize) {
+  private MemContents(int addrBits, int width, boolean randomize, boolean offHeap) {
     listeners = null;
+    this.offHeap = offHeap;
     setDimensions(addrBits, width);
     this.randomize = randomize;
   }
@@ -58,7 +77,9 @@ public class MemContents implements Cloneable, HexModel {
     else {
       for (var i = 0; i < pages.length; i++) {
         long[] oldValues = pages[i] != null ? pages[i].get(0, pages[i].getLength()) : null;
-        pages[i] = MemContentsSub.createPage(PAGE_SIZE, width, randomize);
+        dropPage(i);
+        pages[i] = MemContentsSub.createPage(PAGE_SIZE, width, randomize, offHeap);
+        owned.set(i);
         if (oldValues != null) fireBytesChanged(i << PAGE_SIZE_BITS, oldValues.length, oldValues);
         else
           fireBytesChanged(
@@ -77,7 +98,7 @@ public class MemContents implements Cloneable, HexModel {
       if (val != 0) changed = true;
     }
     if (changed) {
-      pages[index] = null;
+      dropPage(index);
       fireBytesChanged(index << PAGE_SIZE_BITS, oldValues.length, oldValues);
     }
   }
@@ -90,12 +111,13 @@ public class MemContents implements Cloneable, HexModel {
     try {
       final var ret = (MemContents) super.clone();
       ret.listeners = null;
-      ret.pages = new Page[this.pages.length];
-      for (var i = 0; i < ret.pages.length; i++) {
-        if (this.pages[i] != null) {
-          ret.pages[i] = this.pages[i].clone();
-        }
+      ret.pages = this.pages.clone();
+      for (final var page : ret.pages) {
+        if (page != null) page.retain();
       }
+      // Both copies now share every page, so neither may write in place anymore.
+      this.owned.clear();
+      ret.owned = new BitSet();
       return ret;
     } catch (CloneNotSupportedException ex) {
       return this;
@@ -104,8 +126,43 @@ public class MemContents implements Cloneable, HexModel {
 
   private void ensurePage(int index) {
     if (pages[index] == null) {
-      pages[index] = MemContentsSub.createPage(PAGE_SIZE, width, randomize);
+      pages[index] = MemContentsSub.createPage(PAGE_SIZE, width, randomize, offHeap);
+      owned.set(index);
+    }
+  }
+
+  /**
+   * Returns the page at the given index, ready to be modified. A missing page is created, and a
+   * page still shared with a clone is copied first, so the other holders never see the write.
+   */
+  private Page writablePage(int index) {
+    ensurePage(index);
+    var page = pages[index];
+    if (!owned.get(index)) {
+      if (page.isShared()) {
+        final var copy = page.clone();
+        page.release();
+        pages[index] = page = copy;
+      }
+      owned.set(index);
     }
+    return page;
+  }
+
+  private void dropPage(int index) {
+    final var page = pages[index];
+    if (page != null && !owned.get(index)) page.release();
+    pages[index] = null;
+    owned.clear(index);
+  }
+
+  /** Returns the number of allocated pages this instance currently shares with clones. */
+  public int getSharedPageCount() {
+    var count = 0;
+    for (var i = 0; i < pages.length; i++) {
+      if (pages[i] != null && !owned.get(i) && pages[i].isShared()) count++;
+    }
+    return count;
   }
 
   @Override
@@ -122,11 +179,11 @@ public class MemContents implements Cloneable, HexModel {
       ensurePage(pageStart);
       final var vals = new long[(int) len];
       Arrays.fill(vals, value);
-      final var page = pages[pageStart];
-      if (!page.matches(vals, startOffs, mask)) {
+      if (!pages[pageStart].matches(vals, startOffs, mask)) {
+        final var page = writablePage(pageStart);
         final var oldValues = page.get(startOffs, (int) len);
         page.load(startOffs, vals, mask);
-        if (value == 0 && page.isClear()) pages[pageStart] = null;
+        if (value == 0 && page.isClear()) dropPage(pageStart);
         fireBytesChanged(start, len, oldValues);
       }
     } else {
@@ -139,11 +196,11 @@ public class MemContents implements Cloneable, HexModel {
           ensurePage(pageStart);
           final var vals = new long[PAGE_SIZE - startOffs];
           Arrays.fill(vals, value);
-          final var page = pages[pageStart];
-          if (!page.matches(vals, startOffs, mask)) {
+          if (!pages[pageStart].matches(vals, startOffs, mask)) {
+            final var page = writablePage(pageStart);
             final var oldValues = page.get(startOffs, vals.length);
             page.load(startOffs, vals, mask);
-            if (value == 0 && page.isClear()) pages[pageStart] = null;
+            if (value == 0 && page.isClear()) dropPage(pageStart);
             fireBytesChanged(start, PAGE_SIZE - pageStart, oldValues);
           }
         }
@@ -157,8 +214,8 @@ public class MemContents implements Cloneable, HexModel {
         Arrays.fill(vals, value);
         for (var i = pageStart + 1; i < pageEnd; i++) {
           ensurePage(i);
-          final var page = pages[i];
-          if (!page.matches(vals, 0, mask)) {
+          if (!pages[i].matches(vals, 0, mask)) {
+            final var page = writablePage(i);
             final var oldValues = page.get(0, PAGE_SIZE);
             page.load(0, vals, mask);
             fireBytesChanged(i << PAGE_SIZE_BITS, PAGE_SIZE, oldValues);
@@ -166,17 +223,17 @@ public class MemContents implements Cloneable, HexModel {
         }
       }
       if (endOffs >= 0) {
-        final var page = pages[pageEnd];
-        if (value == 0 && page == null) {
+        if (value == 0 && pages[pageEnd] == null) {
           // nothing to do
         } else {
           ensurePage(pageEnd);
           final var vals = new long[endOffs + 1];
           Arrays.fill(vals, value);
-          if (!page.matches(vals, 0, mask)) {
+          if (!pages[pageEnd].matches(vals, 0, mask)) {
+            final var page = writablePage(pageEnd);
             final var oldValues = page.get(0, endOffs + 1);
             page.load(0, vals, mask);
-            if (value == 0 && page.isClear()) pages[pageEnd] = null;
+            if (value == 0 && page.isClear()) dropPage(pageEnd);
             fireBytesChanged(pageEnd << PAGE_SIZE_BITS, endOffs + 1, oldValues);
           }
         }
@@ -212,6 +269,26 @@ public class MemContents implements Cloneable, HexModel {
     return pages[page].get(offs) & mask;
   }
 
+  /**
+   * Returns the first address from the given one on that holds a value other than 0, or -1 if there
+   * is none. Pages that hold only zeroes are not allocated, so they are skipped as a whole.
+   */
+  public long nextNonZero(long addr) {
+    if (addr < 0) addr = 0;
+    final var end = 1L << addrBits;
+    for (var page = (int) (addr >>> PAGE_SIZE_BITS); page < pages.length; page++) {
+      final var data = pages[page];
+      if (data != null) {
+        final var length = (int) Math.min(data.getLength(), end - ((long) page << PAGE_SIZE_BITS));
+        for (var offs = (int) (addr & PAGE_MASK); offs < length; offs++) {
+          if ((data.get(offs) & mask) != 0) return ((long) page << PAGE_SIZE_BITS) + offs;
+        }
+      }
+      addr = (long) (page + 1) << PAGE_SIZE_BITS;
+    }
+    return -1;
+  }
+
   @Override
   public long getFirstOffset() {
     return 0;
@@ -235,6 +312,10 @@ public class MemContents implements Cloneable, HexModel {
     return width;
   }
 
+  public boolean isOffHeap() {
+    return offHeap;
+  }
+
   public boolean isClear() {
     for (final var page : pages) {
       if (page != null) {
@@ -261,10 +342,7 @@ public class MemContents implements Cloneable, HexModel {
     long old = pages[page] == null ? 0 : pages[page].get(offs) & mask;
     long val = value & mask;
     if (old != val) {
-      if (pages[page] == null) {
-        pages[page] = MemContentsSub.createPage(PAGE_SIZE, width, randomize);
-      }
-      pages[page].set(offs, val);
+      writablePage(page).set(offs, val);
       fireBytesChanged(addr, 1, new long[] {old});
     }
   }
@@ -280,11 +358,11 @@ public class MemContents implements Cloneable, HexModel {
 
     if (pageStart == pageEnd) {
       ensurePage(pageStart);
-      final var page = pages[pageStart];
-      if (!page.matches(values, startOffs, mask)) {
+      if (!pages[pageStart].matches(values, startOffs, mask)) {
+        final var page = writablePage(pageStart);
         final var oldValues = page.get(startOffs, values.length);
         page.load(startOffs, values, mask);
-        if (page.isClear()) pages[pageStart] = null;
+        if (page.isClear()) dropPage(pageStart);
         fireBytesChanged(start, values.length, oldValues);
       }
     } else {
@@ -296,11 +374,11 @@ public class MemContents implements Cloneable, HexModel {
         ensurePage(pageStart);
         final var vals = new long[PAGE_SIZE - startOffs];
         System.arraycopy(values, 0, vals, 0, vals.length);
-        final var page = pages[pageStart];
-        if (!page.matches(vals, startOffs, mask)) {
+        if (!pages[pageStart].matches(vals, startOffs, mask)) {
+          final var page = writablePage(pageStart);
           final var oldValues = page.get(startOffs, vals.length);
           page.load(startOffs, vals, mask);
-          if (page.isClear()) pages[pageStart] = null;
+          if (page.isClear()) dropPage(pageStart);
           fireBytesChanged(start, PAGE_SIZE - pageStart, oldValues);
         }
         nextOffs = vals.length;
@@ -318,16 +396,17 @@ public class MemContents implements Cloneable, HexModel {
             }
           }
           if (!allZeroes) {
-            page = MemContentsSub.createPage(PAGE_SIZE, width, randomize);
-            pages[i] = page;
+            ensurePage(i);
+            page = pages[i];
           }
         }
         if (page != null) {
           System.arraycopy(values, offs, vals, 0, PAGE_SIZE);
           if (!page.matches(vals, startOffs, mask)) {
+            page = writablePage(i);
             final var oldValues = page.get(0, PAGE_SIZE);
             page.load(0, vals, mask);
-            if (page.isClear()) pages[i] = null;
+            if (page.isClear()) dropPage(i);
             fireBytesChanged(i << PAGE_SIZE_BITS, PAGE_SIZE, oldValues);
           }
         }
@@ -336,17 +415,63 @@ public class MemContents implements Cloneable, HexModel {
         ensurePage(pageEnd);
         vals = new long[endOffs + 1];
         System.arraycopy(values, offs, vals, 0, endOffs + 1);
-        final var page = pages[pageEnd];
-        if (!page.matches(vals, startOffs, mask)) {
+        if (!pages[pageEnd].matches(vals, startOffs, mask)) {
+          final var page = writablePage(pageEnd);
           final var oldValues = page.get(0, endOffs + 1);
           page.load(0, vals, mask);
-          if (page.isClear()) pages[pageEnd] = null;
+          if (page.isClear()) dropPage(pageEnd);
           fireBytesChanged(pageEnd << PAGE_SIZE_BITS, endOffs + 1, oldValues);
         }
       }
     }
   }
 
+  /** Writes the contents of all allocated pages, for a simulation snapshot. */
+  void writeSnapshot(DataOutput out) throws IOException {
+    out.writeInt(addrBits);
+    out.writeInt(width);
+    var count = 0;
+    for (final var page : pages) if (page != null) count++;
+    out.writeInt(count);
+    for (var i = 0; i < pages.length; i++) {
+      final var page = pages[i];
+      if (page == null) continue;
+      out.writeInt(i);
+      final var length = page.getLength();
+      out.writeInt(length);
+      for (var j = 0; j < length; j++) {
+        final var value = page.get(j) & mask;
+        if (width <= 8) out.writeByte((int) value);
+        else if (width <= 16) out.writeShort((int) value);
+        else if (width <= 32) out.writeInt((int) value);
+        else out.writeLong(value);
+      }
+    }
+  }
+
+  /** Replaces the contents by those written by {@link #writeSnapshot}, for the same dimensions. */
+  void readSnapshot(DataInput in) throws IOException {
+    if (in.readInt() != addrBits || in.readInt() != width) {
+      throw new IOException("memory dimensions changed");
+    }
+    clear();
+    final var count = in.readInt();
+    for (var n = 0; n < count; n++) {
+      final var index = in.readInt();
+      final var values = new long[in.readInt()];
+      if (index < 0 || index >= pages.length || values.length > PAGE_SIZE) {
+        throw new IOException("bad memory page");
+      }
+      for (var j = 0; j < values.length; j++) {
+        if (width <= 8) values[j] = in.readByte();
+        else if (width <= 16) values[j] = in.readShort();
+        else if (width <= 32) values[j] = in.readInt();
+        else values[j] = in.readLong();
+      }
+      set((long) index << PAGE_SIZE_BITS, values);
+    }
+  }
+
   public void copyFrom(long start, MemContents src, long offs, int count) {
     count = (int) Math.min(count, getLastOffset() - start + 1);
     if (count <= 0) return;
@@ -368,7 +493,7 @@ public class MemContents implements Cloneable, HexModel {
     var si = (int) (offs & PAGE_MASK);
 
     do {
-      var dstPage = pages[dp];
+      final var dstPage = pages[dp];
       final var srcPage = src.pages[sp];
       final var n = Math.min(count, Math.min(PAGE_SIZE - si, PAGE_SIZE - di));
       if (dstPage == null && srcPage == null) {
@@ -377,10 +502,9 @@ public class MemContents implements Cloneable, HexModel {
         // clearing locations di..di+n on this page
         fill(dp * PAGE_SIZE + di, n, 0);
       } else {
-        if (dstPage == null) dstPage = pages[dp] = MemContentsSub.createPage(PAGE_SIZE, width, randomize);
         // copy locations di..di+n on this page
         final var vals = srcPage.get(si, n);
-        dstPage.set(di, vals);
+        writablePage(dp).set(di, vals);
       }
       count -= n;
       di += n;
@@ -413,21 +537,28 @@ public class MemContents implements Cloneable, HexModel {
       pageCount = 1 << (addrBits - PAGE_SIZE_BITS);
       pageLength = PAGE_SIZE;
     }
+    final var oldOwned = owned;
     pages = new Page[pageCount];
+    owned = new BitSet();
     if (oldPages != null) {
       final var n = Math.min(oldPages.length, pages.length);
       for (var i = 0; i < n; i++) {
         if (oldPages[i] != null) {
-          pages[i] = MemContentsSub.createPage(pageLength, width, randomize);
+          pages[i] = MemContentsSub.createPage(pageLength, width, randomize, offHeap);
+          owned.set(i);
           final var m = Math.min(oldPages[i].getLength(), pageLength);
           for (var j = 0; j < m; j++) {
             pages[i].set(j, oldPages[i].get(j));
           }
         }
       }
+      for (var i = 0; i < oldPages.length; i++) {
+        if (oldPages[i] != null && !oldOwned.get(i)) oldPages[i].release();
+      }
     }
     if (pageCount == 0 && pages[0] == null) {
-      pages[0] = MemContentsSub.createPage(pageLength, width, randomize);
+      pages[0] = MemContentsSub.createPage(pageLength, width, randomize, offHeap);
+      owned.set(0);
     }
 
     fireMetainfoChanged();
@@ -436,21 +567,42 @@ public class MemContents implements Cloneable, HexModel {
   public void condFillRandom() {
     if (AppPreferences.Memory_Startup_Unknown.get()) {
       final var pageLength = (addrBits < PAGE_SIZE_BITS) ? 1 << addrBits : PAGE_SIZE;
-      for (var i = 0; i < pages.length; i++)
-        if (pages[i] == null) pages[i] = MemContentsSub.createPage(pageLength, width, randomize);
+      for (var i = 0; i < pages.length; i++) {
+        if (pages[i] == null) {
+          pages[i] = MemContentsSub.createPage(pageLength, width, randomize, offHeap);
+          owned.set(i);
+        }
+      }
     }
   }
 
   abstract static class Page implements Cloneable {
+    // Number of MemContents instances referencing this page; only 1 allows writing in place.
+    private AtomicInteger shares = new AtomicInteger(1);
+
     @Override
     public Page clone() {
       try {
-        return (Page) super.clone();
+        final var ret = (Page) super.clone();
+        ret.shares = new AtomicInteger(1);
+        return ret;
       } catch (CloneNotSupportedException e) {
         return this;
       }
     }
 
+    boolean isShared() {
+      return shares.get() > 1;
+    }
+
+    void retain() {
+      shares.incrementAndGet();
+    }
+
+    void release() {
+      shares.decrementAndGet();
+    }
+
     abstract long get(long addr);
 
     long[] get(long start, int len) {
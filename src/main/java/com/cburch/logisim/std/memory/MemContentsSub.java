@@ -10,7 +10,8 @@
 package com.cburch.logisim.std.memory;
 
 import com.cburch.logisim.prefs.AppPreferences;
-
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Random;
 
 class MemContentsSub {
@@ -224,8 +225,73 @@ class MemContentsSub {
     }
   }
 
-  static MemContents.Page createPage(int size, int bits, boolean randomize) {
+  /**
+   * Page kept outside of the Java heap in a direct buffer, so large memories do not compete with
+   * the rest of the simulation for heap space. Values are stored in the smallest of 1, 2, 4 or 8
+   * bytes that fits the data width.
+   */
+  private static class DirectPage extends MemContents.Page {
+    private final int shift;
+    private ByteBuffer data;
+
+    public DirectPage(int size, int bits, long mask, boolean randomize) {
+      shift = bits <= 8 ? 0 : bits <= 16 ? 1 : bits <= 32 ? 2 : 3;
+      data = ByteBuffer.allocateDirect(size << shift).order(ByteOrder.nativeOrder());
+      if (AppPreferences.Memory_Startup_Unknown.get() && randomize) {
+        final var generator = new Random();
+        for (var i = 0; i < size; i++) put(i, generator.nextLong() & mask);
+      }
+    }
+
+    @Override
+    public DirectPage clone() {
+      final var ret = (DirectPage) super.clone();
+      ret.data = ByteBuffer.allocateDirect(data.capacity()).order(ByteOrder.nativeOrder());
+      ret.data.put(0, data, 0, data.capacity());
+      return ret;
+    }
+
+    private void put(int index, long value) {
+      switch (shift) {
+        case 0 -> data.put(index, (byte) value);
+        case 1 -> data.putShort(index << 1, (short) value);
+        case 2 -> data.putInt(index << 2, (int) value);
+        default -> data.putLong(index << 3, value);
+      }
+    }
+
+    @Override
+    long get(long addr) {
+      if (addr < 0 || addr >= getLength()) return 0;
+      final var index = (int) addr;
+      return switch (shift) {
+        case 0 -> Byte.toUnsignedLong(data.get(index));
+        case 1 -> Short.toUnsignedLong(data.getShort(index << 1));
+        case 2 -> Integer.toUnsignedLong(data.getInt(index << 2));
+        default -> data.getLong(index << 3);
+      };
+    }
+
+    @Override
+    int getLength() {
+      return data.capacity() >> shift;
+    }
+
+    @Override
+    void load(long start, long[] values, long mask) {
+      final var n = Math.min(values.length, getLength() - (int) start);
+      for (var i = 0; i < n; i++) put((int) start + i, values[i] & mask);
+    }
+
+    @Override
+    void set(long addr, long value) {
+      if (addr >= 0 && addr < getLength()) put((int) addr, value);
+    }
+  }
+
+  static MemContents.Page createPage(int size, int bits, boolean randomize, boolean offHeap) {
     long mask = (bits == 64) ? 0xffffffffffffffffL : (1L << bits) - 1;
+    if (offHeap) return new DirectPage(size, bits, mask, randomize);
     if (bits <= 8) return new BytePage(size, mask, randomize);
     else if (bits <= 16) return new ShortPage(size, mask, randomize);
     else if (bits <= 32) return new IntPage(size, mask, randomize);
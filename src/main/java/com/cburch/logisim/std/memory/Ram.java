@@ -170,6 +170,11 @@ public class Ram extends Mem {
     return false;
   }
 
+  /** Returns whether the contents of this RAM survive a simulation reset. */
+  public boolean isNonVolatile(AttributeSet attrs) {
+    return attrs.getValue(RamAttributes.ATTR_TYPE).equals(RamAttributes.NONVOLATILE);
+  }
+
   @Override
   public Bounds getOffsetBounds(AttributeSet attrs) {
     return RamAppearance.getBounds(attrs);
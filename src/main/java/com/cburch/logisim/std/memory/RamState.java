@@ -15,9 +15,13 @@ import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.SnapshotData;
 import com.cburch.logisim.std.memory.Mem.MemListener;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
-public class RamState extends MemState implements AttributeListener {
+public class RamState extends MemState implements AttributeListener, SnapshotData {
 
   private Instance parent;
   private final MemListener listener;
@@ -51,6 +55,18 @@ public class RamState extends MemState implements AttributeListener {
     return ret;
   }
 
+  @Override
+  public void writeSnapshot(DataOutput out) throws IOException {
+    clockState.writeSnapshot(out);
+    getContents().writeSnapshot(out);
+  }
+
+  @Override
+  public void readSnapshot(DataInput in) throws IOException {
+    clockState.readSnapshot(in);
+    getContents().readSnapshot(in);
+  }
+
   public boolean setClock(Value newClock, Object trigger) {
     return clockState.updateClock(newClock, trigger);
   }
@@ -27,12 +27,16 @@ import com.cburch.logisim.instance.InstanceLogger;
 import com.cburch.logisim.instance.InstancePainter;
 import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.Port;
+import com.cburch.logisim.instance.SnapshotData;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.tools.key.BitWidthConfigurator;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.Color;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class Random extends InstanceFactory {
   /**
@@ -114,6 +118,26 @@ public class Random extends InstanceFactory {
       return retValue;
     }
 
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+      super.writeSnapshot(out);
+      out.writeLong(initSeed);
+      out.writeLong(curSeed);
+      out.writeInt(value);
+      out.writeLong(resetValue);
+      SnapshotData.writeValue(out, oldReset);
+    }
+
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+      super.readSnapshot(in);
+      initSeed = in.readLong();
+      curSeed = in.readLong();
+      value = in.readInt();
+      resetValue = in.readLong();
+      oldReset = SnapshotData.readValue(in);
+    }
+
     void step() {
       long v = curSeed;
       v = (v * MULTIPLIER + ADDEND) & MASK;
@@ -12,7 +12,11 @@ package com.cburch.logisim.std.memory;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.InstanceData;
+import com.cburch.logisim.instance.SnapshotData;
 import com.cburch.logisim.prefs.AppPreferences;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 class RegisterData extends ClockState implements InstanceData {
   Value value;
@@ -24,6 +28,18 @@ class RegisterData extends ClockState implements InstanceData {
             : Value.createKnown(width, 0);
   }
 
+  @Override
+  public void writeSnapshot(DataOutput out) throws IOException {
+    super.writeSnapshot(out);
+    SnapshotData.writeValue(out, value);
+  }
+
+  @Override
+  public void readSnapshot(DataInput in) throws IOException {
+    super.readSnapshot(in);
+    value = SnapshotData.readValue(in);
+  }
+
   public Value getValue() {
     return value;
   }
@@ -35,9 +35,11 @@ public class RomHdlGeneratorFactory extends InlinedHdlGeneratorFactory {
                 Hdl.getBusName(componentInfo, RamAppearance.getDataOutIndex(0, attrs), nets),
                 dataWidth))
             .setDefault(0L);
-    for (var addr = 0L; addr < (1L << addressWidth); addr++) {
-      final var romValue = romContents.get(addr);
-      if (romValue != 0L) generator.add(addr, romValue);
+    // only the pages that were written to hold values other than the default
+    var addr = romContents.nextNonZero(0);
+    while (addr >= 0) {
+      generator.add(addr, romContents.get(addr));
+      addr = romContents.nextNonZero(addr + 1);
     }
     return LineBuffer.getBuffer().add(generator.getHdlCode());
   }
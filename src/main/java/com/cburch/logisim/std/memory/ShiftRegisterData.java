@@ -12,7 +12,11 @@ package com.cburch.logisim.std.memory;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.InstanceData;
+import com.cburch.logisim.instance.SnapshotData;
 import com.cburch.logisim.prefs.AppPreferences;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Arrays;
 
 class ShiftRegisterData extends ClockState implements InstanceData {
@@ -43,6 +47,24 @@ class ShiftRegisterData extends ClockState implements InstanceData {
     return ret;
   }
 
+  @Override
+  public void writeSnapshot(DataOutput out) throws IOException {
+    super.writeSnapshot(out);
+    out.writeInt(vs.length);
+    out.writeInt(vsPos);
+    for (final var v : vs) SnapshotData.writeValue(out, v);
+  }
+
+  @Override
+  public void readSnapshot(DataInput in) throws IOException {
+    super.readSnapshot(in);
+    final var len = in.readInt();
+    final var pos = in.readInt();
+    if (len != vs.length || pos < 0 || pos >= len) throw new IOException("shift register changed");
+    for (var i = 0; i < len; i++) vs[i] = SnapshotData.readValue(in);
+    vsPos = pos;
+  }
+
   public Value get(int index) {
     var i = vsPos + index;
     final var v = vs;
@@ -28,6 +28,7 @@ import com.cburch.logisim.instance.InstancePainter;
 import com.cburch.logisim.instance.InstancePoker;
 import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.Port;
+import com.cburch.logisim.instance.SnapshotData;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.tools.key.DirectionConfigurator;
 import com.cburch.logisim.util.GraphicsUtil;
@@ -36,6 +37,9 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import javax.swing.Icon;
 
 public class Clock extends InstanceFactory {
@@ -91,20 +95,25 @@ public class Clock extends InstanceFactory {
     }
   }
 
-  private static class ClockState implements InstanceData, Cloneable {
+  private static class ClockState implements InstanceData, Cloneable, SnapshotData {
     Value sending = Value.UNKNOWN;
 
     ClockState(int curTick, AttributeSet attrs) {
       updateTick(curTick, attrs);
     }
 
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+      SnapshotData.writeValue(out, sending);
+    }
+
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+      sending = SnapshotData.readValue(in);
+    }
+
     boolean updateTick(int ticks, AttributeSet attrs) {
-      int durationHigh = attrs.getValue(ATTR_HIGH);
-      int durationLow = attrs.getValue(ATTR_LOW);
-      int cycle = durationHigh + durationLow;
-      int phase = ((attrs.getValue(ATTR_PHASE) % cycle) + cycle) % cycle;
-      boolean isLow = ((ticks + phase) % cycle) < durationLow;
-      Value desired = (isLow ? Value.FALSE : Value.TRUE);
+      Value desired = (isLow(attrs, ticks) ? Value.FALSE : Value.TRUE);
       if (sending.equals(desired)) return false;
       sending = desired;
       return true;
@@ -129,6 +138,15 @@ public class Clock extends InstanceFactory {
     return ret;
   }
 
+  /** Returns whether a clock with the given attributes is low after the given number of ticks. */
+  public static boolean isLow(AttributeSet attrs, int ticks) {
+    int durationHigh = attrs.getValue(ATTR_HIGH);
+    int durationLow = attrs.getValue(ATTR_LOW);
+    int cycle = durationHigh + durationLow;
+    int phase = ((attrs.getValue(ATTR_PHASE) % cycle) + cycle) % cycle;
+    return ((ticks + phase) % cycle) < durationLow;
+  }
+
   public static boolean tick(CircuitState circState, int ticks, Component comp) {
     AttributeSet attrs = comp.getAttributeSet();
     ClockState state = (ClockState) circState.getData(comp);
@@ -38,6 +38,7 @@ import com.cburch.logisim.instance.InstancePainter;
 import com.cburch.logisim.instance.InstancePoker;
 import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.Port;
+import com.cburch.logisim.instance.SnapshotData;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.prefs.PrefMonitorBooleanConvert;
@@ -57,6 +58,9 @@ import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.awt.event.WindowEvent;
 import java.awt.font.TextLayout;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.BigInteger;
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
@@ -652,7 +656,7 @@ public class Pin extends InstanceFactory {
     }
   }
 
-  private static class PinState implements InstanceData, Cloneable {
+  private static class PinState implements InstanceData, Cloneable, SnapshotData {
 
     Value intendedValue;
     Value foundValue;
@@ -662,6 +666,18 @@ public class Pin extends InstanceFactory {
       this.foundValue = receiving;
     }
 
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+      SnapshotData.writeValue(out, intendedValue);
+      SnapshotData.writeValue(out, foundValue);
+    }
+
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+      intendedValue = SnapshotData.readValue(in);
+      foundValue = SnapshotData.readValue(in);
+    }
+
     @Override
     public Object clone() {
       try {
@@ -385,6 +385,9 @@ public class LineBuffer implements RandomAccess {
   public static String applyPairs(String format, Pairs pairs) {
     if (pairs != null) {
       for (final var set : pairs.getContainer().entrySet()) {
+        // a placeholder can only be there if its braces and its key are
+        if (!format.contains("{{")) break;
+        if (!format.contains(set.getKey())) continue;
         final var searchRegExp = String.format("\\{\\{\\s*%s\\s*\\}\\}", set.getKey());
         // Both backslashes (\) and dollar signs ($) in the replacement string may cause the
         // results to be different than if it were being treated as a literal replacement string
@@ -697,6 +700,10 @@ public class LineBuffer implements RandomAccess {
 
   /* ********************************************************************************************* */
 
+  private static final Pattern PLACEHOLDER_PATTERN =
+      Pattern.compile("(\\{\\{.+?\\}\\})+", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+  private static final Pattern POSITIONAL_PATTERN = Pattern.compile("^\\d+$");
+
   private List<String> placeholders = new ArrayList<>();
   private final List<String> positionalPlaceholders = new ArrayList<>();
   private final List<String> pairedPlaceholders = new ArrayList<>();
@@ -718,9 +725,8 @@ public class LineBuffer implements RandomAccess {
     pairedPlaceholders.clear();
 
     // Separate positionals and other placeholders
-    final var pattern = Pattern.compile("^\\d+$");
     for (final var phKey : placeholders) {
-      if (pattern.matcher(phKey).find()) positionalPlaceholders.add(phKey);
+      if (POSITIONAL_PATTERN.matcher(phKey).find()) positionalPlaceholders.add(phKey);
       else pairedPlaceholders.add(phKey);
     }
 
@@ -832,10 +838,9 @@ public class LineBuffer implements RandomAccess {
    */
   public List<String> extractPlaceholders(String fmt) {
     final var keys = new ArrayList<String>();
+    if (!fmt.contains("{{")) return keys;
 
-    final var regex = "(\\{\\{.+?\\}\\})+";
-    final var pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
-    final var matcher = pattern.matcher(fmt);
+    final var matcher = PLACEHOLDER_PATTERN.matcher(fmt);
     while (matcher.find()) {
       // Extract key from between the brackets:
       final var bracketsCharCount = 2;
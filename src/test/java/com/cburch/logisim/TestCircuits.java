@@ -0,0 +1,124 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim;
+
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Pin;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/** Builds small circuit files from their text, and reads and drives the pins of their states. */
+public final class TestCircuits {
+  private TestCircuits() {}
+
+  private static final String HEADER =
+      """
+      <?xml version="1.0" encoding="UTF-8" standalone="no"?>
+      <project source="3.8.0" version="1.0">
+        <lib desc="#Wiring" name="0"/>
+        <lib desc="#Gates" name="1"/>
+        <lib desc="#Arithmetic" name="3"/>
+        <lib desc="#Memory" name="4"/>
+        <main name="main"/>
+      """;
+
+  /** Returns the text of a file whose circuits have the given names and components. */
+  public static String file(String... namesAndBodies) {
+    final var buf = new StringBuilder(HEADER);
+    for (var i = 0; i < namesAndBodies.length; i += 2) {
+      buf.append(String.format("<circuit name=\"%s\">%n", namesAndBodies[i]));
+      buf.append(namesAndBodies[i + 1]).append("</circuit>\n");
+    }
+    return buf.append("</project>\n").toString();
+  }
+
+  /** Returns the text of a file with one circuit, named main. */
+  public static String file(CharSequence body) {
+    return file("main", body.toString());
+  }
+
+  public static void pin(StringBuilder buf, int x, int y, String label, int width, boolean out) {
+    buf.append(String.format("<comp lib=\"0\" loc=\"(%d,%d)\" name=\"Pin\">", x, y));
+    buf.append(String.format("<a name=\"width\" val=\"%d\"/>", width));
+    buf.append(String.format("<a name=\"label\" val=\"%s\"/>", label));
+    if (out) buf.append("<a name=\"output\" val=\"true\"/><a name=\"facing\" val=\"west\"/>");
+    buf.append("</comp>\n");
+  }
+
+  public static void wire(StringBuilder buf, int x0, int y0, int x1, int y1) {
+    buf.append(String.format("<wire from=\"(%d,%d)\" to=\"(%d,%d)\"/>%n", x0, y0, x1, y1));
+  }
+
+  /**
+   * Adds a two-input gate of the Gates library with its output at (x, y), its inputs at (x - 50,
+   * y - 20) and (x - 50, y + 20); those of an XOR gate are at x - 60, and those of an XNOR gate at
+   * x - 70.
+   */
+  public static void gate(StringBuilder buf, String name, int x, int y, int width) {
+    buf.append(String.format("<comp lib=\"1\" loc=\"(%d,%d)\" name=\"%s\">", x, y, name));
+    buf.append(String.format("<a name=\"width\" val=\"%d\"/></comp>%n", width));
+  }
+
+  /** Reads a circuit file from its text. */
+  public static LogisimFile load(String text) throws IOException {
+    Main.headless = true;
+    final var in = new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    final var ret = LogisimFile.load(in, new Loader(null));
+    if (ret == null) throw new IOException("circuit could not be read");
+    return ret;
+  }
+
+  /** Loads a circuit file and creates a propagated state for its main circuit. */
+  public static CircuitState simulate(String text) throws IOException {
+    final var file = load(text);
+    final var state = new CircuitState(new Project(file), file.getMainCircuit());
+    state.getPropagator().propagate();
+    return state;
+  }
+
+  /** Returns the pin with the given label in the circuit of a state. */
+  public static Instance findPin(CircuitState state, String label) {
+    for (final var comp : state.getCircuit().getNonWires()) {
+      if (comp.getFactory() instanceof Pin
+          && label.equals(comp.getAttributeSet().getValue(StdAttr.LABEL))) {
+        return Instance.getInstanceFor(comp);
+      }
+    }
+    throw new IllegalArgumentException("no pin " + label);
+  }
+
+  /** Returns the first component with the given factory name in the circuit of a state. */
+  public static Component findComponent(CircuitState state, String name) {
+    for (final var comp : state.getCircuit().getNonWires()) {
+      if (comp.getFactory().getName().equals(name)) return comp;
+    }
+    throw new IllegalArgumentException("no component " + name);
+  }
+
+  public static Value getPin(CircuitState state, String label) {
+    return Pin.FACTORY.getValue(state.getInstanceState(findPin(state, label)));
+  }
+
+  /** Sets an input pin; the new value is seen by the next propagation. */
+  public static void setPin(CircuitState state, String label, long value) {
+    final var pin = findPin(state, label);
+    final var width = Pin.FACTORY.getWidth(pin).getWidth();
+    Pin.FACTORY.setValue(state.getInstanceState(pin), Value.createKnown(width, value));
+    state.markComponentAsDirty(pin.getComponent());
+  }
+}
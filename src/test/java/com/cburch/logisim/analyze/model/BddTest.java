@@ -0,0 +1,214 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.function.ToIntFunction;
+import org.junit.jupiter.api.Test;
+
+public class BddTest {
+
+  // the variables of ExpressionTest.random, in the order of their indexes
+  private static final List<String> VARIABLES = List.of("a", "b", "c", "d", "e", "f");
+  private static final ToIntFunction<String> INDEXES = VARIABLES::indexOf;
+
+  /** Rebuilds an expression out of NOT, AND and OR only, with the ANDs turned into ORs. */
+  private static Expression deMorgan(Expression expr) {
+    return expr.visit(
+        new Expression.Visitor<>() {
+          @Override
+          public Expression visitVariable(String name) {
+            return Expressions.variable(name);
+          }
+
+          @Override
+          public Expression visitConstant(int value) {
+            return Expressions.constant(value);
+          }
+
+          @Override
+          public Expression visitNot(Expression a) {
+            return Expressions.not(a.visit(this));
+          }
+
+          @Override
+          public Expression visitAnd(Expression a, Expression b) {
+            return Expressions.not(
+                Expressions.or(Expressions.not(a.visit(this)), Expressions.not(b.visit(this))));
+          }
+
+          @Override
+          public Expression visitOr(Expression a, Expression b) {
+            return Expressions.or(a.visit(this), b.visit(this));
+          }
+
+          @Override
+          public Expression visitXor(Expression a, Expression b) {
+            final var first = a.visit(this);
+            final var second = b.visit(this);
+            return Expressions.or(
+                Expressions.not(Expressions.or(Expressions.not(first), second)),
+                Expressions.not(Expressions.or(first, Expressions.not(second))));
+          }
+
+          @Override
+          public Expression visitXnor(Expression a, Expression b) {
+            return Expressions.not(visitXor(a, b));
+          }
+
+          @Override
+          public Expression visitEq(Expression a, Expression b) {
+            return Expressions.not(visitXor(a, b));
+          }
+        });
+  }
+
+  /** Returns the values of the variables in a row, the first variable being the highest bit. */
+  private static Map<String, Boolean> getValues(int row) {
+    final var values = new HashMap<String, Boolean>();
+    for (var i = 0; i < VARIABLES.size(); i++) {
+      values.put(VARIABLES.get(i), ((row >> (VARIABLES.size() - 1 - i)) & 1) != 0);
+    }
+    return values;
+  }
+
+  @Test
+  public void testCanonical() {
+    final var bdd = new Bdd();
+    final var a = bdd.ref(bdd.variable(0));
+    final var b = bdd.ref(bdd.variable(1));
+    final var c = bdd.ref(bdd.variable(2));
+    assertEquals(bdd.and(a, b), bdd.and(b, a));
+    assertEquals(bdd.not(bdd.and(a, b)), bdd.or(bdd.not(a), bdd.not(b)));
+    assertEquals(bdd.xnor(a, b), bdd.not(bdd.xor(a, b)));
+    assertEquals(bdd.and(a, bdd.or(b, c)), bdd.or(bdd.and(a, b), bdd.and(a, c)));
+    assertEquals(a, bdd.or(a, bdd.and(a, b)));
+    assertEquals(a, bdd.not(bdd.not(a)));
+    assertEquals(Bdd.FALSE, bdd.and(a, bdd.not(a)));
+    assertEquals(Bdd.TRUE, bdd.or(a, bdd.not(a)));
+    assertEquals(Bdd.FALSE, bdd.xor(c, c));
+  }
+
+  /** Checks that equal functions, built from expressions of other forms, give the same node. */
+  @Test
+  public void testCanonicalExpressions() {
+    final var random = new Random(50);
+    final var bdd = new Bdd();
+    for (var round = 0; round < 100; round++) {
+      final var expr = ExpressionTest.random(random, 1 + random.nextInt(40));
+      final var node = bdd.build(expr, INDEXES);
+      assertEquals(node, bdd.build(ExpressionTest.copy(expr), INDEXES), expr.toString());
+      assertEquals(node, bdd.build(deMorgan(expr), INDEXES), expr.toString());
+      assertEquals(bdd.not(node), bdd.build(Expressions.not(expr), INDEXES), expr.toString());
+    }
+  }
+
+  /** Checks the ones of a diagram against the evaluation of its expression in every row. */
+  @Test
+  public void testOnes() {
+    final var random = new Random(6);
+    final var bdd = new Bdd();
+    for (var round = 0; round < 100; round++) {
+      final var expr = ExpressionTest.random(random, 1 + random.nextInt(60));
+      // a variable without an index is always 0
+      final var withoutF = round % 5 == 0;
+      final var node =
+          bdd.build(expr, name -> withoutF && name.equals("f") ? -1 : VARIABLES.indexOf(name));
+      final var ones = bdd.getOnes(node, VARIABLES.size());
+      for (var row = 0; row < 1 << VARIABLES.size(); row++) {
+        final var values = getValues(row);
+        if (withoutF) values.put("f", false);
+        assertTrue(ExpressionTest.evaluate(expr, values) == ones.get(row), expr + " row " + row);
+      }
+
+      final var assignment = bdd.getAssignment(node, VARIABLES.size());
+      if (ones.isEmpty()) {
+        assertNull(assignment);
+      } else {
+        var row = 0;
+        for (final var value : assignment) row = 2 * row + (value ? 1 : 0);
+        assertTrue(ones.get(row), expr.toString());
+      }
+    }
+  }
+
+  /** Checks that the nodes still referenced survive the collections of a small table. */
+  @Test
+  public void testCollect() {
+    final var random = new Random(4096);
+    final var bdd = new Bdd(4096);
+    final var kept = new ArrayList<Integer>();
+    final var keptOnes = new ArrayList<BitSet>();
+    for (var round = 0; round < 2000; round++) {
+      final var node = bdd.build(ExpressionTest.random(random, 1 + random.nextInt(60)), INDEXES);
+      if (round % 100 == 0) {
+        kept.add(node);
+        keptOnes.add(bdd.getOnes(node, VARIABLES.size()));
+      } else {
+        bdd.deref(node);
+      }
+      assertTrue(bdd.getNodeCount() <= 4096);
+    }
+    for (var i = 0; i < kept.size(); i++) {
+      assertEquals(keptOnes.get(i), bdd.getOnes(kept.get(i), VARIABLES.size()));
+    }
+  }
+
+  /**
+   * Builds the OR of x[i] AND y[i] for the given number of pairs, keeping only the result
+   * referenced. With all x before all y the diagram doubles with each pair; interleaved, it grows
+   * by two nodes.
+   */
+  private static int buildPairs(Bdd bdd, int pairs, boolean interleaved) {
+    var node = bdd.ref(Bdd.FALSE);
+    for (var i = 0; i < pairs; i++) {
+      final var x = interleaved ? 2 * i : i;
+      final var y = interleaved ? 2 * i + 1 : pairs + i;
+      final var next = bdd.ref(bdd.or(node, bdd.and(bdd.variable(x), bdd.variable(y))));
+      bdd.deref(node);
+      node = next;
+    }
+    return node;
+  }
+
+  @Test
+  public void testNodeLimit() {
+    final var bdd = new Bdd(4096);
+    // a thousand nodes only, with the garbage collected as it goes
+    final var node = buildPairs(bdd, 500, true);
+    final var assignment = bdd.getAssignment(node, 1000);
+    for (var i = 0; i < 1000; i++) assertTrue(assignment[i] == i >= 998, "variable " + i);
+    bdd.deref(node);
+    assertThrows(Bdd.NodeLimitException.class, () -> buildPairs(bdd, 14, false));
+  }
+
+  @Test
+  public void testCancel() {
+    final var bdd = new Bdd();
+    final var expr = ExpressionTest.random(new Random(1), 20);
+    Thread.currentThread().interrupt();
+    try {
+      assertThrows(CancellationException.class, () -> bdd.build(expr, INDEXES));
+    } finally {
+      Thread.interrupted();
+    }
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class ExpressionTest {
+
+  private static final String[] VARIABLES = {"a", "b", "c", "d", "e", "f"};
+
+  /**
+   * Builds a random expression out of new objects only, in which a part built before is used again
+   * now and then, so that equal subexpressions occur more than once.
+   */
+  static Expression random(Random random, int size) {
+    final var parts = new ArrayList<Expression>();
+    for (var i = 0; i < size; i++) {
+      final var choice = random.nextInt(10);
+      Expression expr;
+      if (parts.size() < 2 || choice < 2) {
+        expr =
+            random.nextInt(8) == 0
+                ? Expressions.constant(random.nextInt(2))
+                : Expressions.variable(VARIABLES[random.nextInt(VARIABLES.length)]);
+      } else {
+        final var a = copy(parts.get(random.nextInt(parts.size())));
+        final var b = copy(parts.get(random.nextInt(parts.size())));
+        expr =
+            switch (choice) {
+              case 2 -> Expressions.not(a);
+              case 3, 4 -> Expressions.and(a, b);
+              case 5, 6 -> Expressions.or(a, b);
+              case 7 -> Expressions.xor(a, b);
+              case 8 -> Expressions.xnor(a, b);
+              default -> Expressions.eq(a, b);
+            };
+      }
+      parts.add(expr);
+    }
+    return parts.get(parts.size() - 1);
+  }
+
+  /** Rebuilds an expression out of new objects. */
+  static Expression copy(Expression expr) {
+    return expr.visit(
+        new Expression.Visitor<>() {
+          @Override
+          public Expression visitVariable(String name) {
+            return Expressions.variable(name);
+          }
+
+          @Override
+          public Expression visitConstant(int value) {
+            return Expressions.constant(value);
+          }
+
+          @Override
+          public Expression visitNot(Expression a) {
+            return Expressions.not(a.visit(this));
+          }
+
+          @Override
+          public Expression visitAnd(Expression a, Expression b) {
+            return Expressions.and(a.visit(this), b.visit(this));
+          }
+
+          @Override
+          public Expression visitOr(Expression a, Expression b) {
+            return Expressions.or(a.visit(this), b.visit(this));
+          }
+
+          @Override
+          public Expression visitXor(Expression a, Expression b) {
+            return Expressions.xor(a.visit(this), b.visit(this));
+          }
+
+          @Override
+          public Expression visitXnor(Expression a, Expression b) {
+            return Expressions.xnor(a.visit(this), b.visit(this));
+          }
+
+          @Override
+          public Expression visitEq(Expression a, Expression b) {
+            return Expressions.eq(a.visit(this), b.visit(this));
+          }
+        });
+  }
+
+  /** Evaluates an expression for one assignment, walking the whole tree. */
+  static boolean evaluate(Expression expr, Map<String, Boolean> values) {
+    return expr.visit(
+        new Expression.Visitor<Boolean>() {
+          @Override
+          public Boolean visitVariable(String name) {
+            return values.get(name);
+          }
+
+          @Override
+          public Boolean visitConstant(int value) {
+            return value != 0;
+          }
+
+          @Override
+          public Boolean visitNot(Expression a) {
+            return !a.visit(this);
+          }
+
+          @Override
+          public Boolean visitAnd(Expression a, Expression b) {
+            return a.visit(this) & b.visit(this);
+          }
+
+          @Override
+          public Boolean visitOr(Expression a, Expression b) {
+            return a.visit(this) | b.visit(this);
+          }
+
+          @Override
+          public Boolean visitXor(Expression a, Expression b) {
+            return a.visit(this) ^ b.visit(this);
+          }
+
+          @Override
+          public Boolean visitXnor(Expression a, Expression b) {
+            return a.visit(this) == b.visit(this);
+          }
+
+          @Override
+          public Boolean visitEq(Expression a, Expression b) {
+            return a.visit(this) == b.visit(this);
+          }
+        });
+  }
+
+  /** Collects every subexpression of an expression, each occurrence once. */
+  private static List<Expression> getParts(Expression expr) {
+    final var ret = new ArrayList<Expression>();
+    ret.add(expr);
+    expr.visit(
+        new Expression.Visitor<Void>() {
+          @Override
+          public Void visitNot(Expression a) {
+            ret.add(a);
+            return a.visit(this);
+          }
+
+          @Override
+          public Void visitBinary(Expression a, Expression b, Expression.Op op) {
+            ret.add(a);
+            ret.add(b);
+            a.visit(this);
+            return b.visit(this);
+          }
+        });
+    return ret;
+  }
+
+  /** Checks that interned expressions are the same object exactly when they are equal. */
+  @Test
+  public void testIntern() {
+    final var random = new Random(47);
+    final var table = new Expressions.Table();
+    for (var round = 0; round < 50; round++) {
+      final var expr = random(random, 2 + random.nextInt(40));
+      final var other = copy(expr);
+      assertNotSame(expr, other);
+      final var interned = table.intern(expr);
+      assertEquals(expr, interned);
+      assertSame(interned, table.intern(other));
+      assertSame(interned, table.intern(expr));
+      assertSame(interned, table.intern(interned));
+
+      final var parts = getParts(interned);
+      final var distinct = new HashSet<>(parts);
+      final var instances = new IdentityHashMap<Expression, Boolean>();
+      for (final var part : parts) {
+        instances.put(part, true);
+        assertSame(part, table.intern(copy(part)));
+      }
+      assertEquals(distinct.size(), instances.size());
+    }
+    assertNull(table.intern(null));
+  }
+
+  /** Checks the evaluation of 64 rows at once against that of every row on its own. */
+  @Test
+  public void testEvaluateRows() {
+    final var random = new Random(64);
+    final var table = new Expressions.Table();
+    for (var round = 0; round < 100; round++) {
+      final var expr = random(random, 1 + random.nextInt(60));
+      final var columns = new HashMap<String, Long>();
+      for (final var name : VARIABLES) columns.put(name, random.nextLong());
+      // a variable without a column is false in every row
+      if (round % 10 == 0) columns.remove("f");
+      final var result = expr.evaluate(columns);
+      assertEquals(result, table.intern(expr).evaluate(columns));
+      for (var row = 0; row < Long.SIZE; row++) {
+        final var values = new HashMap<String, Boolean>();
+        for (final var name : VARIABLES) {
+          values.put(name, ((columns.getOrDefault(name, 0L) >>> row) & 1) != 0);
+        }
+        final var expected = evaluate(expr, values) ? 1L : 0L;
+        assertEquals(expected, (result >>> row) & 1, expr + " row " + row);
+      }
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import javax.swing.JTextArea;
+import org.junit.jupiter.api.Test;
+
+public class ImplicantTest {
+
+  private static AnalyzerModel createModel(int nrOfInputs, Entry[] column) {
+    final var inputs = new ArrayList<Var>();
+    for (var i = 0; i < nrOfInputs; i++) inputs.add(new Var("x" + i, 1));
+    final var model = new AnalyzerModel();
+    model.setVariables(inputs, List.of(new Var("y", 1)));
+    model.getTruthTable().setOutputColumn(0, column);
+    return model;
+  }
+
+  private static Entry[] randomColumn(Random random, int nrOfInputs) {
+    final var column = new Entry[1 << nrOfInputs];
+    final var dontCares = random.nextInt(4);
+    for (var row = 0; row < column.length; row++) {
+      final var choice = random.nextInt(8);
+      column[row] = choice < dontCares ? Entry.DONT_CARE : choice % 2 == 0 ? Entry.ONE : Entry.ZERO;
+    }
+    return column;
+  }
+
+  /** A column that is the sum of a few random products, with some don't cares. */
+  private static Entry[] randomProducts(Random random, int nrOfInputs, int nrOfProducts) {
+    final var rows = 1 << nrOfInputs;
+    final var column = new Entry[rows];
+    Arrays.fill(column, Entry.ZERO);
+    for (var i = 0; i < nrOfProducts; i++) {
+      final var unknowns = random.nextInt(rows) | random.nextInt(rows);
+      final var values = random.nextInt(rows) & ~unknowns;
+      for (var row = 0; row < rows; row++) {
+        if ((row & ~unknowns) == values) column[row] = Entry.ONE;
+      }
+    }
+    for (var i = 0; i < rows / 16; i++) column[random.nextInt(rows)] = Entry.DONT_CARE;
+    return column;
+  }
+
+  private static List<Implicant> computeMinimal(int format, AnalyzerModel model) {
+    return Implicant.computeMinimal(format, model, "y", new JTextArea());
+  }
+
+  private static boolean covers(int unknowns, int values, int row) {
+    return (row & ~unknowns) == values;
+  }
+
+  /** Checks that the implicants cover every term of the desired kind, and none of the other. */
+  private static void assertCover(Entry[] column, Entry desired, List<Implicant> implicants) {
+    for (var row = 0; row < column.length; row++) {
+      if (column[row] == Entry.DONT_CARE) continue;
+      var covered = false;
+      for (final var implicant : implicants) {
+        covered |= covers(implicant.unknowns, implicant.values, row);
+      }
+      assertTrue(covered == (column[row] == desired), "row " + row);
+    }
+  }
+
+  /**
+   * Finds the smallest number of implicants that covers the ones of a column by trying all of its
+   * implicants, going through the sets of covered ones in order of how many implicants they take.
+   */
+  private static int getMinimalCount(Entry[] column) {
+    final var ones = new ArrayList<Integer>();
+    for (var row = 0; row < column.length; row++) {
+      if (column[row] == Entry.ONE) ones.add(row);
+    }
+    final var covers = new ArrayList<Integer>();
+    for (var unknowns = 0; unknowns < column.length; unknowns++) {
+      for (var values = 0; values < column.length; values++) {
+        if ((values & unknowns) != 0) continue;
+        var allowed = true;
+        var cover = 0;
+        for (var row = 0; row < column.length; row++) {
+          if (!covers(unknowns, values, row)) continue;
+          if (column[row] == Entry.ZERO) allowed = false;
+          if (column[row] == Entry.ONE) cover |= 1 << ones.indexOf(row);
+        }
+        if (allowed && cover != 0) covers.add(cover);
+      }
+    }
+    final var all = (1 << ones.size()) - 1;
+    final var count = new int[all + 1];
+    Arrays.fill(count, Integer.MAX_VALUE);
+    count[0] = 0;
+    for (var covered = 0; covered < all; covered++) {
+      if (count[covered] == Integer.MAX_VALUE) continue;
+      for (final var cover : covers) {
+        final var next = covered | cover;
+        count[next] = Math.min(count[next], count[covered] + 1);
+      }
+    }
+    return count[all];
+  }
+
+  /** Checks both forms of random functions of 4 to 10 inputs with don't cares. */
+  @Test
+  public void testCover() {
+    final var random = new Random(48);
+    for (var round = 0; round < 70; round++) {
+      final var nrOfInputs = 4 + round % 7;
+      final var column = randomColumn(random, nrOfInputs);
+      final var model = createModel(nrOfInputs, column);
+      assertCover(column, Entry.ONE, computeMinimal(AnalyzerModel.FORMAT_SUM_OF_PRODUCTS, model));
+      assertCover(column, Entry.ZERO, computeMinimal(AnalyzerModel.FORMAT_PRODUCT_OF_SUMS, model));
+    }
+  }
+
+  /** Checks that the sum of products takes no more products than the fewest possible. */
+  @Test
+  public void testMinimal() {
+    final var random = new Random(4);
+    for (var round = 0; round < 100; round++) {
+      final var nrOfInputs = 4 + round % 2;
+      final var column = randomColumn(random, nrOfInputs);
+      final var model = createModel(nrOfInputs, column);
+      final var implicants = computeMinimal(AnalyzerModel.FORMAT_SUM_OF_PRODUCTS, model);
+      assertCover(column, Entry.ONE, implicants);
+      final var ones = Arrays.stream(column).filter(entry -> entry == Entry.ONE).count();
+      // the search goes through all sets of ones
+      if (ones == 0 || ones > 16) continue;
+      assertTrue(implicants.size() <= getMinimalCount(column), "round " + round);
+    }
+  }
+
+  /** Checks that the expansion used above the inputs for finding all primes gives a cover. */
+  @Test
+  public void testExpand() {
+    final var random = new Random(13);
+    for (final var nrOfInputs : new int[] {13, 14}) {
+      final var column = randomProducts(random, nrOfInputs, 12);
+      final var model = createModel(nrOfInputs, column);
+      final var implicants = computeMinimal(AnalyzerModel.FORMAT_SUM_OF_PRODUCTS, model);
+      assertCover(column, Entry.ONE, implicants);
+      assertFalse(implicants.isEmpty());
+      assertCover(column, Entry.ZERO, computeMinimal(AnalyzerModel.FORMAT_PRODUCT_OF_SUMS, model));
+    }
+  }
+
+  /** Checks that interrupting the thread cancels the computation, by both methods. */
+  @Test
+  public void testCancel() {
+    final var random = new Random(7);
+    for (final var nrOfInputs : new int[] {10, 13}) {
+      final var model = createModel(nrOfInputs, randomColumn(random, nrOfInputs));
+      Thread.currentThread().interrupt();
+      try {
+        assertThrows(
+            CancellationException.class,
+            () -> computeMinimal(AnalyzerModel.FORMAT_SUM_OF_PRODUCTS, model));
+      } finally {
+        Thread.interrupted();
+      }
+    }
+  }
+}
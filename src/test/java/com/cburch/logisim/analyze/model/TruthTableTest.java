@@ -0,0 +1,335 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.analyze.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class TruthTableTest {
+
+  private static final Entry[] ENTRIES = {
+    Entry.ZERO, Entry.ONE, Entry.DONT_CARE, Entry.BUS_ERROR, Entry.OSCILLATE_ERROR
+  };
+
+  /**
+   * The table kept the plain way, as an array of entries per output, indexed by row, next to the
+   * names of the inputs the rows are made of, the first input being the highest bit.
+   */
+  private static class Reference {
+    List<String> inputs;
+    final List<Entry[]> columns = new ArrayList<>();
+
+    Reference(List<String> inputs, int outputs) {
+      this.inputs = inputs;
+      for (var col = 0; col < outputs; col++) {
+        final var column = new Entry[1 << inputs.size()];
+        Arrays.fill(column, Entry.DONT_CARE);
+        columns.add(column);
+      }
+    }
+
+    /**
+     * Changes the inputs, giving each row of the new inputs the entries of the row of the old ones
+     * with the same input values, an input that is no longer there being 0.
+     */
+    void setInputs(List<String> newInputs) {
+      for (var col = 0; col < columns.size(); col++) {
+        final var old = columns.get(col);
+        final var column = new Entry[1 << newInputs.size()];
+        for (var idx = 0; idx < column.length; idx++) {
+          final var values = new HashMap<String, Boolean>();
+          for (var i = 0; i < newInputs.size(); i++) {
+            values.put(newInputs.get(i), TruthTable.isInputSet(idx, i, newInputs.size()));
+          }
+          var oldIdx = 0;
+          for (final var input : inputs) {
+            oldIdx = (oldIdx << 1) | (values.getOrDefault(input, false) ? 1 : 0);
+          }
+          column[idx] = old[oldIdx];
+        }
+        columns.set(col, column);
+      }
+      inputs = newInputs;
+    }
+  }
+
+  private static AnalyzerModel createModel(int nrOfInputs, int nrOfOutputs) {
+    final var inputs = new ArrayList<Var>();
+    for (var i = 0; i < nrOfInputs; i++) inputs.add(new Var("i" + i, 1));
+    final var outputs = new ArrayList<Var>();
+    for (var i = 0; i < nrOfOutputs; i++) outputs.add(new Var("o" + i, 1));
+    final var model = new AnalyzerModel();
+    model.setVariables(inputs, outputs);
+    return model;
+  }
+
+  private static Reference createReference(AnalyzerModel model) {
+    final var outputs = model.getTruthTable().getOutputColumnCount();
+    return new Reference(new ArrayList<>(model.getInputs().bits), outputs);
+  }
+
+  /** Fills the columns with entries out of the first ones of all entries, in runs. */
+  private static void fill(Random random, TruthTable table, Reference ref, int kinds) {
+    for (var col = 0; col < ref.columns.size(); col++) {
+      final var column = ref.columns.get(col);
+      var entry = Entry.ZERO;
+      for (var idx = 0; idx < column.length; idx++) {
+        if (random.nextInt(3) == 0) entry = ENTRIES[random.nextInt(kinds)];
+        column[idx] = entry;
+      }
+      table.setOutputColumn(col, column.clone());
+    }
+  }
+
+  /**
+   * Checks the entries of the table against those of the reference, and that the visible rows are
+   * sorted, cover every row once, and have the same entries in all the rows they cover.
+   */
+  private static void assertTable(TruthTable table, Reference ref) {
+    assertEquals(ref.inputs.size(), table.getInputColumnCount());
+    final var rowCount = table.getRowCount();
+    for (var col = 0; col < ref.columns.size(); col++) {
+      final var column = ref.columns.get(col);
+      assertArrayEquals(column, table.getOutputColumn(col));
+      for (var idx = 0; idx < rowCount; idx++) {
+        assertSame(column[idx], table.getOutputEntry(idx, col));
+      }
+    }
+    final var covered = new int[rowCount];
+    var lastBase = -1;
+    for (var row = 0; row < table.getVisibleRowCount(); row++) {
+      final var base = table.getVisibleRowIndex(row);
+      final var mask = table.getVisibleRowDcMask(row);
+      assertTrue(base > lastBase, "rows out of order");
+      assertEquals(0, base & mask);
+      lastBase = base;
+      for (var i = 0; i < ref.inputs.size(); i++) {
+        final var bit = 1 << (ref.inputs.size() - 1 - i);
+        final var expected =
+            (mask & bit) != 0 ? Entry.DONT_CARE : (base & bit) != 0 ? Entry.ONE : Entry.ZERO;
+        assertSame(expected, table.getVisibleInputEntry(row, i));
+      }
+      final var indexes = new ArrayList<Integer>();
+      for (final var idx : table.getVisibleRowIndexes(row)) indexes.add(idx);
+      var count = 0;
+      for (var idx = 0; idx < rowCount; idx++) {
+        if ((idx & ~mask) != base) continue;
+        assertEquals(idx, indexes.get(count++));
+        covered[idx]++;
+        assertEquals(row, table.findVisibleRowContaining(idx));
+        for (final var column : ref.columns) assertSame(column[base], column[idx]);
+      }
+      assertEquals(count, indexes.size());
+      for (var col = 0; col < ref.columns.size(); col++) {
+        assertSame(ref.columns.get(col)[base], table.getVisibleOutputEntry(row, col));
+      }
+    }
+    for (var idx = 0; idx < rowCount; idx++) assertEquals(1, covered[idx], "row " + idx);
+  }
+
+  private static List<Long> getRows(TruthTable table) {
+    final var ret = new ArrayList<Long>();
+    for (var row = 0; row < table.getVisibleRowCount(); row++) {
+      ret.add(((long) table.getVisibleRowIndex(row) << 32) | table.getVisibleRowDcMask(row));
+    }
+    return ret;
+  }
+
+  /**
+   * Compacts the rows by merging, going through the inputs from the last one, each row with the
+   * one that differs from it only in that input, when all their entries are the same.
+   */
+  private static List<Long> compactAsReference(Reference ref) {
+    final var count = 1 << ref.inputs.size();
+    final var masks = new int[count];
+    for (var b = 1; b < count; b <<= 1) {
+      for (var idx = 0; idx < count; idx++) {
+        if ((idx & b) != 0 || masks[idx] < 0 || masks[idx | b] != masks[idx]) continue;
+        var same = true;
+        for (final var column : ref.columns) {
+          for (var add = 0; add <= masks[idx]; add++) {
+            if ((add & ~masks[idx]) != 0) continue;
+            same &= column[idx | add] == column[idx | add | b];
+          }
+        }
+        if (same) {
+          masks[idx] |= b;
+          masks[idx | b] = -1;
+        }
+      }
+    }
+    final var ret = new ArrayList<Long>();
+    for (var idx = 0; idx < count; idx++) {
+      if (masks[idx] >= 0) ret.add(((long) idx << 32) | masks[idx]);
+    }
+    return ret;
+  }
+
+  /** Checks that columns and single entries, errors among them, read back as they were set. */
+  @Test
+  public void testSetAndGet() {
+    final var random = new Random(49);
+    for (final var nrOfInputs : new int[] {0, 1, 3, 6, 7, 9}) {
+      final var model = createModel(nrOfInputs, 3);
+      final var table = model.getTruthTable();
+      final var ref = createReference(model);
+      assertTable(table, ref);
+      fill(random, table, ref, ENTRIES.length);
+      assertTable(table, ref);
+      for (var i = 0; i < 200; i++) {
+        final var idx = random.nextInt(table.getRowCount());
+        final var col = random.nextInt(3);
+        final var entry = ENTRIES[random.nextInt(ENTRIES.length)];
+        ref.columns.get(col)[idx] = entry;
+        table.setOutputEntry(idx, col, entry);
+      }
+      assertTable(table, ref);
+    }
+  }
+
+  /** Checks the compaction of tables of up to 256 rows against merging them a pair at a time. */
+  @Test
+  public void testCompact() {
+    final var random = new Random(4);
+    for (var round = 0; round < 100; round++) {
+      final var model = createModel(1 + round % 8, 1 + round % 2);
+      final var table = model.getTruthTable();
+      final var ref = createReference(model);
+      fill(random, table, ref, 2 + round % 4);
+      table.compactVisibleRows();
+      assertEquals(compactAsReference(ref), getRows(table));
+      assertTable(table, ref);
+      table.expandVisibleRows();
+      assertEquals(table.getRowCount(), table.getVisibleRowCount());
+      assertTable(table, ref);
+    }
+  }
+
+  /**
+   * Checks that setting an entry in a compacted row splits off the row of that entry, and leaves
+   * the rest of the row in as few rows as it takes.
+   */
+  @Test
+  public void testSplitOnSetOutputEntry() {
+    final var random = new Random(5);
+    for (var round = 0; round < 100; round++) {
+      final var model = createModel(2 + round % 4, 2);
+      final var table = model.getTruthTable();
+      final var ref = createReference(model);
+      fill(random, table, ref, 2);
+      table.compactVisibleRows();
+      final var idx = random.nextInt(table.getRowCount());
+      final var col = random.nextInt(2);
+      final var row = table.findVisibleRowContaining(idx);
+      final var mask = table.getVisibleRowDcMask(row);
+      final var rowCount = table.getVisibleRowCount();
+      final var entry = ref.columns.get(col)[idx] == Entry.ONE ? Entry.ZERO : Entry.ONE;
+      ref.columns.get(col)[idx] = entry;
+      table.setOutputEntry(idx, col, entry);
+      assertTable(table, ref);
+      assertEquals(0, table.getVisibleRowDcMask(table.findVisibleRowContaining(idx)));
+      assertEquals(rowCount + Integer.bitCount(mask), table.getVisibleRowCount());
+      // setting the same entry again changes nothing
+      final var rows = getRows(table);
+      table.setOutputEntry(idx, col, entry);
+      assertEquals(rows, getRows(table));
+    }
+  }
+
+  /** Checks making an input of a row don't care, and splitting it again. */
+  @Test
+  public void testDontCareInput() {
+    final var random = new Random(6);
+    for (var round = 0; round < 100; round++) {
+      final var nrOfInputs = 2 + round % 4;
+      final var model = createModel(nrOfInputs, 2);
+      final var table = model.getTruthTable();
+      final var ref = createReference(model);
+      fill(random, table, ref, 3);
+      final var row = random.nextInt(table.getRowCount());
+      final var col = random.nextInt(nrOfInputs);
+      final var bit = 1 << (nrOfInputs - 1 - col);
+      final var base = row & ~bit;
+      var same = true;
+      for (final var column : ref.columns) same &= column[base] == column[base | bit];
+
+      // a row is only merged with one of other outputs when forced
+      assertEquals(same, table.setVisibleInputEntry(row, col, Entry.DONT_CARE, false));
+      if (!same) {
+        assertEquals(table.getRowCount(), table.getVisibleRowCount());
+        assertTable(table, ref);
+        assertTrue(table.setVisibleInputEntry(row, col, Entry.DONT_CARE, true));
+        // the row takes the outputs of its base
+        for (final var column : ref.columns) column[base | bit] = column[base];
+      }
+      assertTable(table, ref);
+      final var merged = table.findVisibleRowContaining(row);
+      assertEquals(bit, table.getVisibleRowDcMask(merged));
+      assertEquals(table.getRowCount() - 1, table.getVisibleRowCount());
+      assertFalse(table.setVisibleInputEntry(merged, col, Entry.DONT_CARE, false));
+
+      assertTrue(table.setVisibleInputEntry(merged, col, Entry.ONE, false));
+      assertEquals(table.getRowCount(), table.getVisibleRowCount());
+      assertTable(table, ref);
+    }
+  }
+
+  /** Checks adding, moving and removing inputs, with the rows expanded and compacted. */
+  @Test
+  public void testChangeInputs() {
+    final var random = new Random(7);
+    for (var round = 0; round < 40; round++) {
+      final var model = createModel(1 + round % 4, 2);
+      final var table = model.getTruthTable();
+      final var ref = createReference(model);
+      final var inputs = model.getInputs();
+      fill(random, table, ref, 3);
+      final var compact = round % 2 == 0;
+      if (compact) table.compactVisibleRows();
+
+      final var added = new Var("n" + round, 1 + round % 3 / 2);
+      final var rowCount = table.getVisibleRowCount();
+      inputs.add(added);
+      ref.setInputs(new ArrayList<>(inputs.bits));
+      assertTable(table, ref);
+      // each row is split in one for each value of the new input
+      if (compact) assertEquals(rowCount << added.width, table.getVisibleRowCount());
+
+      final var moved = inputs.vars.get(random.nextInt(inputs.vars.size()));
+      final var index = inputs.vars.indexOf(moved);
+      final var delta = random.nextInt(inputs.vars.size()) - index;
+      if (delta != 0) {
+        inputs.move(moved, delta);
+        ref.setInputs(new ArrayList<>(inputs.bits));
+        assertEquals(index + delta, inputs.vars.indexOf(moved));
+        assertTable(table, ref);
+      }
+
+      final var removed = inputs.vars.get(random.nextInt(inputs.vars.size()));
+      inputs.remove(removed);
+      ref.setInputs(new ArrayList<>(inputs.bits));
+      assertTable(table, ref);
+      if (compact) {
+        table.compactVisibleRows();
+        assertEquals(compactAsReference(ref), getRows(table));
+      }
+    }
+  }
+}
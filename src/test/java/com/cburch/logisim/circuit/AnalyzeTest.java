@@ -0,0 +1,214 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static com.cburch.logisim.circuit.Strings.S;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestCircuits;
+import com.cburch.logisim.analyze.model.Expression;
+import com.cburch.logisim.analyze.model.Expressions;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.proj.Project;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+public class AnalyzeTest {
+
+  private static final Pattern OUTPUT_BIT = Pattern.compile("Y\\[(\\d+)\\]");
+  private static final Pattern INPUT = Pattern.compile("(\\w+)=([01]+)");
+
+  /** A two-input gate with the inputs A and B and the output Y, A above B. */
+  private static String gate(String name, int width) {
+    final var buf = new StringBuilder();
+    final var inputX =
+        switch (name) {
+          case "XOR Gate" -> 40;
+          case "XNOR Gate" -> 30;
+          default -> 50;
+        };
+    TestCircuits.gate(buf, name, 100, 100, width);
+    TestCircuits.pin(buf, inputX, 80, "A", width, false);
+    TestCircuits.pin(buf, inputX, 120, "B", width, false);
+    TestCircuits.pin(buf, 100, 100, "Y", width, true);
+    return buf.toString();
+  }
+
+  private static Circuit getCircuit(LogisimFile file, String name) {
+    for (final var circuit : file.getCircuits()) {
+      if (circuit.getName().equals(name)) return circuit;
+    }
+    throw new IllegalArgumentException("no circuit " + name);
+  }
+
+  /** Loads a file whose main circuit is a 4-bit AND gate, and whose other one is an OR gate. */
+  private static LogisimFile loadAndOr() throws Exception {
+    return TestCircuits.load(
+        TestCircuits.file("main", gate("AND Gate", 4), "other", gate("OR Gate", 4)));
+  }
+
+  private static List<String> check(String main, String other) throws Exception {
+    final var file = TestCircuits.load(TestCircuits.file("main", main, "other", other));
+    return Analyze.checkEquivalence(getCircuit(file, "main"), getCircuit(file, "other"));
+  }
+
+  @Test
+  public void testEqual() throws Exception {
+    assertEquals(List.of(), check(gate("AND Gate", 4), gate("AND Gate", 4)));
+    assertEquals(List.of(), check(gate("XOR Gate", 8), gate("Odd Parity", 8)));
+
+    // B above A: the pins are matched by label, not by place
+    final var swapped = new StringBuilder();
+    TestCircuits.gate(swapped, "OR Gate", 100, 100, 2);
+    TestCircuits.pin(swapped, 50, 80, "B", 2, false);
+    TestCircuits.pin(swapped, 50, 120, "A", 2, false);
+    TestCircuits.pin(swapped, 100, 100, "Y", 2, true);
+    assertEquals(List.of(), check(gate("OR Gate", 2), swapped.toString()));
+  }
+
+  @Test
+  public void testDifferent() throws Exception {
+    assertEquals(
+        List.of(S.get("analyzeEquivalenceOutput", "Y", "A=0, B=0")),
+        check(gate("XOR Gate", 1), gate("XNOR Gate", 1)));
+  }
+
+  /** Checks that each input given for a differing output bit makes the simulations differ. */
+  @Test
+  public void testCounterexamples() throws Exception {
+    final var file = loadAndOr();
+    final var project = new Project(file);
+    final var main = new CircuitState(project, getCircuit(file, "main"));
+    final var other = new CircuitState(project, getCircuit(file, "other"));
+    final var differences = Analyze.checkEquivalence(main.getCircuit(), other.getCircuit());
+    assertEquals(4, differences.size());
+    final var bits = new ArrayList<Integer>();
+    for (final var difference : differences) {
+      final var output = OUTPUT_BIT.matcher(difference);
+      assertTrue(output.find(), difference);
+      final var bit = Integer.parseInt(output.group(1));
+      bits.add(bit);
+      final var inputs = INPUT.matcher(difference);
+      var count = 0;
+      while (inputs.find()) {
+        final var value = Long.parseLong(inputs.group(2), 2);
+        TestCircuits.setPin(main, inputs.group(1), value);
+        TestCircuits.setPin(other, inputs.group(1), value);
+        count++;
+      }
+      assertEquals(2, count, difference);
+      main.getPropagator().propagate();
+      other.getPropagator().propagate();
+      assertNotEquals(
+          TestCircuits.getPin(main, "Y").get(bit), TestCircuits.getPin(other, "Y").get(bit));
+    }
+    assertEquals(List.of(0, 1, 2, 3), bits.stream().sorted().toList());
+  }
+
+  @Test
+  public void testPins() throws Exception {
+    final var other = new StringBuilder(gate("AND Gate", 4));
+    TestCircuits.pin(other, 50, 200, "C", 1, false);
+    final var missing = check(gate("AND Gate", 4), other.toString());
+    assertEquals(List.of(S.get("analyzeEquivalenceMissingPin", "C", "main")), missing);
+
+    final var narrow = new StringBuilder();
+    TestCircuits.gate(narrow, "AND Gate", 100, 100, 4);
+    TestCircuits.pin(narrow, 50, 80, "A", 4, false);
+    TestCircuits.pin(narrow, 50, 120, "B", 4, false);
+    TestCircuits.pin(narrow, 50, 200, "Y", 2, true);
+    final var differences = check(gate("AND Gate", 4), narrow.toString());
+    assertEquals(
+        List.of(S.get("analyzeEquivalenceWidth", "Y", 4, "main", 2, "other")), differences);
+  }
+
+  /** Returns the expression of each output of the main circuit of a file, by name. */
+  private static Map<String, Expression> computeExpressions(String body) throws Exception {
+    final var circuit = TestCircuits.load(TestCircuits.file(body)).getMainCircuit();
+    return Analyze.getOutputExpressions(circuit, Analyze.getPinLabels(circuit));
+  }
+
+  @Test
+  public void testCircular() throws Exception {
+    // Y = A OR Y: the output of the OR gate is wired back to its lower input
+    final var buf = new StringBuilder();
+    TestCircuits.gate(buf, "OR Gate", 100, 100, 1);
+    TestCircuits.pin(buf, 50, 80, "A", 1, false);
+    TestCircuits.pin(buf, 100, 100, "Y", 1, true);
+    TestCircuits.wire(buf, 100, 100, 100, 140);
+    TestCircuits.wire(buf, 50, 140, 100, 140);
+    TestCircuits.wire(buf, 50, 120, 50, 140);
+    final var body = buf.toString();
+    assertThrows(AnalyzeException.Circular.class, () -> computeExpressions(body));
+  }
+
+  /**
+   * Both inputs fan out to an AND and an XOR gate, which meet again in an OR gate. The shared
+   * subexpressions must not change the expressions from those the gates build one by one.
+   */
+  @Test
+  public void testReconvergentFanout() throws Exception {
+    final var buf = new StringBuilder();
+    TestCircuits.gate(buf, "AND Gate", 100, 100, 1);
+    TestCircuits.pin(buf, 50, 80, "A", 1, false);
+    TestCircuits.pin(buf, 50, 120, "B", 1, false);
+    TestCircuits.gate(buf, "XOR Gate", 110, 200, 1);
+    TestCircuits.wire(buf, 30, 80, 50, 80);
+    TestCircuits.wire(buf, 30, 80, 30, 180);
+    TestCircuits.wire(buf, 30, 180, 50, 180);
+    TestCircuits.wire(buf, 40, 120, 50, 120);
+    TestCircuits.wire(buf, 40, 120, 40, 220);
+    TestCircuits.wire(buf, 40, 220, 50, 220);
+    TestCircuits.gate(buf, "OR Gate", 200, 150, 1);
+    TestCircuits.wire(buf, 100, 100, 150, 100);
+    TestCircuits.wire(buf, 150, 100, 150, 130);
+    TestCircuits.wire(buf, 110, 200, 150, 200);
+    TestCircuits.wire(buf, 150, 170, 150, 200);
+    TestCircuits.pin(buf, 150, 100, "X", 1, true);
+    TestCircuits.pin(buf, 200, 150, "Y", 1, true);
+    final var expressions = computeExpressions(buf.toString());
+
+    // the expressions each gate builds from those of its inputs
+    final var a = Expressions.variable("A");
+    final var b = Expressions.variable("B");
+    final var and = Expressions.and(a, b);
+    assertEquals(and, expressions.get("X"));
+    assertEquals(Expressions.or(and, Expressions.xor(a, b)), expressions.get("Y"));
+  }
+
+  @Test
+  public void testProgress() throws Exception {
+    final var file = loadAndOr();
+    final var progress = new ArrayList<Integer>();
+    Analyze.checkEquivalence(getCircuit(file, "main"), getCircuit(file, "other"), progress::add);
+    // one report for each of the four bits of Y in both circuits
+    assertEquals(List.of(12, 25, 37, 50, 62, 75, 87, 100), progress);
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    final var file = loadAndOr();
+    Thread.currentThread().interrupt();
+    try {
+      assertThrows(
+          CancellationException.class,
+          () -> Analyze.checkEquivalence(getCircuit(file, "main"), getCircuit(file, "other")));
+    } finally {
+      Thread.interrupted();
+    }
+  }
+}
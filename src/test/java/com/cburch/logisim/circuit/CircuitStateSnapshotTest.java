@@ -0,0 +1,155 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.cburch.logisim.TestCircuits;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.SnapshotData;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.memory.Mem;
+import com.cburch.logisim.std.memory.RamState;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+public class CircuitStateSnapshotTest {
+
+  private static final Location CLOCK = Location.create(110, 140, false);
+
+  /** A register from D to Q on a clock, and a RAM on its own. */
+  private static String registerAndRam(String extra) {
+    final var buf = new StringBuilder();
+    TestCircuits.pin(buf, 100, 100, "D", 8, false);
+    buf.append("<comp lib=\"4\" loc=\"(130,100)\" name=\"Register\">");
+    buf.append("<a name=\"width\" val=\"8\"/><a name=\"appearance\" val=\"classic\"/></comp>\n");
+    TestCircuits.wire(buf, 110, 120, 110, 140);
+    buf.append("<comp lib=\"0\" loc=\"(110,140)\" name=\"Clock\"/>\n");
+    TestCircuits.pin(buf, 130, 100, "Q", 8, true);
+    buf.append("<comp lib=\"4\" loc=\"(400,300)\" name=\"RAM\">");
+    buf.append("<a name=\"addrWidth\" val=\"4\"/><a name=\"dataWidth\" val=\"8\"/></comp>\n");
+    return TestCircuits.file(buf.append(extra));
+  }
+
+  private static Component find(CircuitState state, String factory) {
+    for (final var comp : state.getCircuit().getNonWires()) {
+      if (comp.getFactory().getName().equals(factory)) return comp;
+    }
+    throw new IllegalArgumentException("no " + factory);
+  }
+
+  private static byte[] getSnapshotBytes(CircuitState state, String factory) {
+    final var bytes = new ByteArrayOutputStream();
+    try (final var out = new DataOutputStream(bytes)) {
+      ((SnapshotData) state.getData(find(state, factory))).writeSnapshot(out);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static void add(Circuit circuit, Component comp) {
+    final var xn = new CircuitMutation(circuit);
+    xn.add(comp);
+    xn.execute();
+  }
+
+  private static void tick(CircuitState state) {
+    final var prop = state.getPropagator();
+    for (var i = 0; i < 2; i++) {
+      prop.toggleClocks();
+      prop.propagate();
+    }
+  }
+
+  private static CircuitStateSnapshot writeAndRead(CircuitState state, String text)
+      throws IOException {
+    final var out = new ByteArrayOutputStream();
+    CircuitStateSnapshot.take(state).write(out);
+    final var project = new Project(TestCircuits.load(text));
+    return CircuitStateSnapshot.read(new ByteArrayInputStream(out.toByteArray()), project);
+  }
+
+  private static void assertSameState(CircuitState expected, CircuitState actual) {
+    final var prop = expected.getPropagator();
+    assertEquals(prop.getTickCount(), actual.getPropagator().getTickCount());
+    assertEquals(prop.getNoiseSource(), actual.getPropagator().getNoiseSource());
+    assertEquals(prop.getNoiseCount(), actual.getPropagator().getNoiseCount());
+    assertEquals(TestCircuits.getPin(expected, "D"), TestCircuits.getPin(actual, "D"));
+    assertEquals(TestCircuits.getPin(expected, "Q"), TestCircuits.getPin(actual, "Q"));
+    assertEquals(expected.getValue(CLOCK), actual.getValue(CLOCK));
+    for (final var factory : new String[] {"Register", "Clock", "RAM"}) {
+      assertArrayEquals(
+          getSnapshotBytes(expected, factory), getSnapshotBytes(actual, factory), factory);
+    }
+    final var ram = ((RamState) expected.getData(find(expected, "RAM"))).getContents();
+    final var restoredRam = ((RamState) actual.getData(find(actual, "RAM"))).getContents();
+    for (var addr = 0; addr < 16; addr++) assertEquals(ram.get(addr), restoredRam.get(addr));
+  }
+
+  /** Checks that a snapshot read back from its file continues exactly like the simulation. */
+  @Test
+  public void testWriteAndRead() throws Exception {
+    final var text = registerAndRam("");
+    final var state = TestCircuits.simulate(text);
+    TestCircuits.setPin(state, "D", 0x5a);
+    tick(state);
+    ((RamState) state.getData(find(state, "RAM"))).getContents().set(3, 0x77);
+    // the next value is on D, but not yet clocked into the register
+    TestCircuits.setPin(state, "D", 0x33);
+    state.getPropagator().propagate();
+    tick(state);
+    TestCircuits.setPin(state, "D", 0x0f);
+    state.getPropagator().propagate();
+
+    final var restored = writeAndRead(state, text).restore();
+    assertSameState(state, restored);
+    assertEquals(Value.createKnown(8, 0x33), TestCircuits.getPin(restored, "Q"));
+    assertEquals(0x77, ((RamState) restored.getData(find(restored, "RAM"))).getContents().get(3));
+
+    tick(state);
+    tick(restored);
+    assertSameState(state, restored);
+    assertEquals(Value.createKnown(8, 0x0f), TestCircuits.getPin(restored, "Q"));
+  }
+
+  /** Checks that components at one location are told apart by their attributes, or rejected. */
+  @Test
+  public void testComponentsAtOneLocation() throws Exception {
+    // a circuit file cannot hold them, as reading it moves components apart
+    final var file = TestCircuits.load(registerAndRam(""));
+    final var project = new Project(file);
+    final var circuit = file.getMainCircuit();
+    final var ram = find(new CircuitState(project, circuit), "RAM");
+    final var attrs = (AttributeSet) ram.getAttributeSet().clone();
+    attrs.setValue(Mem.ADDR_ATTR, BitWidth.create(5));
+    add(circuit, ram.getFactory().createComponent(ram.getLocation(), attrs));
+    final var out = new ByteArrayOutputStream();
+    final var state = new CircuitState(project, circuit);
+    state.getPropagator().propagate();
+    assertDoesNotThrow(() -> CircuitStateSnapshot.take(state).write(out));
+
+    final var same = (AttributeSet) ram.getAttributeSet().clone();
+    add(circuit, ram.getFactory().createComponent(ram.getLocation(), same));
+    final var ambiguous = new CircuitState(project, circuit);
+    ambiguous.getPropagator().propagate();
+    assertThrows(IOException.class, () -> CircuitStateSnapshot.take(ambiguous).write(out));
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.cburch.logisim.TestCircuits;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.prefs.AppPreferences;
+import org.junit.jupiter.api.Test;
+
+public class HotSpotsTest {
+
+  /** Checks that activity is kept for one window after its own, and dropped after that. */
+  @Test
+  public void testWindowRollover() {
+    final var now = new long[] {10_000};
+    final var hotSpots = new HotSpots(() -> now[0]);
+    final var loc = Location.create(10, 20, false);
+    hotSpots.eventAt(loc);
+    hotSpots.eventAt(loc);
+    now[0] += HotSpots.WINDOW - 1;
+    assertEquals(2, hotSpots.snapshot().getEvents(loc));
+
+    // the first window becomes the previous one
+    now[0] += 1;
+    hotSpots.eventAt(loc);
+    assertEquals(3, hotSpots.snapshot().getEvents(loc));
+    assertEquals(3, hotSpots.snapshot().getTotalEvents());
+
+    // the first window is gone, the second one is the previous one
+    now[0] += HotSpots.WINDOW;
+    assertEquals(1, hotSpots.snapshot().getEvents(loc));
+
+    // after a quiet window, nothing is left
+    now[0] += 2 * HotSpots.WINDOW;
+    assertEquals(0, hotSpots.snapshot().getEvents(loc));
+    assertEquals(0, hotSpots.snapshot().getTotalEvents());
+  }
+
+  /** Checks that a snapshot keeps its windows while newer ones are started. */
+  @Test
+  public void testSnapshot() {
+    final var now = new long[] {0};
+    final var hotSpots = new HotSpots(() -> now[0]);
+    final var loc = Location.create(0, 0, false);
+    hotSpots.eventAt(loc);
+    final var snapshot = hotSpots.snapshot();
+    now[0] += 3 * HotSpots.WINDOW;
+    hotSpots.eventAt(loc);
+    hotSpots.eventAt(loc);
+    assertEquals(1, snapshot.getEvents(loc));
+    assertEquals(2, hotSpots.snapshot().getEvents(loc));
+  }
+
+  /**
+   * A circuit holding one instance of a circuit that holds an AND gate and one instance of a
+   * circuit that holds an OR gate. The instances are not wired; their pins are set inside.
+   */
+  private static String nested() {
+    final var or = new StringBuilder();
+    TestCircuits.gate(or, "OR Gate", 100, 100, 4);
+    TestCircuits.pin(or, 50, 80, "C", 4, false);
+    TestCircuits.pin(or, 50, 120, "D", 4, false);
+    final var and = new StringBuilder();
+    TestCircuits.gate(and, "AND Gate", 100, 100, 4);
+    TestCircuits.pin(and, 50, 80, "A", 4, false);
+    TestCircuits.pin(and, 50, 120, "B", 4, false);
+    and.append("<comp loc=\"(300,300)\" name=\"inner\"/>\n");
+    return TestCircuits.file(
+        "main", "<comp loc=\"(300,300)\" name=\"middle\"/>\n", "middle", and.toString(), "inner",
+        or.toString());
+  }
+
+  private static CircuitState getSubState(CircuitState state) {
+    assertEquals(1, state.getSubStates().size());
+    return state.getSubStates().iterator().next();
+  }
+
+  private static long totalEvents(CircuitState state) {
+    var ret = state.getHotSpots() == null ? 0 : state.getHotSpots().snapshot().getTotalEvents();
+    for (final var sub : state.getSubStates()) ret += totalEvents(sub);
+    return ret;
+  }
+
+  private static long totalNanos(CircuitState state) {
+    var ret = state.getHotSpots() == null ? 0 : state.getHotSpots().snapshot().getTotalNanos();
+    for (final var sub : state.getSubStates()) ret += totalNanos(sub);
+    return ret;
+  }
+
+  /**
+   * Checks that the activity recorded for a subcircuit component adds up everything recorded in
+   * its substates, at every depth.
+   */
+  @Test
+  public void testSubcircuitSums() throws Exception {
+    // hot spots shown on the canvas keep the counting on
+    assumeTrue(AppPreferences.HOT_SPOTS.get().equals(AppPreferences.HOT_SPOTS_NONE));
+    final var stats = SimulationStatistics.getInstance();
+    final var main = TestCircuits.simulate(nested());
+    final var middle = getSubState(main);
+    final var inner = getSubState(middle);
+    try {
+      stats.setEnabled(true);
+      for (var i = 0; i < 10; i++) {
+        TestCircuits.setPin(middle, "A", i);
+        TestCircuits.setPin(inner, "C", i);
+        main.getPropagator().propagate();
+      }
+    } finally {
+      stats.setEnabled(false);
+      stats.reset();
+    }
+    final var middleComp = middle.getSubcircuit();
+    final var innerComp = inner.getSubcircuit();
+    final var mainSpots = main.getHotSpots().snapshot();
+    final var middleSpots = middle.getHotSpots().snapshot();
+    assertTrue(totalEvents(inner) > 0);
+    assertTrue(totalEvents(middle) > totalEvents(inner));
+    assertEquals(totalEvents(inner), middleSpots.getSubcircuitEvents(innerComp));
+    assertEquals(totalNanos(inner), middleSpots.getSubcircuitNanos(innerComp));
+    assertEquals(totalEvents(middle), mainSpots.getSubcircuitEvents(middleComp));
+    assertEquals(totalNanos(middle), mainSpots.getSubcircuitNanos(middleComp));
+    assertEquals(0, mainSpots.getSubcircuitEvents(innerComp));
+  }
+}
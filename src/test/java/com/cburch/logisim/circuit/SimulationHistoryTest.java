@@ -0,0 +1,155 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestCircuits;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Options;
+import com.cburch.logisim.gui.log.SignalInfo;
+import com.cburch.logisim.instance.SnapshotData;
+import com.cburch.logisim.proj.Project;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+public class SimulationHistoryTest {
+
+  private static final Location CLOCK = Location.create(110, 140, false);
+  private static final long SEED = 0x1234_5678_9abc_def0L;
+
+  /** A register that takes the XOR of its own value and of the input pin D on every clock. */
+  private static String accumulator() {
+    final var buf = new StringBuilder();
+    TestCircuits.pin(buf, 40, 80, "D", 8, false);
+    TestCircuits.gate(buf, "XOR Gate", 100, 100, 8);
+    buf.append("<comp lib=\"4\" loc=\"(130,100)\" name=\"Register\">");
+    buf.append("<a name=\"width\" val=\"8\"/><a name=\"appearance\" val=\"classic\"/></comp>\n");
+    TestCircuits.wire(buf, 110, 120, 110, 140);
+    buf.append("<comp lib=\"0\" loc=\"(110,140)\" name=\"Clock\"/>\n");
+    TestCircuits.pin(buf, 130, 100, "Q", 8, true);
+    TestCircuits.wire(buf, 130, 100, 150, 100);
+    TestCircuits.wire(buf, 150, 100, 150, 160);
+    TestCircuits.wire(buf, 40, 160, 150, 160);
+    TestCircuits.wire(buf, 40, 120, 40, 160);
+    return TestCircuits.file(buf);
+  }
+
+  /** Creates a propagated state with random noise on, seeded the same way for every run. */
+  private static CircuitState start(String text) throws IOException {
+    final var file = TestCircuits.load(text);
+    final var project = new Project(file);
+    project.getOptions().getAttributeSet().setValue(Options.ATTR_SIM_RAND, 4);
+    final var state = new CircuitState(project, file.getMainCircuit());
+    state.getPropagator().setNoise(SEED, 0);
+    state.getPropagator().propagate();
+    return state;
+  }
+
+  /** Gives the next input, ticks and propagates, recording all of it as the simulator does. */
+  private static void step(CircuitState state, SimulationHistory history, int step) {
+    final var prop = state.getPropagator();
+    if (step % 3 == 0) TestCircuits.setPin(state, "D", (step * 37) & 0xff);
+    if (history != null) history.recordInputs();
+    prop.toggleClocks();
+    if (history != null) history.recordTick();
+    prop.propagate();
+    if (history != null) history.recordPropagation();
+  }
+
+  private static byte[] getRegisterBytes(CircuitState state) {
+    final var bytes = new ByteArrayOutputStream();
+    for (final var comp : state.getCircuit().getNonWires()) {
+      if (!comp.getFactory().getName().equals("Register")) continue;
+      try (final var out = new DataOutputStream(bytes)) {
+        ((SnapshotData) state.getData(comp)).writeSnapshot(out);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  private static void assertSameState(CircuitState expected, CircuitState actual) {
+    final var prop = expected.getPropagator();
+    assertEquals(prop.getTickCount(), actual.getPropagator().getTickCount());
+    assertEquals(prop.getNoiseSource(), actual.getPropagator().getNoiseSource());
+    assertEquals(prop.getNoiseCount(), actual.getPropagator().getNoiseCount());
+    assertEquals(TestCircuits.getPin(expected, "D"), TestCircuits.getPin(actual, "D"));
+    assertEquals(TestCircuits.getPin(expected, "Q"), TestCircuits.getPin(actual, "Q"));
+    assertEquals(expected.getValue(CLOCK), actual.getValue(CLOCK));
+    assertArrayEquals(getRegisterBytes(expected), getRegisterBytes(actual));
+  }
+
+  /** Checks that stepping back arrives in the state of a fresh run to the same tick. */
+  @Test
+  public void testStepBack() throws Exception {
+    final var text = accumulator();
+    final var state = start(text);
+    final var history = new SimulationHistory(state.getPropagator(), 16, 4);
+    history.recordPropagation();
+    var steps = 0;
+    while (steps < 40) step(state, history, ++steps);
+    assertNotEquals(SEED, state.getPropagator().getNoiseSource());
+    assertEquals(40, history.getReach());
+
+    assertTrue(history.stepBack(14));
+    steps -= 14;
+    final var fresh = start(text);
+    for (var i = 1; i <= steps; i++) step(fresh, null, i);
+    assertSameState(fresh, state);
+    assertNotEquals(Value.createKnown(8, 0), TestCircuits.getPin(state, "Q"));
+    assertEquals(26, history.getReach());
+
+    // the history goes on from where it stepped back to
+    while (steps < 45) {
+      step(state, history, ++steps);
+      step(fresh, null, steps);
+    }
+    assertSameState(fresh, state);
+    assertTrue(history.stepBack(100));
+    final var first = start(text);
+    assertSameState(first, state);
+  }
+
+  /**
+   * Checks that the logged value of the register is sampled again after stepping back to a
+   * checkpoint, which restores its data without propagating it.
+   */
+  @Test
+  public void testStepBackLogged() throws Exception {
+    final var text = accumulator();
+    final var state = start(text);
+    final var history = new SimulationHistory(state.getPropagator(), 16, 4);
+    history.recordPropagation();
+    final var register = TestCircuits.findComponent(state, "Register");
+    final var signal = new SignalInfo(state.getCircuit(), new Component[] {register}, null);
+    var steps = 0;
+    while (steps < 40) step(state, history, ++steps);
+    final var later = signal.fetchValueIfChanged(state);
+    assertNull(signal.fetchValueIfChanged(state));
+
+    assertTrue(history.stepBack(8));
+    final var fresh = start(text);
+    for (var i = 1; i <= 32; i++) step(fresh, null, i);
+    assertSameState(fresh, state);
+    final var logged = signal.fetchValueIfChanged(state);
+    assertEquals(TestCircuits.getPin(fresh, "Q"), logged);
+    assertNotEquals(later, logged);
+  }
+}
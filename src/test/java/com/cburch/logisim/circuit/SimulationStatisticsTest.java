@@ -0,0 +1,105 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.cburch.logisim.TestCircuits;
+import com.cburch.logisim.prefs.AppPreferences;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+
+public class SimulationStatisticsTest {
+
+  /** An AND gate from A and B to Y. */
+  private static String circuit() {
+    final var buf = new StringBuilder();
+    TestCircuits.gate(buf, "AND Gate", 100, 100, 4);
+    TestCircuits.pin(buf, 50, 80, "A", 4, false);
+    TestCircuits.pin(buf, 50, 120, "B", 4, false);
+    TestCircuits.pin(buf, 100, 100, "Y", 4, true);
+    return TestCircuits.file(buf);
+  }
+
+  /** Changes the inputs the given number of times, propagating after each change. */
+  private static void run(CircuitState state, int changes) {
+    for (var i = 0; i < changes; i++) {
+      TestCircuits.setPin(state, "A", i & 15);
+      TestCircuits.setPin(state, "B", ~i & 15);
+      state.getPropagator().propagate();
+    }
+  }
+
+  /** Returns the number of calls in the cost of the given name, or 0 if it has none. */
+  private static long calls(String[] costs, String name) {
+    return Arrays.stream(costs)
+        .filter(cost -> cost.startsWith(name + ": "))
+        .mapToLong(cost -> Long.parseLong(cost.substring(cost.lastIndexOf(' ') + 1)))
+        .sum();
+  }
+
+  /** Returns the time in ns in the cost of the given name, or 0 if it has none. */
+  private static long nanos(String[] costs, String name) {
+    return Arrays.stream(costs)
+        .filter(cost -> cost.startsWith(name + ": "))
+        .mapToLong(cost -> Long.parseLong(cost.split(" ")[1]))
+        .sum();
+  }
+
+  /**
+   * Checks that while enabled the simulation is counted, also as seen through JMX, and that once
+   * disabled it no longer is.
+   */
+  @Test
+  public void testCounting() throws Exception {
+    // hot spots shown on the canvas keep the counting on
+    assumeTrue(AppPreferences.HOT_SPOTS.get().equals(AppPreferences.HOT_SPOTS_NONE));
+    final var stats = SimulationStatistics.getInstance();
+    final var state = TestCircuits.simulate(circuit());
+    try {
+      stats.setEnabled(true);
+      stats.reset();
+      run(state, 20);
+      assertTrue(stats.isEnabled());
+      assertTrue(stats.getEventCount() > 0);
+      assertTrue(stats.getPropagationCount() >= 20);
+      assertTrue(stats.getComponentCount() > 0);
+      final var factoryCosts = stats.getFactoryCosts();
+      assertTrue(calls(factoryCosts, "AndGate") >= 20, Arrays.toString(factoryCosts));
+      assertTrue(nanos(factoryCosts, "AndGate") > 0, Arrays.toString(factoryCosts));
+      assertTrue(calls(stats.getCircuitCosts(), "main") > 0);
+      assertTrue(state.getHotSpots().snapshot().getTotalEvents() > 0);
+
+      final var server = ManagementFactory.getPlatformMBeanServer();
+      final var name = new ObjectName(SimulationStatistics.OBJECT_NAME);
+      assertEquals(stats.getEventCount(), server.getAttribute(name, "EventCount"));
+      assertEquals(true, server.getAttribute(name, "Enabled"));
+
+      stats.setEnabled(false);
+      assertFalse(stats.isEnabled());
+      final var events = stats.getEventCount();
+      final var propagations = stats.getPropagationCount();
+      final var calls = calls(stats.getFactoryCosts(), "AndGate");
+      run(state, 20);
+      assertEquals(events, stats.getEventCount());
+      assertEquals(propagations, stats.getPropagationCount());
+      assertEquals(calls, calls(stats.getFactoryCosts(), "AndGate"));
+      assertEquals(false, server.getAttribute(name, "Enabled"));
+    } finally {
+      stats.setEnabled(false);
+      stats.reset();
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestVectorTest extends TestBase {
+
+  @TempDir File tempDir;
+
+  private File write(String name, CharSequence text) throws IOException {
+    final var file = new File(tempDir, name);
+    Files.writeString(file.toPath(), text);
+    return file;
+  }
+
+  private static CharSequence counterVector(int rows) {
+    final var text = new StringBuilder("A[16] B # comment\n");
+    for (var i = 0; i < rows; i++) text.append(i & 0xffff).append(' ').append(i & 1).append('\n');
+    return text;
+  }
+
+  /** Checks that packed rows decode to the values the old per-cell parser produced. */
+  @Test
+  public void testRowsDecode() throws Exception {
+    final var file = write("small.txt", "# header\nA[8] B C[4]\n\n0x1f 1 10xx\n200 x 0x5 # end\n");
+    final var vec = new TestVector(file);
+    assertEquals(2, vec.getRowCount());
+    assertEquals(16, vec.columnRadix[0]);
+    assertEquals(2, vec.columnRadix[2]);
+    final var first = vec.getRow(0);
+    assertEquals(Value.fromLogString(BitWidth.create(8), "0x1f"), first[0]);
+    assertEquals(Value.TRUE, first[1]);
+    assertEquals(Value.fromLogString(BitWidth.create(4), "10xx"), first[2]);
+    final var second = vec.getRow(1);
+    assertEquals(Value.createKnown(8, 200), second[0]);
+    assertEquals(Value.UNKNOWN, second[1]);
+    assertEquals(Value.createKnown(4, 5), second[2]);
+  }
+
+  /** Checks that the tick column is split off and that dashes read as don't-cares. */
+  @Test
+  public void testClockedVector() throws Exception {
+    final var vec = new TestVector(write("seq.txt", "D[4] <ticks> Q[4]\n3 0 -\n- 2 3\n"));
+    assertTrue(vec.isClocked());
+    assertEquals(2, vec.columnName.length);
+    assertEquals("Q", vec.columnName[1]);
+    assertEquals(0, vec.getTicks(0));
+    assertEquals(2, vec.getTicks(1));
+    assertNull(vec.getRow(0)[1]);
+    assertNull(vec.getRow(1)[0]);
+    assertEquals(Value.createKnown(4, 3), vec.getRow(1)[1]);
+    assertThrows(IOException.class, () -> new TestVector(write("bad.txt", "A <ticks>\n1 -1\n")));
+  }
+
+  /** Checks that the radix of a column comes from its first value that is not a don't-care. */
+  @Test
+  public void testRadixAfterDontCare() throws Exception {
+    final var text = "D[8] <ticks> Q[8] C[4]\n- 0 - 0101\n0x10 1 - 3\n- 1 200 -\n";
+    final var vec = new TestVector(write("radix.txt", text));
+    assertEquals(16, vec.columnRadix[0]);
+    assertEquals(10, vec.columnRadix[1]);
+    assertEquals(2, vec.columnRadix[2]);
+  }
+
+  /** Checks that a streamed vector delivers every row in order while discarding consumed ones. */
+  @Test
+  public void testStreamingWithDiscard() throws Exception {
+    final var rows = 200_000;
+    final var vec = TestVector.stream(write("big.txt", counterVector(rows)), 0);
+    var row = 0;
+    while (vec.waitForRows(row, 1) > 0) {
+      final var data = vec.getRow(row);
+      assertEquals(Value.createKnown(16, row & 0xffff), data[0]);
+      vec.discardBefore(row);
+      row++;
+    }
+    assertEquals(rows, row);
+    assertTrue(vec.isComplete());
+    assertThrows(IllegalStateException.class, () -> vec.getRow(0));
+  }
+
+  /** Checks that a consumer may ask for as many rows ahead as it said without releasing any. */
+  @Test
+  public void testStreamingReadAhead() throws Exception {
+    final var rows = 100_000;
+    final var vec = TestVector.stream(write("ahead.txt", counterVector(rows)), rows);
+    assertEquals(1, vec.waitForRows(rows - 1, 1));
+    assertEquals(Value.createKnown(16, 0), vec.getRow(0)[0]);
+    assertEquals(Value.createKnown(16, (rows - 1) & 0xffff), vec.getRow(rows - 1)[0]);
+  }
+
+  /** Checks that rows before a format error are delivered and the error is reported after them. */
+  @Test
+  public void testStreamingReportsErrorInOrder() throws Exception {
+    final var text = new StringBuilder(counterVector(10)).append("12 2\n");
+    final var vec = TestVector.stream(write("bad.txt", text), 0);
+    assertEquals(10, vec.waitForRows(0, 100));
+    assertThrows(IOException.class, () -> vec.waitForRows(10, 1));
+    assertThrows(IOException.class, () -> new TestVector(write("bad2.txt", text)));
+  }
+}
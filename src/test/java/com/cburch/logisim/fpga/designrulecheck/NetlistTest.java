@@ -0,0 +1,148 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.designrulecheck;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestCircuits;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitMutation;
+import com.cburch.logisim.circuit.Wire;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.proj.Project;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class NetlistTest {
+
+  /** Groups the wires of a circuit into nets by walking from each wire to those at its ends. */
+  private static Set<Set<Wire>> getNaiveNets(Circuit circuit) {
+    final var atEnd = new HashMap<Location, List<Wire>>();
+    for (final var wire : circuit.getWires()) {
+      atEnd.computeIfAbsent(wire.getEnd0(), loc -> new ArrayList<>()).add(wire);
+      atEnd.computeIfAbsent(wire.getEnd1(), loc -> new ArrayList<>()).add(wire);
+    }
+    final var seen = new HashSet<Wire>();
+    final var ret = new HashSet<Set<Wire>>();
+    for (final var wire : circuit.getWires()) {
+      if (!seen.add(wire)) continue;
+      final var net = new HashSet<Wire>();
+      final var todo = new ArrayDeque<Wire>();
+      todo.add(wire);
+      while (!todo.isEmpty()) {
+        final var next = todo.remove();
+        net.add(next);
+        for (final var end : List.of(next.getEnd0(), next.getEnd1())) {
+          for (final var other : atEnd.get(end)) {
+            if (seen.add(other)) todo.add(other);
+          }
+        }
+      }
+      ret.add(net);
+    }
+    return ret;
+  }
+
+  private static Set<Set<Wire>> getWireNets(Circuit circuit) {
+    final var ret = new HashSet<Set<Wire>>();
+    for (final var net : circuit.getNetList().getWireNets()) ret.add(net.getWires());
+    return ret;
+  }
+
+  /** Checks the nets of the union-find against a walk over the wires, on random wirings. */
+  @Test
+  public void testWireNets() throws Exception {
+    final var random = new Random(41);
+    for (var round = 0; round < 20; round++) {
+      final var buf = new StringBuilder();
+      for (var i = 0; i < 10 + 10 * round; i++) {
+        final var x = 100 + 10 * random.nextInt(20);
+        final var y = 100 + 10 * random.nextInt(20);
+        final var length = 10 * (1 + random.nextInt(4));
+        if (random.nextBoolean()) {
+          TestCircuits.wire(buf, x, y, x + length, y);
+        } else {
+          TestCircuits.wire(buf, x, y, x, y + length);
+        }
+      }
+      final var circuit = TestCircuits.load(TestCircuits.file(buf)).getMainCircuit();
+      final var nets = getWireNets(circuit);
+      assertEquals(getNaiveNets(circuit), nets);
+      var wires = 0;
+      for (final var net : nets) wires += net.size();
+      assertEquals(circuit.getWires().size(), wires);
+    }
+  }
+
+  /** Checks that wires touching only at their ends make one net per chain. */
+  @Test
+  public void testWireChains() throws Exception {
+    final var buf = new StringBuilder();
+    for (var row = 0; row < 5; row++) {
+      final var y = 100 + 40 * row;
+      for (var x = 100; x < 300; x += 20) {
+        TestCircuits.wire(buf, x, y, x + 10, y);
+        TestCircuits.wire(buf, x + 10, y, x + 10, y + 10);
+        TestCircuits.wire(buf, x + 10, y + 10, x + 20, y + 10);
+        TestCircuits.wire(buf, x + 20, y + 10, x + 20, y);
+      }
+    }
+    final var circuit = TestCircuits.load(TestCircuits.file(buf)).getMainCircuit();
+    final var nets = circuit.getNetList().getWireNets();
+    assertEquals(5, nets.size());
+    for (final var net : nets) assertEquals(40, net.getWires().size());
+  }
+
+  /** Checks that a circuit is checked anew when a circuit it contains is edited, and only then. */
+  @Test
+  public void testCheckAfterSubcircuitEdit() throws Exception {
+    final var sub = new StringBuilder();
+    TestCircuits.pin(sub, 100, 100, "A", 1, false);
+    TestCircuits.wire(sub, 100, 100, 200, 100);
+    TestCircuits.pin(sub, 200, 100, "Y", 1, true);
+    final var main = new StringBuilder();
+    TestCircuits.pin(main, 240, 200, "Src", 1, false);
+    TestCircuits.wire(main, 240, 200, 270, 200);
+    main.append("<comp loc=\"(300,200)\" name=\"sub\"><a name=\"label\" val=\"S0\"/></comp>\n");
+    TestCircuits.wire(main, 300, 200, 340, 200);
+    TestCircuits.pin(main, 340, 200, "Dst", 1, true);
+    final var file =
+        TestCircuits.load(TestCircuits.file("main", main.toString(), "sub", sub.toString()));
+    final var circuit = file.getMainCircuit();
+    final var subcircuit = file.getCircuit("sub");
+    circuit.annotate(new Project(file), false, false);
+    final var netlist = circuit.getNetList();
+    assertEquals(Netlist.DRC_PASSED, netlist.designRuleCheckResult(true, new ArrayList<>()));
+    final var net = netlist.getAllNets().get(0);
+    final var subNet = subcircuit.getNetList().getAllNets().get(0);
+
+    assertEquals(Netlist.DRC_PASSED, netlist.designRuleCheckResult(true, new ArrayList<>()));
+    assertSame(net, netlist.getAllNets().get(0));
+    assertSame(subNet, subcircuit.getNetList().getAllNets().get(0));
+
+    final var xn = new CircuitMutation(subcircuit);
+    final var end = Location.create(200, 150, false);
+    xn.add(Wire.create(Location.create(200, 100, false), end));
+    xn.execute();
+    assertEquals(Netlist.DRC_PASSED, netlist.designRuleCheckResult(true, new ArrayList<>()));
+    assertTrue(subcircuit.getNetList().getAllNets().get(0).contains(end));
+    assertNotSame(subNet, subcircuit.getNetList().getAllNets().get(0));
+    assertNotSame(net, netlist.getAllNets().get(0));
+  }
+}
@@ -0,0 +1,258 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.download;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.cburch.logisim.TestCircuits;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.fpga.hdlgenerator.Hdl;
+import com.cburch.logisim.fpga.hdlgenerator.HdlGeneratorFactory;
+import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Clock;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HdlExportTest {
+
+  private static final int TICKS = 6;
+
+  @TempDir Path dir;
+
+  /** A register that takes the XOR of its own value and of the input pin Din on every clock. */
+  private static String accumulator() {
+    final var buf = new StringBuilder();
+    TestCircuits.pin(buf, 40, 80, "Din", 8, false);
+    TestCircuits.gate(buf, "XOR Gate", 100, 100, 8);
+    buf.append("<comp lib=\"4\" loc=\"(130,100)\" name=\"Register\">");
+    buf.append("<a name=\"width\" val=\"8\"/><a name=\"appearance\" val=\"classic\"/>");
+    buf.append("<a name=\"label\" val=\"acc\"/></comp>\n");
+    TestCircuits.wire(buf, 110, 120, 110, 140);
+    buf.append("<comp lib=\"0\" loc=\"(110,140)\" name=\"Clock\">");
+    buf.append("<a name=\"label\" val=\"clk\"/></comp>\n");
+    TestCircuits.pin(buf, 130, 100, "Q", 8, true);
+    TestCircuits.wire(buf, 130, 100, 150, 100);
+    TestCircuits.wire(buf, 150, 100, 150, 160);
+    TestCircuits.wire(buf, 40, 160, 150, 160);
+    TestCircuits.wire(buf, 40, 120, 40, 160);
+    return TestCircuits.file(buf);
+  }
+
+  private static String toBinary(long value, int width) {
+    final var bits = Long.toBinaryString(value | (1L << width));
+    return bits.substring(bits.length() - width);
+  }
+
+  private static List<String> readWords(Path file) throws Exception {
+    final var lines = Files.readAllLines(file);
+    assertTrue(lines.get(0).startsWith("// main "));
+    return lines.subList(1, lines.size());
+  }
+
+  private Path export(String hdlType) throws Exception {
+    final var file = TestCircuits.load(accumulator());
+    final var export =
+        new HdlExport(new Project(file), file.getMainCircuit(), dir.toString(), hdlType);
+    export.setTestbenchTicks(TICKS);
+    assertTrue(export.export());
+    // the language of the export is not left behind for the generators
+    assertEquals(AppPreferences.HdlType.get(), Hdl.getType());
+    return dir.resolve(hdlType.toLowerCase()).resolve("testbench");
+  }
+
+  /**
+   * Checks the memory files against the simulation worked out by hand: each tick the input takes
+   * the next random value, the clock changes, and on the rising edge the register takes the XOR.
+   */
+  private static void checkMemoryFiles(Path testbench) throws Exception {
+    final var random = new Random(0x5eed); // the seed of the export
+    final var stimulus = new ArrayList<String>();
+    final var expected = new ArrayList<String>();
+    var acc = 0L;
+    for (var tick = 1; tick <= TICKS; tick++) {
+      final var input = random.nextLong() & 0xff;
+      // the clock is low after an even number of ticks, high after an odd one
+      final var high = tick % 2 == 1;
+      if (high) acc ^= input;
+      stimulus.add(toBinary(input, 8) + (high ? "1" : "0"));
+      expected.add(toBinary(acc, 8));
+    }
+    assertEquals(stimulus, readWords(testbench.resolve("main_tb_stimulus.mem")));
+    assertEquals(expected, readWords(testbench.resolve("main_tb_expected.mem")));
+  }
+
+  private static String readTestbench(Path testbench) throws Exception {
+    try (final var files = Files.list(testbench)) {
+      final var hdl = files.filter(file -> !file.toString().endsWith(".mem")).sorted().toList();
+      final var text = new StringBuilder();
+      for (final var file : hdl) text.append(Files.readString(file));
+      return text.toString();
+    }
+  }
+
+  private static void assertContains(String text, String... parts) {
+    for (final var part : parts) assertTrue(text.contains(part), part);
+  }
+
+  @Test
+  public void testVerilogTestbench() throws Exception {
+    final var testbench = export(HdlGeneratorFactory.VERILOG);
+    checkMemoryFiles(testbench);
+    final var text = readTestbench(testbench);
+    assertContains(
+        text,
+        "module main_tb",
+        "$readmemb(\"main_tb_stimulus.mem\", tb_stimulus);",
+        "$readmemb(\"main_tb_expected.mem\", tb_expected);",
+        "reg [8:0] tb_stimulus [0:5];",
+        "reg [7:0] tb_expected [0:5];",
+        ".Din(s_Din),",
+        "s_Din = tb_stimulusWord[8:1];",
+        // the level of the one clock tree is a single bit of the word
+        "s_logisimClockTree0[0] = tb_stimulusWord[0];",
+        "tb_actualWord[7:0] = s_Q;",
+        "for (tb_tick = 0; tb_tick < 6; tb_tick = tb_tick + 1)");
+  }
+
+  @Test
+  public void testVhdlTestbench() throws Exception {
+    final var testbench = export(HdlGeneratorFactory.VHDL);
+    checkMemoryFiles(testbench);
+    // VHDL is not case sensitive, and the generator aligns port maps with spaces
+    final var text = readTestbench(testbench).replaceAll(" +", " ").toLowerCase();
+    assertContains(
+        text,
+        "entity main_tb is",
+        "file stimulusfile : text open read_mode is \"main_tb_stimulus.mem\";",
+        "file expectedfile : text open read_mode is \"main_tb_expected.mem\";",
+        "variable v_stimulusword : std_logic_vector( 8 downto 0 );",
+        "port map ( din => s_din,",
+        "s_din <= v_stimulusword(8 downto 1);",
+        "s_logisimclocktree0(0) <= v_stimulusword(0);",
+        "v_actualword(7 downto 0) := s_q;",
+        "for tick in 0 to 5 loop");
+  }
+
+  private static boolean isOnPath(String program) {
+    final var path = System.getenv("PATH");
+    if (path == null) return false;
+    for (final var directory : path.split(File.pathSeparator)) {
+      if (Files.isExecutable(Path.of(directory, program))) return true;
+    }
+    return false;
+  }
+
+  private static List<String> listSources(Path directory, String extension) throws Exception {
+    try (final var files = Files.walk(directory)) {
+      return files.map(Path::toString).filter(name -> name.endsWith(extension)).sorted().toList();
+    }
+  }
+
+  /** Runs a program in a directory and returns what it printed, checking its exit code if asked. */
+  private static String run(Path directory, boolean mustSucceed, List<String> command)
+      throws Exception {
+    final var process =
+        new ProcessBuilder(command).directory(directory.toFile()).redirectErrorStream(true).start();
+    final var output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    final var exitCode = process.waitFor();
+    if (mustSucceed) assertEquals(0, exitCode, String.join(" ", command) + "\n" + output);
+    return output;
+  }
+
+  /** Flips the first bit of the last expected word, which the testbench must then report. */
+  private static void breakExpected(Path testbench) throws Exception {
+    final var file = testbench.resolve("main_tb_expected.mem");
+    final var lines = new ArrayList<>(Files.readAllLines(file));
+    final var last = lines.get(lines.size() - 1);
+    lines.set(lines.size() - 1, (last.charAt(0) == '0' ? "1" : "0") + last.substring(1));
+    Files.write(file, lines);
+  }
+
+  private static void assertPassed(String output, boolean passed) {
+    assertTrue(output.contains("6 ticks, " + (passed ? "0" : "1") + " with mismatches"), output);
+    assertTrue(output.contains(passed ? "co-simulation passed" : "co-simulation FAILED"), output);
+  }
+
+  /** Runs the Verilog testbench through Icarus Verilog, if it is installed. */
+  @Test
+  public void testVerilogSimulation() throws Exception {
+    assumeTrue(isOnPath("iverilog") && isOnPath("vvp"), "Icarus Verilog is not on the PATH");
+    final var testbench = export(HdlGeneratorFactory.VERILOG);
+    final var compile = new ArrayList<>(List.of("iverilog", "-s", "main_tb", "-o", "main_tb.vvp"));
+    compile.addAll(listSources(dir.resolve("verilog"), ".v"));
+    run(testbench, true, compile);
+    assertPassed(run(testbench, true, List.of("vvp", "main_tb.vvp")), true);
+    breakExpected(testbench);
+    assertPassed(run(testbench, false, List.of("vvp", "main_tb.vvp")), false);
+  }
+
+  /** Runs the VHDL testbench through GHDL, if it is installed. */
+  @Test
+  public void testVhdlSimulation() throws Exception {
+    assumeTrue(isOnPath("ghdl"), "GHDL is not on the PATH");
+    final var testbench = export(HdlGeneratorFactory.VHDL);
+    final var analyze = new ArrayList<>(List.of("ghdl", "-i", "--ieee=synopsys"));
+    analyze.addAll(listSources(dir.resolve("vhdl"), ".vhd"));
+    run(testbench, true, analyze);
+    run(testbench, true, List.of("ghdl", "-m", "--ieee=synopsys", "main_tb"));
+    assertPassed(run(testbench, true, List.of("ghdl", "-r", "--ieee=synopsys", "main_tb")), true);
+    // a failed co-simulation ends with a failure, which makes GHDL exit with an error
+    breakExpected(testbench);
+    assertPassed(run(testbench, false, List.of("ghdl", "-r", "--ieee=synopsys", "main_tb")), false);
+  }
+
+  /** Checks the clock levels the testbench takes from Clock.isLow against those simulated. */
+  @Test
+  public void testClockLevels() throws Exception {
+    final var buf = new StringBuilder();
+    buf.append("<comp lib=\"0\" loc=\"(100,100)\" name=\"Clock\">");
+    buf.append("<a name=\"highDuration\" val=\"2\"/><a name=\"lowDuration\" val=\"3\"/>");
+    buf.append("<a name=\"phaseOffset\" val=\"6\"/></comp>\n");
+    TestCircuits.wire(buf, 100, 100, 140, 100);
+    TestCircuits.pin(buf, 140, 100, "C", 1, true);
+    final var state = TestCircuits.simulate(TestCircuits.file(buf));
+    final var attrs = state.getCircuit().getClocks().get(0).getAttributeSet();
+    final var levels = new StringBuilder();
+    for (var tick = 0; tick < 10; tick++) {
+      final var high = !Clock.isLow(attrs, state.getPropagator().getTickCount());
+      assertEquals(Value.createKnown(1, high ? 1 : 0), TestCircuits.getPin(state, "C"));
+      levels.append(high ? '1' : '0');
+      state.getPropagator().toggleClocks();
+      state.getPropagator().propagate();
+    }
+    // a phase of one full cycle and one tick starts a tick into the low part
+    assertEquals("0011000110", levels.toString());
+  }
+
+  /** Checks that a single bit of a vector is indexed rather than sliced. */
+  @Test
+  public void testSplitVector() {
+    try {
+      Hdl.setType(HdlGeneratorFactory.VHDL);
+      assertEquals("(3)", Hdl.splitVector(3, 3));
+      assertEquals("(7 DOWNTO 0)", Hdl.splitVector(7, 0).toUpperCase());
+      Hdl.setType(HdlGeneratorFactory.VERILOG);
+      assertEquals("[3]", Hdl.splitVector(3, 3));
+      assertEquals("[7:0]", Hdl.splitVector(7, 0));
+    } finally {
+      Hdl.setType(null);
+    }
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.fpga.hdlgenerator.Hdl;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HdlManifestTest {
+
+  @TempDir Path projectDir;
+
+  private String getSourceDir() {
+    return projectDir.resolve("vhdl").toString();
+  }
+
+  private static void write(HdlManifest manifest, String dir, String name, String body, long key) {
+    if (Hdl.isVhdl()) assertTrue(manifest.write(dir, name, true, List.of("entity " + name), key));
+    assertTrue(manifest.write(dir, name, false, List.of(body), key));
+  }
+
+  private List<String> getStatus() throws Exception {
+    final var ret = new ArrayList<String>();
+    for (final var line : Files.readAllLines(projectDir.resolve(HdlManifest.FILE_NAME))) {
+      if (line.startsWith("#")) continue;
+      final var fields = line.split(" ", 5);
+      ret.add(fields[0] + " " + fields[4]);
+    }
+    return ret;
+  }
+
+  private static String getName(String name) {
+    return "vhdl/" + FileWriter.getHdlFile("", name, false).getName();
+  }
+
+  /**
+   * Checks that files are kept for the key they were written for, written when their contents
+   * change, left alone when they do not, and removed when no longer exported.
+   */
+  @Test
+  public void testKeepAndWrite() throws Exception {
+    final var dir = getSourceDir();
+    var manifest = new HdlManifest(projectDir.toString());
+    assertFalse(manifest.keep(dir, "alpha", 1));
+    write(manifest, dir, "alpha", "a", 1);
+    write(manifest, dir, "beta", "b", 2);
+    write(manifest, dir, "gamma", "c", 3);
+    assertTrue(manifest.finish(List.of(dir)));
+    assertTrue(getStatus().contains("added " + getName("alpha")));
+    final var alpha = FileWriter.getHdlFile(dir, "alpha", false);
+    final var gamma = FileWriter.getHdlFile(dir, "gamma", false);
+
+    manifest = new HdlManifest(projectDir.toString());
+    assertTrue(manifest.keep(dir, "alpha", 1));
+    // a new key with the same contents leaves the file alone, other contents write it
+    assertFalse(manifest.keep(dir, "beta", 5));
+    write(manifest, dir, "beta", "b", 5);
+    assertFalse(manifest.keep(dir, "gamma", 6));
+    write(manifest, dir, "gamma", "c2", 6);
+    assertTrue(manifest.finish(List.of(dir)));
+    assertEquals("c2\n", Files.readString(gamma.toPath()));
+    final var status = getStatus();
+    assertTrue(status.contains("unchanged " + getName("alpha")));
+    assertTrue(status.contains("unchanged " + getName("beta")));
+    assertTrue(status.contains("changed " + getName("gamma")));
+
+    // a file touched since is not kept, and one no longer exported is removed
+    Files.writeString(alpha.toPath(), "edited");
+    manifest = new HdlManifest(projectDir.toString());
+    assertFalse(manifest.keep(dir, "alpha", 1));
+    write(manifest, dir, "alpha", "a", 1);
+    assertTrue(manifest.keep(dir, "beta", 5));
+    assertTrue(manifest.finish(List.of(dir)));
+    assertTrue(getStatus().contains("changed " + getName("alpha")));
+    assertTrue(getStatus().contains("removed " + getName("gamma")));
+    assertFalse(gamma.exists());
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.fpga.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.util.LineBuffer;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LineWriterTest {
+
+  @TempDir Path dir;
+
+  private static final List<String> ENTITY =
+      List.of(
+          "-- {{name}}: {{ comment }}",
+          "",
+          "LIBRARY ieee;",
+          "USE ieee.std_logic_1164.all;",
+          "",
+          "ENTITY {{name}} IS",
+          "   GENERIC ( {{generic}} : integer := {{width}} );",
+          "   PORT ( {{in}}  : IN  std_logic_vector( ({{generic}}-1) DOWNTO 0 );",
+          "          {{out}} : OUT std_logic_vector( ({{ generic }}-1) DOWNTO 0 ) );",
+          "END {{name}};",
+          "-- {{name}} again, and a lone {{ that is left alone",
+          "-- a price of 5 $ and a path C:\\temp, µ and é");
+
+  private static final Map<String, Object> PAIRS =
+      Map.of(
+          "name", "sample_entity",
+          "comment", "costs $1 \\ more",
+          "generic", "nrOfBits",
+          "width", 8,
+          "in", "dataIn",
+          "out", "dataOut");
+
+  /** The substitution of LineBuffer.applyPairs before it skipped lines without placeholders. */
+  private static String applyPairsAsBefore(String format) {
+    for (final var set : PAIRS.entrySet()) {
+      final var searchRegExp = String.format("\\{\\{\\s*%s\\s*\\}\\}", set.getKey());
+      final var replacement = Matcher.quoteReplacement(set.getValue().toString());
+      format = format.replaceAll(searchRegExp, replacement);
+    }
+    return format;
+  }
+
+  /** The placeholders as LineBuffer.extractPlaceholders found them before. */
+  private static List<String> extractPlaceholdersAsBefore(String fmt) {
+    final var keys = new ArrayList<String>();
+    final var pattern =
+        Pattern.compile("(\\{\\{.+?\\}\\})+", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+    final var matcher = pattern.matcher(fmt);
+    while (matcher.find()) {
+      for (var i = 1; i <= matcher.groupCount(); i++) {
+        final var key = matcher.group(i);
+        final var stripped = key.substring(2, key.length() - 2).strip();
+        if (!keys.contains(stripped)) keys.add(stripped);
+      }
+    }
+    return keys;
+  }
+
+  /** The bytes FileWriter.writeContents wrote before it used LineWriter. */
+  private static byte[] getBytesAsBefore(Path file, List<String> contents) throws IOException {
+    try (final var output = new FileOutputStream(file.toFile())) {
+      for (final var line : contents) {
+        if (!line.isEmpty()) output.write(line.getBytes());
+        output.write("\n".getBytes());
+      }
+    }
+    return Files.readAllBytes(file);
+  }
+
+  private static List<String> getSampleEntity() {
+    final var buffer = LineBuffer.getBuffer();
+    final var pairs = new LineBuffer.Pairs();
+    PAIRS.forEach(pairs::pair);
+    for (final var line : ENTITY) buffer.add(line, pairs);
+    return buffer.get();
+  }
+
+  /** Checks that the lines of a sample entity are substituted as they were before. */
+  @Test
+  public void testLineBufferAsBefore() {
+    final var expected = new ArrayList<String>();
+    for (final var line : ENTITY) expected.add(applyPairsAsBefore(line));
+    assertEquals(expected, getSampleEntity());
+    final var buffer = LineBuffer.getBuffer();
+    for (final var line : ENTITY) {
+      assertEquals(extractPlaceholdersAsBefore(line), buffer.extractPlaceholders(line), line);
+    }
+  }
+
+  /** Checks that the files written through LineWriter have the bytes of those written before. */
+  @Test
+  public void testSameBytesAsBefore() throws Exception {
+    final var entity = getSampleEntity();
+    final var large = new ArrayList<String>();
+    // enough lines to fill the buffer many times, and one line longer than the buffer
+    for (var i = 0; i < 20_000; i++) large.add(i % 7 == 0 ? "" : "line " + i + " é µ");
+    large.add("x".repeat(100_000));
+    large.add("");
+    for (final var contents : List.of(entity, large, List.<String>of())) {
+      final var expected = getBytesAsBefore(dir.resolve("before.vhd"), contents);
+      final var file = dir.resolve("after.vhd");
+      assertTrue(FileWriter.writeContents(file.toFile(), contents));
+      assertArrayEquals(expected, Files.readAllBytes(file));
+      final var bytes = new ByteArrayOutputStream();
+      try (final var writer = new LineWriter(Channels.newChannel(bytes))) {
+        writer.lines(contents);
+      }
+      assertArrayEquals(expected, bytes.toByteArray());
+    }
+  }
+}
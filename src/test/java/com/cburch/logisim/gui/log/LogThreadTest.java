@@ -0,0 +1,127 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.TestCircuits;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.data.Value;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LogThreadTest extends TestBase {
+
+  @TempDir File tempDir;
+
+  private CircuitState state;
+  private Model model;
+  private LogThread thread;
+  private File file;
+
+  /**
+   * Sets up a model logging the one input pin A of a circuit, and a writer thread that is not
+   * started yet, so that records stay queued until a test starts it.
+   */
+  private void setUp() throws Exception {
+    final var buf = new StringBuilder();
+    TestCircuits.pin(buf, 50, 80, "A", 16, false);
+    state = TestCircuits.simulate(TestCircuits.file(buf));
+    // the model's own thread only runs while it is selected, which it is never made here
+    model =
+        new Model(state) {
+          @Override
+          public boolean isSelected() {
+            return true;
+          }
+        };
+    thread = new LogThread(model);
+    file = new File(tempDir, "log.txt");
+    model.setFile(file);
+  }
+
+  /** Gives A the value i and records one step; each step queues one row. */
+  private void step(int i) {
+    TestCircuits.setPin(state, "A", i);
+    state.getPropagator().propagate();
+    model.propagationCompleted(false, true, true);
+  }
+
+  /** Stops the thread, waits for it to finish, and returns the rows of the file. */
+  private List<String> finish() throws Exception {
+    thread.cancel();
+    thread.join(10_000);
+    assertFalse(thread.isAlive());
+    final var lines = Files.readAllLines(file.toPath());
+    assertTrue(lines.get(0).startsWith("# mode: step"), lines.get(0));
+    assertEquals("A[15..0]", lines.get(1));
+    return lines.subList(2, lines.size());
+  }
+
+  /** Checks that the rows hold A = 0 to count - 1, in order. */
+  private void checkRows(List<String> rows, int count) {
+    assertEquals(count, rows.size());
+    final var signal = model.getSignal(0);
+    for (var i = 0; i < count; i++) {
+      final var row = rows.get(i);
+      assertEquals(signal.format(Value.createKnown(16, i)), row.substring(0, row.indexOf('\t')));
+    }
+  }
+
+  /** Checks that the records queued before the thread was stopped are all written. */
+  @Test
+  public void testDrainOnClose() throws Exception {
+    setUp();
+    final var steps = LogThread.QUEUE_SIZE / 2;
+    for (var i = 1; i < steps; i++) step(i);
+    assertTrue(thread.getQueueDepth() > steps);
+    thread.cancel();
+    thread.start();
+    checkRows(finish(), steps);
+    assertEquals(Files.size(file.toPath()), thread.getBytesWritten());
+  }
+
+  /**
+   * Checks that the simulation waits while the queue is full, and that once the thread runs every
+   * row reaches the file, in order.
+   */
+  @Test
+  public void testFullQueueBlocks() throws Exception {
+    setUp();
+    final var steps = LogThread.QUEUE_SIZE + 1000;
+    final var producer =
+        new Thread(
+            () -> {
+              for (var i = 1; i < steps; i++) step(i);
+            });
+    producer.start();
+    final var deadline = System.currentTimeMillis() + 10_000;
+    while (thread.getQueueDepth() < LogThread.QUEUE_SIZE && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(LogThread.QUEUE_SIZE, thread.getQueueDepth());
+    Thread.sleep(100);
+    assertTrue(producer.isAlive());
+    assertEquals(LogThread.QUEUE_SIZE, thread.getQueueDepth());
+
+    thread.start();
+    producer.join(10_000);
+    assertFalse(producer.isAlive());
+    checkRows(finish(), steps);
+    assertEquals(0, thread.getDroppedRows());
+    assertEquals(0, thread.getMergedRows());
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.TestCircuits;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Value;
+import org.junit.jupiter.api.Test;
+
+public class SignalInfoTest extends TestBase {
+
+  /** An AND gate from A and B to Y, and an input C wired to nothing. */
+  private static CircuitState simulate() throws Exception {
+    final var buf = new StringBuilder();
+    TestCircuits.gate(buf, "AND Gate", 100, 100, 4);
+    TestCircuits.pin(buf, 50, 80, "A", 4, false);
+    TestCircuits.pin(buf, 50, 120, "B", 4, false);
+    TestCircuits.pin(buf, 100, 100, "Y", 4, true);
+    TestCircuits.pin(buf, 50, 200, "C", 4, false);
+    return TestCircuits.simulate(TestCircuits.file(buf));
+  }
+
+  private static SignalInfo info(CircuitState state, String label) {
+    final var pin = TestCircuits.findPin(state, label).getComponent();
+    return new SignalInfo(state.getCircuit(), new Component[] {pin}, null);
+  }
+
+  /**
+   * Checks that a signal the simulation changed is read again, through the watch on its component
+   * alone, and that one it left alone is not.
+   */
+  @Test
+  public void testFetchValueIfChanged() throws Exception {
+    final var state = simulate();
+    final var y = info(state, "Y");
+    final var c = info(state, "C");
+    // the first fetch always reads the value, and the next ones only after a change
+    assertEquals(Value.createKnown(4, 0), y.fetchValueIfChanged(state));
+    assertEquals(Value.createKnown(4, 0), c.fetchValueIfChanged(state));
+    assertNull(y.fetchValueIfChanged(state));
+    assertNull(c.fetchValueIfChanged(state));
+
+    TestCircuits.setPin(state, "A", 0b1100);
+    TestCircuits.setPin(state, "B", 0b1010);
+    state.getPropagator().propagate();
+    assertEquals(Value.createKnown(4, 0b1000), y.fetchValueIfChanged(state));
+    assertNull(c.fetchValueIfChanged(state));
+    assertNull(y.fetchValueIfChanged(state));
+    assertEquals(Value.createKnown(4, 0b1000), y.fetchValue(state));
+
+    // another state is another simulation, read again in full
+    final var other = new CircuitState(state.getProject(), state.getCircuit());
+    other.getPropagator().propagate();
+    assertEquals(Value.createKnown(4, 0), y.fetchValueIfChanged(other));
+    assertNull(y.fetchValueIfChanged(other));
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.wiring.Pin;
+import java.util.ArrayList;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class SignalTest extends TestBase {
+
+  private static final int WIDTH = 40;
+
+  private static SignalInfo pinInfo() {
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.WIDTH, BitWidth.create(WIDTH));
+    final var pin = Pin.FACTORY.createComponent(Location.create(0, 0, false), attrs);
+    return new SignalInfo(new Circuit("main", null, null), new Component[] {pin}, null);
+  }
+
+  private static Value randomValue(Random rng) {
+    final var bits = rng.nextInt(4) == 0 ? rng.nextLong() : rng.nextInt(3);
+    return switch (rng.nextInt(10)) {
+      case 0 -> Value.createUnknown(BitWidth.create(WIDTH));
+      case 1 -> Value.createError(BitWidth.create(WIDTH));
+      default -> Value.createKnown(WIDTH, bits);
+    };
+  }
+
+  /**
+   * Checks the packed history against a plain list of (start, value) entries, under a random mix
+   * of the operations Model performs, including a history limit small enough to discard blocks.
+   */
+  @Test
+  public void testMatchesPlainHistory() {
+    final var rng = new Random(42);
+    for (final var limit : new int[] {0, 3000}) {
+      final var starts = new ArrayList<Long>();
+      final var values = new ArrayList<Value>();
+      var end = 10L;
+      final var first = randomValue(rng);
+      final var signal = new Signal(0, pinInfo(), first, 10, 0, limit);
+      starts.add(0L);
+      values.add(first);
+      for (var op = 0; op < 20_000; op++) {
+        signal.takeDirtyFrom();
+        final var d = 1 + (long) rng.nextInt(rng.nextInt(50) == 0 ? Integer.MAX_VALUE : 20);
+        final var v = rng.nextInt(3) == 0 ? values.get(values.size() - 1) : randomValue(rng);
+        if (rng.nextInt(5) == 0 && end - starts.get(starts.size() - 1) >= d) {
+          signal.replaceRecent(v, d);
+          final var lastStart = starts.get(starts.size() - 1);
+          if (end - lastStart > d) {
+            if (!values.get(values.size() - 1).equals(v)) {
+              starts.add(end - d);
+              values.add(v);
+            }
+          } else {
+            starts.remove(starts.size() - 1);
+            values.remove(values.size() - 1);
+            if (values.isEmpty() || !values.get(values.size() - 1).equals(v)) {
+              starts.add(lastStart);
+              values.add(v);
+            }
+          }
+        } else {
+          signal.extend(v, d);
+          if (!values.get(values.size() - 1).equals(v)) {
+            starts.add(end);
+            values.add(v);
+          }
+          end += d;
+        }
+        assertTrue(signal.takeDirtyFrom() <= end - d);
+        if (limit > 0 && values.size() > limit) {
+          starts.subList(0, values.size() - limit).clear();
+          values.subList(0, values.size() - limit).clear();
+        }
+      }
+      assertEquals(end, signal.getEndTime());
+      final var it = signal.new Iterator();
+      for (var i = 0; i < values.size(); i++) {
+        assertEquals(starts.get(i), it.time);
+        assertEquals(values.get(i), it.value);
+        assertEquals(i + 1 < values.size() ? starts.get(i + 1) : end, it.time + it.duration);
+        it.advance();
+      }
+      assertNull(it.value);
+      for (var k = 0; k < 2000; k++) {
+        final var i = rng.nextInt(values.size());
+        final var next = i + 1 < values.size() ? starts.get(i + 1) : end;
+        final var t = starts.get(i) + (long) (rng.nextDouble() * (next - starts.get(i)));
+        assertEquals(values.get(i), signal.getValue(t));
+        final var seek = signal.new Iterator(t);
+        assertEquals(i, seek.position);
+        assertEquals(next - t, seek.duration);
+        final var entry = signal.entryAt(t);
+        assertEquals(starts.get(i), entry.time);
+        assertEquals(next - starts.get(i), entry.duration);
+      }
+      assertNull(signal.getValue(end));
+      assertNull(signal.entryAt(end).value);
+    }
+  }
+}
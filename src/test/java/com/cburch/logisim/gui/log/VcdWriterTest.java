@@ -0,0 +1,47 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.cburch.logisim.TestBase;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Value;
+import java.io.File;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class VcdWriterTest extends TestBase {
+
+  @TempDir File tempDir;
+
+  /** Checks that only changes are written, each after the time it happened at. */
+  @Test
+  public void testOnlyChangesAreWritten() throws Exception {
+    final var file = new File(tempDir, "out.vcd").toPath();
+    try (final var vcd = new VcdWriter(file, "my circuit", "1 ns")) {
+      final var a = vcd.addSignal("a", 1);
+      final var b = vcd.addSignal("b", 4);
+      for (var t = 0; t < 4; t++) {
+        vcd.setTime(t * 10L);
+        vcd.change(a, t < 2 ? Value.FALSE : Value.TRUE);
+        vcd.change(b, t < 3 ? Value.createKnown(4, 5) : Value.createUnknown(BitWidth.create(4)));
+      }
+      assertThrows(IllegalStateException.class, () -> vcd.addSignal("c", 1));
+      assertThrows(IllegalArgumentException.class, () -> vcd.setTime(0));
+    }
+    final var text = Files.readString(file);
+    assertEquals(1, text.split("\\$scope module my_circuit ", -1).length - 1);
+    final var body = text.substring(text.indexOf("$enddefinitions $end\n") + 21);
+    assertEquals("#0\n0!\nb0101 \"\n#20\n1!\n#30\nbzzzz \"\n", body);
+  }
+}
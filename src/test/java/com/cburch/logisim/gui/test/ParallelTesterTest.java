@@ -0,0 +1,162 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.TestCircuits;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.data.FailException;
+import com.cburch.logisim.data.TestException;
+import com.cburch.logisim.data.TestVector;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.proj.Project;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ParallelTesterTest {
+
+  private static final String[] COLUMNS = {"D", "CLK", "A", "B", "Q", "Y"};
+  private static final int ROWS = 1000;
+  // rows whose expected Y or Q is wrong
+  private static final int BAD_Y = 37;
+  private static final int BAD_Q = 500;
+
+  @TempDir File tempDir;
+
+  /**
+   * A register loading D while the input CLK is high, with its value on Q, and beside it Y = A XOR
+   * B. Within one row the register sees no clock edge, so it is level triggered.
+   */
+  private static String circuit() {
+    final var buf = new StringBuilder();
+    TestCircuits.pin(buf, 100, 100, "D", 8, false);
+    buf.append("<comp lib=\"4\" loc=\"(130,100)\" name=\"Register\">");
+    buf.append("<a name=\"width\" val=\"8\"/><a name=\"appearance\" val=\"classic\"/>");
+    buf.append("<a name=\"trigger\" val=\"high\"/></comp>\n");
+    TestCircuits.wire(buf, 110, 120, 110, 140);
+    TestCircuits.pin(buf, 110, 140, "CLK", 1, false);
+    TestCircuits.pin(buf, 130, 100, "Q", 8, true);
+    TestCircuits.gate(buf, "XOR Gate", 300, 100, 4);
+    TestCircuits.pin(buf, 240, 80, "A", 4, false);
+    TestCircuits.pin(buf, 240, 120, "B", 4, false);
+    TestCircuits.pin(buf, 300, 100, "Y", 4, true);
+    return TestCircuits.file(buf);
+  }
+
+  /**
+   * Random rows. Every row starts from a reset, so Q holds D only when CLK is high in that row,
+   * and is 0 otherwise, whatever the rows before it loaded.
+   */
+  private TestVector vector() throws Exception {
+    final var random = new Random(28);
+    final var text = new StringBuilder("D[8] CLK A[4] B[4] Q[8] Y[4]\n");
+    for (var i = 0; i < ROWS; i++) {
+      final var d = random.nextInt(256);
+      final var clk = random.nextInt(2);
+      final var a = random.nextInt(16);
+      final var b = random.nextInt(16);
+      final var q = clk == 1 ? d : 0;
+      final var y = a ^ b;
+      text.append(
+          String.format(
+              "%d %d %d %d %d %d%n", d, clk, a, b, i == BAD_Q ? q ^ 1 : q, i == BAD_Y ? y ^ 1 : y));
+    }
+    final var file = new File(tempDir, "vector.txt");
+    Files.writeString(file.toPath(), text);
+    return new TestVector(file);
+  }
+
+  /** Returns the pins of the columns of the vector. */
+  private static Instance[] getPins(CircuitState state) {
+    final var pins = new Instance[COLUMNS.length];
+    for (var i = 0; i < pins.length; i++) pins[i] = TestCircuits.findPin(state, COLUMNS[i]);
+    return pins;
+  }
+
+  private static String describe(TestException result) {
+    if (result == null) return null;
+    final var ret = new StringBuilder();
+    if (result instanceof FailException fail) {
+      for (final var each : fail.getAll()) ret.append(each.getMessage()).append('\n');
+    } else {
+      ret.append(result.getMessage());
+    }
+    return ret.toString();
+  }
+
+  /** Checks that every row gives the same result on cloned states as on the project's one. */
+  @Test
+  public void testSameAsSequential() throws Exception {
+    final var file = TestCircuits.load(circuit());
+    final var project = new Project(file);
+    final var circuit = file.getMainCircuit();
+    final var state = project.getCircuitState(circuit);
+    final var pins = getPins(state);
+    final var vector = vector();
+    assertTrue(ParallelTester.canRunInParallel(circuit));
+
+    final var expected = new ArrayList<String>();
+    for (var i = 0; i < ROWS; i++) {
+      TestException result = null;
+      try {
+        circuit.doTestVector(project, pins, vector.getRow(i));
+      } catch (TestException e) {
+        result = e;
+      }
+      expected.add(describe(result));
+    }
+    assertNotNull(expected.get(BAD_Y));
+    assertNotNull(expected.get(BAD_Q));
+    assertNull(expected.get(BAD_Y + 1));
+    assertEquals(ROWS - 2, expected.stream().filter(result -> result == null).count());
+
+    final var rows = new ArrayList<Integer>();
+    final var actual = new ArrayList<String>();
+    new ParallelTester(circuit, pins, vector, state, 4)
+        .run(
+            (row, result) -> {
+              rows.add(row);
+              actual.add(describe(result));
+              return true;
+            });
+    final var order = new ArrayList<Integer>();
+    for (var i = 0; i < ROWS; i++) order.add(i);
+    assertEquals(order, rows);
+    for (var i = 0; i < ROWS; i++) assertEquals(expected.get(i), actual.get(i), "row " + i);
+  }
+
+  /** Checks that the handler can stop the run, and gets no rows after that. */
+  @Test
+  public void testStop() throws Exception {
+    final var file = TestCircuits.load(circuit());
+    final var project = new Project(file);
+    final var circuit = file.getMainCircuit();
+    final var state = project.getCircuitState(circuit);
+    final var pins = getPins(state);
+    final var rows = new ArrayList<Integer>();
+    new ParallelTester(circuit, pins, vector(), state, 4)
+        .run(
+            (row, result) -> {
+              rows.add(row);
+              return result == null;
+            });
+    assertEquals(List.of(BAD_Y), rows.subList(rows.size() - 1, rows.size()));
+    assertEquals(BAD_Y + 1, rows.size());
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.test;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.cburch.logisim.TestCircuits;
+import com.cburch.logisim.data.FailException;
+import com.cburch.logisim.data.TestVector;
+import com.cburch.logisim.proj.Project;
+import java.io.File;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestThreadTest {
+
+  @TempDir File tempDir;
+
+  /** An 8-bit counter clocked by a clock component, with its count on Q. */
+  private static String counter() {
+    final var buf = new StringBuilder();
+    buf.append("<comp lib=\"4\" loc=\"(130,100)\" name=\"Counter\">");
+    buf.append("<a name=\"width\" val=\"8\"/><a name=\"max\" val=\"0xff\"/>");
+    buf.append("<a name=\"appearance\" val=\"classic\"/></comp>\n");
+    TestCircuits.wire(buf, 110, 120, 110, 140);
+    buf.append("<comp lib=\"0\" loc=\"(110,140)\" name=\"Clock\"/>\n");
+    TestCircuits.pin(buf, 130, 100, "Q", 8, true);
+    return TestCircuits.file(buf);
+  }
+
+  private TestThread tester(String vector) throws Exception {
+    final var file = TestCircuits.load(counter());
+    final var path = new File(tempDir, "vector.txt");
+    Files.writeString(path.toPath(), vector);
+    return new TestThread(new Project(file), file.getMainCircuit(), new TestVector(path));
+  }
+
+  /**
+   * Checks that the rows of a clocked vector carry the count over: a reset before each row would
+   * bring Q back to 0 and then at most to the ticks of that row.
+   */
+  @Test
+  public void testClockedCounter() throws Exception {
+    final var tester = tester("<ticks> Q[8]\n0 0\n2 1\n2 2\n6 5\n0 5\n20 15\n");
+    for (var row = 0; row < 6; row++) tester.test(row);
+  }
+
+  @Test
+  public void testClockedCounterFails() throws Exception {
+    final var tester = tester("<ticks> Q[8]\n0 0\n2 1\n2 1\n");
+    tester.test(0);
+    tester.test(1);
+    assertThrows(FailException.class, () -> tester.test(2));
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.std.memory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.hex.HexModel;
+import com.cburch.hex.HexModelListener;
+import com.cburch.logisim.TestBase;
+import java.util.ArrayList;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class MemContentsTest extends TestBase {
+
+  private static MemContents createFilled(int addrBits, int width) {
+    final var mem = MemContents.create(addrBits, width, false);
+    for (long addr = 0; addr <= mem.getLastOffset(); addr += 7) mem.set(addr, addr + 1);
+    return mem;
+  }
+
+  /** Checks that a clone shares all pages until one of the copies is written. */
+  @Test
+  public void testCloneSharesPages() {
+    final var mem = createFilled(14, 8);
+    final var copy = mem.clone();
+    assertEquals(4, mem.getSharedPageCount());
+    assertEquals(4, copy.getSharedPageCount());
+    for (long addr = 0; addr <= mem.getLastOffset(); addr++) {
+      assertEquals(mem.get(addr), copy.get(addr));
+    }
+  }
+
+  /** Checks that writing to a clone copies only the touched page and leaves the source intact. */
+  @Test
+  public void testWriteCopiesOnlyTouchedPage() {
+    final var mem = createFilled(14, 16);
+    final var copy = mem.clone();
+    final var old = mem.get(5000);
+    copy.set(5000, 0x1234);
+    assertEquals(old, mem.get(5000));
+    assertEquals(0x1234, copy.get(5000));
+    assertEquals(3, copy.getSharedPageCount());
+    // the source is now the only holder of the page the clone gave up
+    assertEquals(3, mem.getSharedPageCount());
+    mem.set(5000, 0x4321);
+    assertEquals(0x1234, copy.get(5000));
+    assertEquals(3, mem.getSharedPageCount());
+  }
+
+  /** Checks that bulk writes and fills on a clone do not leak into the source. */
+  @Test
+  public void testBulkOperationsOnClone() {
+    final var mem = createFilled(13, 32);
+    final var snapshot = mem.clone();
+    final var copy = mem.clone();
+    copy.fill(100, 5000, 0xff);
+    copy.set(4000, new long[] {1, 2, 3, 4});
+    copy.copyFrom(0, snapshot, 7000, 10);
+    for (long addr = 0; addr <= mem.getLastOffset(); addr++) {
+      assertEquals(snapshot.get(addr), mem.get(addr));
+    }
+    assertEquals(snapshot.get(7000), copy.get(0));
+    assertEquals(0xff, copy.get(100));
+    assertEquals(3, copy.get(4002));
+  }
+
+  /** Checks that a clone of a clone keeps its own view of the shared pages. */
+  @Test
+  public void testNestedClones() {
+    final var mem = createFilled(12, 8);
+    final var first = mem.clone();
+    final var second = first.clone();
+    first.set(0, 0x55);
+    second.set(0, 0xaa);
+    assertEquals(1, mem.get(0));
+    assertEquals(0x55, first.get(0));
+    assertEquals(0xaa, second.get(0));
+    assertEquals(0, mem.getSharedPageCount());
+  }
+
+  /** Checks that off-heap pages store full-width values and are copied on write like heap ones. */
+  @Test
+  public void testOffHeapPages() {
+    for (final var width : new int[] {5, 8, 16, 31, 32, 64}) {
+      final var mask = width == 64 ? -1L : (1L << width) - 1;
+      final var mem = MemContents.create(16, width, false, true);
+      assertTrue(mem.isOffHeap());
+      mem.set(0x1234, -1L);
+      mem.set(0xfff0, 0x81);
+      final var copy = mem.clone();
+      copy.set(0x1234, 3);
+      assertEquals(mask, mem.get(0x1234));
+      assertEquals(3, copy.get(0x1234));
+      assertEquals(0x81 & mask, copy.get(0xfff0));
+      assertEquals(0, copy.get(0x4321));
+    }
+  }
+
+  /** Checks that listeners of the written copy are notified with the pre-write values. */
+  @Test
+  public void testListenerSeesOldValues() {
+    final var mem = createFilled(12, 8);
+    final var copy = mem.clone();
+    final long[][] reported = new long[1][];
+    final var listener =
+        new HexModelListener() {
+          @Override
+          public void bytesChanged(HexModel source, long start, long numBytes, long[] oldValues) {
+            reported[0] = oldValues;
+          }
+
+          @Override
+          public void metainfoChanged(HexModel source) {
+            // not needed here
+          }
+        };
+    copy.addHexModelListener(listener);
+    mem.set(14, 99);
+    assertNull(reported[0]);
+    copy.set(14, 42);
+    assertEquals(1, reported[0].length);
+    assertEquals(15, reported[0][0]);
+  }
+
+  /**
+   * Checks that walking a memory with nextNonZero finds the same addresses and values as reading
+   * every address, which is what the ROM generator did before.
+   */
+  @Test
+  public void testNextNonZero() {
+    final var random = new Random(44);
+    for (final var offHeap : new boolean[] {false, true}) {
+      for (final var addrBits : new int[] {3, 12, 13, 16}) {
+        final var mem = MemContents.create(addrBits, 8, false, offHeap);
+        final var last = mem.getLastOffset();
+        for (var i = 0; i < 40; i++) mem.set(random.nextInt((int) last + 1), random.nextInt(256));
+        mem.set(last, 0x100); // only the bits of the width count
+        mem.set(0, 7);
+        mem.set(0, 0); // written, but zero again
+        final var expected = new ArrayList<String>();
+        for (var addr = 0L; addr <= last; addr++) {
+          final var value = mem.get(addr);
+          if (value != 0L) expected.add(addr + ":" + value);
+        }
+        final var actual = new ArrayList<String>();
+        var addr = mem.nextNonZero(0);
+        while (addr >= 0) {
+          actual.add(addr + ":" + mem.get(addr));
+          addr = mem.nextNonZero(addr + 1);
+        }
+        assertEquals(expected, actual, addrBits + (offHeap ? " off heap" : ""));
+      }
+    }
+    assertEquals(-1, MemContents.create(16, 8, false).nextNonZero(0));
+  }
+}